@@ -0,0 +1,18 @@
+ECUXPLOT_VER := 0a4d-dirty
+SEM_VER ?= None
+ASSET_VER ?= 0a4d-dirty
+JPACKAGE_VER := None
+RC := dirty
+JCOMMON_VER := 1.0.23
+JFREECHART_VER := 1.0.19
+JFREESVG_VER := 5.0.6
+OPENCSV_VER := 5.12.0
+COMMONS_CLI_VER := 1.5.0
+COMMONS_LANG3_VER := 3.19.0
+SLF4J_API_VER := 2.0.9
+LOGBACK_CLASSIC_VER := 1.5.20
+LOGBACK_CORE_VER := 1.5.20
+FLATLAF_VER := 3.7.1
+JAVAC_VER := 17.0.9
+JAVAC_MAJOR_VER := 17
+JAVAC_MINOR_VER := 0
@@ -59,6 +59,7 @@ $(WIN_INSTALLER): $(EXES) $(INSTALL_FILES) ECUxPlot.sh scripts/ECUxPlot.nsi runt
 	    $(OPT_PRE)DJRE_DIR=$(JRE_DIR) \
 	    $(OPT_PRE)DVERSION=$(ECUXPLOT_VER) \
 	    $(OPT_PRE)DJFREECHART_VER=$(JFREECHART_VER) \
+	    $(OPT_PRE)DJFREESVG_VER=$(JFREESVG_VER) \
 	    $(OPT_PRE)DJCOMMON_VER=$(JCOMMON_VER) \
 	    $(OPT_PRE)DOPENCSV_VER=$(OPENCSV_VER) \
 	    $(OPT_PRE)DCOMMONS_CLI_VER=$(COMMONS_CLI_VER) \
@@ -131,7 +131,7 @@ def main():
 
     # Get JAR versions
     jar_names = [
-        "jcommon", "jfreechart", "opencsv", "commons-cli",
+        "jcommon", "jfreechart", "jfreesvg", "opencsv", "commons-cli",
         "commons-lang3", "slf4j-api",
         "logback-classic", "logback-core",
         "flatlaf"
@@ -11,7 +11,7 @@ ARCHIVE:=build/$(ASSET_FILENAME).tar.gz
 INSTALL_DIR:=/usr/local/ecuxplot
 INSTALL_FILES:= $(TARGET).jar mapdump.jar \
 		$(subst :, ,$(JARS)) README.md \
-		gpl-3.0.txt flanagan-license.txt
+		gpl-3.0.txt
 
 .PHONY: archive install tag
 archive $(ARCHIVE): all $(INSTALL_FILES) $(PROFILES) ECUxPlot.sh mapdump.sh build/version.txt Makefile
@@ -3,12 +3,13 @@ package org.nyet.ecuxplot;
 import org.nyet.logfile.Dataset;
 import org.nyet.logfile.Dataset.Column;
 import org.nyet.logfile.Dataset.ColumnType;
+import org.nyet.logfile.RangeIndex;
 import org.nyet.util.DoubleArray;
+import org.nyet.util.Pipeline;
 import org.nyet.util.Smoothing;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.util.ArrayList;
 import java.util.regex.Pattern;
 
 /**
@@ -196,9 +197,10 @@ public class AxisMenuHandlers {
             case "Calc Velocity": {
                 // Calculate vehicle speed from RPM and gear ratio (more accurate than VehicleSpeed sensor)
                 // Uses user-specified rpm_per_mph for calibration
+                final Vehicle vehicle = new Vehicle(dataset.getEnv());
                 final DoubleArray rpm = dataset.get("RPM").data;
-                return dataset.createColumn(id, UnitConstants.UNIT_MPS, rpm.div(dataset.getEnv().c.rpm_per_mph()).
-                    mult(UnitConstants.MPS_PER_MPH), ColumnType.VEHICLE_CONSTANTS);
+                return dataset.createColumn(id, UnitConstants.UNIT_MPS, rpm.func((r, unused) -> vehicle.mps(r)),
+                    ColumnType.VEHICLE_CONSTANTS);
             }
             case "Acceleration (RPM/s)": {
                 // Smoothed RPM acceleration - uses smoothed RPM with AccelMAW() smoothing applied via range-aware smoothing
@@ -256,8 +258,8 @@ public class AxisMenuHandlers {
                 final DoubleArray x = dataset.get("TIME").data;
                 final DoubleArray derivative = y.derivative(x).max(0);
                 // Convert RPM/s to m/s^2: derivative (RPM/s) / rpm_per_mph * MPS_PER_MPH
-                final DoubleArray accel = derivative.div(dataset.getEnv().c.rpm_per_mph()).
-                    mult(UnitConstants.MPS_PER_MPH);
+                final Vehicle vehicle = new Vehicle(dataset.getEnv());
+                final DoubleArray accel = derivative.func((r, unused) -> vehicle.mps(r));
                 return dataset.createColumn(id, "m/s^2", accel, ColumnType.VEHICLE_CONSTANTS);
             }
             case "Acceleration (m/s^2)": {
@@ -293,8 +295,8 @@ public class AxisMenuHandlers {
                 final DoubleArray x = dataset.get("TIME").data;
                 final DoubleArray derivative = y.derivative(x).max(0);  // No smoothing during derivative - will be smoothed in getData()
                 // Convert RPM/s to m/s^2: derivative (RPM/s) / rpm_per_mph * MPS_PER_MPH
-                final DoubleArray accel = derivative.div(dataset.getEnv().c.rpm_per_mph()).
-                    mult(UnitConstants.MPS_PER_MPH);
+                final Vehicle vehicle = new Vehicle(dataset.getEnv());
+                final DoubleArray accel = derivative.func((r, unused) -> vehicle.mps(r));
                 Column c = dataset.createColumn(id, "m/s^2", accel, ColumnType.VEHICLE_CONSTANTS);
                 // Register for range-aware smoothing to prevent edge artifacts when viewing truncated ranges
                 dataset.registerSmoothingWindow(idStr, dataset.getFilter().accelMAW());
@@ -481,10 +483,10 @@ public class AxisMenuHandlers {
                 } else {
                     // Filter enabled: calculate relative time to range start
                     final DoubleArray time = dataset.get("TIME").data;
-                    final ArrayList<Dataset.Range> ranges = dataset.getRanges();
+                    final RangeIndex ranges = dataset.getRangeIndex();
                     final double[] result = new double[dataset.length()];
                     for (int i = 0; i < dataset.length(); i++) {
-                        final Dataset.Range range = dataset.findRangeForIndex(ranges, i);
+                        final Dataset.Range range = ranges.rangeFor(i);
                         if (range != null) {
                             result[i] = time.get(i) - time.get(range.start);
                         } else {
@@ -509,10 +511,10 @@ public class AxisMenuHandlers {
                     return dataset.createColumn(id, UnitConstants.UNIT_SAMPLE, new DoubleArray(idx), ColumnType.PROCESSED_VARIANT);
                 } else {
                     // Filter enabled: calculate relative sample to range start
-                    final ArrayList<Dataset.Range> ranges = dataset.getRanges();
+                    final RangeIndex ranges = dataset.getRangeIndex();
                     final double[] result = new double[dataset.length()];
                     for (int i = 0; i < dataset.length(); i++) {
-                        final Dataset.Range range = dataset.findRangeForIndex(ranges, i);
+                        final Dataset.Range range = ranges.rangeFor(i);
                         if (range != null) {
                             result[i] = i - range.start;
                         } else {
@@ -986,21 +988,61 @@ public class AxisMenuHandlers {
     }
 
     /**
-     * Calculate aerodynamic drag power.
-     * Helper function moved from ECUxDataset to AxisMenuHandlers.
-     *
-     * @param dataset The ECUxDataset instance
-     * @param v Velocity array
-     * @return Drag power array
+     * Vehicle speed, drag and wheel power for one set of constants, per sample.
+     * The one place these formulas live: the Calc Velocity, Acceleration (m/s^2), WHP
+     * and Drag columns and {@link #whpPipeline} all use it, so the charted WHP and the
+     * fused WHP can't drift apart.
      */
-    private static DoubleArray drag(ECUxDataset dataset, DoubleArray v) {
-        final DoubleArray windDrag = v.pow(3).mult(0.5 * UnitConstants.AIR_DENSITY_STANDARD * dataset.getEnv().c.Cd() *
-            dataset.getEnv().c.FA());
+    static final class Vehicle {
+        private final double rpmPerMph;
+        private final double mass;
+        private final double windDrag;
+        private final double rollingDrag;
+        private final double sae;
+
+        Vehicle(Env env) {
+            final Constants c = env.c;
+            this.rpmPerMph = c.rpm_per_mph();
+            this.mass = c.mass();
+            this.windDrag = 0.5 * UnitConstants.AIR_DENSITY_STANDARD * c.Cd() * c.FA();
+            this.rollingDrag = c.rolling_drag() * c.mass() * UnitConstants.STANDARD_GRAVITY;
+            this.sae = env.sae.enabled() ? env.sae.correction() : 1.0;
+        }
+
+        /** @return Velocity in m/s at an RPM, or acceleration in m/s^2 at an RPM/s */
+        double mps(double rpm) {
+            return rpm / this.rpmPerMph * UnitConstants.MPS_PER_MPH;
+        }
+
+        /** @return Aerodynamic and rolling drag power in watts at velocity v (m/s) */
+        double drag(double v) {
+            return Math.pow(v, 3) * this.windDrag + v * this.rollingDrag;
+        }
 
-        final DoubleArray rollingDrag = v.mult(dataset.getEnv().c.rolling_drag() *
-            dataset.getEnv().c.mass() * UnitConstants.STANDARD_GRAVITY);
+        /** @return Wheel HP (SAE corrected if enabled) at acceleration a (m/s^2) and velocity v (m/s) */
+        double whp(double a, double v) {
+            final double watts = a * v * this.mass + drag(v);
+            return watts * (1.0 / UnitConstants.HP_PER_WATT) * this.sae;
+        }
+    }
 
-        return windDrag.add(rollingDrag);
+    /**
+     * Fused WHP for one range: RPM difference quotient, power and HPMAW smoothing in a
+     * single pass over RPM and TIME, without materializing Calc Velocity, Acceleration or WHP.
+     * Computes power with the same {@link Vehicle} as the "WHP" column smoothed by MAW in
+     * getData(), so the results match except within a window of the ends of the log, where
+     * the pipeline clamps reads instead of leaving points unsmoothed.
+     *
+     * @param dataset The ECUxDataset instance (must have an Env)
+     * @param window HPMAW window in samples, 0 for no smoothing
+     * @return Pipeline to run over RPM with TIME
+     */
+    public static Pipeline whpPipeline(ECUxDataset dataset, int window) {
+        final Vehicle vehicle = new Vehicle(dataset.getEnv());
+        return new Pipeline()
+            .derivative()
+            .map((rpm, dRpm) -> vehicle.whp(vehicle.mps(Math.max(dRpm, 0)), vehicle.mps(rpm)))
+            .maw(window);
     }
 
     /**
@@ -1016,7 +1058,7 @@ public class AxisMenuHandlers {
 
         switch (idStr) {
             case "WHP": {
-                // Uses: mass, Cd, FA, rolling_drag (via drag()), rpm_per_mph (via Calc Velocity)
+                // Uses: mass, Cd, FA, rolling_drag (via Vehicle.drag()), rpm_per_mph (via Calc Velocity)
                 // Depends on: Acceleration (m/s^2) [smoothed with AccelMAW()], Calc Velocity [from smoothed RPM]
                 // Smoothing: Applied in getData() using HPMAW() window
                 Column accelCol = dataset.get("Acceleration (m/s^2)");
@@ -1026,17 +1068,10 @@ public class AxisMenuHandlers {
                         accelCol != null, velocityCol != null);
                     return null;
                 }
-                final DoubleArray a = accelCol.data;
-                final DoubleArray v = velocityCol.data;
-                final DoubleArray whp = a.mult(v).mult(dataset.getEnv().c.mass()).
-                    add(drag(dataset, v));      // in watts
-
-                DoubleArray value = whp.mult(1.0 / UnitConstants.HP_PER_WATT);
+                final Vehicle vehicle = new Vehicle(dataset.getEnv());
+                final DoubleArray value = accelCol.data.func((a, v) -> vehicle.whp(a, v), velocityCol.data);
                 String l = UnitConstants.UNIT_HP;
-                if(dataset.getEnv().sae.enabled()) {
-                    value = value.mult(dataset.getEnv().sae.correction());
-                    l += " (SAE)";
-                }
+                if(dataset.getEnv().sae.enabled()) l += " (SAE)";
                 // Store unsmoothed data and record smoothing requirement
                 // Smoothing will be applied in getData() using MAW() window
                 Column c = dataset.createColumn(id, l, value, ColumnType.VEHICLE_CONSTANTS);
@@ -1078,9 +1113,9 @@ public class AxisMenuHandlers {
             }
             case "Drag": {
                 // Drag - Aerodynamic drag power
-                // Uses: Cd, FA, rolling_drag, mass (via drag()), rpm_per_mph (via Calc Velocity)
-                final DoubleArray v = dataset.get("Calc Velocity").data;
-                final DoubleArray dragPower = drag(dataset, v);
+                // Uses: Cd, FA, rolling_drag, mass (via Vehicle.drag()), rpm_per_mph (via Calc Velocity)
+                final Vehicle vehicle = new Vehicle(dataset.getEnv());
+                final DoubleArray dragPower = dataset.get("Calc Velocity").data.func((v, unused) -> vehicle.drag(v));
                 return dataset.createColumn(id, "HP", dragPower.mult(1.0 / UnitConstants.HP_PER_WATT), ColumnType.VEHICLE_CONSTANTS);
             }
             default: {
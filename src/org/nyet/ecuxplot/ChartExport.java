@@ -0,0 +1,368 @@
+package org.nyet.ecuxplot;
+
+import java.awt.geom.Rectangle2D;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.EnumSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.jfree.chart.ChartUtilities;
+import org.jfree.chart.JFreeChart;
+import org.jfree.chart.plot.XYPlot;
+import org.jfree.svg.SVGGraphics2D;
+import org.jfree.svg.SVGUtils;
+import org.nyet.logfile.Dataset;
+import org.nyet.util.Strings;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Headless batch export: renders every preset for every file to PNG and/or SVG
+ * without creating a window, menu or {@link ECUxChartPanel}.
+ *
+ * Each file is loaded once and shared by all presets. Series for a file are
+ * built and their values loaded while holding that file's dataset (columns are
+ * created on demand, so a dataset is not safe to read from two threads at once);
+ * layout and painting, which dominate, then run in parallel on a worker pool.
+ *
+ * Charts use the default light theme and palette, as in a report.
+ */
+public class ChartExport {
+    private static final Logger logger = LoggerFactory.getLogger(ChartExport.class);
+
+    public static final int DEFAULT_WIDTH = 1024;
+    public static final int DEFAULT_HEIGHT = 768;
+
+    public enum Format {
+        PNG, SVG;
+
+        public String extension() { return this.name().toLowerCase(); }
+
+        /**
+         * Parse a list of formats, e.g. <tt>png,svg</tt>.
+         * @throws IllegalArgumentException on an unknown format
+         */
+        public static Set<Format> parse(String spec) {
+            final Set<Format> ret = EnumSet.noneOf(Format.class);
+            for (final String s : spec.split(",")) {
+                if (s.trim().isEmpty()) continue;
+                try {
+                    ret.add(Format.valueOf(s.trim().toUpperCase()));
+                } catch (final IllegalArgumentException e) {
+                    throw new IllegalArgumentException("Unknown export format '" + s.trim() + "'");
+                }
+            }
+            if (ret.isEmpty()) throw new IllegalArgumentException("No export format given");
+            return ret;
+        }
+
+        /** @return SVG for a <tt>.svg</tt> file name, PNG otherwise */
+        public static Format of(File f) {
+            return f.getName().toLowerCase().endsWith("." + SVG.extension()) ? SVG : PNG;
+        }
+    }
+
+    /**
+     * What to plot: a snapshot of an {@link ECUxPreset}, so workers never touch
+     * preferences.
+     */
+    public static final class Spec {
+        public final String name;
+        public final Comparable<?> xkey;
+        public final Comparable<?>[][] ykeys;
+        public final boolean scatter;
+
+        public Spec(String name, Comparable<?> xkey, Comparable<?>[] ykeys0,
+                Comparable<?>[] ykeys1, boolean scatter) {
+            this.name = name;
+            this.xkey = xkey;
+            this.ykeys = new Comparable<?>[][] {
+                ykeys0 != null ? ykeys0 : new Comparable<?>[0],
+                ykeys1 != null ? ykeys1 : new Comparable<?>[0] };
+            this.scatter = scatter;
+        }
+
+        /**
+         * @throws IllegalArgumentException If there is no such preset
+         */
+        public static Spec of(String preset) {
+            if (!Arrays.asList(ECUxPreset.getPresets()).contains(preset))
+                throw new IllegalArgumentException("Unknown preset '" + preset + "'");
+            final ECUxPreset p = new ECUxPreset(preset);
+            if (p.xkey() == null)
+                throw new IllegalArgumentException("Preset '" + preset + "' has no X axis");
+            return new Spec(preset, p.xkey(), p.ykeys(0), p.ykeys(1), p.scatter());
+        }
+    }
+
+    /**
+     * Outcome of one chart.
+     */
+    public static final class Result {
+        public final Spec spec;
+        public final String fileId;
+        /** Files written, one per format, empty on error */
+        public final List<File> files;
+        public final long millis;
+        /** null on success */
+        public final Exception error;
+
+        Result(Spec spec, String fileId, List<File> files, long millis, Exception error) {
+            this.spec = spec;
+            this.fileId = fileId;
+            this.files = files;
+            this.millis = millis;
+            this.error = error;
+        }
+
+        public boolean ok() { return this.error == null; }
+
+        @Override
+        public String toString() {
+            return this.fileId + " " + this.spec.name + ": " +
+                (ok() ? this.files + " in " + this.millis + " ms" : this.error.getMessage());
+        }
+    }
+
+    private final Env env;
+    private final Filter filter;
+    private final int width;
+    private final int height;
+    private final Set<Format> formats;
+    private final int threads;
+
+    /**
+     * @param env Vehicle constants for calculated columns
+     * @param filter Filter used to find ranges in each file
+     * @param width Image width in pixels
+     * @param height Image height in pixels
+     * @param formats Formats to write for every chart
+     * @param threads Worker threads, at least one
+     */
+    public ChartExport(Env env, Filter filter, int width, int height,
+            Set<Format> formats, int threads) {
+        if (width <= 0 || height <= 0)
+            throw new IllegalArgumentException("Export size must be positive");
+        if (formats.isEmpty())
+            throw new IllegalArgumentException("No export format given");
+        this.env = env;
+        this.filter = filter;
+        this.width = width;
+        this.height = height;
+        this.formats = EnumSet.copyOf(formats);
+        this.threads = Math.max(1, threads);
+    }
+
+    /**
+     * Load files and render every spec for every file into a directory, as
+     * <tt>&lt;file&gt;-&lt;preset&gt;.&lt;format&gt;</tt>.
+     * @param specs What to plot
+     * @param paths Log files
+     * @param dir Output directory, created if missing
+     * @return One result per file and spec that was attempted, in file then spec order
+     */
+    public List<Result> run(List<Spec> specs, List<String> paths, File dir) throws IOException {
+        if (!dir.isDirectory() && !dir.mkdirs())
+            throw new IOException("Cannot create " + dir);
+        final ExecutorService pool = Executors.newFixedThreadPool(this.threads, r -> {
+            final Thread t = new Thread(r, "chart-export");
+            t.setDaemon(true);
+            return t;
+        });
+        try {
+            final long t0 = System.nanoTime();
+            final Map<String, ECUxDataset> datasets = load(paths, pool);
+            final List<Future<Result>> futures = new ArrayList<Future<Result>>();
+            for (final ECUxDataset data : datasets.values()) {
+                for (final Spec spec : specs) {
+                    futures.add(pool.submit(() -> export(spec, data, dir)));
+                }
+            }
+            final List<Result> results = new ArrayList<Result>();
+            for (final Future<Result> f : futures) results.add(get(f));
+            logger.info("Exported {} charts from {} files in {} ms", results.size(),
+                datasets.size(), (System.nanoTime() - t0) / 1000000);
+            return results;
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    /* one dataset per file, loaded in parallel; unreadable files are logged and left out */
+    private Map<String, ECUxDataset> load(List<String> paths, ExecutorService pool) {
+        final Map<String, Future<ECUxDataset>> futures = new LinkedHashMap<String, Future<ECUxDataset>>();
+        for (final String path : paths) {
+            futures.put(path, pool.submit(() -> new ECUxDataset(path, this.env, this.filter, 0)));
+        }
+        final Map<String, ECUxDataset> ret = new LinkedHashMap<String, ECUxDataset>();
+        for (final Map.Entry<String, Future<ECUxDataset>> e : futures.entrySet()) {
+            try {
+                final ECUxDataset data = e.getValue().get();
+                ret.put(data.getFileId(), data);
+            } catch (final InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                break;
+            } catch (final ExecutionException ex) {
+                logger.error("Error loading {}: {}", e.getKey(), ex.getCause().getMessage());
+            }
+        }
+        return ret;
+    }
+
+    private static Result get(Future<Result> f) {
+        try {
+            return f.get();
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Export interrupted", e);
+        } catch (final ExecutionException e) {
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    private Result export(Spec spec, ECUxDataset data, File dir) {
+        final long t0 = System.nanoTime();
+        final String stem = stem(data.getFileId()) + "-" + spec.name;
+        try {
+            final JFreeChart chart = createChart(spec, data);
+            final List<File> files = new ArrayList<File>();
+            for (final Format format : this.formats) {
+                final File out = new File(dir, stem + "." + format.extension());
+                write(chart, format, out, this.width, this.height);
+                files.add(out);
+            }
+            final Result r = new Result(spec, data.getFileId(), files, (System.nanoTime() - t0) / 1000000, null);
+            logger.debug("{}", r);
+            return r;
+        } catch (final Exception e) {
+            final Result r = new Result(spec, data.getFileId(), new ArrayList<File>(),
+                (System.nanoTime() - t0) / 1000000, e);
+            logger.error("{}", r);
+            return r;
+        }
+    }
+
+    private static String stem(String fileId) {
+        final int dot = fileId.lastIndexOf('.');
+        return dot > 0 ? fileId.substring(0, dot) : fileId;
+    }
+
+    /**
+     * Build a chart of one file, as the main window would show it with every
+     * range selected. Series values are loaded before this returns, so the chart
+     * can be drawn without touching the dataset.
+     * @param spec What to plot
+     * @param data The file
+     * @return The chart
+     */
+    public static JFreeChart createChart(Spec spec, ECUxDataset data) {
+        return createChart(spec, Arrays.asList(data));
+    }
+
+    /**
+     * Build a chart of several files, as the main window would show them with
+     * every range selected, see {@link #createChart(Spec, ECUxDataset)}.
+     * @param spec What to plot
+     * @param datasets The files, in legend order
+     * @return The chart
+     */
+    public static JFreeChart createChart(Spec spec, List<ECUxDataset> datasets) {
+        final JFreeChart chart = ECUxChartFactory.create2AxisChart(spec.scatter);
+        final XYPlot plot = chart.getXYPlot();
+        final List<String> files = new ArrayList<String>();
+        for (final ECUxDataset data : datasets) files.add(data.getFileId());
+        final ArrayList<String> title = new ArrayList<String>();
+
+        for (int axis = 0; axis < spec.ykeys.length; axis++) {
+            final ArrayList<ColumnXYDataset.Entry> entries = new ArrayList<ColumnXYDataset.Entry>();
+            final ArrayList<String> names = new ArrayList<String>();
+            final ArrayList<String> units = new ArrayList<String>();
+            for (final Comparable<?> ykey : spec.ykeys[axis]) {
+                for (final ECUxDataset data : datasets) {
+                    synchronized (data) {
+                        final Dataset.Key key = data.new Key(ykey.toString(), data);
+                        if (datasets.size() == 1) key.hideFilename();
+                        final List<ColumnXYDataset.Entry> series = ECUxChartFactory.getSeries(data, spec.xkey, key);
+                        if (series.isEmpty()) continue;
+                        for (final ColumnXYDataset.Entry e : series) {
+                            if (e.x != null) e.x.load().stats();
+                            if (e.y != null) e.y.load().stats();
+                        }
+                        entries.addAll(series);
+                        if (!names.contains(ykey.toString())) names.add(ykey.toString());
+                        final String u = data.units(ykey);
+                        if (u != null && u.length() > 0 && !units.contains(u)) units.add(u);
+                    }
+                }
+            }
+
+            final ColumnXYDataset d = (ColumnXYDataset) plot.getDataset(axis);
+            d.addSeries(entries);
+            ECUxChartFactory.reapplySeriesStrokes(chart, axis, files);
+            ECUxChartFactory.applyCustomAxisRange(chart, axis, d);
+            plot.getRangeAxis(axis).setLabel(Strings.join(",", units));
+            plot.getRangeAxis(axis).setVisible(d.getSeriesCount() > 0);
+            if (!names.isEmpty()) title.add(Strings.join(", ", names));
+        }
+
+        // X label of the first file that has the column
+        String xlabel = "";
+        for (final ECUxDataset data : datasets) {
+            synchronized (data) {
+                final String xunits = data.units(spec.xkey);
+                if (data.get(spec.xkey) == null || xunits == null) continue;
+                xlabel = data.getLabel(spec.xkey, false);
+                if (xlabel.indexOf(xunits) == -1) xlabel += " (" + xunits + ")";
+                break;
+            }
+        }
+        plot.getDomainAxis().setLabel(xlabel);
+
+        ECUxChartFactory.reapplySeriesColors(chart);
+        chart.setTitle(Strings.join(" and ", title));
+        ECUxChartFactory.applyChartTheme(chart);
+        return chart;
+    }
+
+    /**
+     * Write a chart to a file.
+     * @throws IOException On a write error
+     */
+    public static void write(JFreeChart chart, Format format, File out, int width, int height)
+            throws IOException {
+        // A level of detail picked for a panel would decimate at the wrong width
+        ECUxChartFactory.setLevelOfDetail(chart, 0);
+        switch (format) {
+            case PNG:
+                ChartUtilities.saveChartAsPNG(out, chart, width, height);
+                break;
+            case SVG:
+                // JFreeChart 1.0.x has no SVG support of its own; draw on JFreeSVG's Graphics2D
+                final SVGGraphics2D g2 = new SVGGraphics2D(width, height);
+                chart.draw(g2, new Rectangle2D.Double(0, 0, width, height));
+                SVGUtils.writeToSVG(out, g2.getSVGElement());
+                break;
+        }
+    }
+
+    /**
+     * @return Number of failed charts
+     */
+    public static int failures(Collection<Result> results) {
+        int n = 0;
+        for (final Result r : results) if (!r.ok()) n++;
+        return n;
+    }
+}
+
+// vim: set sw=4 ts=8 expandtab:
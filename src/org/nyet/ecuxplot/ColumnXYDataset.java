@@ -0,0 +1,816 @@
+package org.nyet.ecuxplot;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import java.util.function.Supplier;
+
+import org.jfree.data.DomainInfo;
+import org.jfree.data.DomainOrder;
+import org.jfree.data.Range;
+import org.jfree.data.RangeInfo;
+import org.jfree.data.xy.AbstractXYDataset;
+import org.jfree.data.xy.XYDomainInfo;
+import org.jfree.data.xy.XYRangeInfo;
+import org.nyet.logfile.Dataset;
+import org.nyet.util.DoubleArray;
+
+/**
+ * XYDataset whose series are views of dataset columns, used in place of
+ * DefaultXYDataset for the main chart.
+ *
+ * DefaultXYDataset needs a double[2][n] copy of every series. Here a series is
+ * a pair of {@link View}s over a range: unsmoothed columns are read straight
+ * from their storage, and only smoothed columns (which are computed anyway)
+ * hold an array of their own. {@link #getXValue} and {@link #getYValue} read
+ * primitives, so renderers never box.
+ *
+ * Series are keyed and replaced like DefaultXYDataset: adding a series whose
+ * key equals an existing one replaces it.
+ *
+ * Level of detail: for series whose X never decreases (time, or RPM within a
+ * range), {@link #setLevelOfDetail} lets the chart panel ask for about one
+ * bucket of samples per pixel of the visible domain. Each bucket is then shown
+ * as its first, minimum, maximum and last sample (M4), which draws the same
+ * line at that resolution. Bucket minima and maxima come from a pyramid of
+ * power of two buckets built once per series, so changing zoom is O(1) per item.
+ * The whole series is always exposed, so bounds and the Y extremes are unchanged,
+ * and points stay in X order.
+ *
+ * Bounds: each view caches its min, max and NaN count ({@link View#stats()}), and
+ * the dataset reports its domain and range bounds from them, so auto-ranging
+ * after a rebuild or a visibility change is O(series) rather than O(points).
+ */
+public class ColumnXYDataset extends AbstractXYDataset
+        implements XYDomainInfo, XYRangeInfo, DomainInfo, RangeInfo {
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * Read-only view of a column over a range, see {@link ECUxDataset#getView}.
+     * Smoothed views compute their values on first read, so views are cheap to
+     * create and compare.
+     */
+    public static final class View {
+        private final DoubleArray column;
+        private final int offset;
+        private final int length;
+        private final Object smoothing;         // what smooths the values, null if read from column
+        private Supplier<double[]> smoother;    // cleared once values are computed
+        private volatile double[] values;
+        private volatile Stats stats;
+
+        /** View of length values of column, starting at offset */
+        View(DoubleArray column, int offset, int length) {
+            this(column, offset, length, null, null);
+        }
+
+        /**
+         * View of the values smoother computes from length values of column starting at offset.
+         * @param smoothing Identifies the smoothing, for {@link #sameAs}
+         */
+        View(DoubleArray column, int offset, int length, Object smoothing, Supplier<double[]> smoother) {
+            this.column = column;
+            this.offset = offset;
+            this.length = length;
+            this.smoothing = smoothing;
+            this.smoother = smoother;
+        }
+
+        public int size() { return this.length; }
+
+        public double get(int i) {
+            if (this.smoothing == null) return this.column.get(this.offset + i);
+            final double[] v = this.values;
+            return v != null ? v[i] : smooth()[i];
+        }
+
+        /* smoothed views may be first read off the event thread, see load() */
+        private synchronized double[] smooth() {
+            if (this.values == null) {
+                this.values = this.smoother.get();
+                this.smoother = null;
+            }
+            return this.values;
+        }
+
+        /**
+         * Compute the values now rather than on first read, e.g. off the event thread.
+         * @return this view
+         */
+        public View load() {
+            if (this.smoothing != null && this.values == null) smooth();
+            return this;
+        }
+
+        /**
+         * @return Min, max and NaN count of the values, computed on first call.
+         * Views are per column, range and smoothing, so this is computed once per series.
+         */
+        public Stats stats() {
+            Stats st = this.stats;
+            if (st == null) {
+                double min = Double.POSITIVE_INFINITY, max = Double.NEGATIVE_INFINITY;
+                int nans = 0;
+                for (int i = 0; i < this.length; i++) {
+                    final double v = get(i);
+                    if (v != v) nans++;
+                    if (v < min) min = v;
+                    if (v > max) max = v;
+                }
+                this.stats = st = min <= max ? new Stats(min, max, this.length, nans) :
+                    new Stats(Double.NaN, Double.NaN, this.length, nans);
+            }
+            return st;
+        }
+
+        /** @return true if the view reads the column's storage rather than a copy */
+        public boolean isShared() { return this.smoothing == null; }
+
+        /** @return true if o reads the same column over the same samples with the same smoothing */
+        public boolean sameAs(View o) {
+            return o != null && this.column == o.column && this.offset == o.offset &&
+                this.length == o.length && this.smoothing == o.smoothing;
+        }
+    }
+
+    /**
+     * Summary of a view's values, see {@link View#stats()}.
+     */
+    public static final class Stats {
+        /** Smallest and largest non-NaN value; NaN if there are none */
+        public final double min;
+        public final double max;
+        /** Number of values, NaN included */
+        public final int count;
+        public final int nans;
+
+        Stats(double min, double max, int count, int nans) {
+            this.min = min;
+            this.max = max;
+            this.count = count;
+            this.nans = nans;
+        }
+
+        /** @return true if there is at least one non-NaN value */
+        public boolean hasValues() { return this.count > this.nans; }
+
+        @Override
+        public String toString() {
+            return "[" + this.min + ", " + this.max + "] n=" + this.count + " NaN=" + this.nans;
+        }
+    }
+
+    /**
+     * A series to show: key and views, see {@link #update}.
+     */
+    public static final class Entry {
+        public final Comparable<?> key;
+        public final View x;
+        public final View y;
+
+        public Entry(Comparable<?> key, View x, View y) {
+            this.key = key;
+            this.x = x;
+            this.y = y;
+        }
+    }
+
+    /**
+     * What {@link #update} changed.
+     */
+    public static final class Patch {
+        public final int added;
+        public final int removed;
+        public final int changed;
+        public final int kept;
+        /** Kept series changed position */
+        public final boolean moved;
+
+        Patch(int added, int removed, int changed, int kept, boolean moved) {
+            this.added = added;
+            this.removed = removed;
+            this.changed = changed;
+            this.kept = kept;
+            this.moved = moved;
+        }
+
+        /** @return true if nothing changed, so no event was sent */
+        public boolean isEmpty() { return this.added == 0 && this.removed == 0 && this.changed == 0 && !this.moved; }
+
+        /** @return true if series indices moved (series added, removed or reordered) */
+        public boolean isStructural() { return this.added != 0 || this.removed != 0 || this.moved; }
+
+        @Override
+        public String toString() {
+            return "+" + this.added + " -" + this.removed + " ~" + this.changed + " =" + this.kept +
+                (this.moved ? " (moved)" : "");
+        }
+    }
+
+    /** Smallest pyramid level (bucket of 2^level samples) worth decimating to: 4 points per 8 samples */
+    static final int MIN_LEVEL = 3;
+
+    /* what a series and its snapshots share, computed on first use by whichever thread needs it */
+    private static final class Index {
+        volatile Boolean ascending;     // X never decreases
+        int[][] minIndex;               // per level from MIN_LEVEL, index of the bucket's minimum Y
+        int[][] maxIndex;               // both guarded by this
+    }
+
+    private static final class Series {
+        final Comparable<?> key;
+        final View x;
+        final View y;
+        final int count;
+        private final Index index;
+        private int[][] minIndex;       // index.minIndex once the pyramid is used
+        private int[][] maxIndex;
+        int level;                      // 0: every sample
+        int items;
+
+        Series(Comparable<?> key, View x, View y) {
+            this.key = key;
+            this.x = x;
+            this.y = y;
+            this.count = x == null || y == null ? 0 : Math.min(x.size(), y.size());
+            this.index = new Index();
+            this.items = this.count;
+        }
+
+        /* copy with a level of detail of its own, see ColumnXYDataset.snapshot() */
+        Series(Series s) {
+            this.key = s.key;
+            this.x = s.x;
+            this.y = s.y;
+            this.count = s.count;
+            this.index = s.index;
+            this.minIndex = s.minIndex;
+            this.maxIndex = s.maxIndex;
+            this.level = s.level;
+            this.items = s.items;
+        }
+
+        boolean ascending() {
+            Boolean a = this.index.ascending;
+            if (a == null) {
+                boolean asc = true;
+                for (int i = 1; i < this.count && asc; i++) asc = this.x.get(i) >= this.x.get(i - 1);
+                this.index.ascending = a = asc;
+            }
+            return a;
+        }
+
+        /* sample shown as item: identity at level 0, otherwise first, min, max, last of each bucket */
+        int sample(int item) {
+            if (this.level == 0) return item;
+            final int bucket = item >> 2;
+            final int first = bucket << this.level;
+            switch (item & 3) {
+                case 0: return first;
+                case 3: return Math.min(first + (1 << this.level) - 1, this.count - 1);
+                default:
+                    final int a = this.minIndex[this.level - MIN_LEVEL][bucket];
+                    final int b = this.maxIndex[this.level - MIN_LEVEL][bucket];
+                    return (item & 3) == 1 ? Math.min(a, b) : Math.max(a, b);
+            }
+        }
+
+        /* index of first sample with x >= v (ascending series only) */
+        private int lowerBound(double v) {
+            int lo = 0, hi = this.count;
+            while (lo < hi) {
+                final int mid = (lo + hi) >>> 1;
+                if (this.x.get(mid) < v) lo = mid + 1;
+                else hi = mid;
+            }
+            return lo;
+        }
+
+        private int[] order;            // sample indices in X order, for X that is not ascending
+        private int[] cellStart;        // grid: cell c holds cellItems[cellStart[c]..cellStart[c+1])
+        private int[] cellItems;
+        private double gridX0, gridY0, gridDX, gridDY;
+        private int gridSide;
+
+        /* k-th sample in X order */
+        private int byX(int k) { return this.order == null ? k : this.order[k]; }
+
+        /* index of first sample in X order with x >= v */
+        private int lowerBoundByX(double v) {
+            if (ascending()) return lowerBound(v);
+            if (this.order == null) this.order = sortedByX();
+            int lo = 0, hi = this.order.length;
+            while (lo < hi) {
+                final int mid = (lo + hi) >>> 1;
+                if (this.x.get(this.order[mid]) < v) lo = mid + 1;
+                else hi = mid;
+            }
+            return lo;
+        }
+
+        /* non-NaN X samples sorted by X: merge sort of indices, no boxing */
+        private int[] sortedByX() {
+            int n = 0;
+            int[] a = new int[this.count];
+            for (int i = 0; i < this.count; i++) if (!Double.isNaN(this.x.get(i))) a[n++] = i;
+            a = java.util.Arrays.copyOf(a, n);
+            int[] b = new int[n];
+            for (int width = 1; width < n; width <<= 1) {
+                for (int lo = 0; lo < n; lo += width << 1) {
+                    final int mid = Math.min(lo + width, n), hi = Math.min(lo + (width << 1), n);
+                    int i = lo, j = mid, k = lo;
+                    while (i < mid && j < hi) b[k++] = this.x.get(a[j]) < this.x.get(a[i]) ? a[j++] : a[i++];
+                    while (i < mid) b[k++] = a[i++];
+                    while (j < hi) b[k++] = a[j++];
+                }
+                final int[] t = a; a = b; b = t;
+            }
+            return a;
+        }
+
+        /* coarse grid of about 4 samples per cell over the X/Y bounds, filled by counting sort */
+        private void buildGrid() {
+            final Stats xs = this.x.stats(), ys = this.y.stats();
+            final int side = (int)Math.max(1, Math.min(1024, Math.sqrt(this.count / 4.0)));
+            this.gridX0 = xs.min;
+            this.gridY0 = ys.min;
+            this.gridDX = xs.hasValues() && xs.max > xs.min ? (xs.max - xs.min) / side : 1;
+            this.gridDY = ys.hasValues() && ys.max > ys.min ? (ys.max - ys.min) / side : 1;
+            final int[] start = new int[side * side + 1];
+            final int[] cell = new int[this.count];
+            for (int i = 0; i < this.count; i++) {
+                cell[i] = cell(this.x.get(i), this.y.get(i), side);
+                if (cell[i] >= 0) start[cell[i] + 1]++;
+            }
+            for (int c = 0; c < side * side; c++) start[c + 1] += start[c];
+            final int[] fill = java.util.Arrays.copyOf(start, side * side);
+            final int[] items = new int[start[side * side]];
+            for (int i = 0; i < this.count; i++) if (cell[i] >= 0) items[fill[cell[i]]++] = i;
+            this.cellItems = items;
+            this.gridSide = side;
+            this.cellStart = start;
+        }
+
+        private int column(double x, int side) {
+            return (int)Math.max(0, Math.min(side - 1, Math.floor((x - this.gridX0) / this.gridDX)));
+        }
+
+        private int row(double y, int side) {
+            return (int)Math.max(0, Math.min(side - 1, Math.floor((y - this.gridY0) / this.gridDY)));
+        }
+
+        /* grid cell of a sample, -1 if either value is NaN */
+        private int cell(double x, double y, int side) {
+            if (Double.isNaN(x) || Double.isNaN(y)) return -1;
+            return row(y, side) * side + column(x, side);
+        }
+
+        /* normalized distance of sample i from (x, y); 1 is on the ellipse with radii rx, ry */
+        private double distance(int i, double x, double y, double rx, double ry) {
+            final double dx = (this.x.get(i) - x) / rx, dy = (this.y.get(i) - y) / ry;
+            return dx * dx + dy * dy;
+        }
+
+        /* see ColumnXYDataset.findNearest() */
+        int nearest(double x, double y, double rx, double ry, boolean grid) {
+            int best = -1;
+            double bestD = 1;
+            if (grid) {
+                if (this.cellStart == null) buildGrid();
+                final int side = this.gridSide;
+                final int c0 = column(x - rx, side), c1 = column(x + rx, side);
+                final int r0 = row(y - ry, side), r1 = row(y + ry, side);
+                for (int r = r0; r <= r1; r++) {
+                    for (int c = c0; c <= c1; c++) {
+                        final int cell = r * side + c;
+                        for (int k = this.cellStart[cell]; k < this.cellStart[cell + 1]; k++) {
+                            final int i = this.cellItems[k];
+                            final double d = distance(i, x, y, rx, ry);
+                            if (d <= bestD) { best = i; bestD = d; }
+                        }
+                    }
+                }
+            } else {
+                // Outwards in X order from x, until X alone is farther than the best so far
+                final int mid = lowerBoundByX(x);
+                final int n = this.order != null ? this.order.length : this.count;
+                for (int k = mid; k < n; k++) {
+                    final int i = byX(k);
+                    final double dx = (this.x.get(i) - x) / rx;
+                    if (dx * dx > bestD) break;
+                    final double d = distance(i, x, y, rx, ry);
+                    if (d <= bestD) { best = i; bestD = d; }
+                }
+                for (int k = mid - 1; k >= 0; k--) {
+                    final int i = byX(k);
+                    final double dx = (this.x.get(i) - x) / rx;
+                    if (dx * dx > bestD) break;
+                    final double d = distance(i, x, y, rx, ry);
+                    if (d <= bestD) { best = i; bestD = d; }
+                }
+            }
+            return best;
+        }
+
+        void setLevelOfDetail(double lower, double upper, int pixels) {
+            this.level = 0;
+            this.items = this.count;
+            if (pixels <= 0 || this.count < pixels << MIN_LEVEL || !ascending()) return;
+
+            final int visible = Math.max(lowerBound(upper) - lowerBound(lower), 1);
+            int level = 31 - Integer.numberOfLeadingZeros(Math.max(visible / pixels, 1));
+            if (level < MIN_LEVEL) return;
+            if (this.minIndex == null) pyramid();
+            level = Math.min(level, MIN_LEVEL + this.minIndex.length - 1);
+            this.level = level;
+            this.items = 4 * this.minIndex[level - MIN_LEVEL].length;
+        }
+
+        private void pyramid() {
+            synchronized (this.index) {
+                if (this.index.minIndex == null) buildPyramid();
+                this.minIndex = this.index.minIndex;
+                this.maxIndex = this.index.maxIndex;
+            }
+        }
+
+        private void buildPyramid() {
+            final List<int[]> mins = new ArrayList<int[]>(), maxs = new ArrayList<int[]>();
+            final int size = 1 << MIN_LEVEL;
+            int[] min = new int[(this.count + size - 1) / size], max = new int[min.length];
+            for (int b = 0; b < min.length; b++) {
+                final int from = b * size, to = Math.min(from + size, this.count);
+                int lo = from, hi = from;
+                for (int i = from + 1; i < to; i++) {
+                    lo = lower(lo, i);
+                    hi = higher(hi, i);
+                }
+                min[b] = lo;
+                max[b] = hi;
+            }
+            mins.add(min);
+            maxs.add(max);
+            // Each level pairs up the buckets of the one below
+            while (min.length > 1) {
+                final int[] pmin = min, pmax = max;
+                min = new int[(pmin.length + 1) / 2];
+                max = new int[min.length];
+                for (int b = 0; b < min.length; b++) {
+                    final int l = 2 * b, r = Math.min(2 * b + 1, pmin.length - 1);
+                    min[b] = lower(pmin[l], pmin[r]);
+                    max[b] = higher(pmax[l], pmax[r]);
+                }
+                mins.add(min);
+                maxs.add(max);
+            }
+            this.index.minIndex = mins.toArray(new int[0][]);
+            this.index.maxIndex = maxs.toArray(new int[0][]);
+        }
+
+        /* index of the smaller Y, ignoring NaN */
+        private int lower(int a, int b) {
+            final double ya = this.y.get(a), yb = this.y.get(b);
+            return Double.isNaN(ya) || yb < ya ? b : a;
+        }
+
+        private int higher(int a, int b) {
+            final double ya = this.y.get(a), yb = this.y.get(b);
+            return Double.isNaN(ya) || yb > ya ? b : a;
+        }
+    }
+
+    private final List<Series> series = new ArrayList<Series>();
+
+    /**
+     * Add a series, or replace the series with an equal key.
+     * @param x X values; null for an empty series
+     * @param y Y values; null for an empty series
+     */
+    public void addSeries(Comparable<?> key, View x, View y) {
+        put(key, x, y);
+        fireDatasetChanged();
+    }
+
+    /**
+     * Add or replace several series, like {@link #addSeries} for each, with one change event.
+     * @param entries The series; nothing happens if empty
+     */
+    public void addSeries(List<Entry> entries) {
+        if (entries.isEmpty()) return;
+        for (final Entry e : entries) put(e.key, e.x, e.y);
+        fireDatasetChanged();
+    }
+
+    private void put(Comparable<?> key, View x, View y) {
+        if (key == null) throw new IllegalArgumentException("Null 'key' argument");
+        final Series s = new Series(key, x, y);
+        final int i = indexOf(key);
+        if (i >= 0) this.series.set(i, s);
+        else this.series.add(s);
+    }
+
+    /**
+     * Make this dataset hold exactly the given series, in order, with at most one
+     * change event. A series whose key, label and views are the same as before is
+     * kept as it is, with its smoothed values and level of detail pyramid; other
+     * series are added, replaced or dropped.
+     * @param wanted The series to show; keys must be distinct
+     * @return What changed
+     */
+    public Patch update(List<Entry> wanted) {
+        final Map<String, Series> old = new HashMap<String, Series>();
+        for (final Series s : this.series) old.put(identity(s.key), s);
+
+        int added = 0, changed = 0, kept = 0;
+        final List<Series> next = new ArrayList<Series>(wanted.size());
+        for (final Entry e : wanted) {
+            final Series prev = old.remove(identity(e.key));
+            if (prev == null) {
+                added++;
+            } else if (same(prev.key, prev.x, prev.y, e)) {
+                next.add(prev);
+                kept++;
+                continue;
+            } else {
+                changed++;
+            }
+            next.add(new Series(e.key, e.x, e.y));
+        }
+        final int removed = old.size();
+        // Kept series in a new order still need an event, renderers index series by position
+        boolean moved = false;
+        if (added == 0 && removed == 0) {
+            for (int i = 0; i < next.size() && !moved; i++) {
+                final Series s = next.get(i);
+                moved = s != this.series.get(i) && this.series.contains(s);
+            }
+        }
+        final Patch patch = new Patch(added, removed, changed, kept, moved);
+        if (!patch.isEmpty()) {
+            this.series.clear();
+            this.series.addAll(next);
+            fireDatasetChanged();
+        }
+        return patch;
+    }
+
+    /* same label and views: update() keeps such a series as it is */
+    private static boolean same(Comparable<?> key, View x, View y, Entry e) {
+        return key.toString().equals(e.key.toString()) &&
+            x != null && x.sameAs(e.x) && y != null && y.sameAs(e.y);
+    }
+
+    /** @return The current series, for {@link #reuse} */
+    public List<Entry> getEntries() {
+        final List<Entry> out = new ArrayList<Entry>(this.series.size());
+        for (final Series s : this.series) out.add(new Entry(s.key, s.x, s.y));
+        return out;
+    }
+
+    /**
+     * Swap wanted series that {@link #update} would keep for the current ones, so
+     * their smoothed values are not computed again when the wanted views are loaded.
+     * Touches no dataset, so it can run off the event thread.
+     * @param wanted The series to show
+     * @param current The series shown, from {@link #getEntries}
+     * @return wanted, with unchanged series taken from current
+     */
+    public static List<Entry> reuse(List<Entry> wanted, List<Entry> current) {
+        final Map<String, Entry> old = new HashMap<String, Entry>();
+        for (final Entry e : current) old.put(identity(e.key), e);
+        final List<Entry> out = new ArrayList<Entry>(wanted.size());
+        for (final Entry e : wanted) {
+            final Entry prev = old.get(identity(e.key));
+            out.add(prev != null && same(prev.key, prev.x, prev.y, e) ? prev : e);
+        }
+        return out;
+    }
+
+    /* Dataset.Key has equals() but no hashCode(); identify keys by their parts */
+    private static String identity(Comparable<?> key) {
+        if (key instanceof Dataset.Key) {
+            final Dataset.Key k = (Dataset.Key)key;
+            return k.getFilename() + '\0' + k.getString() + '\0' + k.getRange();
+        }
+        return key.toString();
+    }
+
+    /** Remove the series with a key equal to the given one, if any */
+    public void removeSeries(Comparable<?> key) {
+        final int i = indexOf(key);
+        if (i >= 0) {
+            this.series.remove(i);
+            fireDatasetChanged();
+        }
+    }
+
+    /**
+     * Remove every series whose key equals the given one, with one change event.
+     * Unlike {@link #removeSeries}, the series key's equals() is used, so a String
+     * matches all Dataset.Keys with that column name.
+     * @return The number of series removed
+     */
+    public int removeAllSeries(Comparable<?> key) {
+        final int n = this.series.size();
+        this.series.removeIf(s -> s.key.equals(key));
+        final int removed = n - this.series.size();
+        if (removed > 0) fireDatasetChanged();
+        return removed;
+    }
+
+    /** Remove all series, with one change event */
+    public void removeAllSeries() {
+        if (this.series.isEmpty()) return;
+        this.series.clear();
+        fireDatasetChanged();
+    }
+
+    @Override
+    public int indexOf(@SuppressWarnings("rawtypes") Comparable key) {
+        // key.equals(), like DefaultXYDataset: a String matches Dataset.Keys with that column name
+        for (int i = 0; i < this.series.size(); i++) {
+            if (key.equals(this.series.get(i).key)) return i;
+        }
+        return -1;
+    }
+
+    @Override
+    public int getSeriesCount() { return this.series.size(); }
+
+    @Override
+    @SuppressWarnings("rawtypes")
+    public Comparable getSeriesKey(int s) { return this.series.get(s).key; }
+
+    /**
+     * Show about one bucket of samples per pixel of the given domain, see the
+     * class comment. Changes the item counts without a change event: call it
+     * just before drawing, with the axis range the chart is drawn with.
+     * @param lower Lower bound of the visible domain
+     * @param upper Upper bound of the visible domain
+     * @param pixels Width of the data area in pixels; 0 shows every sample
+     */
+    public void setLevelOfDetail(double lower, double upper, int pixels) {
+        for (final Series s : this.series) s.setLevelOfDetail(lower, upper, pixels);
+    }
+
+    /** @return Pyramid level series s is shown at: buckets of 2^level samples, 0 for every sample */
+    public int getLevel(int s) { return this.series.get(s).level; }
+
+    /**
+     * A copy of the series as they are now, to draw on another thread while this
+     * dataset changes. The copy has its own level of detail, shares the views and
+     * the level of detail pyramids, and no listeners.
+     */
+    public ColumnXYDataset snapshot() {
+        final ColumnXYDataset d = new ColumnXYDataset();
+        for (final Series s : this.series) d.series.add(new Series(s));
+        return d;
+    }
+
+    /** @return Number of samples in series s, regardless of level of detail */
+    public int getSampleCount(int s) { return this.series.get(s).count; }
+
+    /** Items are in X order when every series' X never decreases, which lets renderers skip to the visible items */
+    @Override
+    public DomainOrder getDomainOrder() {
+        for (final Series s : this.series) {
+            if (!s.ascending()) return DomainOrder.NONE;
+        }
+        return DomainOrder.ASCENDING;
+    }
+
+    /**
+     * Sample of series s nearest to (x, y), for tooltips and clicks. Distance is
+     * measured in units of rx and ry, so with the data per pixel of each axis times
+     * a pixel radius it is screen distance over that radius. Lines search outwards
+     * in X order from the sample nearest x (binary search; X that is not ascending
+     * is sorted once), stopping where X alone is farther than the best match;
+     * scatter plots search a coarse grid of the series' bounds built on first use.
+     * Either way nothing is allocated per lookup, and level of detail is ignored.
+     * @param rx Search radius in X units
+     * @param ry Search radius in Y units
+     * @param scatter Use the grid rather than X order
+     * @return The sample index (see {@link #getSampleX}), or -1 if none is within the radii
+     */
+    public int findNearest(int s, double x, double y, double rx, double ry, boolean scatter) {
+        final Series series = this.series.get(s);
+        if (series.count == 0 || !(rx > 0) || !(ry > 0)) return -1;
+        return series.nearest(x, y, rx, ry, scatter);
+    }
+
+    /** @return X of sample i of series s, regardless of level of detail */
+    public double getSampleX(int s, int i) { return this.series.get(s).x.get(i); }
+
+    /** @return Y of sample i of series s, regardless of level of detail */
+    public double getSampleY(int s, int i) { return this.series.get(s).y.get(i); }
+
+    /** @return Cached statistics of series s' Y values; empty for a series without values */
+    public Stats getYStats(int s) {
+        final Series series = this.series.get(s);
+        return series.y != null ? series.y.stats() : EMPTY;
+    }
+
+    private static final Stats EMPTY = new Stats(Double.NaN, Double.NaN, 0, 0);
+
+    /* bounds of the chosen series' X or Y values from their stats; null if there are none */
+    private Range bounds(List<?> keys, boolean y) {
+        double min = Double.POSITIVE_INFINITY, max = Double.NEGATIVE_INFINITY;
+        for (final Series s : this.series) {
+            if (s.x == null || s.y == null || (keys != null && !keys.contains(s.key))) continue;
+            final Stats st = (y ? s.y : s.x).stats();
+            if (!st.hasValues()) continue;
+            min = Math.min(min, st.min);
+            max = Math.max(max, st.max);
+        }
+        return min <= max ? new Range(min, max) : null;
+    }
+
+    @Override
+    public Range getDomainBounds(boolean includeInterval) { return bounds(null, false); }
+
+    @Override
+    public double getDomainLowerBound(boolean includeInterval) {
+        final Range r = getDomainBounds(includeInterval);
+        return r != null ? r.getLowerBound() : Double.NaN;
+    }
+
+    @Override
+    public double getDomainUpperBound(boolean includeInterval) {
+        final Range r = getDomainBounds(includeInterval);
+        return r != null ? r.getUpperBound() : Double.NaN;
+    }
+
+    @Override
+    public Range getDomainBounds(@SuppressWarnings("rawtypes") List visibleSeriesKeys, boolean includeInterval) {
+        return bounds(visibleSeriesKeys, false);
+    }
+
+    @Override
+    public Range getRangeBounds(boolean includeInterval) { return bounds(null, true); }
+
+    @Override
+    public double getRangeLowerBound(boolean includeInterval) {
+        final Range r = getRangeBounds(includeInterval);
+        return r != null ? r.getLowerBound() : Double.NaN;
+    }
+
+    @Override
+    public double getRangeUpperBound(boolean includeInterval) {
+        final Range r = getRangeBounds(includeInterval);
+        return r != null ? r.getUpperBound() : Double.NaN;
+    }
+
+    /**
+     * Y bounds of the visible series over xRange. Series that lie entirely within
+     * xRange (e.g. the domain is auto-ranged) use their cached stats; the others
+     * are scanned for the samples inside it.
+     */
+    @Override
+    public Range getRangeBounds(@SuppressWarnings("rawtypes") List visibleSeriesKeys, Range xRange,
+            boolean includeInterval) {
+        double min = Double.POSITIVE_INFINITY, max = Double.NEGATIVE_INFINITY;
+        for (final Series s : this.series) {
+            if (s.x == null || s.y == null || !visibleSeriesKeys.contains(s.key)) continue;
+            final Stats xs = s.x.stats();
+            if (xRange == null || (xs.hasValues() && xRange.contains(xs.min) && xRange.contains(xs.max))) {
+                final Stats ys = s.y.stats();
+                if (!ys.hasValues()) continue;
+                min = Math.min(min, ys.min);
+                max = Math.max(max, ys.max);
+            } else {
+                for (int i = 0; i < s.count; i++) {
+                    if (!xRange.contains(s.x.get(i))) continue;
+                    final double v = s.y.get(i);
+                    if (v < min) min = v;
+                    if (v > max) max = v;
+                }
+            }
+        }
+        return min <= max ? new Range(min, max) : null;
+    }
+
+    @Override
+    public int getItemCount(int s) { return this.series.get(s).items; }
+
+    @Override
+    public double getXValue(int s, int item) {
+        final Series series = this.series.get(s);
+        return series.x.get(series.sample(item));
+    }
+
+    @Override
+    public double getYValue(int s, int item) {
+        final Series series = this.series.get(s);
+        return series.y.get(series.sample(item));
+    }
+
+    @Override
+    public Number getX(int s, int item) { return getXValue(s, item); }
+
+    @Override
+    public Number getY(int s, int item) { return getYValue(s, item); }
+}
+
+// vim: set sw=4 ts=8 expandtab:
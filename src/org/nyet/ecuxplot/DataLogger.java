@@ -1684,14 +1684,16 @@ public class DataLogger {
         return combinedAliases;
     }
 
-    private static java.util.Map<String, String> getMe7AliasesMap() {
+    // Synchronized and published only once filled: files may be loaded in parallel (ChartExport)
+    private static synchronized java.util.Map<String, String> getMe7AliasesMap() {
         if (me7AliasesMap == null && loggerConfigs.containsKey("ME7_ALIASES")) {
             DataLoggerConfig me7Config = loggerConfigs.get("ME7_ALIASES");
-            me7AliasesMap = new java.util.HashMap<String, String>();
+            java.util.Map<String, String> map = new java.util.HashMap<String, String>();
             for (String[] alias : me7Config.parser.aliases) {
-                me7AliasesMap.put(alias[0], alias[1]);
+                map.put(alias[0], alias[1]);
             }
-            logger.debug("Initialized ME7_ALIASES map with {} entries", me7AliasesMap.size());
+            me7AliasesMap = map;
+            logger.debug("Initialized ME7_ALIASES map with {} entries", map.size());
         }
         return me7AliasesMap;
     }
@@ -12,13 +12,15 @@ import org.jfree.chart.plot.PlotOrientation;
 import org.jfree.chart.plot.CategoryPlot;
 import org.jfree.chart.axis.CategoryAxis;
 import org.jfree.chart.axis.NumberAxis;
+import org.jfree.chart.renderer.AbstractRenderer;
 import org.jfree.chart.renderer.xy.*;
 import org.jfree.chart.plot.XYPlot;
+import org.jfree.data.general.AbstractDataset;
 import org.jfree.data.xy.XYDataset;
-import org.jfree.data.xy.DefaultXYDataset;
 import org.nyet.logfile.Dataset;
 import org.nyet.util.Strings;
 import org.nyet.util.ThemeManager;
+import org.nyet.util.Timings;
 
 public class ECUxChartFactory {
     /**
@@ -58,11 +60,11 @@ public class ECUxChartFactory {
     private static JFreeChart create2AxisXYLineChart () {
         final JFreeChart chart = ChartFactory.createXYLineChart(
             "", "", "",
-            new DefaultXYDataset(), PlotOrientation.VERTICAL,
+            new ColumnXYDataset(), PlotOrientation.VERTICAL,
             true, true, false);
 
         final XYPlot plot = chart.getXYPlot();
-        addAxis(plot, "", new DefaultXYDataset(), 1, true, false);
+        addAxis(plot, "", new ColumnXYDataset(), 1, true, false);
 
         return chart;
     }
@@ -70,11 +72,11 @@ public class ECUxChartFactory {
     private static JFreeChart create2AxisScatterPlot () {
         final JFreeChart chart = ChartFactory.createScatterPlot(
             "", "", "",
-            new DefaultXYDataset(), PlotOrientation.VERTICAL,
+            new ColumnXYDataset(), PlotOrientation.VERTICAL,
             true, true, false);
 
         final XYPlot plot = chart.getXYPlot();
-        addAxis(plot, "", new DefaultXYDataset(), 1, false, true);
+        addAxis(plot, "", new ColumnXYDataset(), 1, false, true);
 
         return chart;
     }
@@ -95,6 +97,13 @@ public class ECUxChartFactory {
         plot.getRangeAxis(0).setVisible(false);
         plot.getRangeAxis(1).setVisible(false);
 
+        // No XYItemEntity per drawn point: ECUxChartPanel finds the point under
+        // the mouse with ColumnXYDataset.findNearest() instead
+        for (int i = 0; i < plot.getRendererCount(); i++) {
+            if (plot.getRenderer(i) instanceof AbstractRenderer)
+                ((AbstractRenderer) plot.getRenderer(i)).setBaseCreateEntities(false, false);
+        }
+
         applyChartTheme(chart);
 
         return chart;
@@ -157,7 +166,6 @@ public class ECUxChartFactory {
      */
     public static void applyCustomAxisRange(JFreeChart chart, int axisIndex, XYDataset dataset) {
         final XYPlot plot = chart.getXYPlot();
-        final NumberAxis axis = (NumberAxis) plot.getRangeAxis(axisIndex);
 
         if (dataset == null || dataset.getSeriesCount() == 0) {
             return;
@@ -177,6 +185,17 @@ public class ECUxChartFactory {
                 continue;
             }
 
+            // Cached per-series stats: O(series) rather than O(points)
+            if (dataset instanceof ColumnXYDataset) {
+                final ColumnXYDataset.Stats stats = ((ColumnXYDataset) dataset).getYStats(series);
+                if (stats.hasValues()) {
+                    minValue = Math.min(minValue, stats.min);
+                    maxValue = Math.max(maxValue, stats.max);
+                    hasData = true;
+                }
+                continue;
+            }
+
             for (int item = 0; item < dataset.getItemCount(series); item++) {
                 double yValue = dataset.getYValue(series, item);
                 if (!Double.isNaN(yValue)) {
@@ -191,6 +210,19 @@ public class ECUxChartFactory {
             return;
         }
 
+        setAxisRange(chart, axisIndex, minValue, maxValue);
+    }
+
+    /**
+     * Set a Y axis range from precomputed data bounds, as applyCustomAxisRange() would.
+     * @param chart The chart containing the axis
+     * @param axisIndex The axis index
+     * @param minValue Smallest visible Y value
+     * @param maxValue Largest visible Y value
+     */
+    public static void setAxisRange(JFreeChart chart, int axisIndex, double minValue, double maxValue) {
+        final NumberAxis axis = (NumberAxis) chart.getXYPlot().getRangeAxis(axisIndex);
+
         // Calculate custom range with padding
         double[] range = calculateAxisRange(minValue, maxValue, 0.05); // 5% padding
 
@@ -199,6 +231,30 @@ public class ECUxChartFactory {
         axis.setAutoRange(false);
     }
 
+    /**
+     * Pick the level of detail of the chart's line series for its current domain
+     * range, see {@link ColumnXYDataset#setLevelOfDetail}. Call it before every
+     * draw: with the data area width on screen, or 0 before an off-screen draw
+     * (export) so every sample is drawn.
+     * @param chart The chart, drawn next
+     * @param pixels Width of the data area the chart is drawn in; 0 for every sample
+     */
+    public static void setLevelOfDetail(JFreeChart chart, int pixels) {
+        if (chart == null || !(chart.getPlot() instanceof XYPlot)) return;
+        final XYPlot plot = chart.getXYPlot();
+        final org.jfree.chart.axis.ValueAxis domain = plot.getDomainAxis();
+        if (domain == null) return;
+        for (int i = 0; i < plot.getDatasetCount(); i++) {
+            if (!(plot.getDataset(i) instanceof ColumnXYDataset)) continue;
+            // Shapes mark every sample, so only decimate series drawn as lines alone
+            final XYItemRenderer r = plot.getRenderer(i);
+            final boolean linesOnly = r instanceof XYLineAndShapeRenderer &&
+                !((XYLineAndShapeRenderer)r).getBaseShapesVisible();
+            ((ColumnXYDataset)plot.getDataset(i)).setLevelOfDetail(
+                domain.getLowerBound(), domain.getUpperBound(), linesOnly ? pixels : 0);
+        }
+    }
+
     /**
      * Re-apply series colors to all series on all axes of the chart.
      * Used when the color palette changes without rebuilding data.
@@ -206,8 +262,8 @@ public class ECUxChartFactory {
     public static void reapplySeriesColors(JFreeChart chart) {
         final XYPlot plot = chart.getXYPlot();
         for (int axis = 0; axis < plot.getDatasetCount(); axis++) {
-            if (!(plot.getDataset(axis) instanceof DefaultXYDataset)) continue;
-            final DefaultXYDataset d = (DefaultXYDataset) plot.getDataset(axis);
+            if (!(plot.getDataset(axis) instanceof ColumnXYDataset)) continue;
+            final ColumnXYDataset d = (ColumnXYDataset) plot.getDataset(axis);
             if (d.getSeriesCount() == 0) continue;
 
             final Color colors[][] = ThemeManager.getSeriesColors();
@@ -255,7 +311,7 @@ public class ECUxChartFactory {
 
     // set all series of a given ykey different shades of a base paint
     public static void setAxisPaint(JFreeChart chart, int axis,
-        DefaultXYDataset d, Dataset.Key ykey, Integer[] series) {
+        ColumnXYDataset d, Dataset.Key ykey, Integer[] series) {
 
         final XYPlot plot = chart.getXYPlot();
         final XYItemRenderer renderer = plot.getRenderer(axis);
@@ -282,30 +338,48 @@ public class ECUxChartFactory {
             renderer.setSeriesPaint(series[i], c);
     }
 
+    // one stroke per file
+    private static final java.awt.Stroke STROKES[] = {
+        new java.awt.BasicStroke(1.0f),
+        new java.awt.BasicStroke(
+            1.0f, java.awt.BasicStroke.CAP_ROUND, java.awt.BasicStroke.JOIN_ROUND,
+            1.0f, new float[] {3.0f, 3.0f}, 0.0f
+        ),
+        new java.awt.BasicStroke(
+            1.0f, java.awt.BasicStroke.CAP_ROUND, java.awt.BasicStroke.JOIN_ROUND,
+            1.0f, new float[] {6.0f, 6.0f}, 0.0f
+        ),
+        new java.awt.BasicStroke(
+            1.0f, java.awt.BasicStroke.CAP_ROUND, java.awt.BasicStroke.JOIN_ROUND,
+            1.0f, new float[] {6.0f, 3.0f, 1.0f, 3.0f}, 0.0f
+        )
+    };
+
     // set all series for a given filename to the same stroke
     public static void setAxisStroke(JFreeChart chart, int axis,
-        DefaultXYDataset d, Dataset.Key ykey, Integer[] series, int index) {
+        ColumnXYDataset d, Dataset.Key ykey, Integer[] series, int index) {
         final XYPlot plot = chart.getXYPlot();
         final XYItemRenderer renderer = plot.getRenderer(axis);
 
-        final java.awt.Stroke strokes[] = {
-            new java.awt.BasicStroke(1.0f),
-            new java.awt.BasicStroke(
-                1.0f, java.awt.BasicStroke.CAP_ROUND, java.awt.BasicStroke.JOIN_ROUND,
-                1.0f, new float[] {3.0f, 3.0f}, 0.0f
-            ),
-            new java.awt.BasicStroke(
-                1.0f, java.awt.BasicStroke.CAP_ROUND, java.awt.BasicStroke.JOIN_ROUND,
-                1.0f, new float[] {6.0f, 6.0f}, 0.0f
-            ),
-            new java.awt.BasicStroke(
-                1.0f, java.awt.BasicStroke.CAP_ROUND, java.awt.BasicStroke.JOIN_ROUND,
-                1.0f, new float[] {6.0f, 3.0f, 1.0f, 3.0f}, 0.0f
-            )
-        };
-
         for (final Integer serie : series)
-            renderer.setSeriesStroke(serie, strokes[index%strokes.length]);
+            renderer.setSeriesStroke(serie, STROKES[index%STROKES.length]);
+    }
+
+    /**
+     * Re-apply file strokes to all series of an axis, e.g. after series moved.
+     * @param files File ids in the order their strokes are assigned
+     */
+    public static void reapplySeriesStrokes(JFreeChart chart, int axis, java.util.List<String> files) {
+        final XYPlot plot = chart.getXYPlot();
+        final XYItemRenderer renderer = plot.getRenderer(axis);
+        final XYDataset d = plot.getDataset(axis);
+        if (renderer == null || d == null) return;
+        for (int s = 0; s < d.getSeriesCount(); s++) {
+            final Comparable<?> key = d.getSeriesKey(s);
+            if (!(key instanceof Dataset.Key)) continue;
+            final int index = files.indexOf(((Dataset.Key) key).getFilename());
+            if (index >= 0) renderer.setSeriesStroke(s, STROKES[index%STROKES.length]);
+        }
     }
 
     /**
@@ -317,26 +391,38 @@ public class ECUxChartFactory {
      * @param ykey The Y-axis key
      * @return Array of series indices added
      */
-    public static Integer[] addDataset(DefaultXYDataset d, ECUxDataset data,
+    public static Integer[] addDataset(ColumnXYDataset d, ECUxDataset data,
                     Comparable<?> xkey, Dataset.Key ykey) {
-        final ArrayList<Integer> ret = new ArrayList<Integer>();
-        final ArrayList<Dataset.Range> ranges = data.getRanges();
-        // add empty data in case of error
-        final double[][] empty = {{},{}};
-
-        // Helper method to add a series with data retrieval
-        java.util.function.BiConsumer<Dataset.Key, Dataset.Range> addSeriesWithData = (key, r) -> {
-            final double[] xData = data.getData(xkey, r);
-            final double[] yData = data.getData(ykey, r);
+        final long t0 = Timings.start();
+        try {
+            final ArrayList<ColumnXYDataset.Entry> entries = getSeries(data, xkey, ykey);
+            // One change event for all ranges
+            d.addSeries(entries);
+            final ArrayList<Integer> ret = new ArrayList<Integer>();
+            for (final ColumnXYDataset.Entry e : entries) ret.add(d.indexOf(e.key));
+            return ret.toArray(new Integer[0]);
+        } finally {
+            Timings.stop("chart.addDataset", ykey.getString(), t0);
+        }
+    }
 
-            double[][] s = empty; // Default to empty
-            if (xData != null && yData != null) {
-                s = new double[][]{xData, yData};
-            }
+    /**
+     * The series {@link #addDataset} adds for a Y-key: one per range, or one for the
+     * whole file if the filter is disabled. Views are lazy, so this is cheap enough
+     * to call on every rebuild and diff with {@link ColumnXYDataset#update}.
+     * @param data The ECUxDataset containing the data
+     * @param xkey The X-axis key
+     * @param ykey The Y-axis key
+     * @return The series, empty if there is nothing to show
+     */
+    public static ArrayList<ColumnXYDataset.Entry> getSeries(ECUxDataset data,
+                    Comparable<?> xkey, Dataset.Key ykey) {
+        final ArrayList<ColumnXYDataset.Entry> ret = new ArrayList<ColumnXYDataset.Entry>();
+        final ArrayList<Dataset.Range> ranges = data.getRanges();
 
-            d.addSeries(key, s);
-            ret.add(d.indexOf(key));
-        };
+        // Helper method to add a series over views of the columns (empty if either is missing)
+        java.util.function.BiConsumer<Dataset.Key, Dataset.Range> addSeriesWithData = (key, r) ->
+            ret.add(new ColumnXYDataset.Entry(key, data.getView(xkey, r), data.getView(ykey, r)));
 
         if(ranges.size() == 0) {
             // No ranges could mean:
@@ -354,10 +440,10 @@ public class ECUxChartFactory {
                     addSeriesWithData.accept(key, null); // null range = full dataset
                 }
                 // If filter is enabled and ranges.size() == 0, all data was filtered out
-                // Don't add any series - return empty array
+                // Don't add any series - return empty list
             }
-            // If data is truly empty (data.length() == 0), don't add any series - return empty array
-            return ret.toArray(new Integer[0]);
+            // If data is truly empty (data.length() == 0), don't add any series - return empty list
+            return ret;
         }
 
         // Add ALL ranges to the dataset - Filter only controls visibility, not existence
@@ -368,34 +454,60 @@ public class ECUxChartFactory {
             else key.showRange();
             addSeriesWithData.accept(key, ranges.get(i));
         }
-        return ret.toArray(new Integer[0]);
+        return ret;
     }
 
     // remove ALL series from the dataset
-    public static void removeDataset(DefaultXYDataset d) {
-        while(d.getSeriesCount()>0) {
-            d.removeSeries(d.getSeriesKey(0));
-        }
+    public static void removeDataset(ColumnXYDataset d) {
+        d.removeAllSeries();
     }
 
-    // remove ALL series that match the data column tag
-    public static void removeDataset(DefaultXYDataset d, Comparable<?> ykey) {
+    // remove ALL series that match the data column tag, with one change event
+    public static void removeDataset(ColumnXYDataset d, Comparable<?> ykey) {
         if(ykey instanceof Dataset.Key) {
             // pull out ONLY the data column tag, and ykey is now a String.
             ykey = ((Dataset.Key)ykey).getString();
         }
-        // ykey is now a string, so we have to walk series ourselves
-        // and call "equals" for String, which only compares the data tag
-        for(int i=0;i<d.getSeriesCount();i++) {
-            // When we delete things, the next key falls into our
-            // position, so stay there and clean.
-            while(i<d.getSeriesCount() && d.getSeriesKey(i).equals(ykey)) {
-                d.removeSeries(d.getSeriesKey(i));
+        // ykey is now a string; series keys' equals() only compares the data tag
+        d.removeAllSeries(ykey);
+    }
+
+    /**
+     * Make a bulk change to a chart, e.g. swapping presets, with one change event
+     * instead of one per series, paint, stroke and axis change. Plot and dataset
+     * notifications are suspended while change runs; each changed dataset then
+     * reconfigures the axes once, and the plot sends a single change event.
+     * Nested batches send nothing until the outermost one ends.
+     * @param chart The chart to change
+     * @param change The change
+     */
+    public static void batch(JFreeChart chart, Runnable change) {
+        final XYPlot plot = chart.getXYPlot();
+        if (!plot.isNotify()) {
+            change.run();
+            return;
+        }
+        final java.util.List<AbstractDataset> datasets = new ArrayList<AbstractDataset>();
+        for (int i = 0; i < plot.getDatasetCount(); i++) {
+            if (plot.getDataset(i) instanceof AbstractDataset) {
+                final AbstractDataset d = (AbstractDataset) plot.getDataset(i);
+                if (d.getNotify()) {
+                    d.setNotify(false);
+                    datasets.add(d);
+                }
             }
         }
+        plot.setNotify(false);
+        try {
+            change.run();
+        } finally {
+            // setNotify(true) sends the deferred event
+            for (final AbstractDataset d : datasets) d.setNotify(true);
+            plot.setNotify(true);
+        }
     }
 
-    public static String [] getDatasetYkeys(DefaultXYDataset d) {
+    public static String [] getDatasetYkeys(ColumnXYDataset d) {
         final ArrayList<String> ret = new ArrayList<String>();
         for(int i=0;i<d.getSeriesCount();i++) {
             final Comparable<?> key = d.getSeriesKey(i);
@@ -1,24 +1,412 @@
 package org.nyet.ecuxplot;
 
+import java.awt.Color;
+import java.awt.Font;
+import java.awt.FontMetrics;
+import java.awt.Graphics;
+import java.awt.Graphics2D;
+import java.awt.Insets;
+import java.awt.Point;
+import java.awt.RenderingHints;
+import java.awt.event.InputEvent;
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
+import java.awt.geom.Point2D;
+import java.awt.geom.Rectangle2D;
+import java.awt.image.BufferedImage;
 import java.io.File;
 import java.io.IOException;
+import java.text.NumberFormat;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import javax.swing.JFileChooser;
+import javax.swing.SwingUtilities;
 
 import org.jfree.chart.JFreeChart;
+import org.jfree.chart.LegendItemSource;
 import org.jfree.chart.ChartPanel;
+import org.jfree.chart.ChartRenderingInfo;
 import org.jfree.chart.ChartUtilities;
+import org.jfree.chart.axis.ValueAxis;
+import org.jfree.chart.event.ChartChangeEvent;
+import org.jfree.chart.event.ChartProgressEvent;
+import org.jfree.chart.plot.PlotRenderingInfo;
+import org.jfree.chart.plot.XYPlot;
+import org.jfree.chart.renderer.xy.XYItemRenderer;
+import org.jfree.chart.renderer.xy.XYLineAndShapeRenderer;
+import org.jfree.chart.title.LegendTitle;
 import org.jfree.ui.ExtensionFileFilter;
+import org.jfree.ui.RectangleEdge;
+import org.nyet.util.Timings;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
+/**
+ * Chart panel for ECUxPlot charts.
+ *
+ * Background rendering ({@link #setBackgroundRendering}): ChartPanel redraws the
+ * whole chart on the EDT after every chart change. In this mode the chart is
+ * instead rasterized into an image on a render thread whenever the chart (data,
+ * zoom, style) or the panel size changes, and the EDT only blits the last image
+ * and draws the zoom rectangle over it. The render thread draws a snapshot the
+ * EDT takes when the render starts: a clone of the chart (plot, axes, renderers,
+ * legend) over {@link ColumnXYDataset#snapshot()}s of its datasets, so it never
+ * reads what the EDT changes. Tooltips and zoom read the rendering info of the
+ * image shown. The chart is drawn at the panel's size, without ChartPanel's
+ * minimum/maximum draw size scaling.
+ */
 public class ECUxChartPanel extends ChartPanel {
+    private static final Logger logger = LoggerFactory.getLogger(ECUxChartPanel.class);
     /**
      *
      */
     private static final long serialVersionUID = 1L;
 
+    /** One render thread for all panels; renders are short and superseded ones are dropped */
+    private static final ExecutorService RENDERER = Executors.newSingleThreadExecutor(r -> {
+        final Thread t = new Thread(r, "chart-render");
+        t.setDaemon(true);
+        return t;
+    });
+
+    private boolean backgroundRendering;
+    private int generation;             // bumped on every chart change (EDT)
+    private int renderedGeneration = -1;
+    private int renderedWidth, renderedHeight;
+    private boolean rendering;          // a render is queued or running
+    private transient BufferedImage image;
+    private Point dragStart;            // zoom drag, for the rectangle drawn over the image
+    private Point dragEnd;
+    private final int[] drawSizes = new int[4];
+    private boolean timingOverlay;
+    /** Start of the chart draw in progress on each thread, see {@link #chartProgress} */
+    private static final ThreadLocal<long[]> drawStart = ThreadLocal.withInitial(() -> new long[1]);
+
     public ECUxChartPanel(JFreeChart chart) {
         super(chart);
         setMouseWheelEnabled(true);
         setMouseZoomable(true);
+
+        final MouseAdapter drag = new MouseAdapter() {
+            @Override
+            public void mousePressed(MouseEvent e) {
+                // ChartPanel pans with ctrl (its default pan mask) and pops up its menu on the popup trigger
+                final boolean zoom = SwingUtilities.isLeftMouseButton(e) && !e.isPopupTrigger() &&
+                    (e.getModifiersEx() & InputEvent.CTRL_DOWN_MASK) == 0;
+                ECUxChartPanel.this.dragStart = zoom ? e.getPoint() : null;
+                ECUxChartPanel.this.dragEnd = null;
+            }
+            @Override
+            public void mouseDragged(MouseEvent e) {
+                if (ECUxChartPanel.this.dragStart == null) return;
+                ECUxChartPanel.this.dragEnd = e.getPoint();
+                if (ECUxChartPanel.this.backgroundRendering) repaint();
+            }
+            @Override
+            public void mouseReleased(MouseEvent e) {
+                ECUxChartPanel.this.dragStart = ECUxChartPanel.this.dragEnd = null;
+                if (ECUxChartPanel.this.backgroundRendering) repaint();
+            }
+        };
+        addMouseListener(drag);
+        addMouseMotionListener(drag);
+    }
+
+    /**
+     * Rasterize the chart on a background thread rather than drawing it on the EDT,
+     * see the class comment.
+     */
+    public void setBackgroundRendering(boolean on) {
+        if (on == this.backgroundRendering) return;
+        this.backgroundRendering = on;
+        if (on) {
+            // Draw at the panel's own size, so no mouse to chart scaling is needed
+            this.drawSizes[0] = getMinimumDrawWidth();
+            this.drawSizes[1] = getMinimumDrawHeight();
+            this.drawSizes[2] = getMaximumDrawWidth();
+            this.drawSizes[3] = getMaximumDrawHeight();
+            setMinimumDrawWidth(0);
+            setMinimumDrawHeight(0);
+            setMaximumDrawWidth(Integer.MAX_VALUE);
+            setMaximumDrawHeight(Integer.MAX_VALUE);
+            this.generation++;
+        } else {
+            setMinimumDrawWidth(this.drawSizes[0]);
+            setMinimumDrawHeight(this.drawSizes[1]);
+            setMaximumDrawWidth(this.drawSizes[2]);
+            setMaximumDrawHeight(this.drawSizes[3]);
+            this.image = null;
+            this.renderedGeneration = -1;
+            setRefreshBuffer(true);
+        }
+        repaint();
+    }
+
+    public boolean isBackgroundRendering() { return this.backgroundRendering; }
+
+    /**
+     * Show the slowest {@link Timings} stages over the chart. Stages are only
+     * timed while {@link Timings#isEnabled()}.
+     */
+    public void setTimingOverlay(boolean on) {
+        this.timingOverlay = on;
+        repaint();
+    }
+
+    public boolean isTimingOverlay() { return this.timingOverlay; }
+
+    /** Time JFreeChart's layout and drawing, on the EDT or the render thread */
+    @Override
+    public void chartProgress(ChartProgressEvent event) {
+        super.chartProgress(event);
+        if (event.getType() == ChartProgressEvent.DRAWING_STARTED) {
+            drawStart.get()[0] = Timings.start();
+        } else if (event.getType() == ChartProgressEvent.DRAWING_FINISHED) {
+            final long[] t0 = drawStart.get();
+            Timings.stop("chart.draw", t0[0]);
+            t0[0] = 0;
+        }
+    }
+
+    @Override
+    public void chartChanged(ChartChangeEvent event) {
+        this.generation++;
+        super.chartChanged(event);
+    }
+
+    /**
+     * Pick the level of detail of line series for the current zoom and width
+     * before the chart is drawn, see {@link ColumnXYDataset#setLevelOfDetail}.
+     * With background rendering, show the last rendered image instead, and start
+     * a render if the chart or size changed since.
+     */
+    @Override
+    public void paintComponent(Graphics g) {
+        final long t0 = Timings.start();
+        paintChart(g);
+        Timings.stop("chart.paint", t0);
+        if (this.timingOverlay) drawTimings((Graphics2D)g);
+    }
+
+    private void paintChart(Graphics g) {
+        // ChartPanel maps mouse to chart coordinates with the scale of its last paint;
+        // let it paint once at the unscaled draw sizes so that scale is 1
+        if (!this.backgroundRendering || getChart() == null || getScaleX() != 1.0 || getScaleY() != 1.0) {
+            final long t0 = Timings.start();
+            ECUxChartFactory.setLevelOfDetail(getChart(), dataAreaWidth(getWidth()));
+            Timings.stop("chart.levelOfDetail", t0);
+            super.paintComponent(g);
+            return;
+        }
+
+        final Insets insets = getInsets();
+        final int w = getWidth() - insets.left - insets.right;
+        final int h = getHeight() - insets.top - insets.bottom;
+        if (isOpaque()) {
+            g.setColor(getBackground());
+            g.fillRect(0, 0, getWidth(), getHeight());
+        }
+        if (w <= 0 || h <= 0) return;
+
+        // Stale image (older chart or size) is shown until the new one is ready
+        if ((w != this.renderedWidth || h != this.renderedHeight || this.renderedGeneration != this.generation) &&
+                !this.rendering) render(w, h);
+        if (this.image != null) g.drawImage(this.image, insets.left, insets.top, null);
+
+        drawZoomRectangle((Graphics2D)g);
+    }
+
+    /** Stages listed by the timing overlay, longest total first */
+    private static final int OVERLAY_STAGES = 10;
+
+    /* table of the slowest stages in the top left corner */
+    private void drawTimings(Graphics2D g2) {
+        final String[] lines = Timings.format(OVERLAY_STAGES).split("\\R");
+        g2.setFont(new Font(Font.MONOSPACED, Font.PLAIN, 11));
+        final FontMetrics fm = g2.getFontMetrics();
+        int width = 0;
+        for (final String line : lines) width = Math.max(width, fm.stringWidth(line));
+        final Insets insets = getInsets();
+        final int x = insets.left + 8, y = insets.top + 8, pad = 4;
+        g2.setColor(new Color(0, 0, 0, 160));
+        g2.fillRect(x, y, width + 2 * pad, lines.length * fm.getHeight() + 2 * pad);
+        g2.setColor(Color.WHITE);
+        for (int i = 0; i < lines.length; i++)
+            g2.drawString(lines[i], x + pad, y + pad + fm.getAscent() + i * fm.getHeight());
+    }
+
+    /* rasterize a snapshot of the chart at w x h on the render thread, then show it on the EDT */
+    private void render(int w, int h) {
+        final JFreeChart chart = getChart();
+        final JFreeChart snapshot;
+        try {
+            snapshot = snapshot(chart);
+        } catch (final CloneNotSupportedException e) {
+            logger.warn("Chart can not be drawn in the background, drawing it on the EDT: {}", e.toString());
+            setBackgroundRendering(false);
+            return;
+        }
+        final int gen = this.generation;
+        final Point2D anchor = getAnchor() != null ? (Point2D)getAnchor().clone() : null;
+        final int pixels = dataAreaWidth(w);
+        this.rendering = true;
+        RENDERER.execute(() -> {
+            final ChartRenderingInfo info = new ChartRenderingInfo();
+            final long t0 = System.nanoTime();
+            BufferedImage img = new BufferedImage(w, h, BufferedImage.TYPE_INT_ARGB);
+            final Graphics2D g2 = img.createGraphics();
+            try {
+                ECUxChartFactory.setLevelOfDetail(snapshot, pixels);
+                g2.setRenderingHints(snapshot.getRenderingHints());
+                snapshot.draw(g2, new Rectangle2D.Double(0, 0, w, h), anchor, info);
+                logger.trace("Background chart render {}x{} in {} ms", w, h, (System.nanoTime() - t0) / 1000000);
+            } catch (final RuntimeException e) {
+                logger.debug("Background chart render failed: {}", e.toString(), e);
+                img = null;
+            } finally {
+                g2.dispose();
+            }
+            final BufferedImage done = img;
+            SwingUtilities.invokeLater(() -> {
+                this.rendering = false;
+                if (!this.backgroundRendering || getChart() != chart) return;
+                if (done != null) {
+                    this.image = done;
+                    copyInfo(info);
+                } else if (gen == this.generation) {
+                    logger.warn("Background chart render failed, keeping the previous image");
+                }
+                // A newer change or size is rendered by the repaint
+                this.renderedGeneration = gen;
+                this.renderedWidth = w;
+                this.renderedHeight = h;
+                repaint();
+            });
+        });
+    }
+
+    /*
+     * copy of the chart for the render thread, detached from the live chart: the clone
+     * has its own plot, axes and renderers, its datasets are replaced by
+     * ColumnXYDataset.snapshot()s (the clone alone would still share and listen to the
+     * live ones), and its legend, which would still list the original plot's items,
+     * is pointed at the copied plot
+     */
+    private JFreeChart snapshot(JFreeChart chart) throws CloneNotSupportedException {
+        final JFreeChart copy = (JFreeChart)chart.clone();
+        if (copy.getPlot() instanceof XYPlot) {
+            final XYPlot plot = copy.getXYPlot();
+            for (int i = 0; i < plot.getDatasetCount(); i++) {
+                if (plot.getDataset(i) instanceof ColumnXYDataset)
+                    plot.setDataset(i, ((ColumnXYDataset)plot.getDataset(i)).snapshot());
+            }
+        }
+        for (int i = 0; i < copy.getSubtitleCount(); i++) {
+            if (copy.getSubtitle(i) instanceof LegendTitle)
+                ((LegendTitle)copy.getSubtitle(i)).setSources(new LegendItemSource[] {copy.getPlot()});
+        }
+        // Time its draw like the chart's, see chartProgress()
+        copy.addProgressListener(this);
+        return copy;
+    }
+
+    /* make tooltips, zoom and data area lookups use the areas and entities of the image shown */
+    private void copyInfo(ChartRenderingInfo from) {
+        final ChartRenderingInfo to = getChartRenderingInfo();
+        to.clear();
+        to.setChartArea(from.getChartArea());
+        to.setEntityCollection(from.getEntityCollection());
+        final PlotRenderingInfo p = from.getPlotInfo();
+        to.getPlotInfo().setPlotArea(p.getPlotArea());
+        to.getPlotInfo().setDataArea(p.getDataArea());
+    }
+
+    /* the rectangle ChartPanel would draw while dragging to zoom */
+    private void drawZoomRectangle(Graphics2D g2) {
+        if (this.dragStart == null || this.dragEnd == null) return;
+        final Rectangle2D area = getScreenDataArea();
+        if (area == null || area.isEmpty() || !area.contains(this.dragStart)) return;
+        final double x0 = this.dragStart.getX(), y0 = this.dragStart.getY();
+        final double x1 = Math.max(area.getMinX(), Math.min(this.dragEnd.getX(), area.getMaxX()));
+        final double y1 = Math.max(area.getMinY(), Math.min(this.dragEnd.getY(), area.getMaxY()));
+        final Rectangle2D r;
+        if (isDomainZoomable() && isRangeZoomable()) {
+            r = new Rectangle2D.Double(Math.min(x0, x1), Math.min(y0, y1), Math.abs(x1 - x0), Math.abs(y1 - y0));
+        } else if (isDomainZoomable()) {
+            r = new Rectangle2D.Double(Math.min(x0, x1), area.getMinY(), Math.abs(x1 - x0), area.getHeight());
+        } else if (isRangeZoomable()) {
+            r = new Rectangle2D.Double(area.getMinX(), Math.min(y0, y1), area.getWidth(), Math.abs(y1 - y0));
+        } else {
+            return;
+        }
+        g2.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_OFF);
+        if (getFillZoomRectangle()) {
+            g2.setPaint(getZoomFillPaint());
+            g2.fill(r);
+        } else {
+            g2.setPaint(getZoomOutlinePaint());
+            g2.draw(r);
+        }
+    }
+
+    /** Pixels from the mouse a point can be for its tooltip */
+    private static final int HIT_RADIUS = 8;
+
+    /**
+     * Tooltip of the series point nearest the mouse, found with
+     * {@link ColumnXYDataset#findNearest} since the chart creates no per-point
+     * entities. Elsewhere (legend, titles) ChartPanel's entity tooltips apply.
+     */
+    @Override
+    public String getToolTipText(MouseEvent e) {
+        final JFreeChart chart = getChart();
+        if (chart == null || !(chart.getPlot() instanceof XYPlot)) return super.getToolTipText(e);
+        final XYPlot plot = chart.getXYPlot();
+        final Rectangle2D area = getScreenDataArea();
+        if (area == null || !area.contains(e.getPoint())) return super.getToolTipText(e);
+
+        ColumnXYDataset bestData = null;
+        int bestSeries = -1, bestSample = -1;
+        double bestD = Double.POSITIVE_INFINITY;
+        for (int i = 0; i < plot.getDatasetCount(); i++) {
+            if (!(plot.getDataset(i) instanceof ColumnXYDataset)) continue;
+            final ColumnXYDataset d = (ColumnXYDataset)plot.getDataset(i);
+            final XYItemRenderer r = plot.getRenderer(i);
+            final ValueAxis xAxis = plot.getDomainAxisForDataset(i);
+            final ValueAxis yAxis = plot.getRangeAxisForDataset(i);
+            if (r == null || xAxis == null || yAxis == null) continue;
+            final RectangleEdge xEdge = plot.getDomainAxisEdge();
+            final RectangleEdge yEdge = plot.getRangeAxisEdge(plot.getRangeAxisIndex(yAxis));
+            final double x = xAxis.java2DToValue(e.getX(), area, xEdge);
+            final double y = yAxis.java2DToValue(e.getY(), area, yEdge);
+            final double rx = Math.abs(xAxis.java2DToValue(e.getX() + HIT_RADIUS, area, xEdge) - x);
+            final double ry = Math.abs(yAxis.java2DToValue(e.getY() + HIT_RADIUS, area, yEdge) - y);
+            final boolean scatter = !(r instanceof XYLineAndShapeRenderer) ||
+                ((XYLineAndShapeRenderer)r).getBaseShapesVisible();
+            for (int s = 0; s < d.getSeriesCount(); s++) {
+                if (!r.isSeriesVisible(s)) continue;
+                final int sample = d.findNearest(s, x, y, rx, ry, scatter);
+                if (sample < 0) continue;
+                final double dx = (d.getSampleX(s, sample) - x) / rx, dy = (d.getSampleY(s, sample) - y) / ry;
+                if (dx * dx + dy * dy < bestD) {
+                    bestD = dx * dx + dy * dy;
+                    bestData = d;
+                    bestSeries = s;
+                    bestSample = sample;
+                }
+            }
+        }
+        if (bestData == null) return super.getToolTipText(e);
+        // StandardXYToolTipGenerator's default format
+        final NumberFormat nf = NumberFormat.getNumberInstance();
+        return bestData.getSeriesKey(bestSeries) + ": (" + nf.format(bestData.getSampleX(bestSeries, bestSample)) +
+            ", " + nf.format(bestData.getSampleY(bestSeries, bestSample)) + ")";
+    }
+
+    /* width of the data area of the chart as last drawn, or width before it was first drawn */
+    private int dataAreaWidth(int width) {
+        final Rectangle2D area = getScreenDataArea();
+        return area != null && !area.isEmpty() ? (int)Math.ceil(area.getWidth()) : width;
     }
 
     public void doSaveAs(String fname) throws IOException {
@@ -31,7 +419,9 @@ public class ECUxChartPanel extends ChartPanel {
         fileChooser.setSelectedFile(new File(fname + ".png"));
         final ExtensionFileFilter filter = new ExtensionFileFilter(
                localizationResources.getString("PNG_Image_Files"), ".png");
+        final ExtensionFileFilter svgFilter = new ExtensionFileFilter("SVG Image Files", ".svg");
         fileChooser.addChoosableFileFilter(filter);
+        fileChooser.addChoosableFileFilter(svgFilter);
 
         final int option = fileChooser.showSaveDialog(this);
         if (option == JFileChooser.APPROVE_OPTION) {
@@ -40,15 +430,19 @@ public class ECUxChartPanel extends ChartPanel {
 
            String filename = fileChooser.getSelectedFile().getPath();
            if (isEnforceFileExtensions()) {
-               if (!filename.endsWith(".png")) {
-                   filename = filename + ".png";
+               final String ext = fileChooser.getFileFilter() == svgFilter ? ".svg" : ".png";
+               if (!filename.endsWith(".png") && !filename.endsWith(".svg")) {
+                   filename = filename + ext;
                }
            }
-           saveChartAsPNG(new File(filename));
+           saveChart(new File(filename));
         }
     }
 
     public void saveChartAsPNG(File f) throws IOException {
+           // Every sample: the image is not drawn at the data area the level was picked for
+           // (the next paint picks it again)
+           ECUxChartFactory.setLevelOfDetail(this.getChart(), 0);
            ChartUtilities.saveChartAsPNG(f, this.getChart(), this.getWidth(),
                    this.getHeight());
     }
@@ -56,6 +450,11 @@ public class ECUxChartPanel extends ChartPanel {
     public void saveChartAsPNG(String filename) throws IOException {
            this.saveChartAsPNG(new File(filename));
     }
+
+    /** Save the chart at the panel's size, as SVG for a <tt>.svg</tt> file and PNG otherwise */
+    public void saveChart(File f) throws IOException {
+           ChartExport.write(this.getChart(), ChartExport.Format.of(f), f, this.getWidth(), this.getHeight());
+    }
 }
 
 // vim: set sw=4 ts=8 expandtab:
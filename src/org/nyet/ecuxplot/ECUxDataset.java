@@ -1,7 +1,5 @@
 package org.nyet.ecuxplot;
 
-import java.io.PrintStream;
-import java.io.OutputStream;
 import java.io.BufferedReader;
 import java.io.FileReader;
 
@@ -10,7 +8,6 @@ import java.util.HashMap;
 import java.util.Map;
 
 import com.opencsv.CSVReader;
-import flanagan.interpolation.CubicSpline;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -18,8 +15,11 @@ import org.slf4j.LoggerFactory;
 import org.nyet.ecuxplot.DataLogger.DataLoggerConfig;
 
 import org.nyet.logfile.Dataset;
+import org.nyet.util.CubicSpline;
 import org.nyet.util.DoubleArray;
 import org.nyet.util.MonotonicDataAnalyzer;
+import org.nyet.util.TimeGapIndex;
+import org.nyet.util.Timings;
 import org.nyet.util.Smoothing;
 import static org.nyet.util.Smoothing.Strategy;
 import static org.nyet.util.Smoothing.Metadata;
@@ -38,77 +38,127 @@ public class ECUxDataset extends Dataset {
     private final Filter filter;
     private double time_ticks_per_sec;  // ECUx has time in ms, JB4 in 1/10s
     private double samples_per_sec=0;
+    private TimeGapIndex timeGaps;      // TIME segments, built once at load
     private CubicSpline [] splines;     // rpm vs time splines
     private String log_detected;
     /**
      * Filter cache for performance optimization during range detection.
      * Caches expensive calculations that are reused across multiple filter checks.
+     *
+     * The acceleration derivative only depends on base RPM, TIME, samples_per_sec and
+     * accelMAW, so it is keyed on those and survives buildRanges(). Changing gear, pedal,
+     * RPM or other thresholds reuses it. The boost columns are re-fetched every rebuild.
      */
     private static class FilterCache {
         DoubleArray accelerationDerivative = null;
         Column boostActual = null;
         Column boostDesired = null;
-        double accelMAW = Double.NaN; // Cache key: accelMAW value used for cached derivative
-        double samplesPerSec = Double.NaN; // Cache key: samples_per_sec used for cached derivative
-
+        // Cache keys for the acceleration derivative
+        DoubleArray rpmSource = null;       // base RPM data the derivative was calculated from
+        DoubleArray timeSource = null;      // TIME data the derivative was calculated from
+        double accelMAW = Double.NaN;       // accelMAW value used for cached derivative
+        double samplesPerSec = Double.NaN;  // samples_per_sec used for cached derivative
+        // Statistics: one hit or miss is recorded per buildRanges() that needs the derivative
+        int hits = 0;
+        int misses = 0;
+
+        boolean derivativeValid(DoubleArray rpm, DoubleArray time, double accelMAW, double samplesPerSec) {
+            return this.accelerationDerivative != null &&
+                this.rpmSource == rpm && this.timeSource == time &&
+                Double.compare(this.accelMAW, accelMAW) == 0 &&
+                Double.compare(this.samplesPerSec, samplesPerSec) == 0;
+        }
+
+        /** Clear per-rebuild state, keeping the keyed acceleration derivative */
         void clear() {
-            accelerationDerivative = null;
             boostActual = null;
             boostDesired = null;
-            accelMAW = Double.NaN;
-            samplesPerSec = Double.NaN;
         }
     }
 
     private final FilterCache filterCache = new FilterCache();
+    // Per-range quantization runs and MA passes for final RPM, reused when RPM is re-smoothed
+    // Note: may be null if RPM is created from the parent constructor before field initialization
+    private final Smoothing.AdaptiveCache rpmAdaptiveCache = new Smoothing.AdaptiveCache();
     /**
-     * Custom map for smoothing windows that provides a put(String, double) overload
-     * to accept time in seconds and convert to samples internally.
+     * Smoothing plan: column id -> prepared {@link Smoothing.Kernel}.
+     * Windows are registered in seconds when a column is created and converted to
+     * samples once. Kernels are resolved against the current strategy and padding,
+     * reused across ranges and rebuilds, and only re-resolved when those change.
      */
-    private class SmoothingWindowsMap extends HashMap<String, Metadata> {
-        private static final long serialVersionUID = 1L;
+    private class SmoothingPlan {
+        private final Map<String, Smoothing.Kernel> kernels =
+            new java.util.concurrent.ConcurrentHashMap<String, Smoothing.Kernel>();
 
         /**
          * Register a column for smoothing with window size in seconds.
-         * Converts to samples internally using samples_per_sec.
+         * Converts to samples using samples_per_sec.
          * @param columnName The name of the column to register
          * @param seconds Smoothing window size in seconds
-         * @return The previous Metadata for this column, or null if none
          */
-        public Metadata put(String columnName, double seconds) {
+        void register(String columnName, double seconds) {
             if (seconds <= 0) {
                 // Zero or negative means no smoothing
-                return super.put(columnName, new Metadata(0));
+                register(columnName, 0);
+                return;
             }
             if (samples_per_sec <= 0) {
-                logger.warn("smoothingWindows.put('{}', {}s): samples_per_sec is {}, cannot convert to samples. Using 0 (no smoothing).",
+                logger.warn("smoothingPlan.register('{}', {}s): samples_per_sec is {}, cannot convert to samples. Using 0 (no smoothing).",
                     columnName, seconds, samples_per_sec);
-                return super.put(columnName, new Metadata(0));
+                register(columnName, 0);
+                return;
             }
             // Convert seconds to samples (rounding to nearest int)
             int windowSize = (int)Math.round(samples_per_sec * seconds);
             if (windowSize <= 0) {
-                logger.warn("smoothingWindows.put('{}', {}s): Converted window size is {} samples (samples_per_sec={}), using 0 (no smoothing).",
+                logger.warn("smoothingPlan.register('{}', {}s): Converted window size is {} samples (samples_per_sec={}), using 0 (no smoothing).",
                     columnName, seconds, windowSize, samples_per_sec);
-                return super.put(columnName, new Metadata(0));
+                windowSize = 0;
             }
-            return super.put(columnName, new Metadata(windowSize));
+            register(columnName, windowSize);
         }
 
         /**
-         * Register a column for smoothing with window size in samples (for backward compatibility).
+         * Register a column for smoothing with window size in samples.
          * @param columnName The name of the column to register
          * @param windowSize Smoothing window size in samples
-         * @return The previous Metadata for this column, or null if none
          */
-        public Metadata put(String columnName, int windowSize) {
-            return super.put(columnName, new Metadata(windowSize));
+        void register(String columnName, int windowSize) {
+            this.kernels.put(columnName, resolve(windowSize));
+        }
+
+        private Smoothing.Kernel resolve(int windowSize) {
+            return new Smoothing.Kernel(windowSize, postDiffSmoothingStrategy, padding.left, padding.right);
+        }
+
+        /**
+         * @param columnName The column id
+         * @return Window metadata for a column, or null if not registered
+         */
+        Metadata get(String columnName) {
+            final Smoothing.Kernel k = this.kernels.get(columnName);
+            return k != null ? k.metadata : null;
+        }
+
+        /**
+         * Get the prepared kernel for a column, re-resolving it if the strategy or
+         * padding changed since it was prepared.
+         * @param columnName The column id
+         * @return The kernel, or null if the column is not registered for smoothing
+         */
+        Smoothing.Kernel kernel(String columnName) {
+            Smoothing.Kernel k = this.kernels.get(columnName);
+            if (k != null && !k.matches(postDiffSmoothingStrategy, padding.left, padding.right)) {
+                k = resolve(k.metadata.windowSize);
+                this.kernels.put(columnName, k);
+            }
+            return k;
         }
     }
 
-    // Track which columns need moving average smoothing
-    // Maps column name to smoothing window size (stored in samples, but registered in seconds)
-    private final SmoothingWindowsMap smoothingWindows = new SmoothingWindowsMap();
+    // Smoothing plan for columns that need range-aware smoothing
+    // Maps column id to a prepared kernel (window stored in samples, registered in seconds)
+    private final SmoothingPlan smoothingPlan = new SmoothingPlan();
 
     // Configurable smoothing parameters (for testing variants)
     // Defaults: MAW with DATA/DATA padding (generally superior to SG)
@@ -337,13 +387,14 @@ public class ECUxDataset extends Dataset {
         if (rawTime!=null) {
             // Convert raw TIME ticks to seconds for calculation
             final DoubleArray timeSeconds = rawTime.data.div(this.time_ticks_per_sec);
-            final double[] timeArray = timeSeconds.toArray();
 
-            // Calculate sample rate from time data
-            this.samples_per_sec = MonotonicDataAnalyzer.calculateSampleRate(timeArray);
+            // Index pauses/sessions once; sample rate ignores the gaps between segments
+            this.timeGaps = new TimeGapIndex(timeSeconds.toArray());
+            this.samples_per_sec = MonotonicDataAnalyzer.calculateSampleRate(this.timeGaps);
 
             if (this.samples_per_sec > 0) {
-                logger.debug("samples_per_sec={} (from segment-aware analysis)", this.samples_per_sec);
+                logger.debug("samples_per_sec={} (from segment-aware analysis, {} segments)",
+                    this.samples_per_sec, this.timeGaps.segments());
             } else {
                 logger.warn("samples_per_sec calculation failed (need at least 2 points)");
             }
@@ -420,7 +471,7 @@ public class ECUxDataset extends Dataset {
         return this.baseRpm;
     }
 
-    // Note: HPMAW() and AccelMAW() helper methods removed - smoothingWindows.put() now accepts seconds directly
+    // Note: HPMAW() and AccelMAW() helper methods removed - smoothingPlan.register() accepts seconds directly
 
 
 
@@ -547,7 +598,7 @@ public class ECUxDataset extends Dataset {
             // Use csvRpmData for quantization detection and smoothing (they're the same for RPM)
             processedData = Smoothing.smoothAdaptive(csvRpmData,
                 (ranges != null && !ranges.isEmpty()) ? ranges : null,
-                baseColumnName);
+                baseColumnName, this.rpmAdaptiveCache);
         } else {
             // Non-RPM columns: use standard SG smoothing
             processedData = processedData.smooth();
@@ -576,12 +627,21 @@ public class ECUxDataset extends Dataset {
         createRawColumn("TIME", UnitConstants.UNIT_SECONDS,
                        (data) -> data.div(this.time_ticks_per_sec));
 
-        // Transform data: convert ticks to seconds
-        DoubleArray processedData = baseColumn.data.div(this.time_ticks_per_sec);
-        double[] timeArray = processedData.toArray();
-
-        // Apply smoothing if threshold is met (5.0 samples/sec)
-        double[] smoothedTime = MonotonicDataAnalyzer.smoothTimeByDeltas(timeArray, this.samples_per_sec);
+        // Transform data: convert ticks to seconds (already done by the time gap index if built)
+        DoubleArray processedData;
+        double[] timeArray;
+        double[] smoothedTime;
+        if (this.timeGaps != null) {
+            timeArray = this.timeGaps.time();
+            processedData = new DoubleArray(timeArray);
+            // Apply smoothing within each segment if threshold is met (5.0 samples/sec)
+            smoothedTime = MonotonicDataAnalyzer.smoothTimeByDeltas(this.timeGaps, this.samples_per_sec);
+        } else {
+            processedData = baseColumn.data.div(this.time_ticks_per_sec);
+            timeArray = processedData.toArray();
+            // Apply smoothing if threshold is met (5.0 samples/sec)
+            smoothedTime = MonotonicDataAnalyzer.smoothTimeByDeltas(timeArray, this.samples_per_sec);
+        }
         if (smoothedTime != timeArray) {
             processedData = new DoubleArray(smoothedTime);
             logger.debug("_get('TIME'): Applied smoothing to time deltas (samples_per_sec={})", this.samples_per_sec);
@@ -650,9 +710,9 @@ public class ECUxDataset extends Dataset {
             this.putColumn(converted);
             // Inherit smoothing registration from base column if base column is registered
             // This ensures unit-converted columns (e.g., "WTQ (Nm)") get smoothing if base column ("WTQ") has it
-            Metadata baseMetadata = this.smoothingWindows.get(columnName);
+            Metadata baseMetadata = this.smoothingPlan.get(columnName);
             if (baseMetadata != null && targetId != null) {
-                this.smoothingWindows.put(targetId, baseMetadata.windowSize);
+                this.smoothingPlan.register(targetId, baseMetadata.windowSize);
             }
         }
         return converted;
@@ -685,9 +745,9 @@ public class ECUxDataset extends Dataset {
         // Inherit smoothing registration from base column if base column is registered
         if (converted != baseColumn && targetId != null) {
             String baseColumnName = baseColumn.getId();
-            Metadata baseMetadata = this.smoothingWindows.get(baseColumnName);
+            Metadata baseMetadata = this.smoothingPlan.get(baseColumnName);
             if (baseMetadata != null) {
-                this.smoothingWindows.put(targetId, baseMetadata.windowSize);
+                this.smoothingPlan.register(targetId, baseMetadata.windowSize);
             }
         }
         return converted;
@@ -707,12 +767,17 @@ public class ECUxDataset extends Dataset {
             return 0.0;
         }
 
+        // Can't compare RPM across a pause in logging (the gap start row is rejected instead)
+        if (straddlesTimeGap(i)) {
+            return 0.0;
+        }
+
         double delta = this.baseRpm.data.get(i-1) - this.baseRpm.data.get(i+1);
         // Convert delta (RPM over 2 samples) to RPM/sec
-        // Time between samples: 1.0 / samples_per_sec
+        // Time between samples: 1.0 / samples_per_sec (of the segment containing i)
         // Time over 2 samples: 2.0 / samples_per_sec
-        if (this.samples_per_sec > 0) {
-            double timeDelta = 2.0 / this.samples_per_sec;
+        double timeDelta = monotonicityTimeDelta(i);
+        if (!Double.isNaN(timeDelta)) {
             double deltaRPMPerSec = delta / timeDelta;
             if (deltaRPMPerSec > this.filter.monotonicRPMfuzz()) {
                 return deltaRPMPerSec;
@@ -729,9 +794,50 @@ public class ECUxDataset extends Dataset {
         return 0.0;
     }
 
+    /**
+     * Time over which checkRPMMonotonicity() measures the RPM delta at a row:
+     * two sample intervals at the sample rate of the row's time segment.
+     *
+     * @param i The point index
+     * @return Seconds, or NaN if the sample rate is unknown
+     */
+    private double monotonicityTimeDelta(int i) {
+        double sps = this.samples_per_sec;
+        if (this.timeGaps != null && this.timeGaps.hasGaps()) {
+            final int segment = this.timeGaps.segmentOf(i);
+            if (segment >= 0) sps = this.timeGaps.samplesPerSec(segment);
+        }
+        return sps > 0 ? 2.0 / sps : Double.NaN;
+    }
+
+    /**
+     * @param i The point index
+     * @return true if i is the first row after a pause or session change in TIME
+     */
+    private boolean isTimeGapStart(int i) {
+        if (this.timeGaps == null || !this.timeGaps.hasGaps() || i <= 0) return false;
+        final int segment = this.timeGaps.segmentOf(i);
+        return segment > 0 && this.timeGaps.start(segment) == i;
+    }
+
+    /**
+     * @param i The point index
+     * @return true if rows i-1 and i+1 are in different time segments
+     */
+    private boolean straddlesTimeGap(int i) {
+        return isTimeGapStart(i) || isTimeGapStart(i + 1);
+    }
+
+    /**
+     * Get the time gap index built from TIME at load.
+     * @return The index, or null if there is no TIME column
+     */
+    public TimeGapIndex getTimeGapIndex() { return this.timeGaps; }
+
     /**
      * Get the acceleration derivative array, computing and caching if necessary.
-     * Cache is validated against filter parameters to ensure coherency.
+     * Cache is validated against its inputs (base RPM, TIME, samples_per_sec, accelMAW)
+     * to ensure coherency; it is not tied to a particular buildRanges() call.
      *
      * @return The acceleration derivative array, or null if calculation not possible
      */
@@ -745,26 +851,41 @@ public class ECUxDataset extends Dataset {
             return null;
         }
 
-        // Validate cache - check if filter parameters have changed
-        double currentAccelMAW = this.filter != null ? this.filter.accelMAW() : 0.0;
-        boolean cacheValid = (this.filterCache.accelerationDerivative != null) &&
-                             (Double.compare(this.filterCache.accelMAW, currentAccelMAW) == 0) &&
-                             (Double.compare(this.filterCache.samplesPerSec, this.samples_per_sec) == 0);
+        final DoubleArray y = this.baseRpm.data;
+        final DoubleArray x = timeCol.data;
+        final double currentAccelMAW = this.filter != null ? this.filter.accelMAW() : 0.0;
 
-        if (!cacheValid) {
-            final DoubleArray y = this.baseRpm.data;
-            final DoubleArray x = timeCol.data;
+        if (!this.filterCache.derivativeValid(y, x, currentAccelMAW, this.samples_per_sec)) {
             // Convert accelMAW from seconds to samples for derivative smoothing
             final int accelMAW = (int)Math.round(this.samples_per_sec * currentAccelMAW);
             this.filterCache.accelerationDerivative = y.derivative(x, accelMAW).max(0);
             // Store cache key values
+            this.filterCache.rpmSource = y;
+            this.filterCache.timeSource = x;
             this.filterCache.accelMAW = currentAccelMAW;
             this.filterCache.samplesPerSec = this.samples_per_sec;
+            this.filterCache.misses++;
         }
 
         return this.filterCache.accelerationDerivative;
     }
 
+    /**
+     * Number of buildRanges() calls that reused the cached acceleration derivative.
+     * @return cache hit count
+     */
+    public int getAccelerationCacheHits() {
+        return this.filterCache != null ? this.filterCache.hits : 0;
+    }
+
+    /**
+     * Number of times the acceleration derivative had to be (re)calculated.
+     * @return cache miss count
+     */
+    public int getAccelerationCacheMisses() {
+        return this.filterCache != null ? this.filterCache.misses : 0;
+    }
+
     /**
      * Calculate acceleration from base RPM and TIME data using user-specified AccelMAW.
      * Used for range detection only - avoids dependency on final RPM.
@@ -783,9 +904,9 @@ public class ECUxDataset extends Dataset {
      * the entire dataset for every row check.
      *
      * CACHE COHERENCY:
-     * - Cache is validated using cache keys: accelMAW and samplesPerSec
-     * - Cache is automatically invalidated if filter.accelMAW() or samples_per_sec changes
-     * - Cache is explicitly cleared at start of buildRanges() to ensure fresh calculation
+     * - Cache is validated using cache keys: base RPM and TIME data, accelMAW and samplesPerSec
+     * - Cache is automatically invalidated if any of those change
+     * - Cache is kept across buildRanges() so threshold-only filter changes reuse it
      *
      * @param i The current point index to check
      * @return Acceleration in RPM/s, or 0.0 if calculation not possible
@@ -844,6 +965,57 @@ public class ECUxDataset extends Dataset {
         return calculateRangeDetectionAcceleration(i);
     }
 
+    /**
+     * Snapshot the per-row inputs of dataValid()/rangeValid() for a {@link FilterSweep}.
+     * Criteria that are not swept (gear, throttle, acceleration, boost) are evaluated
+     * with the current filter settings and folded into one bitset; the swept ones are
+     * returned as raw columns.
+     *
+     * @return The criteria, or null if there is no filter or no data
+     */
+    FilterSweep.Criteria getSweepCriteria() {
+        final int n = this.length();
+        if (this.filter == null || n == 0) {
+            return null;
+        }
+
+        final Column boostActual = getBoostActualColumn();
+        final Column boostDesired = getBoostDesiredColumn();
+        final java.util.BitSet fixed = new java.util.BitSet(n);
+        for (int i = 0; i < n; i++) {
+            if (this.filter.gear()>=0 && this.gear!=null && Math.round(this.gear.data.get(i)) != this.filter.gear()) continue;
+            if (this.throttle!=null && this.throttle.data.get(i)<this.filter.minThrottle()) continue;
+            if (this.filter.minAcceleration()>0 && calculateRangeDetectionAcceleration(i)<this.filter.minAcceleration()) continue;
+            if (this.zboost!=null && this.zboost.data.get(i)<0) continue;
+            if (boostActual!=null && i<boostActual.data.size() && boostActual.data.get(i)<1000.0) continue;
+            if (boostDesired!=null && i<boostDesired.data.size() && boostDesired.data.get(i)<1000.0) continue;
+            if (isTimeGapStart(i)) continue;
+            fixed.set(i);
+        }
+
+        double[] base = null;
+        final double[] rpmDelta = new double[n];
+        final double[] rpmDeltaTime = new double[n];
+        java.util.Arrays.fill(rpmDelta, Double.NaN);
+        if (this.baseRpm != null) {
+            base = this.baseRpm.data.toArray();
+            // Same rows checkRPMMonotonicity() looks at
+            for (int i = 1; i + 2 < base.length; i++) {
+                if (straddlesTimeGap(i)) continue;
+                rpmDelta[i] = base[i-1] - base[i+1];
+                rpmDeltaTime[i] = monotonicityTimeDelta(i);
+            }
+        }
+
+        final Column time = this.get("TIME");
+        return new FilterSweep.Criteria(this.getFileId(), n, fixed, base,
+            this.pedal != null ? this.pedal.data.toArray() : null,
+            rpmDelta, rpmDeltaTime,
+            this.rpm != null ? this.rpm.data.toArray() : null,
+            time != null ? time.data.toArray() : null,
+            this.filter.maxRPM(), this.filter.minRPMRange());
+    }
+
 
 
     /**
@@ -1000,12 +1172,15 @@ public class ECUxDataset extends Dataset {
     /**
      * Get a column by ID with error handling.
      * Wraps _get() with NullPointerException handling for better error messages.
+     * Holds the dataset lock, so a calculated column is created once and never
+     * while a rebuild is invalidating columns on another thread.
      *
      * @param id The column ID to retrieve
      * @return The Column if found or calculated, null otherwise
      */
     @Override
-    public Column get(Comparable<?> id) {
+    public synchronized Column get(Comparable<?> id) {
+        final long t0 = Timings.start();
         try {
             return _get(id);
         } catch (final NullPointerException e) {
@@ -1017,6 +1192,8 @@ public class ECUxDataset extends Dataset {
                 logger.info("get('{}'): NullPointerException getting column: {}", id, cause != null ? cause : e.getClass().getName());
             }
             return null;
+        } finally {
+            Timings.stop("dataset.get", id instanceof Dataset.Key ? ((Dataset.Key)id).getString() : id, t0);
         }
     }
 
@@ -1227,6 +1404,12 @@ public class ECUxDataset extends Dataset {
                 ret=false;
             }
         }
+        // A pause or new session in the log always ends a range
+        // Not user configurable
+        if(isTimeGapStart(i)) {
+            reasons.add("time gap " + String.format("%.1f", this.timeGaps.time()[i] - this.timeGaps.time()[i-1]) + "s");
+            ret=false;
+        }
         // Use base RPM for range detection checks (breaks circular dependency)
         // Base smoothing doesn't need ranges, so it can be created before buildRanges()
         if(this.baseRpm!=null) {
@@ -1350,22 +1533,6 @@ public class ECUxDataset extends Dataset {
         return ret;
     }
 
-    /**
-     * Create a null PrintStream that discards all output.
-     * Used to suppress stdout during certain operations.
-     *
-     * @return The original System.out PrintStream (before it was replaced)
-     */
-    private static final PrintStream nullStdout() {
-        PrintStream original = System.out;
-        System.setOut(new PrintStream(new OutputStream() {
-                    public void write(int b) {
-                        //DO NOTHING
-                    }
-                }));
-        return original;
-    }
-
     /**
      * Normalize range to full dataset if null.
      * @param r The range, or null for full dataset
@@ -1381,36 +1548,20 @@ public class ECUxDataset extends Dataset {
         return r;
     }
 
-    /**
-     * Find which range a given data point index belongs to.
-     * @param ranges The list of ranges to search
-     * @param index The data point index to find
-     * @return The range containing the index, or null if not in any range
-     */
-    Dataset.Range findRangeForIndex(ArrayList<Dataset.Range> ranges, int index) {
-        if (ranges == null) {
-            return null;
-        }
-        for (Dataset.Range range : ranges) {
-            if (index >= range.start && index <= range.end) {
-                return range;
-            }
-        }
-        return null;
-    }
-
     /**
      * Apply range-aware smoothing to column data if configured.
      * @param column The column containing the data
      * @param columnName The name of the column (for lookup and logging)
      * @param r The range to extract and smooth
      * @return Smoothed data array, or raw data if smoothing not needed/applicable
-     * Delegates to Smoothing.applySmoothing().
+     * Uses the column's prepared kernel from the smoothing plan.
      */
     private double[] applySmoothing(Column column, String columnName, Range r) {
-        return Smoothing.applySmoothing(column, columnName, r,
-            this.smoothingWindows.get(columnName),
-            this.postDiffSmoothingStrategy, this.padding.left, this.padding.right, logger);
+        final Smoothing.Kernel kernel = this.smoothingPlan.kernel(columnName);
+        if (kernel == null) {
+            return column.data.toArray(r.start, r.end);
+        }
+        return kernel.apply(column, columnName, r, logger);
     }
 
     /**
@@ -1423,6 +1574,15 @@ public class ECUxDataset extends Dataset {
      */
     @Override
     public double[] getData(Comparable<?> id, Range r) {
+        final long t0 = Timings.start();
+        try {
+            return data(id, r);
+        } finally {
+            Timings.stop("dataset.getData", id, t0);
+        }
+    }
+
+    private double[] data(Comparable<?> id, Range r) {
         r = normalizeRange(r);
         if (r == null) return null;
 
@@ -1434,6 +1594,72 @@ public class ECUxDataset extends Dataset {
         return applySmoothing(c, columnName, r);
     }
 
+    /**
+     * Read-only view of a column over a range for charting. Same values as
+     * {@link #getData(Comparable, Range)}, but unsmoothed columns are not copied.
+     *
+     * @param id The column ID to retrieve
+     * @param r The range to view (null for full dataset)
+     * @return The view, or null if column not found or range invalid
+     */
+    public ColumnXYDataset.View getView(Comparable<?> id, Range r) {
+        r = normalizeRange(r);
+        if (r == null) return null;
+        return view(this.get(id), id.toString(), r);
+    }
+
+    /**
+     * Read-only view of a column over a range for charting, using a Key.
+     * Same values as {@link #getData(Key, Range)}, but unsmoothed columns are not copied.
+     *
+     * @param id The Key containing the column ID
+     * @param r The range to view (null for full dataset)
+     * @return The view, or null if column not found or range invalid
+     */
+    public ColumnXYDataset.View getView(Key id, Range r) {
+        r = normalizeRange(r);
+        if (r == null) return null;
+        final String lookupId = id.getString();
+        return view(this.get(lookupId), lookupId, r);
+    }
+
+    private ColumnXYDataset.View view(Column c, String columnName, Range r) {
+        if (c == null) return null;
+        final Smoothing.Kernel kernel = this.smoothingPlan.kernel(columnName);
+        if (kernel == null) return new ColumnXYDataset.View(c.data, r.start, r.size());
+        final Range range = r;
+        return new ColumnXYDataset.View(c.data, r.start, r.size(), kernel,
+            () -> kernel.apply(c, columnName, range, logger));
+    }
+
+    /**
+     * WHP over a range from a fused pipeline straight from RPM and TIME
+     * (see {@link AxisMenuHandlers#whpPipeline}). Touches only the range and its
+     * smoothing window, so it is cheap when the WHP column hasn't been built yet.
+     * Matches getData("WHP", r) except within a window of the ends of the log.
+     *
+     * @param r The range to compute (null for full dataset)
+     * @return WHP for the range, or null if it can't be computed this way
+     *         (no Env or Filter, missing RPM/TIME, or smoothing other than MAW with data padding)
+     */
+    public synchronized double[] getFusedWHP(Range r) {
+        r = normalizeRange(r);
+        if (r == null || this.env == null || this.filter == null) return null;
+        if (this.postDiffSmoothingStrategy != Strategy.MAW ||
+                this.padding.left != Smoothing.Padding.DATA || this.padding.right != Smoothing.Padding.DATA) {
+            return null;
+        }
+        final Column rpm = this.get("RPM");
+        final Column time = this.get("TIME");
+        if (rpm == null || time == null) return null;
+
+        // Same window as smoothingPlan.register("WHP", HPMAW()) and Kernel.apply()
+        final int window = this.samples_per_sec > 0 ? (int)Math.round(this.samples_per_sec * this.filter.HPMAW()) : 0;
+        final int effectiveWindow = window > 0 ? Smoothing.clampWindow(window, r.size()) : 0;
+        return AxisMenuHandlers.whpPipeline(this, effectiveWindow)
+            .run(time.data, rpm.data, r.start, r.end);
+    }
+
     /**
      * Get smoothing window information for a column.
      * @param columnName The name of the column
@@ -1441,7 +1667,7 @@ public class ECUxDataset extends Dataset {
      * @return An array with [originalWindow, effectiveWindow], or null if column is not registered for smoothing
      */
     public int[] getSmoothingWindowInfo(String columnName, int rangeSize) {
-        Metadata metadata = this.smoothingWindows.get(columnName);
+        Metadata metadata = this.smoothingPlan.get(columnName);
         if (metadata == null || metadata.windowSize <= 0) {
             return null;
         }
@@ -1460,6 +1686,15 @@ public class ECUxDataset extends Dataset {
      */
     @Override
     public double[] getData(Key id, Range r) {
+        final long t0 = Timings.start();
+        try {
+            return data(id, r);
+        } finally {
+            Timings.stop("dataset.getData", id.getString(), t0);
+        }
+    }
+
+    private double[] data(Key id, Range r) {
         // Route through get() which calls _get() for unit conversion handling
         // This ensures Keys with full IDs (e.g., "VehicleSpeed (mph)") are properly handled
         r = normalizeRange(r);
@@ -1494,22 +1729,22 @@ public class ECUxDataset extends Dataset {
      * Clears previous range failure reasons, calls parent method to build ranges,
      * and creates cubic splines for FATS calculations.
      *
-     * CACHE COHERENCY: This method explicitly clears all filter caches at the start
-     * to ensure fresh calculations. Cache validation in calculateRangeDetectionAcceleration()
-     * provides additional safety if called outside of buildRanges().
+     * CACHE COHERENCY: This method clears the per-rebuild filter caches at the start.
+     * The acceleration derivative is keyed on its inputs (see getAccelerationDerivative())
+     * and is reused when only gear, pedal, RPM or other thresholds changed.
      */
     @Override
-    public void buildRanges() {
+    public synchronized void buildRanges() {
         // Clear previous range failure reasons (only if initialized)
         // Note: field should always be initialized, but check for safety
         if (this.rangeFailureReasons != null) {
             this.rangeFailureReasons.clear();
         }
 
-        // Clear filter cache - will be recalculated/cached during filtering
-        // This ensures we don't use stale data if filter parameters changed
-        // SAFETY: Always clear cache at start of buildRanges() to prevent stale data
+        // Clear per-rebuild filter cache - boost columns will be re-fetched during filtering
+        // The acceleration derivative is validated against its own keys instead of being cleared
         // Note: filterCache may be null if called from parent constructor before field initialization
+        final int missesBefore = this.filterCache != null ? this.filterCache.misses : 0;
         if (this.filterCache != null) {
             this.filterCache.clear();
         }
@@ -1518,6 +1753,14 @@ public class ECUxDataset extends Dataset {
         // Note: dataValid() uses baseRpm (created before buildRanges()), so no circular dependency
         super.buildRanges();
 
+        if (this.filterCache != null && this.filter != null && this.filter.enabled() &&
+                this.filter.minAcceleration() > 0) {
+            if (this.filterCache.misses == missesBefore) this.filterCache.hits++;
+            logger.debug("buildRanges(): acceleration derivative cache {} (hits={}, misses={})",
+                this.filterCache.misses == missesBefore ? "hit" : "miss",
+                this.filterCache.hits, this.filterCache.misses);
+        }
+
         // Handle filter null case (timing issue during construction)
         if (this.filter == null) {
             logger.trace("Spline creation disabled: filter is null (called from parent constructor before filter assignment)");
@@ -1570,16 +1813,11 @@ public class ECUxDataset extends Dataset {
                 continue;
             }
 
-            PrintStream original = null;
             try {
-                original = nullStdout();        // hack to disable junk that CubicSpline prints
-                this.splines[i] = new CubicSpline(rpm, time);
-                System.setOut(original);
-                original = null;
+                // RPM vs time: time is ordered, and calcFATSRPM() inverts it to find time at RPM
+                this.splines[i] = new CubicSpline(time, rpm);
                 logger.debug("  buildRanges(): Successfully created spline for range {}", i);
-            } catch (final Exception e) {
-                // restore stdout if we caught something
-                if(original != null) System.setOut(original);
+            } catch (final IllegalArgumentException e) {
                 logger.warn("  buildRanges(): Failed to create spline for range {}: {}", i, e.getMessage());
             }
         }
@@ -1722,6 +1960,9 @@ public class ECUxDataset extends Dataset {
      *
      * This method performs the core FATS calculation using cubic spline interpolation
      * on RPM vs time data. It is used by both RPM and MPH modes for consistency.
+     * The spline of each range is built once in buildRanges(); finding the time at an
+     * RPM is a binary search of its monotone envelope, so any start/end is two O(log n)
+     * lookups.
      *
      * @param run The run number (0-based index into the ranges array)
      * @param RPMStart The starting RPM value for the calculation
@@ -1753,14 +1994,53 @@ public class ECUxDataset extends Dataset {
         // RPM-based calculation using filter range
         logger.trace("FATS RPM calculation: {} RPM -> {} RPM", RPMStart, RPMEnd);
         // Trust the filter - if we have a valid range, use spline interpolation
-        final double et = this.splines[run].interpolate(RPMEnd) -
-                this.splines[run].interpolate(RPMStart);
+        final double et = this.splines[run].inverse(RPMEnd) -
+                this.splines[run].inverse(RPMStart);
         if(et<=0)
             throw new Exception("FATS RPM calculation failed: timeEnd <= timeStart for RPM range " + RPMStart + "-" + RPMEnd);
 
         return et;
     }
 
+    /**
+     * Time at which a run reaches each of a set of RPM values, for FATS over many bands.
+     *
+     * All values are looked up in one pass over the run's spline, so the elapsed time
+     * for every pair is a subtraction: out[j] - out[i] equals calcFATS(run, rpm[i], rpm[j])
+     * wherever that is defined.
+     *
+     * @param run The run number (0-based index into the ranges array)
+     * @param rpm RPM values in ascending order
+     * @return Time in seconds per RPM value; NaN where the run never reaches it
+     * @throws Exception If the filter is disabled, the run is invalid, or interpolation failed
+     */
+    public double[] calcFATSTimes(int run, int[] rpm) throws Exception {
+        if (this.filter == null || !this.filter.enabled())
+            throw new Exception("FATS calculation requires filter to be enabled");
+
+        final ArrayList<Dataset.Range> ranges = this.getRanges();
+        if(run<0 || run>=ranges.size())
+            throw new Exception("FATS run " + run + " not found (available: 0-" + (ranges.size()-1) + ")");
+        if(this.splines == null || this.splines.length <= run || this.splines[run]==null)
+            throw new Exception("FATS run " + run + " interpolation failed - check filter settings");
+
+        final double[] ys = new double[rpm.length];
+        for (int i = 0; i < rpm.length; i++) ys[i] = rpm[i];
+        final double[] out = new double[rpm.length];
+        try {
+            this.splines[run].inverse(ys, out);
+        } catch (final IllegalArgumentException e) {
+            // Falling run: batch lookups need values in the data's direction, so do them one at a time
+            for (int i = 0; i < ys.length; i++) {
+                try {
+                    out[i] = this.splines[run].inverse(ys[i]);
+                } catch (final IllegalArgumentException e2) {
+                    out[i] = Double.NaN;
+                }
+            }
+        }
+        return out;
+    }
 
     public double[] calcFATS(int RPMStart, int RPMEnd) {
         final ArrayList<Dataset.Range> ranges = this.getRanges();
@@ -1810,10 +2090,11 @@ public class ECUxDataset extends Dataset {
     double getSamplesPerSec() { return this.samples_per_sec; }
 
     /**
-     * Get the smoothing windows map.
-     * @return The SmoothingWindowsMap instance for registering smoothing windows
+     * Get the prepared smoothing kernel for a column.
+     * @param columnName The column id
+     * @return The kernel, or null if the column is not registered for smoothing
      */
-    SmoothingWindowsMap getSmoothingWindows() { return this.smoothingWindows; }
+    Smoothing.Kernel getSmoothingKernel(String columnName) { return this.smoothingPlan.kernel(columnName); }
 
     /**
      * Get a CSV column directly without triggering calculations.
@@ -1856,14 +2137,13 @@ public class ECUxDataset extends Dataset {
 
     /**
      * Register a column for range-aware smoothing.
-     * SmoothingWindowsMap.put(String, double) is not accessible from handlers,
-     * so this helper method provides access.
+     * The smoothing plan is private, so this helper gives handlers access.
      *
      * @param columnName The name of the column to register
      * @param seconds The smoothing window size in seconds (converted to samples internally)
      */
     void registerSmoothingWindow(String columnName, double seconds) {
-        this.smoothingWindows.put(columnName, seconds);
+        this.smoothingPlan.register(columnName, seconds);
     }
     /**
      * Check if alternate column names (id_orig) should be used for display.
@@ -1909,7 +2189,7 @@ public class ECUxDataset extends Dataset {
      * @param columnTypes The ColumnTypes to invalidate (e.g., VEHICLE_CONSTANTS, OTHER_RUNTIME)
      * @return The number of columns removed
      */
-    public int invalidateColumnsByType(Dataset.ColumnType... columnTypes) {
+    public synchronized int invalidateColumnsByType(Dataset.ColumnType... columnTypes) {
         if (columnTypes == null || columnTypes.length == 0) {
             return 0;
         }
@@ -8,6 +8,8 @@ import java.io.File;
 import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.prefs.Preferences;
 
 import javax.swing.*;
@@ -15,8 +17,10 @@ import javax.swing.*;
 import org.jfree.chart.JFreeChart;
 import org.jfree.chart.plot.XYPlot;
 import org.jfree.chart.axis.NumberAxis;
+import org.jfree.chart.event.RendererChangeEvent;
+import org.jfree.chart.renderer.AbstractRenderer;
 import org.jfree.chart.renderer.xy.XYItemRenderer;
-import org.jfree.data.xy.DefaultXYDataset;
+import org.jfree.data.xy.XYDataset;
 import org.jfree.ui.ApplicationFrame;
 import org.jfree.ui.RefineryUtilities;
 import org.slf4j.Logger;
@@ -45,8 +49,14 @@ public class ECUxPlot extends ApplicationFrame implements SubActionListener, Fil
     }
 
     // Track rebuild state to prevent race conditions
-    private SwingWorker<Void, Void> currentRebuildWorker = null;
+    private SwingWorker<?, ?> currentRebuildWorker = null;
     private volatile boolean isRebuilding = false;
+    /** Rebuild workers run one at a time: a cancelled one is done with the datasets before the next starts */
+    private static final ExecutorService REBUILDER = Executors.newSingleThreadExecutor(r -> {
+        final Thread t = new Thread(r, "rebuild");
+        t.setDaemon(true);
+        return t;
+    });
 
     // Track if files are being auto-loaded from preferences during startup.
     // Used to mark datasets as loadedFromPrefs when loading from prefs.
@@ -118,6 +128,7 @@ public class ECUxPlot extends ApplicationFrame implements SubActionListener, Fil
         this.filter = new Filter(this.prefs);
         this.env = new Env(this.prefs);
         this.fats = new FATS(this.prefs);
+        Timings.setEnabled(renderTimings(this.prefs));
 
         final java.net.URL imageURL =
             getClass().getResource("icons/ECUxPlot2-64.png");
@@ -153,6 +164,14 @@ public class ECUxPlot extends ApplicationFrame implements SubActionListener, Fil
         return ECUxPlot.scatter(this.prefs);
     }
 
+    public static boolean backgroundRendering(Preferences prefs) {
+        return prefs.getBoolean("backgroundRendering", false);
+    }
+
+    public static boolean renderTimings(Preferences prefs) {
+        return prefs.getBoolean("renderTimings", false);
+    }
+
     /**
      * Get the verbose level from options (-v flag).
      * @return verbose level (0 = normal, 1 = -v, 2 = -vv)
@@ -162,19 +181,27 @@ public class ECUxPlot extends ApplicationFrame implements SubActionListener, Fil
     }
 
     private Comparable<?> xkey() {
+        return ECUxPlot.xkey(this.prefs);
+    }
+
+    private static Comparable<?> xkey(Preferences prefs) {
         // Use a hardcoded default instead of creating ECUxPreset to avoid infinite recursion
         final String defaultXkey = "RPM";
-        return this.prefs.get("xkey", defaultXkey);
+        return prefs.get("xkey", defaultXkey);
     }
 
     private Comparable<?>[] ykeys(int index) {
+        return ECUxPlot.ykeys(this.prefs, index);
+    }
+
+    private static Comparable<?>[] ykeys(Preferences prefs, int index) {
         // Use hardcoded defaults instead of creating ECUxPreset to avoid infinite recursion
         final String[] defaultYkeys0 = {"WHP","WTQ","HP","TQ"};
         final String[] defaultYkeys1 = {"BoostPressureDesired (PSI)","BoostPressureActual (PSI)"};
         final String[] defaultYkeys = { Strings.join(",", defaultYkeys0), Strings.join(",", defaultYkeys1) };
 
         // Check if preference was explicitly cleared (set to empty string)
-        final String k = this.prefs.get("ykeys"+index, defaultYkeys[index]);
+        final String k = prefs.get("ykeys"+index, defaultYkeys[index]);
         if(k.isEmpty()) return new String[0];
 
         final String[] keys = k.split(",");
@@ -189,9 +216,13 @@ public class ECUxPlot extends ApplicationFrame implements SubActionListener, Fil
     }
 
     private java.awt.Dimension windowSize() {
+        return ECUxPlot.windowSize(this.prefs);
+    }
+
+    private static java.awt.Dimension windowSize(Preferences prefs) {
         return new java.awt.Dimension(
-            this.prefs.getInt("windowWidth", 800),
-            this.prefs.getInt("windowHeight", 600));
+            prefs.getInt("windowWidth", 800),
+            prefs.getInt("windowHeight", 600));
     }
 
     private void prefsPutWindowSize() {
@@ -207,7 +238,7 @@ public class ECUxPlot extends ApplicationFrame implements SubActionListener, Fil
     }
     private void prefsPutYkeys(int axis) {
         final XYPlot plot = this.chartPanel.getChart().getXYPlot();
-        final DefaultXYDataset dataset = (DefaultXYDataset)plot.getDataset(axis);
+        final ColumnXYDataset dataset = (ColumnXYDataset)plot.getDataset(axis);
         this.prefsPutYkeys(axis, ECUxChartFactory.getDatasetYkeys(dataset));
     }
 
@@ -353,34 +384,10 @@ public class ECUxPlot extends ApplicationFrame implements SubActionListener, Fil
 
             final XYPlot plot = this.chartPanel.getChart().getXYPlot();
 
-            // Rebuild each axis by re-adding all Y-keys from preferences
+            // Bring each axis in line with its Y-keys from preferences and the loaded files.
+            // Axis ranges and visibility are applied by updateChartVisibility() below.
             for(int axis=0;axis<plot.getDatasetCount();axis++) {
-                final DefaultXYDataset newdataset = new DefaultXYDataset();
-
-                // Get all Y-keys configured for this axis
-                final Comparable<?>[] ykeys = this.ykeys(axis);
-
-                // Re-add each Y-key with current file data
-                for (final Comparable<?> ykeyName : ykeys) {
-                    final String yvar = ykeyName.toString();
-
-                    // Add data for each loaded file
-                    for (final Map.Entry<String, ECUxDataset> entry : this.fileDatasets.entrySet()) {
-                        final ECUxDataset data = entry.getValue();
-
-                        // Create base key for this Y-variable
-                        final Dataset.Key baseKey = data.new Key(yvar, data);
-                        final Comparable<?> xkey = this.xkey();
-
-                        // addDataset adds ALL ranges - Filter controls visibility via updateChartVisibility()
-                        ECUxChartFactory.addDataset(newdataset, data, xkey, baseKey);
-                    }
-                }
-
-                plot.setDataset(axis, newdataset);
-
-                // Apply custom axis range calculation for better padding with negative values
-                ECUxChartFactory.applyCustomAxisRange(chartPanel.getChart(), axis, newdataset);
+                updateAxisSeries(axis);
             }
             updateAllAxisLabels(plot);
 
@@ -547,6 +554,8 @@ public class ECUxPlot extends ApplicationFrame implements SubActionListener, Fil
                 final JFreeChart chart =
                     ECUxChartFactory.create2AxisChart(this.scatter());
                 this.chartPanel = new ECUxChartPanel(chart);
+                this.chartPanel.setBackgroundRendering(backgroundRendering(this.prefs));
+                this.chartPanel.setTimingOverlay(renderTimings(this.prefs));
                 setContentPane(this.chartPanel);
 
             }
@@ -887,6 +896,17 @@ public class ECUxPlot extends ApplicationFrame implements SubActionListener, Fil
             SwingUtilities.invokeLater(() -> {
                 WaitCursor.stopWaitCursor(ECUxPlot.this);
             });
+        } else if(source.getText().equals("Render in background")) {
+            final boolean s = source.isSelected();
+            this.prefs.putBoolean("backgroundRendering", s);
+            if(this.chartPanel != null)
+                this.chartPanel.setBackgroundRendering(s);
+        } else if(source.getText().equals("Show render timings")) {
+            final boolean s = source.isSelected();
+            this.prefs.putBoolean("renderTimings", s);
+            Timings.setEnabled(s);
+            for (final ECUxPlot p : this.plotlist)
+                if(p.chartPanel != null) p.chartPanel.setTimingOverlay(s);
         } else if(source.getText().equals("Scatter plot")) {
             final boolean s = source.isSelected();
             this.prefs.putBoolean("scatter", s);
@@ -1201,7 +1221,7 @@ public class ECUxPlot extends ApplicationFrame implements SubActionListener, Fil
      * @param d The dataset to add series to
      * @param ykey The key identifying the Y-variable and file
      */
-    private void addDataset(int axis, DefaultXYDataset d,
+    private void addDataset(int axis, ColumnXYDataset d,
             Dataset.Key ykey) {
         // ugh. need an index for axis stroke, so we cant just do a get.
         // walk the filenames and get it, and the index for it
@@ -1275,6 +1295,84 @@ public class ECUxPlot extends ApplicationFrame implements SubActionListener, Fil
         }
     }
 
+    /**
+     * Bring an axis' series in line with its Y-keys and the loaded files, on the event thread.
+     * @param axis The axis index
+     * @return What changed
+     */
+    private ColumnXYDataset.Patch updateAxisSeries(int axis) {
+        return applyAxisSeries(axis, axisSeries(this.xkey(), this.ykeys(axis),
+            this.fileDatasets.values(), () -> false));
+    }
+
+    /**
+     * Series an axis should show: every range of every file for each Y-key.
+     * Reads datasets only, so it can run off the event thread.
+     * @param cancelled Checked between files and keys
+     * @return The series, or null if cancelled
+     */
+    private static List<ColumnXYDataset.Entry> axisSeries(Comparable<?> xkey, Comparable<?>[] ykeys,
+            Collection<ECUxDataset> files, java.util.function.BooleanSupplier cancelled) {
+        final ArrayList<ColumnXYDataset.Entry> wanted = new ArrayList<ColumnXYDataset.Entry>();
+        for (final Comparable<?> ykeyName : ykeys) {
+            for (final ECUxDataset data : files) {
+                if (cancelled.getAsBoolean()) return null;
+                // ALL ranges - Filter controls visibility, not existence
+                final Dataset.Key baseKey = data.new Key(ykeyName.toString(), data);
+                wanted.addAll(ECUxChartFactory.getSeries(data, xkey, baseKey));
+            }
+        }
+        return wanted;
+    }
+
+    /**
+     * Patch an axis' dataset to show the given series (see {@link ColumnXYDataset#update})
+     * rather than replacing it. Paints and strokes are re-applied only if series moved.
+     * @param axis The axis index
+     * @param wanted The series to show
+     * @return What changed
+     */
+    private ColumnXYDataset.Patch applyAxisSeries(int axis, List<ColumnXYDataset.Entry> wanted) {
+        final JFreeChart chart = this.chartPanel.getChart();
+        final ColumnXYDataset dataset = (ColumnXYDataset)chart.getXYPlot().getDataset(axis);
+        final ColumnXYDataset.Patch patch = dataset.update(wanted);
+        logger.debug("Axis {} series: {}", axis, patch);
+        if (patch.isStructural()) {
+            ECUxChartFactory.reapplySeriesColors(chart);
+            ECUxChartFactory.reapplySeriesStrokes(chart, axis,
+                new ArrayList<String>(this.fileDatasets.keySet()));
+        }
+        return patch;
+    }
+
+    /**
+     * Apply filter visibility rules to all series of an axis, touching only series
+     * whose visibility changes, with one chart change event at most.
+     * @param axis The axis index
+     * @return true if any series changed visibility
+     */
+    private boolean updateSeriesVisibility(int axis) {
+        final XYPlot plot = this.chartPanel.getChart().getXYPlot();
+        final XYDataset dataset = plot.getDataset(axis);
+        final XYItemRenderer renderer = plot.getRenderer(axis);
+        if (dataset == null || !(renderer instanceof AbstractRenderer)) return false;
+
+        boolean changed = false;
+        for (int series = 0; series < dataset.getSeriesCount(); series++) {
+            final Object seriesKey = dataset.getSeriesKey(series);
+            if (!(seriesKey instanceof Dataset.Key)) continue;
+            final Dataset.Key key = (Dataset.Key)seriesKey;
+            final boolean shouldBeVisible = calculateVisibility(key.getFilename(), key.getRange());
+            if (renderer.isSeriesVisible(series) != shouldBeVisible) {
+                ((AbstractRenderer)renderer).setSeriesVisible(series, shouldBeVisible, false);
+                changed = true;
+            }
+        }
+        // Through the plot, so a batch() holds it back
+        if (changed) ((AbstractRenderer)renderer).notifyListeners(new RendererChangeEvent(renderer));
+        return changed;
+    }
+
     /**
      * Apply filter visibility rules to specific newly-added series.
      * More efficient than updateChartVisibility() which processes all series.
@@ -1283,7 +1381,7 @@ public class ECUxPlot extends ApplicationFrame implements SubActionListener, Fil
      * @param dataset The dataset containing the series
      * @param seriesIndices Array of series indices to update
      */
-    private void applyVisibilityToSeries(int axis, DefaultXYDataset dataset, Integer[] seriesIndices) {
+    private void applyVisibilityToSeries(int axis, ColumnXYDataset dataset, Integer[] seriesIndices) {
         if(this.chartPanel == null) {
             return;
         }
@@ -1335,7 +1433,7 @@ public class ECUxPlot extends ApplicationFrame implements SubActionListener, Fil
 
         // Iterate datasets directly - no cache needed
         for(int axis = 0; axis < plot.getDatasetCount(); axis++) {
-            final DefaultXYDataset dataset = (DefaultXYDataset)plot.getDataset(axis);
+            final ColumnXYDataset dataset = (ColumnXYDataset)plot.getDataset(axis);
             if(dataset == null) continue;
 
             final XYItemRenderer renderer = plot.getRenderer(axis);
@@ -1358,7 +1456,7 @@ public class ECUxPlot extends ApplicationFrame implements SubActionListener, Fil
 
         // Update axis ranges after visibility changes
         for(int axis=0; axis<plot.getDatasetCount(); axis++) {
-            final DefaultXYDataset dataset = (DefaultXYDataset)plot.getDataset(axis);
+            final ColumnXYDataset dataset = (ColumnXYDataset)plot.getDataset(axis);
             if(dataset != null) {
                 ECUxChartFactory.applyCustomAxisRange(chartPanel.getChart(), axis, dataset);
             }
@@ -1382,7 +1480,8 @@ public class ECUxPlot extends ApplicationFrame implements SubActionListener, Fil
             return;
         }
 
-        // Cancel any in-progress rebuild to prevent concurrent rebuilds
+        // Cancel any in-progress rebuild; it stops at its next check, and this one
+        // waits for it on REBUILDER rather than changing the same datasets
         // WARNING: If this triggers, it indicates concurrent rebuild() calls
         synchronized(this) {
             if(currentRebuildWorker != null && !currentRebuildWorker.isDone()) {
@@ -1401,121 +1500,127 @@ public class ECUxPlot extends ApplicationFrame implements SubActionListener, Fil
         }
 
 
-        // Move heavy work to background thread to keep UI responsive
-        final SwingWorker<Void, Void> worker = new SwingWorker<Void, Void>() {
+        // Whole rebuild, from here until the model is applied on the EDT
+        final long rebuildStart = Timings.start();
+
+        // Snapshot what the chart should show; the background stage reads nothing from Swing
+        final XYPlot plot = this.chartPanel.getChart().getXYPlot();
+        final List<ECUxDataset> files = new ArrayList<ECUxDataset>(this.fileDatasets.values());
+        final Comparable<?> xkey = this.xkey();
+        final int axes = plot.getDatasetCount();
+        final List<Comparable<?>[]> ykeys = new ArrayList<Comparable<?>[]>();
+        final List<List<ColumnXYDataset.Entry>> current = new ArrayList<List<ColumnXYDataset.Entry>>();
+        for (int axis = 0; axis < axes; axis++) {
+            ykeys.add(this.ykeys(axis));
+            current.add(((ColumnXYDataset)plot.getDataset(axis)).getEntries());
+        }
+        final FATSDataset fatsDataset = this.fatsDataset;
+
+        // All column computation runs in the background; the EDT only applies the RenderModel
+        final SwingWorker<RenderModel, Void> worker = new SwingWorker<RenderModel, Void>() {
             @Override
-            protected Void doInBackground() throws Exception {
-                // Check for cancellation during background work
+            protected RenderModel doInBackground() throws Exception {
+                final long t0 = Timings.start();
+                try {
+                    return compute();
+                } finally {
+                    Timings.stop("rebuild.compute", t0);
+                }
+            }
+
+            private RenderModel compute() {
+                // Check for cancellation between files and keys
                 int datasetCount = 0;
-                for(final ECUxDataset data : fileDatasets.values()) {
+                for(final ECUxDataset data : files) {
                     if(isCancelled()) {
                         logger.warn("  [BACKGROUND] Rebuild cancelled during range building (processed {} datasets)", datasetCount);
                         return null;
                     }
                     datasetCount++;
-                    data.buildRanges();
+                    final long t0 = Timings.start();
+                    // Under the dataset lock, so the EDT never sees new ranges with stale columns
+                    synchronized (data) {
+                        data.buildRanges();
+
+                        // Invalidate runtime-dependent columns (e.g., TIME [Range], Sample [Range])
+                        // so they're recreated with new ranges after buildRanges() completes
+                        // Also invalidate constant-dependent columns so they're recreated with new values
+                        // This ensures columns are updated when vehicle constants or filter smoothing windows change
+                        data.invalidateColumnsByType(
+                            Dataset.ColumnType.OTHER_RUNTIME,
+                            Dataset.ColumnType.VEHICLE_CONSTANTS
+                        );
+                    }
+                    Timings.stop("rebuild.ranges", data.getFileId(), t0);
+                }
+                logger.debug("  [BACKGROUND] ranges built for {} datasets", datasetCount);
+
+                // FATS AFTER column invalidation, so it uses columns recreated with new constants
+                // Note: splines are built from base RPM/TIME columns (not constant-dependent),
+                // so they remain valid after constant-dependent column invalidation
+                // Recalculate with new columns/constants over the files snapshot; the EDT
+                // swaps the values in, or creates the FATS dataset from them
+                Map<String, Map<Integer, Double>> fatsValues = null;
+                if (!files.isEmpty()) {
+                    if (isCancelled()) return null;
+                    final long t0 = Timings.start();
+                    fatsValues = fatsDataset == null ? FATSDataset.calculateAll(files, ECUxPlot.this.fats) :
+                        fatsDataset.calculateAll(files);
+                    Timings.stop("rebuild.fats", t0);
+                }
+
+                // Series of every axis, with smoothed values and X/Y stats (the axis bounds)
+                // computed here. Series the chart already shows unchanged are reused as they are.
+                final List<List<ColumnXYDataset.Entry>> series = new ArrayList<List<ColumnXYDataset.Entry>>();
+                for (int axis = 0; axis < axes; axis++) {
+                    final long t0 = Timings.start();
+                    final List<ColumnXYDataset.Entry> wanted = axisSeries(xkey, ykeys.get(axis), files, this::isCancelled);
+                    if (wanted == null) return null;
+                    final List<ColumnXYDataset.Entry> entries = ColumnXYDataset.reuse(wanted, current.get(axis));
+                    Timings.stop("rebuild.series", "axis " + axis, t0);
+                    for (final ColumnXYDataset.Entry e : entries) {
+                        if (isCancelled()) return null;
+                        if (e.x == null || e.y == null) continue;
+                        final long t1 = Timings.start();
+                        e.x.load().stats();
+                        e.y.load().stats();
+                        Timings.stop("rebuild.load", e.key instanceof Dataset.Key ?
+                            ((Dataset.Key)e.key).getString() : e.key, t1);
+                    }
+                    series.add(Collections.unmodifiableList(entries));
                 }
                 logger.debug("  [BACKGROUND] doInBackground() complete - processed {} datasets", datasetCount);
-                return null;
+                return new RenderModel(series, fatsValues);
             }
 
             @Override
             protected void done() {
                 logger.debug("  [EDT] done() called [Thread: {}]", Thread.currentThread().getName());
+                RenderModel model = null;
                 try {
                     // Check for cancellation or exceptions during background work
                     if(isCancelled()) {
                         logger.warn("  [EDT] Rebuild was cancelled");
                         return;
                     }
-                    get(); // This will throw any exception that occurred in doInBackground()
+                    model = get(); // This will throw any exception that occurred in doInBackground()
                 } catch (final Exception e) {
                     // Ignore CancellationException if we were cancelled
                     if(!isCancelled()) {
-                        logger.error("  [EDT] Error building ranges: {}", e.getMessage(), e);
+                        logger.error("  [EDT] Error rebuilding: {}", e.getMessage(), e);
                     } else {
                         logger.debug("  [EDT] Exception after cancellation (ignoring): {}", e.getMessage());
                     }
-                    // Continue - partial data is better than nothing
+                    // Continue - stop cursors, clear the rebuild flag below
                 }
 
                 try {
-                    // Invalidate runtime-dependent columns (e.g., TIME [Range], Sample [Range])
-                    // so they're recreated with new ranges after buildRanges() completes
-                    // Also invalidate constant-dependent columns so they're recreated with new values
-                    // This ensures columns are updated when vehicle constants or filter smoothing windows change
-                    ECUxPlot.this.invalidateColumnsInAllDatasets(
-                        Dataset.ColumnType.OTHER_RUNTIME,
-                        Dataset.ColumnType.VEHICLE_CONSTANTS
-                    );
-
-                    // Rebuild FATSDataset AFTER column invalidation
-                    // This ensures FATS calculation uses columns recreated with new constants
-                    // Note: splines are built from base RPM/TIME columns (not constant-dependent),
-                    // so they remain valid after constant-dependent column invalidation
-                    if (ECUxPlot.this.fatsDataset == null && !ECUxPlot.this.fileDatasets.isEmpty()) {
-                        ECUxPlot.this.fatsDataset = new FATSDataset(ECUxPlot.this.fileDatasets, ECUxPlot.this.fats, ECUxPlot.this.filter);
-
-                        // Update Range Selector window if it's open
-                        if(ECUxPlot.this.rangeSelectorWindow != null) {
-                            ECUxPlot.this.rangeSelectorWindow.setFATSDataset(ECUxPlot.this.fatsDataset);
-                        }
-                    } else if (ECUxPlot.this.fatsDataset != null && !ECUxPlot.this.fileDatasets.isEmpty()) {
-                        // Rebuild existing FATS dataset - clear cache and recalculate with new columns/constants
-                        ECUxPlot.this.fatsDataset.rebuildAll();
-                    }
-
-                    // FATS window will automatically show updated data since it uses the same FATSDataset instance
-
-                    final XYPlot plot = ECUxPlot.this.chartPanel.getChart().getXYPlot();
-
-                    // Rebuild each axis by re-adding all Y-keys from preferences
-                    // This ensures removed series are added back when their ranges are selected
-                    for(int axis=0;axis<plot.getDatasetCount();axis++) {
-                        final DefaultXYDataset newdataset = new DefaultXYDataset();
-
-                        // Get all Y-keys configured for this axis
-                        final Comparable<?>[] ykeys = ECUxPlot.this.ykeys(axis);
-
-                        // Re-add each Y-key with current file data
-                        for (final Comparable<?> ykeyName : ykeys) {
-                            final String yvar = ykeyName.toString();
-
-                            // Add data for each loaded file
-                            for (final Map.Entry<String, ECUxDataset> entry : ECUxPlot.this.fileDatasets.entrySet()) {
-                                final ECUxDataset data = entry.getValue();
-
-                                // Create base key for this Y-variable
-                                final Dataset.Key baseKey = data.new Key(yvar, data);
-                                final Comparable<?> xkey = ECUxPlot.this.xkey();
-
-                                // addDataset adds ALL ranges - visibility will be applied after dataset is set
-                                ECUxChartFactory.addDataset(newdataset, data, xkey, baseKey);
-                            }
-                        }
-
-                        plot.setDataset(axis, newdataset);
-
-                        // Apply visibility immediately to all series in new dataset (before axis range calculation)
-                        // This ensures filter is applied even if updateChartVisibility() gets deferred
-                        Integer[] allSeriesIndices = new Integer[newdataset.getSeriesCount()];
-                        for(int i = 0; i < newdataset.getSeriesCount(); i++) {
-                            allSeriesIndices[i] = i;
-                        }
-                        applyVisibilityToSeries(axis, newdataset, allSeriesIndices);
-
-                        // Apply custom axis range calculation for better padding with negative values
-                        ECUxChartFactory.applyCustomAxisRange(ECUxPlot.this.chartPanel.getChart(), axis, newdataset);
+                    if (model != null) {
+                        final long t0 = Timings.start();
+                        applyRenderModel(model);
+                        Timings.stop("rebuild.apply", t0);
+                        Timings.stop("rebuild", rebuildStart);
                     }
-
-                    updateAllAxisLabels(plot);
-
-                    // Visibility already applied via applyVisibilityToSeries() for each dataset
-                    // No need to call updateChartVisibility() here - it's already done
-
-                    // Don't call updateOpenWindows() here - window updates are handled by callbacks
-                    // This prevents Range Selector tree from being rebuilt when user changes selections
-                    //updateOpenWindows();
                 } catch (final Exception e) {
                     logger.error("Error updating chart: {}", e.getMessage(), e);
                     // Continue - WaitCursor will be stopped in finally block
@@ -1547,18 +1652,81 @@ public class ECUxPlot extends ApplicationFrame implements SubActionListener, Fil
         synchronized(this) {
             currentRebuildWorker = worker;
         }
-        worker.execute();
+        REBUILDER.execute(worker);
     }
 
 
-    private void removeAllY() { this.removeAllY(0); this.removeAllY(1); }
+    /**
+     * What the background stage of {@link #rebuild(Runnable, JFrame...)} computed:
+     * the series of every axis with their values and stats loaded, and FATS.
+     */
+    private static final class RenderModel {
+        /** Per axis, the series to show */
+        final List<List<ColumnXYDataset.Entry>> series;
+        /** New FATS values, see {@link FATSDataset#calculateAll(java.util.Collection)}; null if no files */
+        final Map<String, Map<Integer, Double>> fatsValues;
+
+        RenderModel(List<List<ColumnXYDataset.Entry>> series, Map<String, Map<Integer, Double>> fatsValues) {
+            this.series = series;
+            this.fatsValues = fatsValues;
+        }
+    }
+
+    /* rebuild() on the EDT: swap in what the background stage computed */
+    private void applyRenderModel(RenderModel model) {
+        // FATS window will automatically show updated data since it uses the same FATSDataset instance
+        if (model.fatsValues != null && this.fatsDataset == null) {
+            this.fatsDataset = new FATSDataset(this.fileDatasets, this.fats, this.filter, model.fatsValues);
+            // Update Range Selector window if it's open
+            if(this.rangeSelectorWindow != null) {
+                this.rangeSelectorWindow.setFATSDataset(this.fatsDataset);
+            }
+        } else if (model.fatsValues != null && this.fatsDataset != null) {
+            this.fatsDataset.rebuildAll(model.fatsValues);
+        }
+
+        final JFreeChart chart = this.chartPanel.getChart();
+        // One chart change for all axes, paints, visibility and ranges
+        ECUxChartFactory.batch(chart, () -> applyAxes(chart, model));
+
+        updateAllAxisLabels(chart.getXYPlot());
+
+        // Visibility already applied via updateSeriesVisibility() for each axis
+        // No need to call updateChartVisibility() here - it's already done
+
+        // Don't call updateOpenWindows() here - window updates are handled by callbacks
+        // This prevents Range Selector tree from being rebuilt when user changes selections
+    }
+
+    private void applyAxes(JFreeChart chart, RenderModel model) {
+        final XYPlot plot = chart.getXYPlot();
+        // Patch each axis to match its Y-keys from preferences: series whose range,
+        // columns and smoothing are unchanged keep their data, paint and stroke.
+        // This ensures removed series are added back when their ranges are selected
+        for (int axis = 0; axis < model.series.size() && axis < plot.getDatasetCount(); axis++) {
+            final ColumnXYDataset.Patch patch = applyAxisSeries(axis, model.series.get(axis));
+
+            // Apply visibility immediately (before axis range calculation)
+            // This ensures filter is applied even if updateChartVisibility() gets deferred
+            final boolean shown = updateSeriesVisibility(axis);
+
+            // Axis range from the precomputed stats of the visible series, if anything changed
+            if (!patch.isEmpty() || shown) {
+                ECUxChartFactory.applyCustomAxisRange(chart, axis, plot.getDataset(axis));
+            }
+        }
+    }
+
+    private void removeAllY() {
+        ECUxChartFactory.batch(this.chartPanel.getChart(), () -> { this.removeAllY(0); this.removeAllY(1); });
+    }
 
     /**
      * Remove all data from a Y-axis.
      */
     private void removeAllY(int axis) {
         final XYPlot plot = this.chartPanel.getChart().getXYPlot();
-        ECUxChartFactory.removeDataset((DefaultXYDataset)plot.getDataset(axis));
+        ECUxChartFactory.removeDataset((ColumnXYDataset)plot.getDataset(axis));
         this.yAxis[axis].uncheckAll();
 
         // Clear preferences for this axis so rebuild() doesn't restore old data
@@ -1570,20 +1738,31 @@ public class ECUxPlot extends ApplicationFrame implements SubActionListener, Fil
     }
 
     private void editChartY(Comparable<?> ykey, int axis, boolean add) {
-        for(final ECUxDataset data : this.fileDatasets.values())
-            editChartY(data, ykey, axis, add);
+        // One chart change for all files
+        ECUxChartFactory.batch(this.chartPanel.getChart(), () -> {
+            for(final ECUxDataset data : this.fileDatasets.values())
+                editChartY(data, ykey, axis, add);
+        });
 
         // Note: Visibility is now automatically applied when series are added via addDataset()
         // No need to call updateChartVisibility() here - it's handled incrementally
     }
 
     private void editChartY(ECUxDataset data, Comparable<?> ykey, int axis,
+        boolean add) {
+        // A rebuild may be changing this file's columns on REBUILDER
+        synchronized (data) {
+            editChartYLocked(data, ykey, axis, add);
+        }
+    }
+
+    private void editChartYLocked(ECUxDataset data, Comparable<?> ykey, int axis,
         boolean add) {
         if(add && !(data.exists(ykey)) ) {
             return;
         }
         final XYPlot plot = this.chartPanel.getChart().getXYPlot();
-        final DefaultXYDataset pds = (DefaultXYDataset)plot.getDataset(axis);
+        final ColumnXYDataset pds = (ColumnXYDataset)plot.getDataset(axis);
         if(add) {
             final Dataset.Key key = data.new Key(ykey.toString(), data);
             if(this.fileDatasets.size()==1) key.hideFilename();
@@ -1673,41 +1852,44 @@ public class ECUxPlot extends ApplicationFrame implements SubActionListener, Fil
             // Rebuild complete - continue with menu updates below
         } else {
             // X-axis unchanged - remove all, then add preset items (simple and deterministic)
-            for (int axis = 0; axis < 2; axis++) {
-                // Remove all current Y-keys
-                Comparable<?>[] currentYkeys = this.ykeys(axis);
-                for (Comparable<?> ykey : currentYkeys) {
-                    editChartY(ykey, axis, false);
-                }
+            // One chart change for the whole swap, not one per series
+            ECUxChartFactory.batch(this.chartPanel.getChart(), () -> {
+                for (int axis = 0; axis < 2; axis++) {
+                    // Remove all current Y-keys
+                    Comparable<?>[] currentYkeys = this.ykeys(axis);
+                    for (Comparable<?> ykey : currentYkeys) {
+                        editChartY(ykey, axis, false);
+                    }
 
-                // Add all preset Y-keys (in preset order - deterministic)
-                // Map unit-converted keys to base field names before calling editChartY()
-                // Use AxisMenu's mapping logic via shared utility method
-                Comparable<?>[] presetYkeys = p.ykeys(axis);
-                for (Comparable<?> ykey : presetYkeys) {
-                    String keyStr = ykey.toString();
-                    // Use shared mapping utility - get normalized unit from datasets
-                    String mappedKey = Units.mapUnitConversionToBaseField(keyStr, (baseField) -> {
-                        // Look up normalized unit from datasets
-                        for (final ECUxDataset dataset : this.fileDatasets.values()) {
-                            for (final DatasetId dsid : dataset.getIds()) {
-                                if (dsid != null && dsid.id.equals(baseField) && dsid.unit != null) {
-                                    return dsid.unit;
+                    // Add all preset Y-keys (in preset order - deterministic)
+                    // Map unit-converted keys to base field names before calling editChartY()
+                    // Use AxisMenu's mapping logic via shared utility method
+                    Comparable<?>[] presetYkeys = p.ykeys(axis);
+                    for (Comparable<?> ykey : presetYkeys) {
+                        String keyStr = ykey.toString();
+                        // Use shared mapping utility - get normalized unit from datasets
+                        String mappedKey = Units.mapUnitConversionToBaseField(keyStr, (baseField) -> {
+                            // Look up normalized unit from datasets
+                            for (final ECUxDataset dataset : this.fileDatasets.values()) {
+                                for (final DatasetId dsid : dataset.getIds()) {
+                                    if (dsid != null && dsid.id.equals(baseField) && dsid.unit != null) {
+                                        return dsid.unit;
+                                    }
                                 }
                             }
-                        }
-                        return null;
-                    });
-                    editChartY(mappedKey, axis, true);
-                }
+                            return null;
+                        });
+                        editChartY(mappedKey, axis, true);
+                    }
 
-                // Update prefs to reflect new state
-                prefsPutYkeys(axis);
-            }
+                    // Update prefs to reflect new state
+                    prefsPutYkeys(axis);
+                }
 
-            // Apply visibility based on Filter state (Filter controls visibility, not series existence)
-            // Preserve existing Filter selections - presets only change columns, not range selections
-            updateChartVisibility();
+                // Apply visibility based on Filter state (Filter controls visibility, not series existence)
+                // Preserve existing Filter selections - presets only change columns, not range selections
+                updateChartVisibility();
+            });
 
             // Update axis labels to reflect new Y-keys
             updatePlotTitleAndYAxisLabels();
@@ -1858,29 +2040,18 @@ public class ECUxPlot extends ApplicationFrame implements SubActionListener, Fil
         }
     }
 
-    /**
-     * Invalidate columns of the specified types in all datasets.
-     * Called when dependencies change (e.g., ranges rebuilt, constants changed).
-     *
-     * @param columnTypes The ColumnTypes to invalidate (e.g., VEHICLE_CONSTANTS, OTHER_RUNTIME)
-     */
-    private void invalidateColumnsInAllDatasets(Dataset.ColumnType... columnTypes) {
-        for (ECUxDataset dataset : this.fileDatasets.values()) {
-            dataset.invalidateColumnsByType(columnTypes);
-        }
-    }
-
     /**
      * Handle vehicle constants change by invalidating caches and updating all windows.
      * Called from ConstantsEditor when constants are changed.
      */
     public void handleConstantsChange() {
         // Rebuild charts with constant invalidation
-        // Column invalidation happens in rebuild()'s done() method:
+        // Column invalidation happens in rebuild()'s background stage:
         // 1. buildRanges() completes (uses old columns to build splines)
         // 2. Columns are invalidated (marked for recreation with new constants)
         // 3. FATSDataset is rebuilt (accesses columns, triggering recreation with new constants)
-        // 4. Chart datasets are rebuilt (accesses columns, triggering recreation with new constants)
+        // 4. Chart series are rebuilt (accesses columns, triggering recreation with new constants)
+        // The EDT then only applies the result
         rebuild(() -> {
             // Update all windows that display constant-dependent data
             // Main chart is already updated by rebuild()
@@ -2034,13 +2205,28 @@ public class ECUxPlot extends ApplicationFrame implements SubActionListener, Fil
         public ArrayList<String> files = new ArrayList<String>();
         public int verbose = 0;
         public boolean nogui = false;
+        public String sweep = null;
+        public String fatsMatrix = null;
+        /** Every -p given, for --export */
+        public ArrayList<String> presets = new ArrayList<String>();
+        public File export = null;
+        public String formats = "png";
+        public int threads = Runtime.getRuntime().availableProcessors();
 
         private static void usage() {
             System.out.println("usage:");
-            System.out.println("ECUxPlot [-l] [-v[v...]] [--no-gui] [-p Preset] [-o OutputFile] [--width width] [--height height] [LogFiles ... ]");
+            System.out.println("ECUxPlot [-l] [-v[v...]] [--no-gui] [-p Preset] [-o OutputFile] [--width width] [--height height] [--sweep Spec] [--fats-matrix Spec] [--export Dir [--format png,svg] [--threads N]] [LogFiles ... ]");
             System.out.println("         -l          : list presets");
             System.out.println("         -v...       : verbosity level");
             System.out.println("         --no-gui    : just parse file and exit");
+            System.out.println("         --sweep Spec: print filter sweep results as CSV and exit (implies --no-gui)");
+            System.out.println("                       e.g. \"minRPM=2000:3000:250;minPedal=80,90;minPoints=20;fuzz=500,1000\"");
+            System.out.println("         --fats-matrix Spec: print FATS between every pair of breakpoints as CSV and exit");
+            System.out.println("                       (implies --no-gui), in the FATS speed unit, e.g. \"2500:6500:500\"");
+            System.out.println("         --export Dir: render every -p Preset (default all) for every file into Dir and exit");
+            System.out.println("                       (implies --no-gui), as File-Preset.png (or .svg); -p may be repeated");
+            System.out.println("         --format F  : --export formats, png and/or svg, e.g. \"png,svg\"");
+            System.out.println("         --threads N : --export worker threads (default: number of CPUs)");
             System.out.println("         -h|-?|--help: show usage");
             System.exit(0);
         }
@@ -2070,14 +2256,41 @@ public class ECUxPlot extends ApplicationFrame implements SubActionListener, Fil
                             }
                         }
                     else if(i<args.length-1) {
-                        if(option.equals("p"))
+                        if(option.equals("p")) {
                             this.preset = args[i+1];
+                            this.presets.add(args[i+1]);
+                        }
                         else if(option.equals("o"))
                             output = args[i+1];
                         else if(option.equals("-width"))
                             width = Integer.valueOf(args[i+1]);
                         else if(option.equals("-height"))
                             height = Integer.valueOf(args[i+1]);
+                        else if(option.equals("-sweep")) {
+                            this.sweep = args[i+1];
+                            this.nogui = true;
+                        }
+                        else if(option.equals("-fats-matrix")) {
+                            this.fatsMatrix = args[i+1];
+                            this.nogui = true;
+                        }
+                        else if(option.equals("-export")) {
+                            this.export = new File(args[i+1]);
+                            this.nogui = true;
+                        }
+                        else if(option.equals("-format"))
+                            this.formats = args[i+1];
+                        else if(option.equals("-threads")) {
+                            try {
+                                this.threads = Integer.parseInt(args[i+1]);
+                            } catch (final NumberFormatException e) {
+                                this.threads = 0;
+                            }
+                            if(this.threads < 1) {
+                                System.out.printf("Invalid thread count '%s'\n", args[i+1]);
+                                usage();
+                            }
+                        }
                         else {
                             System.out.printf("Unknown option '-%s ...'\n", option);
                             usage();
@@ -2202,6 +2415,16 @@ public class ECUxPlot extends ApplicationFrame implements SubActionListener, Fil
                 // Set up MessageDialog for --no-gui mode
                 MessageDialog.setNoGui(o.nogui);
 
+                // Batch export never creates a window, so it needs no theme either
+                if(o.export!=null) {
+                    System.exit(runExport(o) ? 0 : 1);
+                }
+
+                // Nor does a chart saved with -o and --no-gui
+                if(o.nogui && o.output!=null && o.sweep==null && o.fatsMatrix==null) {
+                    System.exit(runOutputFile(o) ? 0 : 1);
+                }
+
                 // Initialize theme before creating any Swing components
                 ThemeManager.initialize(getPreferences());
 
@@ -2211,12 +2434,12 @@ public class ECUxPlot extends ApplicationFrame implements SubActionListener, Fil
                     // just load files and be done
                     plot.loadFiles(o.files);
 
-                    // Handle output file if specified
-                    if(o.output!=null) {
-                        if (!handleOutputFile(plot, o.output)) {
-                            System.exit(1);
-                        }
-                        System.exit(0);
+                    if(o.sweep!=null) {
+                        System.exit(runFilterSweep(plot, o.sweep) ? 0 : 1);
+                    }
+
+                    if(o.fatsMatrix!=null) {
+                        System.exit(runFATSMatrix(plot, o.fatsMatrix) ? 0 : 1);
                     }
 
                     System.exit(0);
@@ -2299,7 +2522,102 @@ public class ECUxPlot extends ApplicationFrame implements SubActionListener, Fil
     public Env getEnv() { return this.env; }
 
     /**
-     * Handle the -o output file option by saving the chart as PNG.
+     * Handle the --sweep option by printing filter sweep results for all loaded files as CSV.
+     * @param plot the ECUxPlot instance
+     * @param spec the sweep specification, see {@link FilterSweep.Grid#parse}
+     * @return true if successful, false if the specification is invalid
+     */
+    private static boolean runFilterSweep(ECUxPlot plot, String spec) {
+        try {
+            final FilterSweep.Grid grid = FilterSweep.Grid.parse(spec, plot.filter);
+            final FilterSweep sweep = new FilterSweep(plot.fileDatasets.values(), plot.fats);
+            FilterSweep.writeCSV(sweep.run(grid), System.out);
+            return true;
+        } catch (final IllegalArgumentException e) {
+            logger.error("Invalid sweep '{}': {}", spec, e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * Handle the --fats-matrix option by printing FATS between every pair of breakpoints,
+     * for every range of all loaded files, as CSV.
+     * @param plot the ECUxPlot instance
+     * @param spec the breakpoints in the FATS speed unit, see {@link FATSMatrix#parse}
+     * @return true if successful, false if the specification is invalid
+     */
+    private static boolean runFATSMatrix(ECUxPlot plot, String spec) {
+        try {
+            final FATSMatrix matrix = FATSMatrix.parse(spec, plot.fats.speedUnit());
+            matrix.writeCSV(matrix.run(plot.fileDatasets.values()), System.out);
+            return true;
+        } catch (final IllegalArgumentException e) {
+            logger.error("Invalid FATS matrix '{}': {}", spec, e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * Handle the --export option by rendering presets for every file without a GUI.
+     * @param o the options, see {@link ChartExport}
+     * @return true if every chart was written
+     */
+    private static boolean runExport(Options o) {
+        final Preferences prefs = getPreferences();
+        try {
+            final List<String> names = o.presets.isEmpty() ?
+                Arrays.asList(ECUxPreset.getPresets()) : o.presets;
+            final List<ChartExport.Spec> specs = new ArrayList<ChartExport.Spec>();
+            for (final String name : names) specs.add(ChartExport.Spec.of(name));
+
+            final ChartExport export = new ChartExport(new Env(prefs), new Filter(prefs),
+                o.size != null ? o.size.width : ChartExport.DEFAULT_WIDTH,
+                o.size != null ? o.size.height : ChartExport.DEFAULT_HEIGHT,
+                ChartExport.Format.parse(o.formats), o.threads);
+            final List<ChartExport.Result> results = export.run(specs, o.files, o.export);
+            for (final ChartExport.Result r : results)
+                if (r.ok()) for (final File f : r.files) System.out.println(f.getPath());
+            return !results.isEmpty() && ChartExport.failures(results) == 0;
+        } catch (final IllegalArgumentException | IOException e) {
+            logger.error("Export failed: {}", e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * Handle the -o option with --no-gui by saving the chart of all files as PNG,
+     * or SVG for a <tt>.svg</tt> file, without a window: the -p preset, else the chart last shown.
+     * @param o the options, see {@link ChartExport#createChart(ChartExport.Spec, List)}
+     * @return true if the chart was written
+     */
+    private static boolean runOutputFile(Options o) {
+        final Preferences prefs = getPreferences();
+        try {
+            final ChartExport.Spec spec = o.preset != null ? ChartExport.Spec.of(o.preset) :
+                new ChartExport.Spec(o.output.getName(), xkey(prefs), ykeys(prefs, 0), ykeys(prefs, 1), scatter(prefs));
+            final Env env = new Env(prefs);
+            final Filter filter = new Filter(prefs);
+            final List<ECUxDataset> datasets = new ArrayList<ECUxDataset>();
+            for (final String file : o.files) {
+                if (file.length() > 0) datasets.add(new ECUxDataset(file, env, filter, o.verbose));
+            }
+            if (datasets.isEmpty()) {
+                System.err.println("Error: No chart data loaded. Cannot save chart to " + o.output.getName());
+                System.err.println("Please provide CSV files to load data before using -o option.");
+                return false;
+            }
+            final java.awt.Dimension size = o.size != null ? o.size : windowSize(prefs);
+            ChartExport.write(ChartExport.createChart(spec, datasets), ChartExport.Format.of(o.output),
+                o.output, size.width, size.height);
+            return true;
+        } catch (final Exception e) {
+            System.err.println("Error saving chart to " + o.output.getName() + ": " + e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * Handle the -o output file option by saving the chart as PNG, or SVG for a <tt>.svg</tt> file.
      * @param plot the ECUxPlot instance
      * @param outputFile the output file to save to
      * @return true if successful, false if chartPanel is null
@@ -2312,7 +2630,7 @@ public class ECUxPlot extends ApplicationFrame implements SubActionListener, Fil
                 System.err.println("Please provide CSV files to load data before using -o option.");
                 return false;
             }
-            plot.chartPanel.saveChartAsPNG(outputFile);
+            plot.chartPanel.saveChart(outputFile);
             return true;
         } catch (final IOException e) {
             System.err.println("Error saving chart to " + outputFile.getName() + ": " + e.getMessage());
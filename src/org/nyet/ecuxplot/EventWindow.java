@@ -24,6 +24,7 @@ import javax.swing.JTextArea;
 import javax.swing.JTextField;
 import javax.swing.SwingUtilities;
 
+import org.nyet.util.Timings;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -43,6 +44,7 @@ import ch.qos.logback.core.AppenderBase;
  * - Level-based filtering (TRACE, DEBUG, INFO, WARN, ERROR)
  * - Search functionality
  * - Export to file
+ * - Render timings (Options &gt; Show render timings) as a table or JSON
  * - Memory management with configurable limits
  */
 public class EventWindow extends JFrame {
@@ -58,6 +60,9 @@ public class EventWindow extends JFrame {
     private JTextField searchField;
     private JButton clearButton;
     private JButton exportButton;
+    private JButton timingsButton;
+    private JButton resetTimingsButton;
+    private JButton exportTimingsButton;
 
     // Event infrastructure
     private LogAppender eventAppender;
@@ -118,6 +123,21 @@ public class EventWindow extends JFrame {
         exportButton = new JButton("Export");
         topPanel.add(exportButton);
 
+        // Render timings
+        topPanel.add(Box.createHorizontalStrut(20));
+        timingsButton = new JButton("Timings");
+        timingsButton.setToolTipText("Log the render timings, slowest total first");
+        topPanel.add(timingsButton);
+
+        topPanel.add(Box.createHorizontalStrut(10));
+        resetTimingsButton = new JButton("Reset Timings");
+        topPanel.add(resetTimingsButton);
+
+        topPanel.add(Box.createHorizontalStrut(10));
+        exportTimingsButton = new JButton("Export Timings");
+        exportTimingsButton.setToolTipText("Save the render timings and their histograms as JSON");
+        topPanel.add(exportTimingsButton);
+
         // Create center panel with scroll pane
         JPanel centerPanel = new JPanel(new BorderLayout());
         centerPanel.setBorder(BorderFactory.createEmptyBorder(5, 15, 15, 15));
@@ -245,6 +265,41 @@ public class EventWindow extends JFrame {
                 }
             }
         });
+
+        // Timings button: through the logger, so the table shows here and in the log
+        timingsButton.addActionListener(e -> {
+            if (!Timings.isEnabled()) {
+                logger.info("Render timings are off, see Options > Show render timings");
+            }
+            logger.info("Render timings (ms):\n{}", Timings.format(0));
+        });
+
+        resetTimingsButton.addActionListener(e -> {
+            Timings.reset();
+            logger.info("Render timings reset");
+        });
+
+        exportTimingsButton.addActionListener(e -> {
+            final java.util.prefs.Preferences prefs = java.util.prefs.Preferences.userNodeForPackage(org.nyet.ecuxplot.ECUxPlot.class);
+            final String lastDir = prefs.get("chooserDirSave",
+                System.getProperty("user.home"));
+
+            JFileChooser fileChooser = new JFileChooser(lastDir);
+            fileChooser.setDialogTitle("Export Timings");
+            fileChooser.setSelectedFile(new java.io.File("timings_" +
+                new SimpleDateFormat("yyyyMMdd_HHmmss").format(new Date()) + ".json"));
+
+            if (fileChooser.showSaveDialog(this) == JFileChooser.APPROVE_OPTION) {
+                prefs.put("chooserDirSave", fileChooser.getCurrentDirectory().toString());
+
+                try (FileWriter writer = new FileWriter(fileChooser.getSelectedFile())) {
+                    writer.write(Timings.toJSON());
+                    logger.info("Timings exported to: {}", fileChooser.getSelectedFile().getAbsolutePath());
+                } catch (IOException ex) {
+                    logger.error("Failed to export timings", ex);
+                }
+            }
+        });
     }
 
     private void startEventProcessor() {
@@ -108,6 +108,9 @@ public class FATS {
     private static final double defaultEndMph = 90.0;
     private static final double defaultStartKph = 100.0;
     private static final double defaultEndKph = 150.0;
+    private static final String defaultMatrix = "2500:6500:500";
+    private static final String defaultMatrixMph = "30:120:10";
+    private static final String defaultMatrixKph = "50:200:25";
 
     private final Preferences prefs;
 
@@ -153,6 +156,21 @@ public class FATS {
     public double endKph() { return getPref("end_kph", defaultEndKph, Double::parseDouble); }
     public void endKph(double val) { setPref("end_kph", val); }
 
+    // Band matrix breakpoints, see FATSMatrix.parse()
+    private static String matrixKey(SpeedUnit unit) {
+        switch (unit) {
+            case mph: return "matrix_mph";
+            case kmh: return "matrix_kph";
+            default: return "matrix";
+        }
+    }
+    public String matrix(SpeedUnit unit) {
+        final String def = unit == SpeedUnit.mph ? defaultMatrixMph :
+            unit == SpeedUnit.kmh ? defaultMatrixKph : defaultMatrix;
+        return getPref(matrixKey(unit), def, s -> s);
+    }
+    public void matrix(SpeedUnit unit, String val) { setPref(matrixKey(unit), val); }
+
 }
 
 // vim: set sw=4 ts=8 expandtab:
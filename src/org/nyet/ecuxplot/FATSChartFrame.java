@@ -31,6 +31,7 @@ public class FATSChartFrame extends ChartFrame implements ActionListener {
     private JLabel rpmPerMphLabel;
     private JLabel unitLabel;
     private JPanel conversionGroup;
+    private FATSMatrixWindow bandsWindow;
 
     public static FATSChartFrame createFATSChartFrame(FATSDataset dataset, ECUxPlot plotFrame) {
         final FATS fats = plotFrame.fats; // Use the FATS instance from ECUxPlot
@@ -169,6 +170,13 @@ public class FATSChartFrame extends ChartFrame implements ActionListener {
         defaults.addActionListener(this);
         buttonPanel.add(defaults);
 
+        buttonPanel.add(Box.createRigidArea(new Dimension(5,0)));
+
+        final JButton bands = new JButton("Bands...");
+        bands.setToolTipText("FATS between every pair of breakpoints");
+        bands.addActionListener(this);
+        buttonPanel.add(bands);
+
         controlPanel.add(buttonPanel);
         panel.add(controlPanel, BorderLayout.PAGE_END);
 
@@ -236,6 +244,7 @@ public class FATSChartFrame extends ChartFrame implements ActionListener {
 
     public void refreshFromFATS() {
         this.dataset.refreshFromFATS();
+        refreshBands();
         // Update text fields to show current values
         switch (this.fats.speedUnit()) {
             case mph:
@@ -314,8 +323,28 @@ public class FATSChartFrame extends ChartFrame implements ActionListener {
             updateComboBoxSelection();
             updateRpmFieldsVisibility();
             notifyRangeSelector();
+        } else if(event.getActionCommand().equals("Bands...")) {
+            showBands();
+            return;
         }
         this.getChartPanel().getChart().setTitle(this.dataset.getTitle());
+        refreshBands();
+    }
+
+    private void showBands() {
+        if (this.bandsWindow == null || !this.bandsWindow.isDisplayable()) {
+            this.bandsWindow = new FATSMatrixWindow(this.plotFrame.filter, this.plotFrame, this.fats);
+        }
+        this.bandsWindow.setFileDatasets(this.plotFrame.getFileDatasets());
+        this.bandsWindow.setVisible(true);
+        this.bandsWindow.toFront();
+    }
+
+    /* recompute the bands window, if open, after FATS settings changed */
+    private void refreshBands() {
+        if (this.bandsWindow != null && this.bandsWindow.isDisplayable()) {
+            this.bandsWindow.compute();
+        }
     }
 
     private void updateLabelsAndValues(JLabel startLabel, JLabel endLabel, JTextField start, JTextField end) {
@@ -410,6 +439,7 @@ public class FATSChartFrame extends ChartFrame implements ActionListener {
     public void dispose() {
         putWindowSize();
         putWindowLocation();
+        if (this.bandsWindow != null) this.bandsWindow.dispose();
         // FATS window is now a menu item, no persistence needed
         super.dispose();
     }
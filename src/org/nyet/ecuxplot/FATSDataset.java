@@ -1,5 +1,6 @@
 package org.nyet.ecuxplot;
 
+import java.util.Collection;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Set;
@@ -24,6 +25,8 @@ public class FATSDataset extends DefaultCategoryDataset {
 
     // Store FATS data keyed by (filename, rangeIndex) for reliable lookup
     private final Map<String, Map<Integer, Double>> fatsDataMap = new HashMap<>();
+    // Dataset each file's FATS values were computed from; a reloaded file drops its values
+    private final Map<String, ECUxDataset> fatsSources = new HashMap<>();
 
     // Filter to query which ranges are selected - only controls FATS window DISPLAY, not calculation
     // FATS is calculated for ALL ranges regardless of selection
@@ -43,6 +46,22 @@ public class FATSDataset extends DefaultCategoryDataset {
         rebuild();
     }
 
+    /**
+     * Create FATS dataset from values calculated beforehand, calculating nothing
+     * @param fileDatasets The loaded file datasets
+     * @param fats FATS configuration settings
+     * @param filter Filter containing selected ranges for per-file visibility
+     * @param values Values from {@link #calculateAll(Collection, FATS)}
+     */
+    public FATSDataset(TreeMap<String, ECUxDataset> fileDatasets, FATS fats, Filter filter,
+            Map<String, Map<Integer, Double>> values) {
+        this.fileDatasets=fileDatasets;
+        this.fats = fats;
+        this.filter = filter;
+        updateFromFATS();
+        rebuildAll(values);
+    }
+
     /**
      * Update internal RPM values from FATS configuration
      *
@@ -51,18 +70,23 @@ public class FATSDataset extends DefaultCategoryDataset {
      * the configured speed values are converted to RPM using the appropriate conversion constant.
      */
     private void updateFromFATS() {
-        FATS.SpeedUnitHandler handler = this.fats.speedUnit().getHandler();
+        final int[] band = rpmBand(this.fats, this.fileDatasets.values());
+        this.start = band[0];
+        this.end = band[1];
+    }
 
-        if (handler.requiresRpmConversionFields() && !this.fileDatasets.isEmpty()) {
-            ECUxDataset firstDataset = this.fileDatasets.values().iterator().next();
+    /* start and end RPM of FATS, speeds converted with the first dataset's constants */
+    private static int[] rpmBand(FATS fats, Collection<ECUxDataset> datasets) {
+        FATS.SpeedUnitHandler handler = fats.speedUnit().getHandler();
+
+        if (handler.requiresRpmConversionFields() && !datasets.isEmpty()) {
+            ECUxDataset firstDataset = datasets.iterator().next();
             double rpmPerSpeed = handler.getRpmConversionFactor(firstDataset.getEnv().c);
-            this.start = handler.speedToRpm(handler.getStartValue(this.fats), rpmPerSpeed);
-            this.end = handler.speedToRpm(handler.getEndValue(this.fats), rpmPerSpeed);
-        } else {
-            // RPM mode: use direct values
-            this.start = this.fats.start();
-            this.end = this.fats.end();
+            return new int[] {handler.speedToRpm(handler.getStartValue(fats), rpmPerSpeed),
+                handler.speedToRpm(handler.getEndValue(fats), rpmPerSpeed)};
         }
+        // RPM mode: use direct values
+        return new int[] {fats.start(), fats.end()};
     }
 
     boolean hasVehicleSpeedData() {
@@ -105,6 +129,7 @@ public class FATSDataset extends DefaultCategoryDataset {
         // This ensures fatsDataMap has all values for tree display and quick toggling
         for(final ECUxDataset data : this.fileDatasets.values()) {
             String filename = data.getFileId();
+            if (fatsSources.put(filename, data) != data) fatsDataMap.remove(filename);
             Map<Integer, Double> fileData = fatsDataMap.computeIfAbsent(filename, k -> new HashMap<>());
 
             // Calculate FATS for any ranges that aren't in the map yet
@@ -132,12 +157,16 @@ public class FATSDataset extends DefaultCategoryDataset {
      * @return The calculated value, or NaN if calculation fails
      */
     private double calculateFATS(ECUxDataset data, int series) {
+        return calculateFATS(data, series, this.fats, this.start, this.end);
+    }
+
+    private static double calculateFATS(ECUxDataset data, int series, FATS fats, int start, int end) {
         try {
-            FATS.SpeedUnitHandler handler = this.fats.speedUnit().getHandler();
+            FATS.SpeedUnitHandler handler = fats.speedUnit().getHandler();
             if (handler.requiresRpmConversionFields()) {
-                return data.calcFATSBySpeed(series, handler.getStartValue(this.fats), handler.getEndValue(this.fats), this.fats.speedUnit());
+                return data.calcFATSBySpeed(series, handler.getStartValue(fats), handler.getEndValue(fats), fats.speedUnit());
             } else {
-                return data.calcFATS(series, this.start, this.end);
+                return data.calcFATS(series, start, end);
             }
         } catch (final Exception e) {
             logger.error("    calculateFATS(): FATS calculation failed for {} run {}: {}",
@@ -152,9 +181,63 @@ public class FATSDataset extends DefaultCategoryDataset {
      */
     public void rebuildAll() {
         fatsDataMap.clear();
+        fatsSources.clear();
         rebuild();
     }
 
+    /**
+     * Calculate FATS for all ranges of the given files without touching this dataset,
+     * so it can run off the event thread. Apply the result with {@link #rebuildAll(Map)}.
+     * @param datasets The files, e.g. a copy of the loaded ones taken on the event thread
+     * @return Per file, FATS time by range index for the ranges that have one
+     */
+    public Map<String, Map<Integer, Double>> calculateAll(Collection<ECUxDataset> datasets) {
+        return calculateAll(datasets, this.fats, this.start, this.end);
+    }
+
+    /**
+     * Calculate FATS for all ranges of the given files with no dataset yet, see
+     * {@link #FATSDataset(TreeMap, FATS, Filter, Map)}.
+     */
+    public static Map<String, Map<Integer, Double>> calculateAll(Collection<ECUxDataset> datasets, FATS fats) {
+        final int[] band = rpmBand(fats, datasets);
+        return calculateAll(datasets, fats, band[0], band[1]);
+    }
+
+    private static Map<String, Map<Integer, Double>> calculateAll(Collection<ECUxDataset> datasets,
+            FATS fats, int start, int end) {
+        final Map<String, Map<Integer, Double>> values = new HashMap<>();
+        for(final ECUxDataset data : datasets) {
+            final Map<Integer, Double> fileData = new HashMap<>();
+            for(int i = 0; i < data.getRanges().size(); i++) {
+                final double value = calculateFATS(data, i, fats, start, end);
+                if (!Double.isNaN(value)) {
+                    fileData.put(i, value);
+                    logFATSSummary(data, i, value, fats, start, end);
+                }
+            }
+            values.put(data.getFileId(), fileData);
+        }
+        return values;
+    }
+
+    /**
+     * Replace all FATS values with ones from {@link #calculateAll(Collection)} and repopulate
+     * the chart with the selected ranges, calculating nothing.
+     */
+    public void rebuildAll(Map<String, Map<Integer, Double>> values) {
+        fatsDataMap.clear();
+        fatsSources.clear();
+        clear();
+        for(final ECUxDataset data : this.fileDatasets.values()) {
+            final String filename = data.getFileId();
+            fatsSources.put(filename, data);
+            final Map<Integer, Double> fileData = values.get(filename);
+            fatsDataMap.put(filename, fileData != null ? new HashMap<>(fileData) : new HashMap<>());
+            setValues(data, false);
+        }
+    }
+
     // set one (calls super)
     public void setValue(ECUxDataset data, int series, double value) {
         final String xkey = "Run " + (series+1);
@@ -205,23 +288,27 @@ public class FATSDataset extends DefaultCategoryDataset {
      * @param rpmEnd The RPM end value used in calculation
      */
     private void logFATSSummary(ECUxDataset data, int series, double value, int rpmStart, int rpmEnd) {
+        logFATSSummary(data, series, value, this.fats, rpmStart, rpmEnd);
+    }
+
+    private static void logFATSSummary(ECUxDataset data, int series, double value, FATS fats,
+            int rpmStart, int rpmEnd) {
         String filename = Files.stem(data.getFileId());
         String runNumber = "run " + (series + 1);
 
         // Always show RPM range with speed conversion in parentheses
-        FATS.SpeedUnitHandler handler = this.fats.speedUnit().getHandler();
+        FATS.SpeedUnitHandler handler = fats.speedUnit().getHandler();
         double startSpeed, endSpeed;
         String speedUnit;
 
         if (handler.requiresRpmConversionFields()) {
             // Speed mode: use the configured speed values
-            startSpeed = handler.getStartValue(this.fats);
-            endSpeed = handler.getEndValue(this.fats);
+            startSpeed = handler.getStartValue(fats);
+            endSpeed = handler.getEndValue(fats);
             speedUnit = handler.getAbbreviation();
         } else {
-            // RPM mode: convert RPM to MPH using rpm_per_mph constant
-            ECUxDataset firstDataset = this.fileDatasets.values().iterator().next();
-            double rpmPerMph = firstDataset.getEnv().c.rpm_per_mph();
+            // RPM mode: convert RPM to MPH using rpm_per_mph constant (files share one Env)
+            double rpmPerMph = data.getEnv().c.rpm_per_mph();
             startSpeed = rpmStart / rpmPerMph;
             endSpeed = rpmEnd / rpmPerMph;
             speedUnit = "mph";
@@ -240,6 +327,11 @@ public class FATSDataset extends DefaultCategoryDataset {
      * @param data The dataset containing FATS runs
      */
     public void setValue(ECUxDataset data) {
+        setValues(data, true);
+    }
+
+    /* show selected ranges; calculate those without a value, or leave them out */
+    private void setValues(ECUxDataset data, boolean calculate) {
         try { removeColumn(Files.stem(data.getFileId()));
         } catch (final Exception e) {}
 
@@ -251,13 +343,13 @@ public class FATSDataset extends DefaultCategoryDataset {
 
             for(Integer i : selectedRanges) {
                 if (i >= 0 && i < data.getRanges().size()) {
-                    setValue(data, i);
+                    showValue(data, i, calculate);
                 }
             }
         } else {
             // No filter - add all ranges (backward compatibility)
             for(int i=0;i<data.getRanges().size();i++)
-                setValue(data, i);
+                showValue(data, i, calculate);
         }
     }
     /**
@@ -266,10 +358,17 @@ public class FATSDataset extends DefaultCategoryDataset {
      * @param series The run number (0-based)
      */
     public void setValue(ECUxDataset data, int series) {
-        double value = calculateFATS(data, series);
+        showValue(data, series, true);
+    }
+
+    private void showValue(ECUxDataset data, int series, boolean calculate) {
+        // rebuild() already computed (and logged) every range; only compute what is missing
+        final Map<Integer, Double> fileData = fatsDataMap.get(data.getFileId());
+        final Double cached = fileData != null ? fileData.get(series) : null;
+        final double value = cached != null ? cached : calculate ? calculateFATS(data, series) : Double.NaN;
         if (!Double.isNaN(value)) {
             setValue(data, series, value);
-            logFATSSummary(data, series, value, this.start, this.end);
+            if (cached == null) logFATSSummary(data, series, value, this.start, this.end);
         } else {
             removeValue(data, series);
         }
@@ -0,0 +1,178 @@
+package org.nyet.ecuxplot;
+
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * FATS band matrix: elapsed time between every pair of breakpoints on a grid,
+ * for every range of a set of datasets.
+ *
+ * The time at which a range reaches each breakpoint is found in one pass over its
+ * spline ({@link ECUxDataset#calcFATSTimes}), and every band is then a subtraction,
+ * so k breakpoints cost k lookups instead of k*(k-1) FATS calculations. Cell
+ * [i][j] (j &gt; i) matches {@link ECUxDataset#calcFATS(int, double, double, FATS.SpeedUnit)}
+ * from breakpoint i to breakpoint j.
+ *
+ * Breakpoints are in the FATS speed unit and are converted to RPM with each
+ * dataset's own constants, like calcFATS().
+ */
+public class FATSMatrix {
+    private static final Logger logger = LoggerFactory.getLogger(FATSMatrix.class);
+
+    /**
+     * Band times of one range.
+     */
+    public static class Entry {
+        public final String fileId;
+        /** Range index (0-based) */
+        public final int run;
+        /** seconds[i][j]: time from breakpoint i to j; NaN unless j &gt; i and the range spans both */
+        public final double[][] seconds;
+
+        Entry(String fileId, int run, double[][] seconds) {
+            this.fileId = fileId;
+            this.run = run;
+            this.seconds = seconds;
+        }
+
+        @Override
+        public String toString() {
+            return this.fileId + " Run " + (this.run + 1);
+        }
+    }
+
+    private final double[] breakpoints;
+    private final FATS.SpeedUnit speedUnit;
+
+    /**
+     * @param breakpoints Breakpoints in ascending order, at least two
+     * @param speedUnit Unit of the breakpoints
+     */
+    public FATSMatrix(double[] breakpoints, FATS.SpeedUnit speedUnit) {
+        if (breakpoints.length < 2)
+            throw new IllegalArgumentException("FATS matrix needs at least two breakpoints");
+        for (int i = 1; i < breakpoints.length; i++) {
+            if (!(breakpoints[i] > breakpoints[i - 1]))
+                throw new IllegalArgumentException("FATS matrix breakpoints must be ascending");
+        }
+        this.breakpoints = breakpoints.clone();
+        this.speedUnit = speedUnit;
+    }
+
+    /**
+     * Parse breakpoints, e.g. <tt>2500:6500:500</tt>, <tt>3000,4200,6000,6500</tt>
+     * or both (<tt>2500:6500:500,4200</tt>). Values need not be sorted; duplicates are dropped.
+     * @throws IllegalArgumentException on a malformed specification
+     */
+    public static FATSMatrix parse(String spec, FATS.SpeedUnit speedUnit) {
+        final double[] values = Arrays.stream(spec.split(","))
+            .flatMapToDouble(part -> Arrays.stream(FilterSweep.Grid.parseValues(part.trim())))
+            .sorted().distinct().toArray();
+        return new FATSMatrix(values, speedUnit);
+    }
+
+    public double[] getBreakpoints() { return this.breakpoints.clone(); }
+
+    public FATS.SpeedUnit getSpeedUnit() { return this.speedUnit; }
+
+    /** @return Number of breakpoints, i.e. the size of each entry's matrix */
+    public int size() { return this.breakpoints.length; }
+
+    /* breakpoints as RPM for one dataset, rounded like calcFATS() */
+    private int[] rpm(ECUxDataset dataset) {
+        final FATS.SpeedUnitHandler handler = this.speedUnit.getHandler();
+        final double rpmPerSpeed = handler.getRpmConversionFactor(dataset.getEnv().c);
+        final int[] out = new int[this.breakpoints.length];
+        for (int i = 0; i < out.length; i++) out[i] = handler.speedToRpm(this.breakpoints[i], rpmPerSpeed);
+        return out;
+    }
+
+    /**
+     * Band times of one range.
+     * @throws Exception If FATS is not available for the range, see {@link ECUxDataset#calcFATSTimes}
+     */
+    public Entry calc(ECUxDataset dataset, int run) throws Exception {
+        final double[] t = dataset.calcFATSTimes(run, rpm(dataset));
+        final int k = t.length;
+        final double[][] m = new double[k][k];
+        for (int i = 0; i < k; i++) {
+            Arrays.fill(m[i], Double.NaN);
+            for (int j = i + 1; j < k; j++) {
+                final double et = t[j] - t[i];
+                if (et > 0) m[i][j] = et;
+            }
+        }
+        return new Entry(dataset.getFileId(), run, m);
+    }
+
+    /**
+     * Band times of every range of every dataset. Ranges without FATS (e.g. no
+     * spline because the filter is off) are left out.
+     * @return Entries in dataset then range order
+     */
+    public List<Entry> run(Collection<ECUxDataset> datasets) {
+        final long t0 = System.nanoTime();
+        final List<Entry> out = new ArrayList<Entry>();
+        for (final ECUxDataset d : datasets) {
+            final int ranges = d.getRanges().size();
+            for (int run = 0; run < ranges; run++) {
+                try {
+                    out.add(calc(d, run));
+                } catch (final Exception e) {
+                    logger.debug("FATS matrix: skipping {} run {}: {}", d.getFileId(), run, e.getMessage());
+                }
+            }
+        }
+        logger.debug("FATS matrix: {} breakpoints over {} ranges in {} ms",
+            this.breakpoints.length, out.size(), (System.nanoTime() - t0) / 1000000);
+        return out;
+    }
+
+    /**
+     * @return Per band, the fastest time over all entries (NaN if none)
+     */
+    public static double[][] best(List<Entry> entries, int size) {
+        final double[][] best = new double[size][size];
+        for (final double[] row : best) Arrays.fill(row, Double.NaN);
+        for (final Entry e : entries) {
+            for (int i = 0; i < size; i++) {
+                for (int j = i + 1; j < size; j++) {
+                    final double v = e.seconds[i][j];
+                    if (!Double.isNaN(v) && !(v >= best[i][j])) best[i][j] = v;
+                }
+            }
+        }
+        return best;
+    }
+
+    /** @return A breakpoint formatted for display, without a fraction if it is whole */
+    public String label(int i) {
+        final double v = this.breakpoints[i];
+        return v == Math.rint(v) ? String.valueOf((long)v) : String.valueOf(v);
+    }
+
+    /**
+     * Write entries as CSV, one line per band: file, run (1-based, as in the
+     * FATS window), start, end (in the speed unit) and seconds (empty if undefined).
+     */
+    public void writeCSV(List<Entry> entries, PrintStream out) {
+        final String unit = this.speedUnit.name();
+        out.println("file,run,start_" + unit + ",end_" + unit + ",seconds");
+        for (final Entry e : entries) {
+            for (int i = 0; i < this.breakpoints.length; i++) {
+                for (int j = i + 1; j < this.breakpoints.length; j++) {
+                    out.println(e.fileId + "," + (e.run + 1) + "," + label(i) + "," + label(j) + "," +
+                        FilterSweep.formatFATS(e.seconds[i][j]));
+                }
+            }
+        }
+    }
+}
+
+// vim: set sw=4 ts=8 expandtab:
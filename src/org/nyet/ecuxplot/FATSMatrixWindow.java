@@ -0,0 +1,161 @@
+package org.nyet.ecuxplot;
+
+import java.awt.*;
+import java.util.List;
+import java.util.TreeMap;
+
+import javax.swing.*;
+import javax.swing.table.DefaultTableCellRenderer;
+import javax.swing.table.DefaultTableModel;
+
+/**
+ * FATS Bands Window - shows a {@link FATSMatrix} for one range as a table of
+ * start (rows) by end (columns) breakpoints. Cells are shaded by how far they are
+ * from the fastest range for the same band: green is the fastest, red is 10% or
+ * more slower.
+ */
+public class FATSMatrixWindow extends ECUxPlotWindow {
+    private static final long serialVersionUID = 1L;
+    /** Time over the best, as a fraction, that is shaded fully red */
+    private static final double SLOWEST = 0.10;
+
+    private final FATS fats;
+    private final JTextField specField;
+    private final JComboBox<FATSMatrix.Entry> runCombo;
+    private final JLabel statusLabel;
+    private final DefaultTableModel tableModel;
+    private FATS.SpeedUnit unit;
+    private FATSMatrix matrix;
+    private double[][] best;
+
+    /**
+     * @param filter The filter; FATS needs it enabled
+     * @param eplot The main window
+     * @param fats FATS settings for the speed unit and the stored breakpoints
+     */
+    public FATSMatrixWindow(Filter filter, ECUxPlot eplot, FATS fats) {
+        super("FATS Bands", filter, eplot);
+        this.fats = fats;
+        setDefaultCloseOperation(JFrame.DISPOSE_ON_CLOSE);
+        setSize(new Dimension(700, 400));
+        setLocationRelativeTo(null);
+
+        this.unit = fats.speedUnit();
+        this.specField = new JTextField(fats.matrix(this.unit), 20);
+        this.specField.setToolTipText("v1,v2,... or start:end:step, in the FATS speed unit");
+        this.runCombo = new JComboBox<FATSMatrix.Entry>();
+        this.statusLabel = new JLabel(" ");
+
+        this.tableModel = new DefaultTableModel() {
+            @Override
+            public boolean isCellEditable(int row, int column) {
+                return false;
+            }
+        };
+        final JTable table = new JTable(this.tableModel);
+        table.setAutoResizeMode(JTable.AUTO_RESIZE_OFF);
+        table.setDefaultRenderer(Object.class, new DefaultTableCellRenderer() {
+            private static final long serialVersionUID = 1L;
+            @Override
+            public Component getTableCellRendererComponent(JTable t, Object value,
+                    boolean isSelected, boolean hasFocus, int row, int column) {
+                final Component c = super.getTableCellRendererComponent(t, value, isSelected, hasFocus, row, column);
+                setHorizontalAlignment(column == 0 ? SwingConstants.LEFT : SwingConstants.RIGHT);
+                if (!isSelected) c.setBackground(shade(row, column - 1, t.getBackground()));
+                return c;
+            }
+        });
+
+        final JButton apply = new JButton("Apply");
+        apply.addActionListener(e -> compute());
+        this.specField.addActionListener(e -> compute());
+        this.runCombo.addActionListener(e -> showEntry());
+
+        final JPanel top = new JPanel();
+        top.setLayout(new BoxLayout(top, BoxLayout.LINE_AXIS));
+        top.setBorder(BorderFactory.createEmptyBorder(5, 5, 5, 5));
+        top.add(new JLabel("Breakpoints:"));
+        top.add(Box.createRigidArea(new Dimension(5, 0)));
+        top.add(this.specField);
+        top.add(Box.createRigidArea(new Dimension(5, 0)));
+        top.add(apply);
+        top.add(Box.createRigidArea(new Dimension(10, 0)));
+        top.add(this.runCombo);
+
+        setLayout(new BorderLayout());
+        add(top, BorderLayout.NORTH);
+        add(new JScrollPane(table), BorderLayout.CENTER);
+        add(this.statusLabel, BorderLayout.SOUTH);
+    }
+
+    public void setFileDatasets(TreeMap<String, ECUxDataset> fileDatasets) {
+        this.fileDatasets = fileDatasets;
+        compute();
+    }
+
+    /** Recompute all ranges, e.g. after the filter or FATS unit changed */
+    public void compute() {
+        if (this.fileDatasets == null || this.fileDatasets.isEmpty()) {
+            this.statusLabel.setText("No files loaded");
+            return;
+        }
+        final FATS.SpeedUnit unit = this.fats.speedUnit();
+        if (unit != this.unit) {
+            // Breakpoints are per unit; switch to the ones stored for the new unit
+            this.unit = unit;
+            this.specField.setText(this.fats.matrix(unit));
+        }
+        try {
+            this.matrix = FATSMatrix.parse(this.specField.getText(), unit);
+        } catch (final IllegalArgumentException e) {
+            this.statusLabel.setText(e.getMessage());
+            return;
+        }
+        this.fats.matrix(unit, this.specField.getText().trim());
+
+        final long t0 = System.nanoTime();
+        final List<FATSMatrix.Entry> entries = this.matrix.run(this.fileDatasets.values());
+        this.best = FATSMatrix.best(entries, this.matrix.size());
+
+        final Object selected = this.runCombo.getSelectedItem();
+        this.runCombo.removeAllItems();
+        for (final FATSMatrix.Entry e : entries) {
+            this.runCombo.addItem(e);
+            if (selected != null && e.toString().equals(selected.toString())) this.runCombo.setSelectedItem(e);
+        }
+        this.statusLabel.setText(entries.isEmpty() ? "No FATS runs (check filter settings)" :
+            entries.size() + " runs, " + this.matrix.size() + " breakpoints (" +
+            unit.getDisplayName() + ") in " + (System.nanoTime() - t0) / 1000000 + " ms");
+        showEntry();
+    }
+
+    private void showEntry() {
+        final FATSMatrix.Entry entry = (FATSMatrix.Entry)this.runCombo.getSelectedItem();
+        if (this.matrix == null) return;
+        final int k = this.matrix.size();
+        final Object[] columns = new Object[k];
+        columns[0] = "from \\ to";
+        for (int j = 1; j < k; j++) columns[j] = this.matrix.label(j);
+        final Object[][] rows = new Object[k - 1][k];
+        for (int i = 0; i < k - 1; i++) {
+            rows[i][0] = this.matrix.label(i);
+            for (int j = 1; j < k; j++)
+                rows[i][j] = entry == null ? "" : FilterSweep.formatFATS(entry.seconds[i][j]);
+        }
+        this.tableModel.setDataVector(rows, columns);
+    }
+
+    /* background for start breakpoint row, end breakpoint column+1 */
+    private Color shade(int row, int column, Color background) {
+        final FATSMatrix.Entry entry = (FATSMatrix.Entry)this.runCombo.getSelectedItem();
+        if (column < 0 || entry == null || this.best == null) return background;
+        final double v = entry.seconds[row][column + 1];
+        final double b = this.best[row][column + 1];
+        if (Double.isNaN(v) || Double.isNaN(b)) return background;
+        final float f = (float)Math.min(1.0, (v / b - 1.0) / SLOWEST);
+        // hue 1/3 (green) for the fastest down to 0 (red)
+        return Color.getHSBColor((1 - f) / 3, 0.35f, 1.0f);
+    }
+}
+
+// vim: set sw=4 ts=8 expandtab:
@@ -0,0 +1,433 @@
+package org.nyet.ecuxplot;
+
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * "What-if" filter sweep: evaluate a grid of filter settings against all loaded
+ * datasets without rebuilding them.
+ *
+ * The swept parameters are minRPM, minPedal, minPoints and monotonicRPMfuzz.
+ * All other criteria (gear, throttle, acceleration, boost, maxRPM, minRPMRange)
+ * use the current {@link Filter} values.
+ *
+ * Each dataset's row criteria are evaluated once into bitsets, one per distinct
+ * swept value. A grid point is then a few bitset ANDs plus a scan for runs, and
+ * grid points are evaluated in parallel. minPoints only affects which runs are
+ * kept, so all minPoints values share one scan.
+ *
+ * FATS per range is linearly interpolated from the (final) RPM and TIME columns,
+ * so it can differ slightly from the spline-based value in {@link FATSDataset}.
+ */
+public class FilterSweep {
+    private static final Logger logger = LoggerFactory.getLogger(FilterSweep.class);
+
+    /**
+     * Per-row filter inputs for one dataset, snapshot by {@link ECUxDataset#getSweepCriteria()}.
+     */
+    static class Criteria {
+        final String fileId;
+        final int rows;
+        final BitSet fixed;         // rows passing all criteria that are not swept
+        final double[] baseRpm;     // range detection RPM, null if none
+        final double[] pedal;       // null if no pedal column
+        final double[] rpmDelta;    // baseRpm[i-1]-baseRpm[i+1], NaN where not checked
+        final double[] rpmDeltaTime; // seconds rpmDelta is measured over, NaN if sample rate unknown
+        final double[] rpm;         // final RPM, for minRPMRange and FATS, null if none
+        final double[] time;        // null if no TIME column
+        final int maxRPM;
+        final int minRPMRange;
+
+        Criteria(String fileId, int rows, BitSet fixed, double[] baseRpm, double[] pedal,
+                double[] rpmDelta, double[] rpmDeltaTime, double[] rpm, double[] time,
+                int maxRPM, int minRPMRange) {
+            this.fileId = fileId;
+            this.rows = rows;
+            this.fixed = fixed;
+            this.baseRpm = baseRpm;
+            this.pedal = pedal;
+            this.rpmDelta = rpmDelta;
+            this.rpmDeltaTime = rpmDeltaTime;
+            this.rpm = rpm;
+            this.time = time;
+            this.maxRPM = maxRPM;
+            this.minRPMRange = minRPMRange;
+        }
+
+        BitSet rpmBits(int minRPM) {
+            final BitSet b = new BitSet(this.rows);
+            if (this.baseRpm == null) {
+                b.set(0, this.rows);
+                return b;
+            }
+            for (int i = 0; i < this.rows; i++) {
+                final double v = this.baseRpm[i];
+                if (!(v < minRPM) && !(v > this.maxRPM)) b.set(i);
+            }
+            return b;
+        }
+
+        BitSet pedalBits(int minPedal) {
+            final BitSet b = new BitSet(this.rows);
+            if (this.pedal == null) {
+                b.set(0, this.rows);
+                return b;
+            }
+            for (int i = 0; i < this.rows; i++) {
+                if (!(this.pedal[i] < minPedal)) b.set(i);
+            }
+            return b;
+        }
+
+        /* Same arithmetic as ECUxDataset.checkRPMMonotonicity() */
+        BitSet fuzzBits(double fuzz) {
+            final BitSet b = new BitSet(this.rows);
+            for (int i = 0; i < this.rows; i++) {
+                final double delta = this.rpmDelta[i];
+                boolean fail = false;
+                if (!Double.isNaN(delta)) {
+                    if (!Double.isNaN(this.rpmDeltaTime[i])) {
+                        fail = delta / this.rpmDeltaTime[i] > fuzz;
+                    } else {
+                        fail = delta > fuzz * 0.2;
+                    }
+                }
+                if (!fail) b.set(i);
+            }
+            return b;
+        }
+
+        /**
+         * Linear interpolation of the time at which RPM first reaches a value.
+         * @return time in seconds, or NaN if the range never reaches rpmValue
+         */
+        double timeAt(int start, int end, double rpmValue) {
+            if (this.rpm == null || this.time == null) return Double.NaN;
+            for (int i = start; i < end; i++) {
+                final double r0 = this.rpm[i], r1 = this.rpm[i+1];
+                if (r0 <= rpmValue && r1 >= rpmValue) {
+                    if (r1 == r0) return this.time[i];
+                    return this.time[i] + (rpmValue - r0) * (this.time[i+1] - this.time[i]) / (r1 - r0);
+                }
+            }
+            return Double.NaN;
+        }
+    }
+
+    /**
+     * Values to sweep for each parameter.
+     */
+    public static class Grid {
+        public final int[] minRPM;
+        public final int[] minPedal;
+        public final int[] minPoints;
+        public final double[] monotonicRPMfuzz;
+
+        public Grid(int[] minRPM, int[] minPedal, int[] minPoints, double[] monotonicRPMfuzz) {
+            if (minRPM.length == 0 || minPedal.length == 0 || minPoints.length == 0 ||
+                    monotonicRPMfuzz.length == 0)
+                throw new IllegalArgumentException("Every sweep parameter needs at least one value");
+            this.minRPM = minRPM;
+            this.minPedal = minPedal;
+            this.minPoints = minPoints;
+            this.monotonicRPMfuzz = monotonicRPMfuzz;
+        }
+
+        /** @return Number of grid points */
+        public int size() {
+            return this.minRPM.length * this.minPedal.length * this.minPoints.length *
+                this.monotonicRPMfuzz.length;
+        }
+
+        /**
+         * Parse a sweep specification, e.g.
+         * <tt>minRPM=2000:3000:250;minPedal=80,90,95;minPoints=20;fuzz=500,1000</tt>.
+         * Values are comma separated lists or <tt>start:end:step</tt> ranges.
+         * Parameters not given use the current filter value.
+         * @param spec The specification string
+         * @param filter The filter providing defaults
+         * @return The grid
+         * @throws IllegalArgumentException on a malformed specification
+         */
+        public static Grid parse(String spec, Filter filter) {
+            int[] minRPM = { filter.minRPM() };
+            int[] minPedal = { filter.minPedal() };
+            int[] minPoints = { filter.minPoints() };
+            double[] fuzz = { filter.monotonicRPMfuzz() };
+
+            for (final String part : spec.split(";")) {
+                if (part.trim().isEmpty()) continue;
+                final String[] kv = part.split("=", 2);
+                if (kv.length != 2)
+                    throw new IllegalArgumentException("Expected name=values, got '" + part + "'");
+                final double[] values = parseValues(kv[1].trim());
+                switch (kv[0].trim()) {
+                    case "minRPM": minRPM = toInts(values); break;
+                    case "minPedal": minPedal = toInts(values); break;
+                    case "minPoints": minPoints = toInts(values); break;
+                    case "fuzz":
+                    case "monotonicRPMfuzz": fuzz = values; break;
+                    default:
+                        throw new IllegalArgumentException("Unknown sweep parameter '" + kv[0].trim() + "'");
+                }
+            }
+            return new Grid(minRPM, minPedal, minPoints, fuzz);
+        }
+
+        /** Parse a comma separated list or a <tt>start:end:step</tt> range; also used by {@link FATSMatrix} */
+        static double[] parseValues(String s) {
+            final String[] range = s.split(":");
+            try {
+                if (range.length == 3) {
+                    final double start = Double.parseDouble(range[0]);
+                    final double end = Double.parseDouble(range[1]);
+                    final double step = Double.parseDouble(range[2]);
+                    if (step <= 0 || end < start)
+                        throw new IllegalArgumentException("Bad sweep range '" + s + "'");
+                    final int n = (int)Math.floor((end - start) / step + 1e-9) + 1;
+                    final double[] out = new double[n];
+                    for (int i = 0; i < n; i++) out[i] = start + i * step;
+                    return out;
+                }
+                if (range.length != 1)
+                    throw new IllegalArgumentException("Bad sweep range '" + s + "'");
+                return Arrays.stream(s.split(",")).mapToDouble(v -> Double.parseDouble(v.trim())).toArray();
+            } catch (final NumberFormatException e) {
+                throw new IllegalArgumentException("Bad sweep value in '" + s + "'");
+            }
+        }
+
+        private static int[] toInts(double[] values) {
+            final int[] out = new int[values.length];
+            for (int i = 0; i < values.length; i++) out[i] = (int)Math.round(values[i]);
+            return out;
+        }
+
+        @Override
+        public String toString() {
+            return "minRPM=" + join(this.minRPM) + ";minPedal=" + join(this.minPedal) +
+                ";minPoints=" + join(this.minPoints) + ";fuzz=" + join(this.monotonicRPMfuzz);
+        }
+
+        private static String join(int[] a) {
+            return Arrays.stream(a).mapToObj(String::valueOf).collect(Collectors.joining(","));
+        }
+
+        private static String join(double[] a) {
+            return Arrays.stream(a).mapToObj(v -> v == Math.rint(v) ? String.valueOf((long)v) : String.valueOf(v))
+                .collect(Collectors.joining(","));
+        }
+    }
+
+    /**
+     * Outcome of one grid point, summed over all datasets.
+     */
+    public static class Result {
+        public final int minRPM;
+        public final int minPedal;
+        public final int minPoints;
+        public final double monotonicRPMfuzz;
+        public final int ranges;
+        public final int points;
+        /** FATS per range in seconds (NaN if the range does not span the FATS RPMs), in file order */
+        public final double[] fats;
+        /** File id of each range in {@link #fats} */
+        public final String[] files;
+
+        Result(int minRPM, int minPedal, int minPoints, double monotonicRPMfuzz,
+                int ranges, int points, double[] fats, String[] files) {
+            this.minRPM = minRPM;
+            this.minPedal = minPedal;
+            this.minPoints = minPoints;
+            this.monotonicRPMfuzz = monotonicRPMfuzz;
+            this.ranges = ranges;
+            this.points = points;
+            this.fats = fats;
+            this.files = files;
+        }
+
+        /** @return Fastest FATS over all ranges, or NaN if none */
+        public double bestFATS() {
+            double best = Double.NaN;
+            for (final double f : this.fats)
+                if (!Double.isNaN(f) && (Double.isNaN(best) || f < best)) best = f;
+            return best;
+        }
+
+        /** @return Number of ranges with a FATS value */
+        public int fatsCount() {
+            int n = 0;
+            for (final double f : this.fats) if (!Double.isNaN(f)) n++;
+            return n;
+        }
+    }
+
+    /* A range found for a (minRPM, minPedal, fuzz) combination, before minPoints */
+    private static class Run {
+        final String fileId;
+        final int size;
+        final boolean rpmRangeOk;
+        final double fats;
+        Run(String fileId, int size, boolean rpmRangeOk, double fats) {
+            this.fileId = fileId;
+            this.size = size;
+            this.rpmRangeOk = rpmRangeOk;
+            this.fats = fats;
+        }
+    }
+
+    private final List<Criteria> criteria;
+    private final int rpmStart;
+    private final int rpmEnd;
+
+    /**
+     * Snapshot the filter inputs of a set of datasets.
+     * @param datasets The datasets to sweep (typically all loaded files)
+     * @param rpmStart FATS start RPM
+     * @param rpmEnd FATS end RPM
+     */
+    public FilterSweep(Collection<ECUxDataset> datasets, int rpmStart, int rpmEnd) {
+        this.criteria = new ArrayList<Criteria>();
+        for (final ECUxDataset d : datasets) {
+            final Criteria c = d.getSweepCriteria();
+            if (c != null) this.criteria.add(c);
+        }
+        this.rpmStart = rpmStart;
+        this.rpmEnd = rpmEnd;
+    }
+
+    /**
+     * Snapshot datasets using the FATS start/end from the FATS settings.
+     * mph and km/h settings are converted with the first dataset's constants,
+     * like {@link FATSDataset}.
+     */
+    public FilterSweep(Collection<ECUxDataset> datasets, FATS fats) {
+        this(datasets, fatsRpm(datasets, fats, true), fatsRpm(datasets, fats, false));
+    }
+
+    private static int fatsRpm(Collection<ECUxDataset> datasets, FATS fats, boolean start) {
+        final FATS.SpeedUnitHandler handler = fats.speedUnit().getHandler();
+        if (handler.requiresRpmConversionFields() && !datasets.isEmpty()) {
+            final double rpmPerSpeed = handler.getRpmConversionFactor(datasets.iterator().next().getEnv().c);
+            return handler.speedToRpm(start ? handler.getStartValue(fats) : handler.getEndValue(fats), rpmPerSpeed);
+        }
+        return start ? fats.start() : fats.end();
+    }
+
+    /**
+     * Evaluate every grid point.
+     * @param grid The parameter grid
+     * @return One result per grid point, ordered by minRPM, minPedal, fuzz, then minPoints
+     */
+    public List<Result> run(Grid grid) {
+        final long t0 = System.nanoTime();
+        final int nr = grid.minRPM.length, np = grid.minPedal.length, nf = grid.monotonicRPMfuzz.length;
+
+        // Per dataset, per distinct value criteria bitsets (computed once)
+        final int nd = this.criteria.size();
+        final BitSet[][] rpmBits = new BitSet[nd][], pedalBits = new BitSet[nd][], fuzzBits = new BitSet[nd][];
+        IntStream.range(0, nd).parallel().forEach(d -> {
+            final Criteria c = this.criteria.get(d);
+            rpmBits[d] = new BitSet[nr];
+            pedalBits[d] = new BitSet[np];
+            fuzzBits[d] = new BitSet[nf];
+            for (int i = 0; i < nr; i++) rpmBits[d][i] = c.rpmBits(grid.minRPM[i]);
+            for (int i = 0; i < np; i++) pedalBits[d][i] = c.pedalBits(grid.minPedal[i]);
+            for (int i = 0; i < nf; i++) fuzzBits[d][i] = c.fuzzBits(grid.monotonicRPMfuzz[i]);
+        });
+
+        final List<List<Result>> perCombo = IntStream.range(0, nr * np * nf).parallel()
+            .mapToObj(k -> {
+                final int ir = k / (np * nf), ip = (k / nf) % np, jf = k % nf;
+                final List<Run> runs = new ArrayList<Run>();
+                for (int d = 0; d < nd; d++) {
+                    final BitSet valid = (BitSet)this.criteria.get(d).fixed.clone();
+                    valid.and(rpmBits[d][ir]);
+                    valid.and(pedalBits[d][ip]);
+                    valid.and(fuzzBits[d][jf]);
+                    findRuns(this.criteria.get(d), valid, runs);
+                }
+                final List<Result> out = new ArrayList<Result>(grid.minPoints.length);
+                for (final int minPoints : grid.minPoints)
+                    out.add(summarize(grid.minRPM[ir], grid.minPedal[ip], minPoints,
+                        grid.monotonicRPMfuzz[jf], runs));
+                return out;
+            })
+            .collect(Collectors.toList());
+
+        final List<Result> results = new ArrayList<Result>(grid.size());
+        for (final List<Result> l : perCombo) results.addAll(l);
+        logger.debug("Filter sweep: {} grid points over {} datasets in {} ms",
+            results.size(), nd, (System.nanoTime() - t0) / 1000000);
+        return results;
+    }
+
+    /*
+     * Mirrors Dataset.buildRanges(): a run of valid rows ends on the row before
+     * the first invalid row, and a run reaching the last row ends one row early.
+     */
+    private void findRuns(Criteria c, BitSet valid, List<Run> runs) {
+        int start = valid.nextSetBit(0);
+        while (start >= 0 && start < c.rows) {
+            final int clear = valid.nextClearBit(start);
+            final int end = clear >= c.rows ? c.rows - 2 : clear - 1;
+            final boolean rpmRangeOk = c.rpm == null || end < 0 ||
+                !(c.rpm[end] < c.rpm[start] + c.minRPMRange);
+            double fats = Double.NaN;
+            if (rpmRangeOk) {
+                final double et = c.timeAt(start, end, this.rpmEnd) - c.timeAt(start, end, this.rpmStart);
+                if (et > 0) fats = et;
+            }
+            runs.add(new Run(c.fileId, end - start + 1, rpmRangeOk, fats));
+            if (clear >= c.rows) break;
+            start = valid.nextSetBit(clear);
+        }
+    }
+
+    private static Result summarize(int minRPM, int minPedal, int minPoints, double fuzz, List<Run> runs) {
+        int ranges = 0, points = 0;
+        final double[] fats = new double[runs.size()];
+        final String[] files = new String[runs.size()];
+        for (final Run r : runs) {
+            if (r.size < minPoints || !r.rpmRangeOk) continue;
+            files[ranges] = r.fileId;
+            fats[ranges++] = r.fats;
+            points += r.size;
+        }
+        return new Result(minRPM, minPedal, minPoints, fuzz, ranges, points,
+            Arrays.copyOf(fats, ranges), Arrays.copyOf(files, ranges));
+    }
+
+    /** @return Number of datasets included in the sweep */
+    public int datasetCount() { return this.criteria.size(); }
+
+    /**
+     * Write results as CSV: parameters, ranges, points, best FATS, then FATS per range.
+     */
+    public static void writeCSV(List<Result> results, PrintStream out) {
+        out.println("minRPM,minPedal,minPoints,monotonicRPMfuzz,ranges,points,bestFATS,FATS...");
+        for (final Result r : results) {
+            final StringBuilder sb = new StringBuilder();
+            sb.append(r.minRPM).append(',').append(r.minPedal).append(',').append(r.minPoints)
+                .append(',').append(r.monotonicRPMfuzz).append(',').append(r.ranges)
+                .append(',').append(r.points).append(',').append(formatFATS(r.bestFATS()));
+            for (final double f : r.fats) sb.append(',').append(formatFATS(f));
+            out.println(sb);
+        }
+    }
+
+    static String formatFATS(double f) {
+        return Double.isNaN(f) ? "" : String.format("%.3f", f);
+    }
+}
+
+// vim: set sw=4 ts=8 expandtab:
@@ -0,0 +1,190 @@
+package org.nyet.ecuxplot;
+
+import java.awt.*;
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
+import java.util.List;
+import java.util.TreeMap;
+import java.util.function.Consumer;
+
+import javax.swing.*;
+import javax.swing.table.DefaultTableModel;
+
+/**
+ * Filter Sweep Window - runs a {@link FilterSweep} over all loaded files and lists
+ * ranges, points and FATS for every combination. Selecting a row shows the FATS of
+ * each of its ranges below. Double-click a row to copy its parameters back to the
+ * Filter window.
+ */
+public class FilterSweepWindow extends ECUxPlotWindow {
+    private static final long serialVersionUID = 1L;
+
+    private final FATS fats;
+    private final Consumer<FilterSweep.Result> onSelect;
+    private final JTextField specField;
+    private final JButton runButton;
+    private final JLabel statusLabel;
+    private final DefaultTableModel tableModel;
+    private final DefaultTableModel rangeModel;
+    private List<FilterSweep.Result> results;
+
+    /**
+     * @param filter The filter providing defaults and non-swept criteria
+     * @param eplot The main window
+     * @param fats FATS settings for the FATS column
+     * @param onSelect Called with the result the user double-clicks
+     */
+    public FilterSweepWindow(Filter filter, ECUxPlot eplot, FATS fats, Consumer<FilterSweep.Result> onSelect) {
+        super("Filter Sweep", filter, eplot);
+        this.fats = fats;
+        this.onSelect = onSelect;
+        setDefaultCloseOperation(JFrame.DISPOSE_ON_CLOSE);
+        setSize(new Dimension(800, 500));
+        setLocationRelativeTo(null);
+
+        this.specField = new JTextField(new FilterSweep.Grid(
+            new int[] {filter.minRPM()}, new int[] {filter.minPedal()},
+            new int[] {filter.minPoints()}, new double[] {filter.monotonicRPMfuzz()}).toString(), 50);
+        this.specField.setToolTipText("name=v1,v2,... or name=start:end:step; names: minRPM, minPedal, minPoints, fuzz");
+        this.runButton = new JButton("Run");
+        this.statusLabel = new JLabel("Select a row for FATS per range, double-click to use its settings");
+
+        final String[] columnNames = {
+            "Min RPM", "Min Pedal", "Min Points", "RPM fuzz", "Ranges", "Points", "FATS runs", "Best FATS"
+        };
+        this.tableModel = new DefaultTableModel(columnNames, 0) {
+            @Override
+            public boolean isCellEditable(int row, int column) {
+                return false;
+            }
+            @Override
+            public Class<?> getColumnClass(int column) {
+                return column == 7 ? String.class : Number.class;
+            }
+        };
+        final JTable table = new JTable(this.tableModel);
+        table.setAutoCreateRowSorter(true);
+        table.getSelectionModel().addListSelectionListener(e -> {
+            if (e.getValueIsAdjusting()) return;
+            final int row = table.getSelectedRow();
+            showRanges(row >= 0 && results != null ?
+                results.get(table.convertRowIndexToModel(row)) : null);
+        });
+        table.addMouseListener(new MouseAdapter() {
+            @Override
+            public void mouseClicked(MouseEvent e) {
+                final int row = table.getSelectedRow();
+                if (e.getClickCount() == 2 && row >= 0 && results != null && onSelect != null) {
+                    onSelect.accept(results.get(table.convertRowIndexToModel(row)));
+                }
+            }
+        });
+
+        // FATS of each range of the selected combination
+        this.rangeModel = new DefaultTableModel(new String[] {"File", "Range", "FATS"}, 0) {
+            @Override
+            public boolean isCellEditable(int row, int column) {
+                return false;
+            }
+            @Override
+            public Class<?> getColumnClass(int column) {
+                return column == 1 ? Number.class : String.class;
+            }
+        };
+        final JTable rangeTable = new JTable(this.rangeModel);
+
+        this.runButton.addActionListener(e -> runSweep());
+        this.specField.addActionListener(e -> runSweep());
+
+        final JPanel top = new JPanel(new BorderLayout(5, 0));
+        top.setBorder(BorderFactory.createEmptyBorder(5, 5, 5, 5));
+        top.add(new JLabel("Sweep:"), BorderLayout.WEST);
+        top.add(this.specField, BorderLayout.CENTER);
+        top.add(this.runButton, BorderLayout.EAST);
+
+        setLayout(new BorderLayout());
+        add(top, BorderLayout.NORTH);
+        final JSplitPane split = new JSplitPane(JSplitPane.VERTICAL_SPLIT,
+            new JScrollPane(table), new JScrollPane(rangeTable));
+        split.setResizeWeight(0.7);
+        add(split, BorderLayout.CENTER);
+        add(this.statusLabel, BorderLayout.SOUTH);
+    }
+
+    public void setFileDatasets(TreeMap<String, ECUxDataset> fileDatasets) {
+        this.fileDatasets = fileDatasets;
+    }
+
+    private void runSweep() {
+        if (this.fileDatasets == null || this.fileDatasets.isEmpty()) {
+            this.statusLabel.setText("No files loaded");
+            return;
+        }
+        final FilterSweep.Grid grid;
+        try {
+            grid = FilterSweep.Grid.parse(this.specField.getText(), this.filter);
+        } catch (final IllegalArgumentException e) {
+            this.statusLabel.setText(e.getMessage());
+            return;
+        }
+
+        // Snapshot on the EDT (datasets are not thread safe), evaluate in the background
+        final FilterSweep sweep = new FilterSweep(this.fileDatasets.values(), this.fats);
+        this.runButton.setEnabled(false);
+        this.statusLabel.setText("Sweeping " + grid.size() + " combinations over " +
+            sweep.datasetCount() + " files...");
+        final long t0 = System.currentTimeMillis();
+
+        new SwingWorker<List<FilterSweep.Result>, Void>() {
+            @Override
+            protected List<FilterSweep.Result> doInBackground() {
+                return sweep.run(grid);
+            }
+
+            @Override
+            protected void done() {
+                runButton.setEnabled(true);
+                try {
+                    showResults(get());
+                    statusLabel.setText(grid.size() + " combinations in " +
+                        (System.currentTimeMillis() - t0) + " ms. Select a row for FATS per range, " +
+                        "double-click to use its settings");
+                } catch (final Exception e) {
+                    logger.error("Filter sweep failed: ", e);
+                    statusLabel.setText("Sweep failed: " + e.getMessage());
+                }
+            }
+        }.execute();
+    }
+
+    private void showResults(List<FilterSweep.Result> results) {
+        this.results = results;
+        this.tableModel.setRowCount(0);
+        showRanges(null);
+        for (final FilterSweep.Result r : results) {
+            this.tableModel.addRow(new Object[] {
+                r.minRPM, r.minPedal, r.minPoints, r.monotonicRPMfuzz,
+                r.ranges, r.points, r.fatsCount(), FilterSweep.formatFATS(r.bestFATS())
+            });
+        }
+    }
+
+    private void showRanges(FilterSweep.Result r) {
+        this.rangeModel.setRowCount(0);
+        if (r == null) return;
+        // Ranges are numbered per file, as in the Range Selector
+        String file = null;
+        int range = 0;
+        for (int i = 0; i < r.fats.length; i++) {
+            if (!r.files[i].equals(file)) {
+                file = r.files[i];
+                range = 0;
+            }
+            this.rangeModel.addRow(new Object[] {
+                file, ++range, Double.isNaN(r.fats[i]) ? "-" : FilterSweep.formatFATS(r.fats[i])
+            });
+        }
+    }
+}
+
+// vim: set sw=4 ts=8 expandtab:
@@ -13,6 +13,7 @@ import javax.swing.event.ChangeListener;
 import javax.swing.table.*;
 
 import org.nyet.logfile.Dataset;
+import org.nyet.logfile.RangeIndex;
 import org.nyet.util.Strings;
 import org.nyet.util.ThemeManager;
 
@@ -373,6 +374,7 @@ public class FilterWindow extends ECUxPlotWindow {
         this.okButton = new JButton("OK");
         JButton restoreDefaultsButton = new JButton("Restore Defaults");
         JButton rangesButton = new JButton("Ranges...");
+        JButton sweepButton = new JButton("Sweep...");
         JButton cancelButton = new JButton("Cancel");
 
         applyButton.addActionListener(e -> {
@@ -425,6 +427,8 @@ public class FilterWindow extends ECUxPlotWindow {
             withEplot(plot -> plot.openRangeSelectorWindow());
         });
 
+        sweepButton.addActionListener(e -> openSweepWindow());
+
         cancelButton.addActionListener(e -> {
             // Cancel closes the window without applying changes
             dispose();
@@ -434,6 +438,7 @@ public class FilterWindow extends ECUxPlotWindow {
         JPanel firstRow = new JPanel(new FlowLayout(FlowLayout.LEFT, 5, 0));
         firstRow.add(restoreDefaultsButton);
         firstRow.add(rangesButton);
+        firstRow.add(sweepButton);
 
         // Second row: OK, Apply, Cancel buttons (pack West)
         JPanel secondRow = new JPanel(new FlowLayout(FlowLayout.LEFT, 5, 0));
@@ -450,6 +455,20 @@ public class FilterWindow extends ECUxPlotWindow {
         return mainPanel;
     }
 
+    private void openSweepWindow() {
+        final FATS fats = this.eplot != null ? this.eplot.fats : new FATS(ECUxPlot.getPreferences());
+        // Double-clicked sweep results are copied into the fields; the user still has to Apply
+        FilterSweepWindow sweepWindow = new FilterSweepWindow(this.filter, this.eplot, fats, r -> {
+            minRPM.setText(String.valueOf(r.minRPM));
+            minPedal.setText(String.valueOf(r.minPedal));
+            minPoints.setText(String.valueOf(r.minPoints));
+            monotonicRPMfuzz.setText(String.format("%.0f", r.monotonicRPMfuzz));
+        });
+        sweepWindow.setFileDatasets(this.fileDatasets);
+        withEplot(plot -> plot.setTopWindow(sweepWindow));
+        sweepWindow.setVisible(true);
+    }
+
     private JPanel createParameterPanel(String title, int[] fieldIndices, JTextField[] fields) {
         JPanel panel = new JPanel(new BorderLayout());
         // Create bold title border
@@ -750,6 +769,7 @@ public class FilterWindow extends ECUxPlotWindow {
 
             int totalRows = timeCol.data.size();
             ArrayList<Dataset.Range> ranges = dataset.getRanges();
+            RangeIndex rangeIndex = dataset.getRangeIndex();
             int validCount = ranges.stream().mapToInt(r -> r.size()).sum();
 
             // Determine which rows to show
@@ -780,7 +800,7 @@ public class FilterWindow extends ECUxPlotWindow {
             boolean hasVelocityData = (nativeMphCol != null || calcMphCol != null) && showRPMData;
             for (int rowIndex : rowsToShow) {
                 rowIndexMapping.add(rowIndex);
-                Object[] rowData = createRowData(rowIndex, timeCol, rpmCol, nativeMphCol, calcMphCol, dataset, pedalCol, throttleCol, gearCol, ranges, hasVelocityData, hasNativeVelocity);
+                Object[] rowData = createRowData(rowIndex, timeCol, rpmCol, nativeMphCol, calcMphCol, dataset, pedalCol, throttleCol, gearCol, rangeIndex, hasVelocityData, hasNativeVelocity);
                 tableModel.addRow(rowData);
             }
 
@@ -839,7 +859,7 @@ public class FilterWindow extends ECUxPlotWindow {
     private Object[] createRowData(int rowIndex, Dataset.Column timeCol, Dataset.Column rpmCol,
                                  Dataset.Column nativeMphCol, Dataset.Column calcMphCol, Dataset dataset,
                                  Dataset.Column pedalCol, Dataset.Column throttleCol, Dataset.Column gearCol,
-                                 ArrayList<Dataset.Range> ranges, boolean showRPMData, boolean hasNativeVelocity) {
+                                 RangeIndex ranges, boolean showRPMData, boolean hasNativeVelocity) {
         Object[] row = new Object[Column.getColumnCount()];
 
         try {
@@ -934,18 +954,19 @@ public class FilterWindow extends ECUxPlotWindow {
             if (dataset instanceof ECUxDataset) {
                 filterReasons = ((ECUxDataset) dataset).getFilterReasonsForRow(rowIndex);
                 pointValid = filterReasons.isEmpty();
-            } else {
-                pointValid = isRowInRange(rowIndex, ranges);
             }
 
-            boolean isInRange = isRowInRange(rowIndex, ranges);
+            // Range number (0 if not in any range)
+            int rangeNumber = ranges.indexOf(rowIndex) + 1;
+            boolean isInRange = rangeNumber > 0;
+            if (!(dataset instanceof ECUxDataset)) {
+                pointValid = isInRange;
+            }
             boolean isValid = pointValid && isInRange;
             row[Column.idx(Column.FILTER_STATUS)] = isValid ? "PASS" : "FAIL";
 
-            // Range number only
             String rangeValue = "";
             if (isInRange) {
-                int rangeNumber = getRangeNumber(rowIndex, ranges);
                 rangeValue = String.valueOf(rangeNumber);
             }
             row[Column.idx(Column.RANGE)] = rangeValue;
@@ -982,25 +1003,6 @@ public class FilterWindow extends ECUxPlotWindow {
         return row;
     }
 
-    private boolean isRowInRange(int rowIndex, ArrayList<Dataset.Range> ranges) {
-        for (Dataset.Range range : ranges) {
-            if (rowIndex >= range.start && rowIndex <= range.end) {
-                return true;
-            }
-        }
-        return false;
-    }
-
-    private int getRangeNumber(int rowIndex, ArrayList<Dataset.Range> ranges) {
-        for (int i = 0; i < ranges.size(); i++) {
-            Dataset.Range range = ranges.get(i);
-            if (rowIndex >= range.start && rowIndex <= range.end) {
-                return i + 1; // Range numbers start from 1
-            }
-        }
-        return 0; // Not in any range
-    }
-
     private void copyTableData() {
         int[] selectedRows = dataTable.getSelectedRows();
         if (selectedRows.length == 0) {
@@ -56,6 +56,16 @@ public final class OptionsMenu extends JMenu {
         this.add(jcb);
         this.saeCheckBox = jcb;
 
+        jcb = new JCheckBox("Render in background", ECUxPlot.backgroundRendering(prefs));
+        jcb.setToolTipText("Draw the chart off the UI thread and reuse the image for zoom drags and tooltips. Helps with many dense series.");
+        jcb.addActionListener(plotFrame);
+        this.add(jcb);
+
+        jcb = new JCheckBox("Show render timings", ECUxPlot.renderTimings(prefs));
+        jcb.setToolTipText("Time rebuilds, column calculation, smoothing and chart drawing, and show the slowest stages over the chart. See also File > Events.");
+        jcb.addActionListener(plotFrame);
+        this.add(jcb);
+
         this.add(new JSeparator());
 
         // Theme submenu
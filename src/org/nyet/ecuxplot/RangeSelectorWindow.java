@@ -77,18 +77,22 @@ public class RangeSelectorWindow extends ECUxPlotWindow implements FileDropHost
     private static class PowerAnalysis {
         static double getMaxPowerInRange(ECUxDataset dataset, Dataset.Range range) {
             try {
-                // Use getData() to get smoothed data instead of raw column data
-                // This ensures range-aware smoothing is applied for accurate max power calculation
-                double[] powerData = dataset.getData("WHP", range);
-                if (powerData == null) powerData = dataset.getData("HP", range);
-                if (powerData == null) powerData = dataset.getData("Engine HP", range);
-
-                if (powerData != null && powerData.length > 0) {
-                    double max = 0;
-                    for (double power : powerData) {
-                        max = Math.max(max, power);
+                // Ranges and columns from one state; a rebuild may be running on REBUILDER
+                synchronized (dataset) {
+                    // Use smoothed WHP (fused pipeline, or getData()) instead of raw column data
+                    // This ensures range-aware smoothing is applied for accurate max power calculation
+                    double[] powerData = dataset.getFusedWHP(range);
+                    if (powerData == null) powerData = dataset.getData("WHP", range);
+                    if (powerData == null) powerData = dataset.getData("HP", range);
+                    if (powerData == null) powerData = dataset.getData("Engine HP", range);
+
+                    if (powerData != null && powerData.length > 0) {
+                        double max = 0;
+                        for (double power : powerData) {
+                            max = Math.max(max, power);
+                        }
+                        return max;
                     }
-                    return max;
                 }
             } catch (Exception e) {
                 // Ignore errors
@@ -98,26 +102,29 @@ public class RangeSelectorWindow extends ECUxPlotWindow implements FileDropHost
 
         static int getMaxPowerRPMInRange(ECUxDataset dataset, Dataset.Range range) {
             try {
-                // Use getData() to get smoothed data instead of raw column data
-                // This ensures range-aware smoothing is applied for accurate max power calculation
-                double[] powerData = dataset.getData("WHP", range);
-                if (powerData == null) powerData = dataset.getData("HP", range);
-                if (powerData == null) powerData = dataset.getData("Engine HP", range);
-                double[] rpmData = dataset.getData("RPM", range);
-
-                if (powerData != null && rpmData != null &&
-                    powerData.length == rpmData.length && powerData.length > 0) {
-
-                    double maxPower = 0;
-                    int maxRPM = 0;
-                    for (int i = 0; i < powerData.length; i++) {
-                        double power = powerData[i];
-                        if (power > maxPower) {
-                            maxPower = power;
-                            maxRPM = (int) rpmData[i];
+                synchronized (dataset) {
+                    // Use smoothed WHP (fused pipeline, or getData()) instead of raw column data
+                    // This ensures range-aware smoothing is applied for accurate max power calculation
+                    double[] powerData = dataset.getFusedWHP(range);
+                    if (powerData == null) powerData = dataset.getData("WHP", range);
+                    if (powerData == null) powerData = dataset.getData("HP", range);
+                    if (powerData == null) powerData = dataset.getData("Engine HP", range);
+                    double[] rpmData = dataset.getData("RPM", range);
+
+                    if (powerData != null && rpmData != null &&
+                        powerData.length == rpmData.length && powerData.length > 0) {
+
+                        double maxPower = 0;
+                        int maxRPM = 0;
+                        for (int i = 0; i < powerData.length; i++) {
+                            double power = powerData[i];
+                            if (power > maxPower) {
+                                maxPower = power;
+                                maxRPM = (int) rpmData[i];
+                            }
                         }
+                        return maxRPM;
                     }
-                    return maxRPM;
                 }
             } catch (Exception e) {
                 // Ignore errors
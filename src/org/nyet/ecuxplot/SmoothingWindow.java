@@ -10,6 +10,7 @@ import javax.swing.*;
 import javax.swing.table.*;
 
 import org.nyet.logfile.Dataset;
+import org.nyet.logfile.RangeIndex;
 import org.nyet.util.Strings;
 import org.nyet.util.Smoothing;
 import org.nyet.util.ThemeManager;
@@ -48,6 +49,7 @@ public class SmoothingWindow extends ECUxPlotWindow {
     private TreeMap<String, ECUxDataset> fileDatasets;
     private ECUxDataset currentDataset;
     private ArrayList<Dataset.Range> currentRanges;
+    private RangeIndex displayRangeIndex; // index for ranges not owned by currentDataset
 
     // Column definitions - focused on HP and Acceleration m/s² pre/post getData
     // Grouped: deltas first, then raw/pre, then post, then diagnostic info
@@ -263,7 +265,12 @@ public class SmoothingWindow extends ECUxPlotWindow {
         smoothingStrategyCombo.setToolTipText(
             "<html>Smoothing strategy:<br/>" +
             "• <b>MAW</b>: Moving Average Window (default, smooths out noise and inflection points)<br/>" +
-            "• <b>SG</b>: Savitzky-Golay filter (preserves inflection points, better for derivatives)</html>"
+            "• <b>SG</b>: Savitzky-Golay filter (preserves inflection points, better for derivatives)<br/>" +
+            "• <b>EMA</b>: Exponential moving average, run forward and backward (no lag)<br/>" +
+            "• <b>Gaussian</b>: Gaussian weighted average (smooth response, no ringing)<br/>" +
+            "• <b>Median</b>: Running median (removes spikes, keeps steps)<br/>" +
+            "• <b>Butterworth</b>: 2nd order low-pass, forward and backward (sharp cutoff, no lag)<br/>" +
+            "• <b>Auto</b>: Cheapest filter within 1% of Gaussian, measured on the data</html>"
         );
         // Note: Strategy and padding changes are applied via Apply/OK buttons
         // No auto-rebuild listeners here - changes are batched and applied together
@@ -680,14 +687,14 @@ public class SmoothingWindow extends ECUxPlotWindow {
             final int effectiveWindow = windowInfo[1];
             final boolean clamped = (effectiveWindow != originalWindow);
 
-            // Calculate padding size: SG = 5, MAW = (effectiveWindow - 1) / 2
-            final int paddingSize = (strategy == Strategy.SG) ? 5 : (effectiveWindow - 1) / 2;
+            final int paddingSize = Smoothing.paddingNeeded(strategy, effectiveWindow);
 
             StringBuilder status = new StringBuilder();
             status.append(String.format("Padding Size: %d", paddingSize));
             if (clamped) {
                 status.append(String.format(" (window: %d → %d)", originalWindow, effectiveWindow));
             }
+            appendAutoChoice(status, strategy);
             status.append(" | Showing all data (no range filtering)");
 
             statusLabel.setText(status.toString());
@@ -735,8 +742,7 @@ public class SmoothingWindow extends ECUxPlotWindow {
         final int effectiveWindow = windowInfo[1];
         final boolean clamped = (effectiveWindow != originalWindow);
 
-        // Calculate padding size: SG = 5, MAW = (effectiveWindow - 1) / 2
-        final int paddingSize = (strategy == Strategy.SG) ? 5 : (effectiveWindow - 1) / 2;
+        final int paddingSize = Smoothing.paddingNeeded(strategy, effectiveWindow);
 
         // Build status text
         StringBuilder status = new StringBuilder();
@@ -744,10 +750,22 @@ public class SmoothingWindow extends ECUxPlotWindow {
         if (clamped) {
             status.append(String.format(" (window: %d → %d)", originalWindow, effectiveWindow));
         }
+        appendAutoChoice(status, strategy);
 
         statusLabel.setText(status.toString());
     }
 
+    /**
+     * For the Auto strategy, append the filter it picked for HP (once HP was smoothed).
+     */
+    private void appendAutoChoice(StringBuilder status, Strategy strategy) {
+        if (strategy != Strategy.AUTO) return;
+        final Smoothing.Kernel kernel = currentDataset.getSmoothingKernel("HP");
+        if (kernel != null) {
+            status.append(" | Auto: ").append(kernel.resolvedStrategy());
+        }
+    }
+
     private Dataset.Column[] getDiagnosticColumns() {
         // Return only HP and Acceleration m/s² columns (raw data)
         // Smoothed data will be retrieved via getData() in createRowData()
@@ -910,16 +928,26 @@ public class SmoothingWindow extends ECUxPlotWindow {
         return String.format("%.2f", value);
     }
 
-    private Dataset.Range findRangeForIndex(ArrayList<Dataset.Range> ranges, int index) {
+    /**
+     * Get a range index for the given ranges, reusing the dataset's index when possible.
+     * Display-only range lists (e.g. the single full-data range when no filter ranges exist)
+     * get a small index of their own, cached until the list changes.
+     */
+    private RangeIndex getRangeIndex(ArrayList<Dataset.Range> ranges) {
         if (ranges == null) {
-            return null;
+            return RangeIndex.EMPTY;
         }
-        for (Dataset.Range range : ranges) {
-            if (index >= range.start && index <= range.end) {
-                return range;
-            }
+        if (currentDataset != null && currentDataset.getRangeIndex().isFor(ranges)) {
+            return currentDataset.getRangeIndex();
+        }
+        if (displayRangeIndex == null || !displayRangeIndex.isFor(ranges)) {
+            displayRangeIndex = new RangeIndex(ranges);
         }
-        return null;
+        return displayRangeIndex;
+    }
+
+    private Dataset.Range findRangeForIndex(ArrayList<Dataset.Range> ranges, int index) {
+        return getRangeIndex(ranges).rangeFor(index);
     }
 
     /**
@@ -1243,12 +1271,13 @@ public class SmoothingWindow extends ECUxPlotWindow {
                 displayRanges.add(currentDataset.new Range(0, currentDataset.length() - 1));
             }
 
-            Dataset.Range range = findRangeForIndex(displayRanges, dataIndex);
+            RangeIndex displayIndex = getRangeIndex(displayRanges);
+            int rangeIndex = displayIndex.indexOf(dataIndex);
+            Dataset.Range range = rangeIndex >= 0 ? displayIndex.get(rangeIndex) : null;
 
             // Base background color by range - make more visible
             Color baseColor = ThemeManager.getTableBackground();
             if (range != null) {
-                int rangeIndex = displayRanges.indexOf(range);
                 if (rangeIndex % 2 == 0) {
                     baseColor = ThemeManager.getRangeEvenBackground();
                 } else {
@@ -55,8 +55,11 @@ public class Dataset {
     private DatasetId[] ids;
     private final String filePath; // Full file path for detection and other purposes
     private final String fileId; // This was never meant to be a filename. It is just a key used to identify the dataset. If you want path, use filePath instead.
-    private final LinkedHashMap<String, Column> columns; // Use LinkedHashMap to prevent duplicates and maintain insertion order
+    // Use LinkedHashMap to prevent duplicates and maintain insertion order.
+    // Guarded by this: calculated columns are created and invalidated off the EDT.
+    private final LinkedHashMap<String, Column> columns;
     private ArrayList<Range> range_cache = new ArrayList<Range>();
+    private RangeIndex range_index = RangeIndex.EMPTY;
     private int rows;
     protected ArrayList<String> lastFilterReasons = new ArrayList<String>();
     private ArrayList<String> comments = new ArrayList<String>();
@@ -595,7 +598,7 @@ public class Dataset {
         return numericCount * 2 >= nonEmptyCount;
     }
 
-    public ArrayList<Column> getColumns() {
+    public synchronized ArrayList<Column> getColumns() {
         // Return ordered list maintaining insertion order (from LinkedHashMap)
         return new ArrayList<Column>(this.columns.values());
     }
@@ -605,7 +608,7 @@ public class Dataset {
      * If a column with the same ID already exists, it will be replaced.
      * @param column The column to add or replace
      */
-    protected void putColumn(Column column) {
+    protected synchronized void putColumn(Column column) {
         this.columns.put(column.getId(), column);
     }
 
@@ -614,7 +617,7 @@ public class Dataset {
      * @param columnId The ID of the column to remove
      * @return The removed column, or null if not found
      */
-    protected Column removeColumn(String columnId) {
+    protected synchronized Column removeColumn(String columnId) {
         return this.columns.remove(columnId);
     }
 
@@ -637,7 +640,7 @@ public class Dataset {
         }
     }
 
-    public Column get(int id) {
+    public synchronized Column get(int id) {
         // Use ids[] array to map index to column ID, then look up in map
         if (this.ids != null && id >= 0 && id < this.ids.length) {
             String columnId = this.ids[id].id;
@@ -654,7 +657,7 @@ public class Dataset {
         return c;
     }
 
-    public Column get(Comparable<?> id) {
+    public synchronized Column get(Comparable<?> id) {
         // Direct map lookup - no duplicates possible with LinkedHashMap
         String idStr = id.toString();
         return this.columns.get(idStr);
@@ -692,6 +695,15 @@ public class Dataset {
         return this.range_cache;
     }
 
+    /**
+     * Get the sorted row to range index for the current ranges.
+     * Rebuilt once per buildRanges(), shared by all consumers.
+     * @return The range index (never null)
+     */
+    public RangeIndex getRangeIndex() {
+        return this.range_index;
+    }
+
     protected void buildRanges() {
         this.range_cache = new ArrayList<Range>();
         Range r = null;
@@ -736,6 +748,8 @@ public class Dataset {
         if (this.progressCallback != null && lastReported < this.rows) {
             this.progressCallback.reportProgress(fileName, "Filtering data", this.rows, this.rows);
         }
+
+        this.range_index = new RangeIndex(this.range_cache, this.rows);
     }
 
     public double[] getData(Key id, Range r) {
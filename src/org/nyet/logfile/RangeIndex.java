@@ -0,0 +1,117 @@
+package org.nyet.logfile;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Immutable, sorted index over a list of non-overlapping {@link Dataset.Range}s.
+ *
+ * Range bounds are copied into primitive start/end arrays so row to range
+ * lookups are a binary search instead of a linear scan. When built with a
+ * row count (as {@link Dataset#buildRanges()} does), a row to range map is
+ * also precomputed so lookups for rows inside the dataset are O(1).
+ */
+public final class RangeIndex {
+    /** Empty index, used before ranges are built */
+    public static final RangeIndex EMPTY = new RangeIndex(Collections.<Dataset.Range>emptyList(), 0);
+
+    private final List<? extends Dataset.Range> ranges;
+    private final int[] starts;
+    private final int[] ends;
+    private final int[] rowToRange;     // range number for each row, -1 if not in a range
+
+    /**
+     * Build an index without a row map (binary search lookups only).
+     * @param ranges Ranges sorted by start, non-overlapping
+     */
+    public RangeIndex(List<? extends Dataset.Range> ranges) {
+        this(ranges, 0);
+    }
+
+    /**
+     * Build an index, with a row map for rows 0..rows-1.
+     * @param ranges Ranges sorted by start, non-overlapping
+     * @param rows Number of rows to precompute the row map for (0 = no row map)
+     * @throws IllegalArgumentException if ranges are unsorted or overlap
+     */
+    public RangeIndex(List<? extends Dataset.Range> ranges, int rows) {
+        final int n = ranges.size();
+        this.ranges = ranges;
+        this.starts = new int[n];
+        this.ends = new int[n];
+        for (int i = 0; i < n; i++) {
+            final Dataset.Range r = ranges.get(i);
+            if (i > 0 && r.start <= this.ends[i-1])
+                throw new IllegalArgumentException("Range " + i + " " + r +
+                    " overlaps or precedes range " + (i-1));
+            this.starts[i] = r.start;
+            this.ends[i] = r.end;
+        }
+
+        if (rows > 0) {
+            this.rowToRange = new int[rows];
+            java.util.Arrays.fill(this.rowToRange, -1);
+            for (int i = 0; i < n; i++) {
+                final int s = Math.max(0, this.starts[i]);
+                final int e = Math.min(rows - 1, this.ends[i]);
+                for (int row = s; row <= e; row++) this.rowToRange[row] = i;
+            }
+        } else {
+            this.rowToRange = null;
+        }
+    }
+
+    /** @return Number of ranges in the index */
+    public int size() { return this.starts.length; }
+
+    public boolean isEmpty() { return this.starts.length == 0; }
+
+    /** @return The i'th range */
+    public Dataset.Range get(int i) { return this.ranges.get(i); }
+
+    public int start(int i) { return this.starts[i]; }
+    public int end(int i) { return this.ends[i]; }
+
+    /**
+     * Find the range number containing a row.
+     * @param row The data point index
+     * @return 0-based range number, or -1 if the row is not in any range
+     */
+    public int indexOf(int row) {
+        if (this.rowToRange != null && row >= 0 && row < this.rowToRange.length)
+            return this.rowToRange[row];
+        return search(row);
+    }
+
+    /**
+     * Binary search for the range containing a row (ignores the row map).
+     * @param row The data point index
+     * @return 0-based range number, or -1 if the row is not in any range
+     */
+    public int search(int row) {
+        int lo = 0, hi = this.starts.length - 1;
+        while (lo <= hi) {
+            final int mid = (lo + hi) >>> 1;
+            if (row < this.starts[mid]) hi = mid - 1;
+            else if (row > this.ends[mid]) lo = mid + 1;
+            else return mid;
+        }
+        return -1;
+    }
+
+    /**
+     * @param row The data point index
+     * @return The range containing the row, or null if not in any range
+     */
+    public Dataset.Range rangeFor(int row) {
+        final int i = indexOf(row);
+        return i < 0 ? null : this.ranges.get(i);
+    }
+
+    public boolean contains(int row) { return indexOf(row) >= 0; }
+
+    /** @return true if this index was built from exactly this list */
+    public boolean isFor(List<? extends Dataset.Range> list) { return this.ranges == list; }
+}
+
+// vim: set sw=4 ts=8 expandtab:
@@ -0,0 +1,206 @@
+package org.nyet.util;
+
+import java.util.Arrays;
+
+/**
+ * Natural cubic spline through a set of points.
+ *
+ * Fitting solves the tridiagonal system for the second derivatives in O(n);
+ * evaluation finds the interval by binary search. {@link #inverse} finds the
+ * abscissa where the spline reaches a given value, e.g. the time at which a
+ * run reaches a given RPM. It searches a monotone envelope of the knot values
+ * (their running maximum, or minimum for falling data) built with the spline,
+ * so it is O(log n) even when the data dips.
+ *
+ * Instances are immutable and construction touches no global state, so splines
+ * can be built and used concurrently.
+ */
+public final class CubicSpline {
+    private final double[] x;
+    private final double[] y;
+    private final double[] d2;     // second derivatives at the knots
+    private final int n;
+    private final int direction;   // +1 for rising data (last >= first), -1 for falling
+    private final double[] reached; // running max (rising) or min (falling) of y
+
+    /**
+     * Fit a spline to the points (x[i], y[i]).
+     * Points need not be sorted; points with identical x are merged into one with the mean y.
+     * @throws IllegalArgumentException if the arrays differ in length, contain non-finite
+     * values, or hold fewer than two distinct x values
+     */
+    public CubicSpline(double[] x, double[] y) {
+        if (x.length != y.length)
+            throw new IllegalArgumentException("x and y lengths differ: " + x.length + " != " + y.length);
+        for (int i = 0; i < x.length; i++) {
+            if (!Double.isFinite(x[i]) || !Double.isFinite(y[i]))
+                throw new IllegalArgumentException("Non-finite point at " + i + ": " + x[i] + ", " + y[i]);
+        }
+
+        final double[] xs = x.clone();
+        final double[] ys = y.clone();
+        if (!ascending(xs)) sort(xs, ys);
+        this.n = merge(xs, ys);
+        if (this.n < 2)
+            throw new IllegalArgumentException("Need at least two distinct x values, got " + this.n);
+
+        this.x = this.n == xs.length ? xs : Arrays.copyOf(xs, this.n);
+        this.y = this.n == ys.length ? ys : Arrays.copyOf(ys, this.n);
+        this.d2 = solve(this.x, this.y, this.n);
+        this.direction = this.y[this.n - 1] >= this.y[0] ? 1 : -1;
+        this.reached = envelope(this.y, this.n, this.direction);
+    }
+
+    private static boolean ascending(double[] a) {
+        for (int i = 1; i < a.length; i++) if (a[i] < a[i - 1]) return false;
+        return true;
+    }
+
+    /* sort points by x (rare: callers normally pass time-ordered data) */
+    private static void sort(double[] xs, double[] ys) {
+        final Integer[] order = new Integer[xs.length];
+        for (int i = 0; i < order.length; i++) order[i] = i;
+        Arrays.sort(order, (a, b) -> Double.compare(xs[a], xs[b]));
+        final double[] x0 = xs.clone(), y0 = ys.clone();
+        for (int i = 0; i < order.length; i++) {
+            xs[i] = x0[order[i]];
+            ys[i] = y0[order[i]];
+        }
+    }
+
+    /* merge runs of identical x in place, averaging y; returns the new point count */
+    private static int merge(double[] xs, double[] ys) {
+        int out = 0;
+        for (int i = 0; i < xs.length; ) {
+            int j = i + 1;
+            double sum = ys[i];
+            while (j < xs.length && xs[j] == xs[i]) sum += ys[j++];
+            xs[out] = xs[i];
+            ys[out] = sum / (j - i);
+            out++;
+            i = j;
+        }
+        return out;
+    }
+
+    /* natural spline second derivatives by the Thomas algorithm */
+    private static double[] solve(double[] x, double[] y, int n) {
+        final double[] m = new double[n];
+        if (n < 3) return m;
+        // m holds the modified right hand side, c the modified super-diagonal
+        final double[] c = new double[n];
+        for (int i = 1; i < n - 1; i++) {
+            final double h0 = x[i] - x[i - 1], h1 = x[i + 1] - x[i];
+            final double rhs = 6 * ((y[i + 1] - y[i]) / h1 - (y[i] - y[i - 1]) / h0);
+            final double diag = 2 * (h0 + h1) - h0 * c[i - 1];
+            c[i] = h1 / diag;
+            m[i] = (rhs - h0 * m[i - 1]) / diag;
+        }
+        for (int i = n - 3; i >= 1; i--) m[i] -= c[i] * m[i + 1];
+        m[n - 1] = 0;
+        return m;
+    }
+
+    private static double[] envelope(double[] y, int n, int direction) {
+        final double[] e = new double[n];
+        e[0] = y[0];
+        for (int i = 1; i < n; i++) {
+            e[i] = direction > 0 ? Math.max(e[i - 1], y[i]) : Math.min(e[i - 1], y[i]);
+        }
+        return e;
+    }
+
+    /** @return Number of knots after merging identical x values */
+    public int size() { return this.n; }
+
+    public double getXmin() { return this.x[0]; }
+
+    public double getXmax() { return this.x[this.n - 1]; }
+
+    /**
+     * @return The spline's value at xx
+     * @throws IllegalArgumentException if xx is outside [getXmin(), getXmax()]
+     */
+    public double interpolate(double xx) {
+        if (!(xx >= this.x[0] && xx <= this.x[this.n - 1]))
+            throw new IllegalArgumentException(xx + " is outside " + this.x[0] + ":" + this.x[this.n - 1]);
+        int i = Arrays.binarySearch(this.x, 0, this.n, xx);
+        if (i < 0) i = -i - 2;
+        return eval(Math.min(i, this.n - 2), xx);
+    }
+
+    /* value of the cubic of interval i at xx */
+    private double eval(int i, double xx) {
+        final double h = this.x[i + 1] - this.x[i];
+        final double a = (this.x[i + 1] - xx) / h;
+        final double b = 1 - a;
+        return a * this.y[i] + b * this.y[i + 1] +
+            ((a * a * a - a) * this.d2[i] + (b * b * b - b) * this.d2[i + 1]) * h * h / 6;
+    }
+
+    /**
+     * Abscissa where the data first reaches yy in its overall direction (rising or
+     * falling): the knot interval is found by binary search of the envelope, and the
+     * root within it by bisection.
+     * @return x with interpolate(x) == yy (to rounding)
+     * @throws IllegalArgumentException if the data never reaches yy
+     */
+    public double inverse(double yy) {
+        final int i = bracket(yy);
+        if (i < 0)
+            throw new IllegalArgumentException(yy + " is not reached between " + this.x[0] + " and " + this.x[this.n - 1]);
+        return root(i, yy);
+    }
+
+    /**
+     * {@link #inverse} for many values at once, in one pass over the knots.
+     * @param ys Values in the data's direction (ascending for rising data)
+     * @param out Receives the abscissae; NaN where a value is never reached
+     */
+    public void inverse(double[] ys, double[] out) {
+        int j = 0;
+        for (int k = 0; k < ys.length; k++) {
+            if (k > 0 && this.direction * (ys[k] - ys[k - 1]) < 0)
+                throw new IllegalArgumentException("Values must follow the data's direction at " + k);
+            // first knot at or past ys[k]; the envelope is monotone, so it only moves forward
+            while (j < this.n && this.direction * (this.reached[j] - ys[k]) < 0) j++;
+            if (j == this.n || (j == 0 && this.y[0] != ys[k])) {
+                out[k] = Double.NaN;
+            } else {
+                out[k] = root(j == 0 ? 0 : j - 1, ys[k]);
+            }
+        }
+    }
+
+    /* root of the cubic of knot interval i, given y[i] and y[i+1] bracket yy */
+    private double root(int i, double yy) {
+        if (this.y[i] == yy) return this.x[i];
+        if (this.y[i + 1] == yy) return this.x[i + 1];
+
+        // y[i] and y[i+1] straddle yy, so the cubic of interval i crosses it
+        double lo = this.x[i], hi = this.x[i + 1];
+        final boolean rising = this.y[i] < yy;
+        for (int k = 0; k < 100 && hi - lo > Math.ulp(hi) * 4; k++) {
+            final double mid = 0.5 * (lo + hi);
+            if ((eval(i, mid) < yy) == rising) lo = mid;
+            else hi = mid;
+        }
+        return 0.5 * (lo + hi);
+    }
+
+    /* knot interval i where the data first reaches yy (y[i] short of it, y[i+1] at or past it), or -1 */
+    private int bracket(double yy) {
+        // first knot whose envelope is at or past yy; before it every knot fell short
+        int lo = 0, hi = this.n;
+        while (lo < hi) {
+            final int mid = (lo + hi) >>> 1;
+            if (this.direction * (this.reached[mid] - yy) >= 0) hi = mid;
+            else lo = mid + 1;
+        }
+        if (lo == this.n) return -1;
+        if (lo == 0) return this.y[0] == yy ? 0 : -1;
+        return lo - 1;
+    }
+}
+
+// vim: set sw=4 ts=8 expandtab:
@@ -1,6 +1,5 @@
 package org.nyet.util;
 
-import vec_math.SavitzkyGolaySmoothing;
 import ru.sscc.spline.Spline;
 import ru.sscc.spline.polynomial.POddSplineCreator;
 import ru.sscc.util.CalculatingException;
@@ -69,6 +68,9 @@ public class DoubleArray
 
     public int size() { return this.sp; }
 
+    /* Backing array, valid up to size(); read only, for this package's streaming loops */
+    double[] backing() { return this.array; }
+
     public double[] toArray()
     {
         final double[] trimmedArray = new double[ this.sp ];
@@ -326,8 +328,10 @@ public class DoubleArray
         // Note that this window is hardcoded to be half the dataset size, which is independent of both filter MAW settings
         if(this.sp < SG_THRESHOLD) return movingAverage(this.sp / MA_WINDOW_DIVISOR);
         // Enough points for Savitzky-Golay smoothing - use SG(5,5) polynomial filter
-        final SavitzkyGolaySmoothing s = new SavitzkyGolaySmoothing(5,5);
-        return new DoubleArray(s.smoothAll(this.toArray()));
+        // Shared SG(5,5), convolved in one pass; the first and last 5 points are kept as is
+        final double[] out = new double[this.sp];
+        Smoothing.SG.convolve(this.toArray(), 0, this.sp - 1, out, 0);
+        return new DoubleArray(out);
     }
 
     public DoubleArray movingAverage(int window) {
@@ -21,6 +21,43 @@ public class MonotonicDataAnalyzer {
         return 0.0;
     }
 
+    /**
+     * Calculate sample rate from a time gap index, ignoring pauses between segments.
+     *
+     * @param index Time gap index of the time data
+     * @return Sample rate in samples per second, or 0.0 if calculation failed
+     */
+    public static double calculateSampleRate(TimeGapIndex index) {
+        return index == null ? 0.0 : index.samplesPerSec();
+    }
+
+    /**
+     * Smooth time data by deltas within each segment of a time gap index.
+     * Each segment keeps its own start time, so smoothing never spreads a
+     * pause into the neighbouring samples.
+     *
+     * @param index Time gap index of the time data
+     * @param samplesPerSec Sample rate
+     * @return Smoothed time array, or the indexed array if smoothing not applied
+     */
+    public static double[] smoothTimeByDeltas(TimeGapIndex index, double samplesPerSec) {
+        final double[] timeData = index.time();
+        if (!index.hasGaps()) {
+            return smoothTimeByDeltas(timeData, samplesPerSec);
+        }
+
+        double[] out = null;
+        for (int k = 0; k < index.segments(); k++) {
+            final double[] segment = java.util.Arrays.copyOfRange(timeData, index.start(k), index.end(k) + 1);
+            final double[] smoothed = smoothTimeByDeltas(segment, samplesPerSec);
+            if (smoothed != segment) {
+                if (out == null) out = timeData.clone();
+                System.arraycopy(smoothed, 0, out, index.start(k), smoothed.length);
+            }
+        }
+        return out != null ? out : timeData;
+    }
+
     /**
      * Smooth time data by smoothing deltas (intervals) rather than absolute time to prevent drift.
      * Applies smoothing if samplesPerSec >= 5.0.
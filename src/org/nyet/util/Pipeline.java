@@ -0,0 +1,309 @@
+package org.nyet.util;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import vec_math.SavitzkyGolaySmoothing;
+
+/**
+ * Fused, streaming evaluation of a chain of per-sample operators over one range.
+ *
+ * Each stage sees the samples in order and emits each output a fixed number of
+ * samples later (its look-ahead), holding only a ring buffer of its window. The
+ * whole chain runs in a single loop over the input, so no intermediate column is
+ * materialized and only the output is allocated.
+ *
+ * Samples carry the time, the source value (the input value at the same sample,
+ * so later stages can still combine it with a derivative) and the current value.
+ * Reads before the first or after the last input sample are clamped to it.
+ *
+ * A pipeline holds per-run state and is not thread safe; build one per thread.
+ */
+public final class Pipeline {
+    /** One sample as it flows through the stages */
+    public static final class Sample {
+        public double t;
+        public double src;
+        public double y;
+    }
+
+    /** Per-sample function of the source and current value */
+    public interface Function {
+        double apply(double src, double y);
+    }
+
+    /** A streaming operator */
+    public interface Stage {
+        /** @return Samples before the current one this stage reads */
+        int lookBehind();
+        /** @return Samples after the current one this stage reads (= its delay) */
+        int lookAhead();
+        /** Forget all buffered samples */
+        void reset();
+        /**
+         * Consume one sample and replace it with the next output.
+         * @return false while the stage is still filling its window (no output)
+         */
+        boolean push(Sample s);
+    }
+
+    private final List<Stage> stages = new ArrayList<Stage>();
+    private final Sample sample = new Sample();
+
+    /** Append a stage */
+    public Pipeline then(Stage stage) {
+        this.stages.add(stage);
+        return this;
+    }
+
+    /** Append dy/dt by central difference quotient, same as {@link DoubleArray#derivative} */
+    public Pipeline derivative() { return then(new Derivative()); }
+
+    /** Append a moving average; even windows are widened by one like {@link Smoothing} */
+    public Pipeline maw(int window) { return window > 1 ? then(new Maw(window)) : this; }
+
+    /** Append a Savitzky-Golay smoothing (der 0) or dy/dt (der 1) filter */
+    public Pipeline sg(int degree, int nl, int nr, int der) { return then(new SG(degree, nl, nr, der)); }
+
+    /** Append multiplication by a constant */
+    public Pipeline scale(final double k) { return map((src, y) -> y * k); }
+
+    /** Append a per-sample function */
+    public Pipeline map(final Function f) { return then(new Map(f)); }
+
+    /** @return Samples before each output the chain reads */
+    public int lookBehind() {
+        int b = 0;
+        for (final Stage s : this.stages) b += s.lookBehind();
+        return b;
+    }
+
+    /** @return Samples after each output the chain reads */
+    public int lookAhead() {
+        int a = 0;
+        for (final Stage s : this.stages) a += s.lookAhead();
+        return a;
+    }
+
+    /**
+     * Run the chain over t/y[start..end].
+     * @return A new array of end-start+1 outputs
+     */
+    public double[] run(double[] t, double[] y, int start, int end) {
+        final double[] out = new double[end - start + 1];
+        run(t, y, start, end, out, 0);
+        return out;
+    }
+
+    /**
+     * Run the chain over t/y[start..end], writing the outputs to out[offset..].
+     */
+    public void run(final double[] t, final double[] y, int start, int end, double[] out, int offset) {
+        run((s, i) -> { s.t = t[i]; s.src = y[i]; s.y = y[i]; }, y.length, start, end, out, offset);
+    }
+
+    /**
+     * Run the chain over columns t/y[start..end] without copying them.
+     * @return A new array of end-start+1 outputs
+     */
+    public double[] run(final DoubleArray t, final DoubleArray y, int start, int end) {
+        final double[] out = new double[end - start + 1];
+        run((s, i) -> { s.t = t.get(i); s.src = s.y = y.get(i); }, y.size(), start, end, out, 0);
+        return out;
+    }
+
+    /* Loads input sample i */
+    private interface Source {
+        void load(Sample s, int i);
+    }
+
+    private void run(Source in, int length, int start, int end, double[] out, int offset) {
+        if (start < 0 || end >= length || start > end || offset + end - start >= out.length)
+            throw new IllegalArgumentException("Cannot run pipeline over " + start + ":" + end +
+                " of " + length + " into " + offset + ":" + out.length);
+
+        for (final Stage s : this.stages) s.reset();
+        final Sample smp = this.sample;
+        final int last = length - 1;
+        final int n = this.stages.size();
+        int o = offset;
+
+        for (int p = start - lookBehind(), pEnd = end + lookAhead(); p <= pEnd; p++) {
+            in.load(smp, p < 0 ? 0 : (p > last ? last : p));
+            boolean emitted = true;
+            for (int k = 0; k < n && emitted; k++) emitted = this.stages.get(k).push(smp);
+            if (emitted) out[o++] = smp.y;
+        }
+    }
+
+    /* Ring buffer of the last window samples, shared by the windowed stages */
+    private abstract static class Windowed implements Stage {
+        final int behind, ahead, size;
+        final double[] t, src, y;
+        int count;   // samples pushed since reset
+        int head;    // slot of the next sample
+
+        Windowed(int behind, int ahead) {
+            this.behind = behind;
+            this.ahead = ahead;
+            this.size = behind + ahead + 1;
+            this.t = new double[this.size];
+            this.src = new double[this.size];
+            this.y = new double[this.size];
+        }
+
+        @Override public int lookBehind() { return this.behind; }
+        @Override public int lookAhead() { return this.ahead; }
+
+        @Override
+        public void reset() {
+            this.count = 0;
+            this.head = 0;
+        }
+
+        /* slot of the k-th oldest sample in the window */
+        final int slot(int k) { return (this.head + k) % this.size; }
+
+        @Override
+        public boolean push(Sample s) {
+            final double leaving = this.y[this.head];
+            this.t[this.head] = s.t;
+            this.src[this.head] = s.src;
+            this.y[this.head] = s.y;
+            this.head = (this.head + 1) % this.size;
+            entered(s.y, ++this.count > this.size, leaving);
+            if (this.count < this.size) return false;
+            final int center = slot(this.behind);
+            s.t = this.t[center];
+            s.src = this.src[center];
+            s.y = compute();
+            return true;
+        }
+
+        /* notification that a sample entered (and possibly one left) the window */
+        void entered(double y, boolean left, double leaving) {}
+
+        /* output for the full window */
+        abstract double compute();
+    }
+
+    private static final class Derivative extends Windowed {
+        private double prev;
+
+        Derivative() { super(1, 1); }
+
+        @Override
+        public void reset() {
+            super.reset();
+            this.prev = 0.0;
+        }
+
+        @Override
+        double compute() {
+            final int i0 = slot(0), i1 = slot(2);
+            final double timeDelta = this.t[i1] - this.t[i0];
+            // Same duplicate timestamp guard as DoubleArray._derivative()
+            this.prev = Math.abs(timeDelta) < 1e-6 ? this.prev : (this.y[i1] - this.y[i0]) / timeDelta;
+            return this.prev;
+        }
+    }
+
+    private static final class Maw extends Windowed {
+        private final double weight;
+        private double sum, comp;
+        private int nonFinite;
+
+        Maw(int window) {
+            super((window | 1) / 2, (window | 1) / 2);
+            this.weight = 1.0 / (window | 1);
+        }
+
+        @Override
+        public void reset() {
+            super.reset();
+            this.sum = 0;
+            this.comp = 0;
+            this.nonFinite = 0;
+        }
+
+        /* Neumaier summation, as in Smoothing's running-sum MAW */
+        private void add(double v) {
+            if (Double.isNaN(v) || Double.isInfinite(v)) {
+                this.nonFinite++;
+                return;
+            }
+            final double s = this.sum + v;
+            if (Math.abs(this.sum) >= Math.abs(v)) this.comp += (this.sum - s) + v;
+            else this.comp += (v - s) + this.sum;
+            this.sum = s;
+        }
+
+        @Override
+        void entered(double y, boolean left, double leaving) {
+            add(y);
+            if (left) {
+                if (Double.isNaN(leaving) || Double.isInfinite(leaving)) this.nonFinite--;
+                else add(-leaving);
+            }
+        }
+
+        @Override
+        double compute() {
+            if (this.nonFinite == 0) return (this.sum + this.comp) * this.weight;
+            double s = 0;
+            for (int k = 0; k < this.size; k++) s += this.weight * this.y[slot(k)];
+            return s;
+        }
+    }
+
+    private static final class SG extends Windowed {
+        private final double[] c;
+        private final boolean derivative;
+        private double prev;
+
+        SG(int degree, int nl, int nr, int der) {
+            super(nl, nr);
+            if (der > 1) throw new IllegalArgumentException("Only smoothing and first derivative SG stages are supported");
+            this.c = SavitzkyGolaySmoothing.coefficients(degree, nl, nr, der);
+            this.derivative = der == 1;
+        }
+
+        @Override
+        double compute() {
+            double dy = 0, dt = 0;
+            for (int k = 0; k < this.size; k++) {
+                final int j = slot(k);
+                dy += this.c[k] * this.y[j];
+                dt += this.c[k] * this.t[j];
+            }
+            // dy/dt = (dy/di) / (dt/di): same fit to y and t copes with uneven sampling
+            if (!this.derivative) return dy;
+            this.prev = Math.abs(dt) < 1e-6 ? this.prev : dy / dt;
+            return this.prev;
+        }
+
+        @Override
+        public void reset() {
+            super.reset();
+            this.prev = 0.0;
+        }
+    }
+
+    private static final class Map implements Stage {
+        private final Function f;
+
+        Map(Function f) { this.f = f; }
+
+        @Override public int lookBehind() { return 0; }
+        @Override public int lookAhead() { return 0; }
+        @Override public void reset() {}
+
+        @Override
+        public boolean push(Sample s) {
+            s.y = this.f.apply(s.src, s.y);
+            return true;
+        }
+    }
+}
+
+// vim: set sw=4 ts=8 expandtab:
@@ -49,7 +49,13 @@ public class Smoothing extends LinearSmoothing
      */
     public enum Strategy {
         MAW("MAW"),
-        SG("SG");
+        SG("SG"),
+        EMA("EMA"),
+        GAUSSIAN("Gaussian"),
+        MEDIAN("Median"),
+        BUTTERWORTH("Butterworth"),
+        /** Pick a registered {@link SmoothingFilter} per column, see {@link SmoothingFilters#select} */
+        AUTO("Auto");
 
         private final String value;
 
@@ -61,6 +67,11 @@ public class Smoothing extends LinearSmoothing
             return value;
         }
 
+        @Override
+        public String toString() {
+            return value;
+        }
+
         public static Strategy fromString(String s) {
             if (s == null) return MAW;
             for (Strategy strategy : values()) {
@@ -74,10 +85,10 @@ public class Smoothing extends LinearSmoothing
 
     /**
      * Get default left padding for a given strategy.
-     * MAW works best with DATA, SG works best with NONE.
+     * SG works best with NONE, everything else with DATA.
      */
     public static Padding getDefaultLeftPadding(Strategy strategy) {
-        if (strategy == Strategy.MAW) {
+        if (strategy != Strategy.SG) {
             return Padding.DATA;
         }
         // SG defaults to NONE
@@ -86,10 +97,10 @@ public class Smoothing extends LinearSmoothing
 
     /**
      * Get default right padding for a given strategy.
-     * MAW works best with DATA, SG works best with MIRROR.
+     * SG works best with MIRROR, everything else with DATA.
      */
     public static Padding getDefaultRightPadding(Strategy strategy) {
-        if (strategy == Strategy.MAW) {
+        if (strategy != Strategy.SG) {
             return Padding.DATA;
         }
         // SG defaults to MIRROR
@@ -148,17 +159,52 @@ public class Smoothing extends LinearSmoothing
 
     /**
      * Encapsulates padded data array and range information.
+     * Only the first length entries of paddedData are valid: it may be a column's
+     * backing array or a reused scratch buffer.
      */
     public static class PaddedRange {
         public final double[] paddedData;
+        public final int length;
         public final Range range;
 
         PaddedRange(double[] paddedData, int rangeStartInPadded, int rangeEndInPadded) {
+            this(paddedData, paddedData.length, rangeStartInPadded, rangeEndInPadded);
+        }
+
+        PaddedRange(double[] paddedData, int length, int rangeStartInPadded, int rangeEndInPadded) {
             this.paddedData = paddedData;
+            this.length = length;
             this.range = new Range(rangeStartInPadded, rangeEndInPadded);
         }
     }
 
+    /**
+     * Per-thread scratch buffers, so padded windows and filter work arrays are
+     * allocated once per thread instead of once per column and range.
+     * Each slot holds one buffer; callers must not hand a buffer out of the
+     * smoothing call that took it.
+     */
+    static final class Scratch {
+        /** Padded window of the range being smoothed */
+        static final int PADDED = 0;
+        /** Filter work arrays */
+        static final int WORK = 1;
+        static final int WORK2 = 2;
+        static final int WORK3 = 3;
+
+        private static final ThreadLocal<double[][]> buffers =
+            ThreadLocal.withInitial(() -> new double[WORK3 + 1][0]);
+
+        private Scratch() {}
+
+        /** @return This thread's buffer for slot, at least n long (contents undefined) */
+        static double[] get(int slot, int n) {
+            final double[][] b = buffers.get();
+            if (b[slot].length < n) b[slot] = new double[Math.max(n, b[slot].length + b[slot].length / 2)];
+            return b[slot];
+        }
+    }
+
     /**
      * Encapsulates all smoothing configuration.
      */
@@ -200,6 +246,11 @@ public class Smoothing extends LinearSmoothing
             System.arraycopy(smoothedData, rangeStartInResult, result, 0, rangeSize);
             return result;
         }
+
+        /* The range itself if the result holds nothing else, otherwise a copy */
+        double[] range() {
+            return rangeStartInResult == 0 && smoothedData.length == rangeSize ? smoothedData : extractRange();
+        }
     }
 
     /**
@@ -213,6 +264,109 @@ public class Smoothing extends LinearSmoothing
         }
     }
 
+    /**
+     * Prepared smoothing for one column.
+     * Window, strategy and padding are resolved once; the MAW smoother is created on
+     * first use and reused across ranges (it holds no per-call state).
+     */
+    public static final class Kernel {
+        public final Metadata metadata;
+        public final Strategy strategy;
+        public final Padding leftPad;
+        public final Padding rightPad;
+        private Smoothing maw;              // MAW smoother for the last effective window
+        private volatile SmoothingFilter auto;  // AUTO: filter chosen for the column
+
+        public Kernel(int windowSize, Strategy strategy, Padding leftPad, Padding rightPad) {
+            this.metadata = new Metadata(windowSize);
+            this.strategy = strategy;
+            this.leftPad = leftPad;
+            this.rightPad = rightPad;
+        }
+
+        /** @return true if this kernel was resolved with the given settings */
+        public boolean matches(Strategy strategy, Padding leftPad, Padding rightPad) {
+            return this.strategy == strategy && this.leftPad == leftPad && this.rightPad == rightPad;
+        }
+
+        synchronized Smoothing maw(int window) {
+            if (this.maw == null || this.maw.cn.length != (window | 1)) this.maw = new Smoothing(window);
+            return this.maw;
+        }
+
+        /* AUTO is resolved once per kernel from the whole column, so all ranges use the same filter */
+        SmoothingFilter auto(double[] data, int length) {
+            SmoothingFilter f = this.auto;
+            if (f == null) {
+                synchronized (this) {
+                    if (this.auto == null) {
+                        this.auto = selectForColumn(data, length, this.metadata.windowSize,
+                            this.leftPad, this.rightPad);
+                    }
+                    f = this.auto;
+                }
+            }
+            return f;
+        }
+
+        /**
+         * @return Name of the filter in use; for AUTO, the chosen filter, or "Auto"
+         * until the first range was smoothed
+         */
+        public String resolvedStrategy() {
+            final SmoothingFilter f = this.auto;
+            return f != null ? f.name() : this.strategy.getValue();
+        }
+
+        /**
+         * Smooth a range of a column.
+         * @return Smoothed copy of the range, or a raw copy if smoothing doesn't apply
+         */
+        public double[] apply(Dataset.Column column, String columnName, Dataset.Range r, Logger logger) {
+            final long t0 = Timings.start();
+            try {
+                return smooth(column, columnName, r, logger);
+            } finally {
+                Timings.stop("smoothing", columnName, t0);
+            }
+        }
+
+        private double[] smooth(Dataset.Column column, String columnName, Dataset.Range r, Logger logger) {
+            if (this.metadata.windowSize <= 0) {
+                return column.data.toArray(r.start, r.end);
+            }
+
+            final int rangeSize = r.end - r.start + 1;
+            final int effectiveWindow = clampWindow(this.metadata.windowSize, rangeSize);
+            if (effectiveWindow != this.metadata.windowSize) {
+                logger.debug("getData('{}'): Clamped smoothing window from {} to {} (range size {})",
+                    columnName, this.metadata.windowSize, effectiveWindow, rangeSize);
+            }
+
+            if (rangeSize < effectiveWindow) {
+                logger.warn("getData('{}'): Skipping smoothing - range size {} is smaller than window {}",
+                    columnName, rangeSize, effectiveWindow);
+                return column.data.toArray(r.start, r.end);
+            }
+
+            SmoothingContext ctx = createSmoothingContext(
+                this.metadata, rangeSize, this.strategy, this.leftPad, this.rightPad);
+            if (this.strategy == Strategy.AUTO) {
+                // Pad for the chosen filter only, not for the widest registered one
+                final int reach = auto(column.data.backing(), column.data.size()).reach(effectiveWindow);
+                ctx = new SmoothingContext(ctx.originalWindow, ctx.effectiveWindow, ctx.strategy,
+                    ctx.leftPad, ctx.rightPad, reach);
+            }
+
+            // Read straight from the column; only mixed padding needs a (scratch) window
+            final PaddedRange padded = preparePaddedRange(
+                column.data.backing(), column.data.size(), r, ctx.leftPad, ctx.rightPad, ctx.paddingNeeded,
+                Scratch.get(Scratch.PADDED, rangeSize + 2 * ctx.paddingNeeded));
+
+            return applyStrategyToPaddedRange(padded, ctx, this).range();
+        }
+    }
+
     /**
      * Encapsulates window boundary calculations for a smoothing operation.
      */
@@ -259,32 +413,41 @@ public class Smoothing extends LinearSmoothing
     }
 
     /**
-     * Encapsulates per-point smoothing calculations and checks.
+     * Compensated (Neumaier) running sum for the O(n) moving average.
+     * Non-finite values are counted instead of summed, so one NaN doesn't
+     * poison every later window.
      */
-    private static class PointSmoothingInfo {
-        final int pointIdx;
-        final int windowStart;
-        final int windowEnd;
-        final boolean isRightSide;
-        final boolean canSmooth;
-
-        PointSmoothingInfo(int i, Range range, WindowBoundaries bounds, SmoothingContext ctx,
-                          int windowSize, int nk, int arrayLength) {
-            this.pointIdx = range.start + i;
-            this.windowStart = pointIdx + nk;
-            this.windowEnd = pointIdx + nk + windowSize - 1;
-            this.isRightSide = bounds.isRightSidePoint(pointIdx, windowSize, range);
+    private static final class RunningSum {
+        double sum;
+        double comp;
+        int nonFinite;
+
+        void reset() {
+            this.sum = 0;
+            this.comp = 0;
+            this.nonFinite = 0;
+        }
 
-            final int pointMinWindowStart = bounds.pointMinWindowStart(isRightSide, ctx, range);
-            final int pointMaxWindowEnd = bounds.pointMaxWindowEnd(isRightSide, ctx, range);
-            final int pointLastSmoothable = bounds.pointLastSmoothable(isRightSide, ctx, range, windowSize, nk);
+        void add(double v) {
+            if (Double.isNaN(v) || Double.isInfinite(v)) {
+                this.nonFinite++;
+                return;
+            }
+            final double t = this.sum + v;
+            if (Math.abs(this.sum) >= Math.abs(v)) this.comp += (this.sum - t) + v;
+            else this.comp += (v - t) + this.sum;
+            this.sum = t;
+        }
 
-            this.canSmooth = pointIdx >= bounds.arrayFirstSmoothable &&
-                           pointIdx <= pointLastSmoothable &&
-                           windowStart >= pointMinWindowStart &&
-                           windowEnd < arrayLength &&
-                           windowEnd <= pointMaxWindowEnd;
+        void remove(double v) {
+            if (Double.isNaN(v) || Double.isInfinite(v)) {
+                this.nonFinite--;
+                return;
+            }
+            add(-v);
         }
+
+        double value() { return this.sum + this.comp; }
     }
 
     /**
@@ -295,8 +458,8 @@ public class Smoothing extends LinearSmoothing
         final WindowBoundaries base;
 
         SGBoundaries(PaddedRange padded, SmoothingContext ctx) {
-            this.sgMaxEnd = padded.paddedData.length - SG_WINDOW_SIZE + SG_NK;
-            this.base = new WindowBoundaries(padded.range, ctx, SG_WINDOW_SIZE, SG_NK, padded.paddedData.length);
+            this.sgMaxEnd = padded.length - SG_WINDOW_SIZE + SG_NK;
+            this.base = new WindowBoundaries(padded.range, ctx, SG_WINDOW_SIZE, SG_NK, padded.length);
         }
 
         boolean canUseSG(int pointIdx, int windowStart, int windowEnd, Range range,
@@ -321,14 +484,14 @@ public class Smoothing extends LinearSmoothing
      * Encapsulates padding application logic.
      */
     private static class PaddingApplier {
-        static void applyLeft(double[] dataToSmooth, double[] rangeData, double[] fullData,
+        static void applyLeft(double[] dataToSmooth, double[] fullData,
                              Dataset.Range range, Padding leftPad, int leftPadSize, int rangeSize) {
             if (leftPadSize == 0) return;
 
             if (leftPad == Padding.MIRROR) {
                 for (int i = 0; i < leftPadSize; i++) {
                     int srcIdx = Math.min(i, rangeSize - 1);
-                    dataToSmooth[leftPadSize - 1 - i] = rangeData[srcIdx];
+                    dataToSmooth[leftPadSize - 1 - i] = fullData[range.start + srcIdx];
                 }
             } else if (leftPad == Padding.DATA) {
                 for (int i = 0; i < leftPadSize; i++) {
@@ -338,7 +501,7 @@ public class Smoothing extends LinearSmoothing
             }
         }
 
-        static void applyRight(double[] dataToSmooth, double[] rangeData, double[] fullData,
+        static void applyRight(double[] dataToSmooth, double[] fullData, int fullLength,
                               Dataset.Range range, Padding rightPad, int rightPadSize,
                               int leftPadSize, int rangeSize) {
             if (rightPadSize == 0) return;
@@ -346,11 +509,11 @@ public class Smoothing extends LinearSmoothing
             if (rightPad == Padding.MIRROR) {
                 for (int i = 0; i < rightPadSize; i++) {
                     int srcIdx = Math.max(rangeSize - 1 - i, 0);
-                    dataToSmooth[leftPadSize + rangeSize + i] = rangeData[srcIdx];
+                    dataToSmooth[leftPadSize + rangeSize + i] = fullData[range.start + srcIdx];
                 }
             } else if (rightPad == Padding.DATA) {
                 for (int i = 0; i < rightPadSize; i++) {
-                    int srcIdx = Math.min(fullData.length - 1, range.end + 1 + i);
+                    int srcIdx = Math.min(fullLength - 1, range.end + 1 + i);
                     dataToSmooth[leftPadSize + rangeSize + i] = fullData[srcIdx];
                 }
             }
@@ -367,7 +530,7 @@ public class Smoothing extends LinearSmoothing
     /** Multiplier for adaptive MA window size based on quantization run length */
     private static final int MA_QUANTIZATION_MULTIPLIER = 7;
     /** Minimum dataset size (in samples) required for Savitzky-Golay smoothing */
-    private static final int SG_MIN_SAMPLES = 11;
+    static final int SG_MIN_SAMPLES = 11;
     /** Minimum consecutive constant values to consider as quantization noise */
     private static final int MIN_QUANTIZATION_RUN = 3;
     /** Tolerance for detecting constant values (handles integer RPM with floating-point differences) */
@@ -376,6 +539,16 @@ public class Smoothing extends LinearSmoothing
     private static final int SG_WINDOW_SIZE = 11;
     private static final int SG_NK = -5;
     private static final int SG_MIN_START = 5;
+    /** Largest MAW window used when SG falls back at range edges */
+    private static final int SG_FALLBACK_WINDOW = 7;
+
+    /** Shared SG(5,5) smoother; it holds only its coefficient table, so it is safe to share */
+    static final SavitzkyGolaySmoothing SG = new SavitzkyGolaySmoothing(5, 5);
+    /** Shared MAW smoothers for the SG edge fallback, indexed by window */
+    private static final Smoothing[] SG_FALLBACK = new Smoothing[SG_FALLBACK_WINDOW + 1];
+    static {
+        for (int w = 1; w <= SG_FALLBACK_WINDOW; w++) SG_FALLBACK[w] = new Smoothing(w);
+    }
 
     public Smoothing(int window)
     {
@@ -418,37 +591,72 @@ public class Smoothing extends LinearSmoothing
 
     /**
      * Apply MAW smoothing to padded range.
+     * Uses a running window sum, so the cost is O(range) regardless of window size,
+     * and nothing is allocated per point. Results match {@link #smoothAt} up to
+     * floating point rounding.
      */
     public SmoothingResult applyToPaddedRange(PaddedRange padded, SmoothingContext ctx) {
         final double[] input = padded.paddedData;
         final Range range = padded.range;
         final int windowSize = this.cn.length;
-        final WindowBoundaries bounds = new WindowBoundaries(range, ctx, windowSize, this.nk, input.length);
+        final double weight = this.cn[0];
+        final int length = padded.length;
+        final WindowBoundaries bounds = new WindowBoundaries(range, ctx, windowSize, this.nk, length);
         final double[] result = new double[range.size];
 
+        // Window sum, valid while consecutive points are smoothable (windows slide by one)
+        final RunningSum sum = new RunningSum();
+        boolean sumValid = false;
         for (int i = 0; i < range.size; i++) {
-            final PointSmoothingInfo info = new PointSmoothingInfo(i, range, bounds, ctx, windowSize, this.nk, input.length);
-            if (info.canSmooth) {
-                result[i] = this.smoothAt(input, null, info.pointIdx, info.pointIdx);
-            } else if (info.pointIdx < input.length) {
-                result[i] = input[info.pointIdx];
+            final int pointIdx = range.start + i;
+            final int windowStart = pointIdx + this.nk;
+            final int windowEnd = windowStart + windowSize - 1;
+            if (canSmooth(bounds, ctx, range, pointIdx, windowStart, windowEnd, windowSize, this.nk, length)) {
+                if (sumValid) {
+                    sum.add(input[windowEnd]);
+                    sum.remove(input[windowStart - 1]);
+                } else {
+                    sum.reset();
+                    for (int k = windowStart; k <= windowEnd; k++) sum.add(input[k]);
+                    sumValid = true;
+                }
+                result[i] = sum.nonFinite == 0
+                    ? sum.value() * weight
+                    : this.smoothAt(input, null, pointIdx, pointIdx);
+            } else {
+                sumValid = false;
+                if (pointIdx < length) {
+                    result[i] = input[pointIdx];
+                }
             }
         }
 
         return new SmoothingResult(result, 0, range.size);
     }
 
+    /* Whether the full window around pointIdx may be used, given range and padding limits */
+    private static boolean canSmooth(WindowBoundaries bounds, SmoothingContext ctx, Range range,
+            int pointIdx, int windowStart, int windowEnd, int windowSize, int nk, int arrayLength) {
+        final boolean isRightSide = bounds.isRightSidePoint(pointIdx, windowSize, range);
+        return pointIdx >= bounds.arrayFirstSmoothable &&
+               pointIdx <= bounds.pointLastSmoothable(isRightSide, ctx, range, windowSize, nk) &&
+               windowStart >= bounds.pointMinWindowStart(isRightSide, ctx, range) &&
+               windowEnd < arrayLength &&
+               windowEnd <= bounds.pointMaxWindowEnd(isRightSide, ctx, range);
+    }
+
     /**
      * Apply SG smoothing to padded range.
      */
     public static SmoothingResult applySGToPaddedRange(PaddedRange padded, SmoothingContext ctx) {
-        final SavitzkyGolaySmoothing sg = new SavitzkyGolaySmoothing(5, 5);
         final Range range = padded.range;
         final SGBoundaries bounds = new SGBoundaries(padded, ctx);
         final double[] result = new double[range.size];
         int mawFallbackCount = 0;
-        final int mawFallbackWindow = Math.min(7, ctx.effectiveWindow);
-        final Smoothing maw = new Smoothing(mawFallbackWindow);
+        final int mawFallbackWindow = Math.max(1, Math.min(SG_FALLBACK_WINDOW, ctx.effectiveWindow));
+        final Smoothing maw = SG_FALLBACK[mawFallbackWindow];
+        // MAW fallback results for left and right side points, computed once on first use
+        final double[][] mawFallback = new double[2][];
 
         for (int i = 0; i < range.size; i++) {
             final int pointIdx = range.start + i;
@@ -457,9 +665,17 @@ public class Smoothing extends LinearSmoothing
             final boolean isRightSide = bounds.base.isRightSidePoint(pointIdx, SG_WINDOW_SIZE, range);
 
             if (bounds.canUseSG(pointIdx, windowStart, windowEnd, range, ctx, isRightSide)) {
-                result[i] = sg.smoothAll(padded.paddedData, pointIdx, pointIdx)[0];
+                // Convolve the whole run of SG-able points in one pass
+                int runEnd = i;
+                while (runEnd + 1 < range.size && canUseSG(bounds, range, ctx, range.start + runEnd + 1)) runEnd++;
+                SG.convolve(padded.paddedData, pointIdx, range.start + runEnd, result, i);
+                i = runEnd;
             } else {
-                result[i] = fallbackToMAW(maw, padded, range, ctx, isRightSide, mawFallbackWindow, i);
+                final int side = isRightSide ? 1 : 0;
+                if (mawFallback[side] == null) {
+                    mawFallback[side] = fallbackToMAW(maw, padded, range, ctx, isRightSide, mawFallbackWindow);
+                }
+                result[i] = mawFallback[side][i];
                 mawFallbackCount++;
             }
         }
@@ -472,15 +688,20 @@ public class Smoothing extends LinearSmoothing
         return new SmoothingResult(result, 0, range.size);
     }
 
-    private static double fallbackToMAW(Smoothing maw, PaddedRange padded, Range range,
-                                       SmoothingContext ctx, boolean isRightSide, int mawFallbackWindow, int i) {
+    private static boolean canUseSG(SGBoundaries bounds, Range range, SmoothingContext ctx, int pointIdx) {
+        return bounds.canUseSG(pointIdx, pointIdx + SG_NK, pointIdx + SG_NK + SG_WINDOW_SIZE - 1, range, ctx,
+            bounds.base.isRightSidePoint(pointIdx, SG_WINDOW_SIZE, range));
+    }
+
+    private static double[] fallbackToMAW(Smoothing maw, PaddedRange padded, Range range,
+                                         SmoothingContext ctx, boolean isRightSide, int mawFallbackWindow) {
         final Smoothing.Padding mawLeftPad = (!isRightSide && ctx.leftPad != Padding.NONE) ? ctx.leftPad : Padding.NONE;
         final Smoothing.Padding mawRightPad = (isRightSide && ctx.rightPad != Padding.NONE) ? ctx.rightPad : Padding.NONE;
         final SmoothingContext mawCtx = new SmoothingContext(
             mawFallbackWindow, mawFallbackWindow, Strategy.MAW,
             mawLeftPad, mawRightPad, ctx.paddingNeeded);
-        final PaddedRange mawPadded = new PaddedRange(padded.paddedData, range.start, range.end);
-        return maw.applyToPaddedRange(mawPadded, mawCtx).extractRange()[i];
+        final PaddedRange mawPadded = new PaddedRange(padded.paddedData, padded.length, range.start, range.end);
+        return maw.applyToPaddedRange(mawPadded, mawCtx).extractRange();
     }
 
     /**
@@ -496,6 +717,14 @@ public class Smoothing extends LinearSmoothing
             return smoother.applyToPaddedRange(padded, ctx);
         }
 
+        if (ctx.strategy == Strategy.AUTO) {
+            return applyFilter(selectForColumn(padded.paddedData, padded.length, ctx.originalWindow,
+                ctx.leftPad, ctx.rightPad), padded, ctx);
+        }
+        if (ctx.strategy != Strategy.SG) {
+            return applyFilter(SmoothingFilters.get(ctx.strategy.getValue()), padded, ctx);
+        }
+
         final boolean useSG = (ctx.strategy == Strategy.SG)
             && padded.range.size >= SG_MIN_SAMPLES;
 
@@ -507,6 +736,42 @@ public class Smoothing extends LinearSmoothing
         return applySGToPaddedRange(padded, ctx);
     }
 
+    /* Same as above, with the smoothers taken from a prepared kernel */
+    private static SmoothingResult applyStrategyToPaddedRange(
+            PaddedRange padded,
+            SmoothingContext ctx,
+            Kernel kernel) {
+
+        if (ctx.strategy == Strategy.AUTO) {
+            return applyFilter(kernel.auto(padded.paddedData, padded.length), padded, ctx);
+        }
+        if (ctx.strategy != Strategy.MAW && ctx.strategy != Strategy.SG) {
+            return applyFilter(SmoothingFilters.get(ctx.strategy.getValue()), padded, ctx);
+        }
+        if (ctx.strategy == Strategy.SG && padded.range.size >= SG_MIN_SAMPLES) {
+            return applySGToPaddedRange(padded, ctx);
+        }
+        return kernel.maw(ctx.effectiveWindow).applyToPaddedRange(padded, ctx);
+    }
+
+    /*
+     * AUTO's filter for a column, chosen with the window clamped to the column rather
+     * than to a range, so it doesn't depend on which range is smoothed first. Without
+     * a kernel, data is whatever the padded range reads, which is the column itself
+     * unless the padding is mixed.
+     */
+    private static SmoothingFilter selectForColumn(double[] data, int length, int window,
+            Padding leftPad, Padding rightPad) {
+        final int effectiveWindow = clampWindow(window, length);
+        return SmoothingFilters.select(data, length, new SmoothingContext(window, effectiveWindow,
+            Strategy.AUTO, leftPad, rightPad, paddingNeeded(Strategy.AUTO, effectiveWindow)));
+    }
+
+    private static SmoothingResult applyFilter(SmoothingFilter filter, PaddedRange padded, SmoothingContext ctx) {
+        final double[] result = filter.apply(padded, ctx);
+        return new SmoothingResult(result, 0, result.length);
+    }
+
     /**
      * Prepare padded range from full dataset and range.
      */
@@ -516,6 +781,23 @@ public class Smoothing extends LinearSmoothing
             Padding leftPad,
             Padding rightPad,
             int paddingNeeded) {
+        return preparePaddedRange(fullData, fullData.length, range, leftPad, rightPad, paddingNeeded, null);
+    }
+
+    /**
+     * Prepare padded range from the first fullLength values of fullData.
+     * With no padding or data padding on both sides the result reads fullData in place;
+     * otherwise the range and its padding are copied into buffer (or a new array if
+     * buffer is null or too small), reading the range once with no intermediate copy.
+     */
+    static PaddedRange preparePaddedRange(
+            double[] fullData,
+            int fullLength,
+            Dataset.Range range,
+            Padding leftPad,
+            Padding rightPad,
+            int paddingNeeded,
+            double[] buffer) {
 
         final int rangeSize = range.end - range.start + 1;
         final int leftPadSize = (leftPad != Padding.NONE && paddingNeeded > 0) ? paddingNeeded : 0;
@@ -523,23 +805,22 @@ public class Smoothing extends LinearSmoothing
         final boolean needsPadding = leftPadSize > 0 || rightPadSize > 0;
 
         if (!needsPadding) {
-            return new PaddedRange(fullData, range.start, range.end);
+            return new PaddedRange(fullData, fullLength, range.start, range.end);
         }
 
         if (leftPad == Padding.DATA && rightPad == Padding.DATA) {
-            return new PaddedRange(fullData, range.start, range.end);
+            return new PaddedRange(fullData, fullLength, range.start, range.end);
         }
 
-        final int totalPadSize = leftPadSize + rightPadSize;
-        final double[] dataToSmooth = new double[rangeSize + totalPadSize];
-        final double[] rangeData = new double[rangeSize];
-        System.arraycopy(fullData, range.start, rangeData, 0, rangeSize);
-        System.arraycopy(rangeData, 0, dataToSmooth, leftPadSize, rangeSize);
+        final int paddedLength = rangeSize + leftPadSize + rightPadSize;
+        final double[] dataToSmooth = (buffer != null && buffer.length >= paddedLength)
+            ? buffer : new double[paddedLength];
+        System.arraycopy(fullData, range.start, dataToSmooth, leftPadSize, rangeSize);
 
-        PaddingApplier.applyLeft(dataToSmooth, rangeData, fullData, range, leftPad, leftPadSize, rangeSize);
-        PaddingApplier.applyRight(dataToSmooth, rangeData, fullData, range, rightPad, rightPadSize, leftPadSize, rangeSize);
+        PaddingApplier.applyLeft(dataToSmooth, fullData, range, leftPad, leftPadSize, rangeSize);
+        PaddingApplier.applyRight(dataToSmooth, fullData, fullLength, range, rightPad, rightPadSize, leftPadSize, rangeSize);
 
-        return new PaddedRange(dataToSmooth, leftPadSize, leftPadSize + rangeSize - 1);
+        return new PaddedRange(dataToSmooth, paddedLength, leftPadSize, leftPadSize + rangeSize - 1);
     }
 
     /**
@@ -556,14 +837,29 @@ public class Smoothing extends LinearSmoothing
         final int effectiveWindow = clampWindow(metadata.windowSize, rangeSize);
         final Padding leftPad = leftPadding;
         final Padding rightPad = rightPadding;
-        final int paddingNeeded = (strategy == Strategy.SG)
-            ? 5
-            : (effectiveWindow - 1) / 2;
+        final int paddingNeeded = paddingNeeded(strategy, effectiveWindow);
 
         return new SmoothingContext(originalWindow, effectiveWindow, strategy,
                                    leftPad, rightPad, paddingNeeded);
     }
 
+    /**
+     * Samples of padding a strategy reads on each side of a range.
+     * SG = 5, MAW = (window - 1) / 2, AUTO = the most any registered filter needs.
+     */
+    public static int paddingNeeded(Strategy strategy, int window) {
+        switch (strategy) {
+            case SG:
+                return 5;
+            case MAW:
+                return (window - 1) / 2;
+            case AUTO:
+                return SmoothingFilters.maxReach(window);
+            default:
+                return SmoothingFilters.get(strategy.getValue()).reach(window);
+        }
+    }
+
     /**
      * Main entry point.
      */
@@ -581,50 +877,29 @@ public class Smoothing extends LinearSmoothing
             return column.data.toArray(r.start, r.end);
         }
 
-        final int rangeSize = r.end - r.start + 1;
-        final int effectiveWindow = clampWindow(metadata.windowSize, rangeSize);
-        if (effectiveWindow != metadata.windowSize) {
-            logger.debug("getData('{}'): Clamped smoothing window from {} to {} (range size {})",
-                columnName, metadata.windowSize, effectiveWindow, rangeSize);
-        }
-
-        if (rangeSize < effectiveWindow) {
-            logger.warn("getData('{}'): Skipping smoothing - range size {} is smaller than window {}",
-                columnName, rangeSize, effectiveWindow);
-            return column.data.toArray(r.start, r.end);
-        }
-
-        SmoothingContext ctx = createSmoothingContext(
-            metadata, rangeSize, smoothingStrategy, leftPadding, rightPadding);
-
-        PaddedRange padded = preparePaddedRange(
-            column.data.toArray(), r, ctx.leftPad, ctx.rightPad, ctx.paddingNeeded);
-
-        SmoothingResult result = applyStrategyToPaddedRange(padded, ctx, columnName);
-
-        return result.extractRange();
+        return new Kernel(metadata.windowSize, smoothingStrategy, leftPadding, rightPadding)
+            .apply(column, columnName, r, logger);
     }
 
     // ========== ADAPTIVE SMOOTHING (for RPM) ==========
 
     /**
-     * Detect average quantization run length in data.
-     * Finds the average length of consecutive constant (or near-constant) value sequences.
+     * Quantization runs in data[from..to]: consecutive constant (or near-constant) values.
+     * Only runs of at least MIN_QUANTIZATION_RUN samples count.
      *
-     * @param data Array of values to analyze
-     * @return Average run length of constant values (rounded to nearest int), or 0 if none found
+     * @return {total length of counted runs, number of counted runs}
      */
-    private static int detectAverageQuantizationRun(double[] data) {
-        if (data == null || data.length < MIN_QUANTIZATION_RUN) {
-            return 0;
-        }
-
+    private static int[] quantizationRuns(double[] data, int from, int to) {
         int totalRunLength = 0;
         int runCount = 0;
+        if (to - from + 1 < MIN_QUANTIZATION_RUN) {
+            return new int[] {0, 0};
+        }
+
         int currentRun = 1;
-        double lastValue = data[0];
+        double lastValue = data[from];
 
-        for (int i = 1; i < data.length; i++) {
+        for (int i = from + 1; i <= to; i++) {
             // For RPM (integer values), use exact equality with small tolerance for floating point errors
             // Tolerance of 0.5 allows for integer RPM values that might have slight floating point differences
             if (Math.abs(data[i] - lastValue) < QUANTIZATION_TOLERANCE) {
@@ -645,21 +920,78 @@ public class Smoothing extends LinearSmoothing
             totalRunLength += currentRun;
             runCount++;
         }
+        return new int[] {totalRunLength, runCount};
+    }
 
-        // Calculate average (rounded to nearest int)
-        // If no quantization runs found, return 0 (will use base MA window)
+    /*
+     * Average quantization run length (rounded to nearest int), or 0 if none found.
+     * If no quantization runs are found, the base MA window is used.
+     */
+    private static int averageQuantizationRun(int totalRunLength, int runCount, int samples) {
         if (runCount > 0) {
             final int avg = (int) Math.round((double) totalRunLength / runCount);
-            // Log for debugging
             logger.trace("detectAverageQuantizationRun: {} samples analyzed, {} runs found, avg length: {}",
-                data.length, runCount, avg);
+                samples, runCount, avg);
             return avg;
         }
         logger.trace("detectAverageQuantizationRun: {} samples analyzed, no quantization runs (>= {}) found",
-            data.length, MIN_QUANTIZATION_RUN);
+            samples, MIN_QUANTIZATION_RUN);
         return 0;
     }
 
+    /**
+     * Per-range results of adaptive smoothing (quantization run statistics and the MA
+     * pass), kept between calls so that re-smoothing after the ranges changed only
+     * rescans ranges that are new. Results are tied to one data column; passing a
+     * different column starts over. Not thread safe.
+     */
+    public static final class AdaptiveCache {
+        private static final class Entry {
+            final int totalRunLength;
+            final int runCount;
+            int maWindow;          // window of maSmoothed, 0 if not computed
+            double[] maSmoothed;
+
+            Entry(int[] runs) {
+                this.totalRunLength = runs[0];
+                this.runCount = runs[1];
+            }
+        }
+
+        private final java.util.Map<Long, Entry> entries = new java.util.HashMap<Long, Entry>();
+        private DoubleArray source;
+        private int scans;
+
+        /* Entries for the given ranges, computing only missing ones and dropping stale ones */
+        private Entry[] entries(DoubleArray data, java.util.List<? extends Dataset.Range> ranges) {
+            if (this.source != data) {
+                this.entries.clear();
+                this.source = data;
+            }
+            final double[] raw = data.backing();
+            final int last = data.size() - 1;
+            final java.util.Map<Long, Entry> live = new java.util.HashMap<Long, Entry>();
+            final Entry[] out = new Entry[ranges.size()];
+            for (int k = 0; k < out.length; k++) {
+                final Dataset.Range r = ranges.get(k);
+                final Long key = ((long) r.start << 32) | (r.end & 0xffffffffL);
+                Entry e = this.entries.get(key);
+                if (e == null) {
+                    e = new Entry(quantizationRuns(raw, r.start, Math.min(r.end, last)));
+                    this.scans++;
+                }
+                live.put(key, e);
+                out[k] = e;
+            }
+            this.entries.clear();
+            this.entries.putAll(live);
+            return out;
+        }
+
+        /** @return Number of ranges scanned for quantization since this cache was created */
+        public int scans() { return this.scans; }
+    }
+
     /**
      * Clamp a smoothing window to half the data size to prevent issues when window is close to dataset size.
      * This ensures the window is never larger than half the data size, which prevents edge artifacts.
@@ -710,37 +1042,46 @@ public class Smoothing extends LinearSmoothing
      */
     public static DoubleArray smoothAdaptive(DoubleArray data, java.util.ArrayList<? extends Dataset.Range> ranges,
                                              String columnName) {
-        final double[] rawData = data.toArray();
+        return smoothAdaptive(data, ranges, columnName, null);
+    }
+
+    /**
+     * Same as {@link #smoothAdaptive(DoubleArray, java.util.ArrayList, String)}, reusing
+     * per-range results from an earlier call.
+     *
+     * @param cache Per-range results to reuse and update, or null
+     */
+    public static DoubleArray smoothAdaptive(DoubleArray data, java.util.ArrayList<? extends Dataset.Range> ranges,
+                                             String columnName, AdaptiveCache cache) {
+        // Quantization is detected on the backing array directly, without copying the column
+        final double[] raw = data.backing();
+        final int datasetSize = data.size();
+        final boolean useRanges = ranges != null && !ranges.isEmpty();
 
         // Only detect quantization within valid ranges (if provided)
         // This prevents false positives from idle/deceleration periods where RPM is constant
         // Note: In acceleration runs, RPM is increasing, so quantization may appear as plateaus
         // during rapid increases rather than constant values
+        // Runs are counted per range, so a run never spans two ranges
+        final AdaptiveCache.Entry[] entries;
         final int avgQuantizationRun;
-        if (ranges != null && !ranges.isEmpty()) {
-            // Extract data only from valid ranges for quantization detection
-            java.util.ArrayList<Double> rangeData = new java.util.ArrayList<>();
-            for (Dataset.Range r : ranges) {
-                for (int i = r.start; i <= r.end && i < rawData.length; i++) {
-                    rangeData.add(rawData[i]);
-                }
-            }
-            if (rangeData.isEmpty()) {
-                avgQuantizationRun = 0;
-            } else {
-                final double[] rangeArray = new double[rangeData.size()];
-                for (int i = 0; i < rangeData.size(); i++) {
-                    rangeArray[i] = rangeData.get(i);
-                }
-                avgQuantizationRun = detectAverageQuantizationRun(rangeArray);
+        if (useRanges) {
+            entries = (cache != null ? cache : new AdaptiveCache()).entries(data, ranges);
+            int totalRunLength = 0, runCount = 0, samples = 0;
+            for (int k = 0; k < entries.length; k++) {
+                totalRunLength += entries[k].totalRunLength;
+                runCount += entries[k].runCount;
+                samples += Math.max(0, Math.min(ranges.get(k).end, datasetSize - 1) - ranges.get(k).start + 1);
             }
+            avgQuantizationRun = averageQuantizationRun(totalRunLength, runCount, samples);
         } else {
             // No ranges provided - analyze full dataset (fallback for filter disabled)
-            avgQuantizationRun = detectAverageQuantizationRun(rawData);
+            entries = null;
+            final int[] runs = quantizationRuns(raw, 0, datasetSize - 1);
+            avgQuantizationRun = averageQuantizationRun(runs[0], runs[1], datasetSize);
         }
 
         int maWindow = calculateAdaptiveMAWindow(avgQuantizationRun);
-        final int datasetSize = data.size();
 
         final int originalMaWindow = maWindow;
         maWindow = clampWindow(maWindow, datasetSize);
@@ -751,36 +1092,36 @@ public class Smoothing extends LinearSmoothing
 
         if (avgQuantizationRun >= MIN_QUANTIZATION_RUN) {
             // Quantization detected: use MA then SG (MA reduces quantization steps, SG preserves trends)
-            // Note: applyToRange() will automatically clamp the window to half the data size
             final int minSizeForMA = 2 * maWindow;  // Require 2x MA window size
             if (datasetSize >= minSizeForMA) {
                 // Step 1: Apply MA to reduce quantization steps
                 // IMPORTANT: When ranges are provided, avoid using data from before range starts to prevent
                 // artifacts where idle/deceleration data pulls down values at range start. However, still
                 // smooth the full dataset - just don't use pre-range data when smoothing within ranges.
-                // Right edge can extend beyond range end if data is available.
                 final Smoothing maSmoother = new Smoothing(maWindow);
-                double[] maSmoothed;
+                final double[] maSmoothed;
 
-                if (ranges != null && !ranges.isEmpty()) {
+                if (useRanges) {
                     // Initialize with raw data (will be smoothed per-range)
-                    maSmoothed = new double[rawData.length];
-                    System.arraycopy(rawData, 0, maSmoothed, 0, rawData.length);
-
-                    // For each range: apply MA smoothing (applyToRange will automatically clamp window to range size)
-                    for (Dataset.Range r : ranges) {
-                        final double[] rangeSmoothed = maSmoother.applyToRange(rawData, r.start, r.end);
-                        System.arraycopy(rangeSmoothed, 0, maSmoothed, r.start, r.end - r.start + 1);
+                    maSmoothed = data.toArray();
+
+                    // For each range: apply MA smoothing, reusing the result if range and window are unchanged
+                    for (int k = 0; k < entries.length; k++) {
+                        final Dataset.Range r = ranges.get(k);
+                        final AdaptiveCache.Entry e = entries[k];
+                        if (e.maSmoothed == null || e.maWindow != maWindow) {
+                            e.maSmoothed = maSmoother.applyToRange(raw, r.start, r.end);
+                            e.maWindow = maWindow;
+                        }
+                        System.arraycopy(e.maSmoothed, 0, maSmoothed, r.start, r.end - r.start + 1);
                     }
                 } else {
-                    // No ranges: apply MA smoothing to full dataset (applyToRange will automatically clamp window)
-                    maSmoothed = maSmoother.applyToRange(rawData, 0, rawData.length - 1);
+                    // No ranges: apply MA smoothing to full dataset
+                    maSmoothed = maSmoother.applyToRange(raw, 0, datasetSize - 1);
                 }
 
                 // Step 2: Apply SG smoothing to preserve trends after MA
-                final DoubleArray maSmoothedArray = new DoubleArray(maSmoothed);
-                final DoubleArray finalSmoothed = maSmoothedArray.smooth();
-                return finalSmoothed;
+                return new DoubleArray(maSmoothed).smooth();
             }
             // If dataset size < 2*maWindow, fall back to SG only if possible
             if (datasetSize >= SG_MIN_SAMPLES) {
@@ -0,0 +1,39 @@
+package org.nyet.util;
+
+/**
+ * A smoothing filter that can be plugged into range-aware smoothing.
+ *
+ * Implementations are registered with {@link SmoothingFilters#register} and take
+ * part in the "auto" strategy selection. Filters are shared between threads and
+ * must not keep per-call state.
+ */
+public interface SmoothingFilter {
+    /** @return Unique name, shown in the UI */
+    String name();
+
+    /**
+     * @param window Smoothing window in samples
+     * @return Samples read on each side of a point, i.e. the padding needed
+     */
+    int reach(int window);
+
+    /**
+     * Cost model used by the auto selector.
+     * @param window Smoothing window in samples
+     * @return Estimated multiply-adds per output sample
+     */
+    double cost(int window);
+
+    /**
+     * Smooth the range of a padded array. Reads must stay within the padding the
+     * context allows: outside the range on a side with {@link Smoothing.Padding#NONE},
+     * values are to be clamped to the range's first or last sample.
+     *
+     * @param padded Data and the range to smooth within it
+     * @param ctx Window and padding settings
+     * @return Smoothed values for the range (range.size samples)
+     */
+    double[] apply(Smoothing.PaddedRange padded, Smoothing.SmoothingContext ctx);
+}
+
+// vim: set sw=4 ts=8 expandtab:
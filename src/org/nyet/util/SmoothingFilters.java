@@ -0,0 +1,310 @@
+package org.nyet.util;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import vec_math.ButterworthSmoothing;
+
+/**
+ * Registry of {@link SmoothingFilter}s and the "auto" strategy selector.
+ *
+ * The built-in filters are MAW, SG, EMA, Gaussian, Median and Butterworth; the
+ * names match {@link Smoothing.Strategy#getValue()}. Additional filters can be
+ * registered and are then considered by {@link #select}.
+ */
+public final class SmoothingFilters {
+    /** Name of the filter auto selection measures the others against */
+    public static final String REFERENCE = "Gaussian";
+    /** Work (range size times cost) for which the reference is used without probing */
+    static final double INTERACTIVE_BUDGET = 2e6;
+    /** Largest block auto selection probes the candidates on */
+    static final int PROBE_SAMPLES = 2000;
+    /** Largest accepted RMS error relative to the reference, as a fraction of its RMS deviation */
+    static final double ERROR_TARGET = 0.01;
+
+    private static final Map<String, SmoothingFilter> filters = new LinkedHashMap<String, SmoothingFilter>();
+
+    static {
+        register(new Maw());
+        register(new SG());
+        register(new Ema());
+        register(new Gaussian());
+        register(new Median());
+        register(new Butterworth());
+    }
+
+    private SmoothingFilters() {}
+
+    /** Register a filter, replacing any filter with the same name */
+    public static synchronized void register(SmoothingFilter filter) {
+        filters.put(filter.name(), filter);
+    }
+
+    /** @return The filter with the given name, or null */
+    public static synchronized SmoothingFilter get(String name) {
+        return filters.get(name);
+    }
+
+    /** @return All registered filters, in registration order */
+    public static synchronized List<SmoothingFilter> all() {
+        return new ArrayList<SmoothingFilter>(filters.values());
+    }
+
+    /** @return The largest reach of any registered filter */
+    public static int maxReach(int window) {
+        int reach = 0;
+        for (final SmoothingFilter f : all()) reach = Math.max(reach, f.reach(window));
+        return reach;
+    }
+
+    /**
+     * Pick a filter for a range.
+     *
+     * If running the reference over the whole range fits the interactive budget,
+     * the reference is used. Otherwise the cheaper candidates are tried, cheapest
+     * first, on a block from the middle of the range, and the first one whose RMS
+     * error against the reference is within the target is used.
+     *
+     * @return The chosen filter, never null
+     */
+    public static SmoothingFilter select(Smoothing.PaddedRange padded, Smoothing.SmoothingContext ctx) {
+        return select(padded, ctx, INTERACTIVE_BUDGET, ERROR_TARGET);
+    }
+
+    /**
+     * Pick a filter for a whole column: {@link #select} with the column as the range,
+     * so the probe is a block from the middle of the column and the budget covers
+     * smoothing all of it. Depends only on the column and the window, so every range
+     * of the column gets the same filter.
+     *
+     * @param length Number of valid values in data
+     * @return The chosen filter, never null
+     */
+    public static SmoothingFilter select(double[] data, int length, Smoothing.SmoothingContext ctx) {
+        return select(new Smoothing.PaddedRange(data, length, 0, length - 1), ctx);
+    }
+
+    static SmoothingFilter select(Smoothing.PaddedRange padded, Smoothing.SmoothingContext ctx,
+            double budget, double errorTarget) {
+        final SmoothingFilter reference = get(REFERENCE);
+        final int window = ctx.effectiveWindow;
+        final Smoothing.Range range = padded.range;
+        final double referenceCost = reference.cost(window);
+        if (range.size * referenceCost <= budget) return reference;
+
+        final List<SmoothingFilter> candidates = all();
+        candidates.remove(reference);
+        candidates.sort(Comparator.comparingDouble(f -> f.cost(window)));
+
+        final int probeSize = Math.min(range.size, PROBE_SAMPLES);
+        final int probeStart = range.start + (range.size - probeSize) / 2;
+        final Smoothing.PaddedRange probe = new Smoothing.PaddedRange(padded.paddedData, padded.length,
+            probeStart, probeStart + probeSize - 1);
+        final double[] expected = reference.apply(probe, ctx);
+        final double spread = rmsDeviation(expected);
+
+        for (final SmoothingFilter candidate : candidates) {
+            if (candidate.cost(window) >= referenceCost) break;
+            final double[] actual = candidate.apply(probe, ctx);
+            if (rmsError(actual, expected) <= errorTarget * spread) return candidate;
+        }
+        return reference;
+    }
+
+    private static double rmsDeviation(double[] a) {
+        double mean = 0;
+        int n = 0;
+        for (final double v : a) {
+            if (Double.isFinite(v)) { mean += v; n++; }
+        }
+        if (n == 0) return 0;
+        mean /= n;
+        double ss = 0;
+        for (final double v : a) {
+            if (Double.isFinite(v)) ss += (v - mean) * (v - mean);
+        }
+        return Math.sqrt(ss / n);
+    }
+
+    private static double rmsError(double[] a, double[] b) {
+        double ss = 0;
+        int n = 0;
+        for (int i = 0; i < a.length; i++) {
+            if (Double.isFinite(b[i])) {
+                // A candidate that loses finite data is never close enough
+                if (!Double.isFinite(a[i])) return Double.POSITIVE_INFINITY;
+                ss += (a[i] - b[i]) * (a[i] - b[i]);
+                n++;
+            }
+        }
+        return n == 0 ? 0 : Math.sqrt(ss / n);
+    }
+
+    /**
+     * Copy the range plus reach samples on each side into this thread's scratch slot.
+     * Reads are limited to the range on sides without padding and to the padding the
+     * context allows otherwise; samples beyond that are clamped to the last allowed one.
+     * @return The scratch buffer; only the first range.size + 2 * reach values are set
+     */
+    static double[] extend(Smoothing.PaddedRange padded, Smoothing.SmoothingContext ctx, int reach, int slot) {
+        final double[] data = padded.paddedData;
+        final Smoothing.Range range = padded.range;
+        final int lo = ctx.leftPad == Smoothing.Padding.NONE ? range.start
+            : Math.max(0, range.start - ctx.paddingNeeded);
+        final int hi = ctx.rightPad == Smoothing.Padding.NONE ? range.end
+            : Math.min(padded.length - 1, range.end + ctx.paddingNeeded);
+        final int n = range.size + 2 * reach;
+        final double[] out = Smoothing.Scratch.get(slot, n);
+        // Clamped reads only where the window leaves [lo, hi]; the rest is one block copy
+        final int first = range.start - reach;
+        final int from = Math.max(first, lo), to = Math.min(first + n - 1, hi);
+        for (int i = 0; i < from - first && i < n; i++) out[i] = data[lo];
+        if (from <= to) System.arraycopy(data, from, out, from - first, to - from + 1);
+        for (int i = Math.max(to + 1 - first, 0); i < n; i++) out[i] = data[hi];
+        return out;
+    }
+
+    /** Moving average; the existing range-aware MAW */
+    private static final class Maw implements SmoothingFilter {
+        @Override public String name() { return "MAW"; }
+        @Override public int reach(int window) { return ((window | 1) - 1) / 2; }
+        @Override public double cost(int window) { return 2; }
+
+        @Override
+        public double[] apply(Smoothing.PaddedRange padded, Smoothing.SmoothingContext ctx) {
+            return new Smoothing(ctx.effectiveWindow).applyToPaddedRange(padded, ctx).range();
+        }
+    }
+
+    /** Savitzky-Golay (2,5,5); the existing range-aware SG with its MAW fallback */
+    private static final class SG implements SmoothingFilter {
+        @Override public String name() { return "SG"; }
+        @Override public int reach(int window) { return 5; }
+        @Override public double cost(int window) { return 11; }
+
+        @Override
+        public double[] apply(Smoothing.PaddedRange padded, Smoothing.SmoothingContext ctx) {
+            if (padded.range.size < Smoothing.SG_MIN_SAMPLES) return new Maw().apply(padded, ctx);
+            return Smoothing.applySGToPaddedRange(padded, ctx).range();
+        }
+    }
+
+    /** Exponential moving average, run forward and backward so it has no lag */
+    private static final class Ema implements SmoothingFilter {
+        @Override public String name() { return "EMA"; }
+        @Override public int reach(int window) { return 3 * window; }
+        @Override public double cost(int window) { return 4; }
+
+        @Override
+        public double[] apply(Smoothing.PaddedRange padded, Smoothing.SmoothingContext ctx) {
+            final int reach = reach(ctx.effectiveWindow);
+            final double[] x = extend(padded, ctx, reach, Smoothing.Scratch.WORK);
+            final int n = padded.range.size + 2 * reach;
+            final double alpha = 2.0 / (ctx.effectiveWindow + 1);
+            for (int i = 1; i < n; i++) x[i] = x[i - 1] + alpha * (x[i] - x[i - 1]);
+            for (int i = n - 2; i >= 0; i--) x[i] = x[i + 1] + alpha * (x[i] - x[i + 1]);
+            return Arrays.copyOfRange(x, reach, reach + padded.range.size);
+        }
+    }
+
+    /** Gaussian kernel with the variance of a MAW of the same window; the auto reference */
+    private static final class Gaussian implements SmoothingFilter {
+        /** Normalized weights per window; read-only once built */
+        private final Map<Integer, double[]> weights = new ConcurrentHashMap<Integer, double[]>();
+
+        private static double sigma(int window) { return Math.max(window, 1) / Math.sqrt(12); }
+
+        @Override public String name() { return "Gaussian"; }
+        @Override public int reach(int window) { return (int) Math.ceil(3 * sigma(window)); }
+        @Override public double cost(int window) { return 2 * reach(window) + 1; }
+
+        @Override
+        public double[] apply(Smoothing.PaddedRange padded, Smoothing.SmoothingContext ctx) {
+            final int h = reach(ctx.effectiveWindow);
+            final double[] w = this.weights.computeIfAbsent(ctx.effectiveWindow, Gaussian::weights);
+            final double[] x = extend(padded, ctx, h, Smoothing.Scratch.WORK);
+            final double[] out = new double[padded.range.size];
+            for (int i = 0; i < out.length; i++) {
+                double y = 0;
+                for (int k = 0; k < w.length; k++) y += w[k] * x[i + k];
+                out[i] = y;
+            }
+            return out;
+        }
+
+        private static double[] weights(int window) {
+            final int h = (int) Math.ceil(3 * sigma(window));
+            final double s = sigma(window);
+            final double[] w = new double[2 * h + 1];
+            double sum = 0;
+            for (int k = -h; k <= h; k++) sum += w[k + h] = Math.exp(-0.5 * k * k / (s * s));
+            for (int k = 0; k < w.length; k++) w[k] /= sum;
+            return w;
+        }
+    }
+
+    /** Running median; removes spikes without smearing steps */
+    private static final class Median implements SmoothingFilter {
+        @Override public String name() { return "Median"; }
+        @Override public int reach(int window) { return ((window | 1) - 1) / 2; }
+        @Override public double cost(int window) { return window | 1; }
+
+        @Override
+        public double[] apply(Smoothing.PaddedRange padded, Smoothing.SmoothingContext ctx) {
+            final int h = reach(ctx.effectiveWindow);
+            final double[] x = extend(padded, ctx, h, Smoothing.Scratch.WORK);
+            final double[] out = new double[padded.range.size];
+            // Sorted copy of the current window, updated by one removal and one insertion per step
+            final double[] sorted = Arrays.copyOf(x, 2 * h + 1);
+            Arrays.sort(sorted);
+            out[0] = sorted[h];
+            for (int i = 1; i < out.length; i++) {
+                replace(sorted, x[i - 1], x[i + 2 * h]);
+                out[i] = sorted[h];
+            }
+            return out;
+        }
+
+        /* remove one copy of leaving from sorted, then insert entering in order */
+        private static void replace(double[] sorted, double leaving, double entering) {
+            int at = Arrays.binarySearch(sorted, leaving);
+            while (at < sorted.length - 1 && Double.compare(sorted[at + 1], entering) < 0) {
+                sorted[at] = sorted[at + 1];
+                at++;
+            }
+            while (at > 0 && Double.compare(sorted[at - 1], entering) > 0) {
+                sorted[at] = sorted[at - 1];
+                at--;
+            }
+            sorted[at] = entering;
+        }
+    }
+
+    /** Second order Butterworth low-pass, zero-phase (forward and backward) */
+    private static final class Butterworth implements SmoothingFilter {
+        /** MAW -3dB point: a window of w samples passes up to about 0.443/w of the sample rate */
+        private static double cutoff(int window) { return Math.min(0.443 / Math.max(window, 1), 0.45); }
+
+        @Override public String name() { return "Butterworth"; }
+        @Override public int reach(int window) { return 3 * window; }
+        @Override public double cost(int window) { return 10; }
+
+        @Override
+        public double[] apply(Smoothing.PaddedRange padded, Smoothing.SmoothingContext ctx) {
+            final int reach = reach(ctx.effectiveWindow);
+            final int n = padded.range.size + 2 * reach;
+            final double[] x = extend(padded, ctx, reach, Smoothing.Scratch.WORK);
+            final double[] y = Smoothing.Scratch.get(Smoothing.Scratch.WORK2, n);
+            final double[] scratch = Smoothing.Scratch.get(Smoothing.Scratch.WORK3, n);
+            new ButterworthSmoothing(cutoff(ctx.effectiveWindow)).filtfilt(x, y, scratch, 0, n - 1);
+            return Arrays.copyOfRange(y, reach, reach + padded.range.size);
+        }
+    }
+}
+
+// vim: set sw=4 ts=8 expandtab:
@@ -0,0 +1,152 @@
+package org.nyet.util;
+
+import java.util.Arrays;
+
+/**
+ * Index of contiguous logging segments in a time column.
+ *
+ * A new segment starts wherever the time jumps forwards (logging paused) or
+ * backwards (a new session appended to the same log) by much more than the typical
+ * sample interval. Built once per dataset so sample rate estimation, TIME smoothing
+ * and range detection don't each rescan TIME.
+ *
+ * Sample rates are per segment: intervals over {@link #DROPOUT_FACTOR} times the
+ * segment's median interval are dropouts and left out, so missed samples shorter than
+ * a gap don't lower the rate, while jitter around the median still averages out.
+ */
+public final class TimeGapIndex {
+    /** A step this many times the median interval (either way) is a gap */
+    public static final double GAP_FACTOR = 10.0;
+    /** Intervals shorter than this (seconds) are never gaps, so slow loggers aren't split */
+    public static final double MIN_GAP_SECONDS = 1.0;
+    /** An interval this many times its segment's median interval is a dropout */
+    public static final double DROPOUT_FACTOR = 2.0;
+
+    private final double[] time;
+    private final int[] starts;             // first row of each segment
+    private final int[] ends;               // last row of each segment (inclusive)
+    private final double[] medianInterval;  // median sample interval per segment, NaN if none
+    private final double[] segmentRate;     // samples per second per segment, 0 if none
+    private final double samplesPerSec;
+
+    /**
+     * @param time Time values in seconds (not copied, must not be modified afterwards)
+     */
+    public TimeGapIndex(double[] time) {
+        this.time = time;
+        final int n = time == null ? 0 : time.length;
+        if (n == 0) {
+            this.starts = new int[0];
+            this.ends = new int[0];
+            this.medianInterval = new double[0];
+            this.segmentRate = new double[0];
+            this.samplesPerSec = 0.0;
+            return;
+        }
+
+        final double[] dt = new double[n - 1];
+        for (int i = 0; i < dt.length; i++) dt[i] = time[i+1] - time[i];
+        // No positive interval (constant or only backwards time): nothing can be a pause,
+        // but don't let a NaN median turn the comparison below off silently
+        final double typical = median(dt, 0, dt.length);
+        final double threshold = Double.isNaN(typical) ? MIN_GAP_SECONDS :
+            Math.max(MIN_GAP_SECONDS, GAP_FACTOR * typical);
+
+        final IntList s = new IntList(), e = new IntList();
+        s.add(0);
+        for (int i = 0; i < dt.length; i++) {
+            // A timestamp a little out of order is jitter, not a new session
+            if (Math.abs(dt[i]) > threshold) {
+                e.add(i);
+                s.add(i + 1);
+            }
+        }
+        e.add(n - 1);
+        this.starts = s.toArray();
+        this.ends = e.toArray();
+
+        // Per-segment median interval and sample rate without dropouts. The overall
+        // rate is over the same intervals, so pauses between segments are ignored too.
+        this.medianInterval = new double[this.starts.length];
+        this.segmentRate = new double[this.starts.length];
+        int intervals = 0;
+        double duration = 0;
+        for (int k = 0; k < this.starts.length; k++) {
+            final double m = median(dt, this.starts[k], this.ends[k]);
+            this.medianInterval[k] = m;
+            if (Double.isNaN(m)) continue;
+            int count = 0;
+            double sum = 0;
+            for (int i = this.starts[k]; i < this.ends[k]; i++) {
+                if (dt[i] > 0 && dt[i] <= DROPOUT_FACTOR * m) {
+                    count++;
+                    sum += dt[i];
+                }
+            }
+            this.segmentRate[k] = count / sum;
+            intervals += count;
+            duration += sum;
+        }
+        this.samplesPerSec = duration > 0 ? intervals / duration : 0.0;
+    }
+
+    /* median of positive intervals in dt[from, to) */
+    private static double median(double[] dt, int from, int to) {
+        final double[] v = new double[Math.max(0, to - from)];
+        int m = 0;
+        for (int i = from; i < to; i++) if (dt[i] > 0) v[m++] = dt[i];
+        if (m == 0) return Double.NaN;
+        Arrays.sort(v, 0, m);
+        return (m & 1) == 1 ? v[m/2] : (v[m/2 - 1] + v[m/2]) / 2;
+    }
+
+    /** @return The indexed time values in seconds */
+    public double[] time() { return this.time; }
+
+    /** @return Number of segments (0 for an empty time column) */
+    public int segments() { return this.starts.length; }
+
+    public int start(int segment) { return this.starts[segment]; }
+    public int end(int segment) { return this.ends[segment]; }
+
+    /** @return true if the log has pauses or multiple sessions */
+    public boolean hasGaps() { return this.starts.length > 1; }
+
+    /**
+     * @param row A row index
+     * @return The segment containing the row, or -1 if out of range
+     */
+    public int segmentOf(int row) {
+        if (row < 0 || this.starts.length == 0 || row > this.ends[this.ends.length - 1]) return -1;
+        int i = Arrays.binarySearch(this.starts, row);
+        return i >= 0 ? i : -i - 2;
+    }
+
+    /** @return Median sample interval of a segment in seconds, NaN if it has no positive interval */
+    public double medianInterval(int segment) { return this.medianInterval[segment]; }
+
+    /**
+     * Sample rate of one segment, leaving out dropouts.
+     * @return samples per second, or 0.0 if the segment has no positive interval
+     */
+    public double samplesPerSec(int segment) { return this.segmentRate[segment]; }
+
+    /**
+     * Sample rate over all segments, ignoring the gaps between them.
+     * Matches {@link MonotonicDataAnalyzer#calculateSampleRate} for an evenly sampled log without gaps.
+     * @return samples per second, or 0.0 if it can't be calculated
+     */
+    public double samplesPerSec() { return this.samplesPerSec; }
+
+    private static final class IntList {
+        private int[] a = new int[4];
+        private int n = 0;
+        void add(int v) {
+            if (this.n == this.a.length) this.a = Arrays.copyOf(this.a, this.n * 2);
+            this.a[this.n++] = v;
+        }
+        int[] toArray() { return Arrays.copyOf(this.a, this.n); }
+    }
+}
+
+// vim: set sw=4 ts=8 expandtab:
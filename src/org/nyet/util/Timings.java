@@ -0,0 +1,252 @@
+package org.nyet.util;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Process-wide stage timers, for tracing a slow redraw to the stage (and column)
+ * it spends its time in.
+ *
+ * A stage is timed with
+ * <pre>
+ *     final long t0 = Timings.start();
+ *     ...
+ *     Timings.stop("stage", column, t0);
+ * </pre>
+ * While timing is off, start() returns 0 and stop() does nothing, so timers can
+ * stay in hot paths. While on, every stage and column keeps a count, the total,
+ * last and longest time and a histogram of power-of-two microsecond buckets, all
+ * updated without locks. Stages that call each other (e.g. a calculated column
+ * getting its inputs) each include the time of the stages they call.
+ */
+public final class Timings {
+    /**
+     * Histogram buckets. Bucket 0 holds times under 1 us, bucket i times from
+     * 2^(i-1) to 2^i us, and the last one everything longer (about 4 s and up).
+     */
+    public static final int BUCKETS = 24;
+
+    private static volatile boolean enabled = false;
+    private static final ConcurrentHashMap<String, Timer> timers = new ConcurrentHashMap<String, Timer>();
+
+    private Timings() {}
+
+    public static boolean isEnabled() { return enabled; }
+
+    public static void setEnabled(boolean on) { enabled = on; }
+
+    /**
+     * @return The start time of a stage, or 0 if timing is off
+     */
+    public static long start() {
+        return enabled ? System.nanoTime() : 0;
+    }
+
+    /**
+     * End a stage started with {@link #start()}.
+     * @param stage The stage name
+     * @param t0 What start() returned
+     */
+    public static void stop(String stage, long t0) {
+        stop(stage, null, t0);
+    }
+
+    /**
+     * End a stage started with {@link #start()}, per column.
+     * @param stage The stage name
+     * @param column The column (or file) the stage worked on, null for none
+     * @param t0 What start() returned
+     */
+    public static void stop(String stage, Object column, long t0) {
+        if (t0 == 0) return;
+        record(stage, column, System.nanoTime() - t0);
+    }
+
+    /**
+     * Record a time measured elsewhere, whether or not timing is on.
+     */
+    public static void record(String stage, Object column, long nanos) {
+        final String c = column == null ? null : column.toString();
+        final String key = c == null ? stage : stage + '\0' + c;
+        Timer t = timers.get(key);
+        if (t == null) t = timers.computeIfAbsent(key, k -> new Timer(stage, c));
+        t.add(nanos);
+    }
+
+    /** @return The bucket of a time, see {@link #BUCKETS} */
+    static int bucket(long nanos) {
+        final long us = nanos / 1000;
+        if (us <= 0) return 0;
+        return Math.min(BUCKETS - 1, 64 - Long.numberOfLeadingZeros(us));
+    }
+
+    public static void reset() {
+        timers.clear();
+    }
+
+    private static final class Timer {
+        final String stage;
+        final String column;
+        final LongAdder count = new LongAdder();
+        final LongAdder total = new LongAdder();
+        final AtomicLong max = new AtomicLong();
+        final AtomicLong last = new AtomicLong();
+        final AtomicLongArray buckets = new AtomicLongArray(BUCKETS);
+
+        Timer(String stage, String column) {
+            this.stage = stage;
+            this.column = column;
+        }
+
+        void add(long nanos) {
+            this.count.increment();
+            this.total.add(nanos);
+            this.last.set(nanos);
+            this.max.accumulateAndGet(nanos, Math::max);
+            this.buckets.incrementAndGet(bucket(nanos));
+        }
+
+        Stat snapshot() {
+            final long[] b = new long[BUCKETS];
+            for (int i = 0; i < BUCKETS; i++) b[i] = this.buckets.get(i);
+            return new Stat(this.stage, this.column, this.count.sum(), this.total.sum(),
+                this.last.get(), this.max.get(), b);
+        }
+    }
+
+    /**
+     * Times of one stage and column at one point.
+     */
+    public static final class Stat {
+        public final String stage;
+        /** null if the stage is not per column */
+        public final String column;
+        public final long count;
+        public final long totalNanos;
+        public final long lastNanos;
+        public final long maxNanos;
+        /** Counts per bucket, see {@link Timings#BUCKETS} */
+        public final long[] buckets;
+
+        Stat(String stage, String column, long count, long totalNanos, long lastNanos,
+                long maxNanos, long[] buckets) {
+            this.stage = stage;
+            this.column = column;
+            this.count = count;
+            this.totalNanos = totalNanos;
+            this.lastNanos = lastNanos;
+            this.maxNanos = maxNanos;
+            this.buckets = buckets;
+        }
+
+        public long meanNanos() { return this.count == 0 ? 0 : this.totalNanos / this.count; }
+
+        /**
+         * @param p Fraction, e.g. 0.95
+         * @return Upper bound of the bucket holding the p-quantile, at most the maximum
+         */
+        public long percentileNanos(double p) {
+            long n = 0;
+            final long want = (long)Math.ceil(p * this.count);
+            for (int i = 0; i < BUCKETS - 1; i++) {
+                n += this.buckets[i];
+                if (n >= want) return Math.min(this.maxNanos, (1L << i) * 1000);
+            }
+            return this.maxNanos;
+        }
+
+        public String name() {
+            return this.column == null ? this.stage : this.stage + " [" + this.column + "]";
+        }
+
+        @Override
+        public String toString() {
+            return String.format(Locale.ROOT, "%-40s %8d %10.1f %8.2f %8.2f %8.2f %8.2f",
+                Strings.elide(name(), 40), this.count, ms(this.totalNanos), ms(this.lastNanos),
+                ms(meanNanos()), ms(percentileNanos(0.95)), ms(this.maxNanos));
+        }
+    }
+
+    /**
+     * @return Every stage and column, longest total first
+     */
+    public static List<Stat> snapshot() {
+        final List<Stat> ret = new ArrayList<Stat>();
+        for (final Timer t : timers.values()) ret.add(t.snapshot());
+        Collections.sort(ret, (a, b) -> Long.compare(b.totalNanos, a.totalNanos));
+        return ret;
+    }
+
+    static double ms(long nanos) { return nanos / 1e6; }
+
+    /**
+     * @param limit Most stages to list, longest total first; 0 for all
+     * @return A table of times in milliseconds
+     */
+    public static String format(int limit) {
+        final List<Stat> stats = snapshot();
+        final StringBuilder sb = new StringBuilder(String.format(Locale.ROOT,
+            "%-40s %8s %10s %8s %8s %8s %8s%n", "stage [column]", "count", "total ms",
+            "last", "mean", "p95", "max"));
+        int n = 0;
+        for (final Stat s : stats) {
+            if (limit > 0 && n++ >= limit) break;
+            sb.append(s).append(System.lineSeparator());
+        }
+        return sb.toString();
+    }
+
+    /**
+     * @return Every stage and column as JSON, times in nanoseconds; bucket i of
+     * the histogram counts times under 2^i microseconds (the last, all longer ones)
+     */
+    public static String toJSON() {
+        final StringBuilder sb = new StringBuilder("{\n  \"enabled\": ").append(enabled)
+            .append(",\n  \"timers\": [");
+        boolean first = true;
+        for (final Stat s : snapshot()) {
+            sb.append(first ? "\n" : ",\n");
+            first = false;
+            sb.append("    {\"stage\": ").append(quote(s.stage))
+                .append(", \"column\": ").append(s.column == null ? "null" : quote(s.column))
+                .append(", \"count\": ").append(s.count)
+                .append(", \"totalNanos\": ").append(s.totalNanos)
+                .append(", \"lastNanos\": ").append(s.lastNanos)
+                .append(", \"meanNanos\": ").append(s.meanNanos())
+                .append(", \"p95Nanos\": ").append(s.percentileNanos(0.95))
+                .append(", \"maxNanos\": ").append(s.maxNanos)
+                .append(", \"histogram\": [");
+            for (int i = 0; i < s.buckets.length; i++) {
+                if (i > 0) sb.append(", ");
+                sb.append(s.buckets[i]);
+            }
+            sb.append("]}");
+        }
+        return sb.append(first ? "]\n}\n" : "\n  ]\n}\n").toString();
+    }
+
+    private static String quote(String s) {
+        final StringBuilder sb = new StringBuilder("\"");
+        for (final char ch : s.toCharArray()) {
+            switch (ch) {
+                case '"': sb.append("\\\""); break;
+                case '\\': sb.append("\\\\"); break;
+                case '\n': sb.append("\\n"); break;
+                case '\r': sb.append("\\r"); break;
+                case '\t': sb.append("\\t"); break;
+                default:
+                    if (ch < 0x20) sb.append(String.format("\\u%04x", (int)ch));
+                    else sb.append(ch);
+            }
+        }
+        return sb.append('"').toString();
+    }
+}
+
+// vim: set sw=4 ts=8 expandtab:
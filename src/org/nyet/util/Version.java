@@ -0,0 +1,38 @@
+package org.nyet.util;
+
+import java.util.ArrayList;
+
+public class Version extends ArrayList<Object> {
+    private static final long serialVersionUID = 20150620L;
+    public static final String ECUxPlot="0a4d-dirty";
+    public static final String JFreeChart="1.0.19";
+    public static final String JFreeSVG="5.0.6";
+    public static final String JCommon="1.0.23";
+    public static final String OpenCSV="5.12.0";
+    public static final String JavacMajor = "17";
+    public static final String CommonsCLI = "1.5.0";
+    public static final String CommonsLang3 = "3.19.0";
+    public static final String SLF4J_API = "2.0.9";
+    public static final String LogbackClassic = "1.5.20";
+    public static final String LogbackCore = "1.5.20";
+
+    public Version () {
+	this.add("ECUxPlot " + Version.ECUxPlot);
+	this.add("JFreeChart " + Version.JFreeChart);
+	this.add("JFreeSVG " + Version.JFreeSVG);
+	this.add("JCommon " + Version.JCommon);
+	this.add("OpenCSV " + Version.OpenCSV);
+	this.add("commons-cli " + Version.CommonsCLI);
+	this.add("commons-lang3 " + Version.CommonsLang3);
+	this.add("slf4j-api " + Version.SLF4J_API);
+	this.add("logback-classic " + Version.LogbackClassic);
+	this.add("logback-core " + Version.LogbackCore);
+	this.add("Java compiler " + Version.JavacMajor);
+	this.add("Java runtime "+ System.getProperty("java.version"));
+    }
+
+    public String toString() {
+	String s = Strings.join("<br>", this.toArray());
+	return "<html>"+s+"</html>";
+    }
+}
@@ -470,7 +470,7 @@ public class AxisMenuItemsTest {
 
     /**
      * Test smoothing registration (HPMAW, AccelMAW, etc.).
-     * Note: We can't directly access smoothingWindows, but we can verify that
+     * Note: We can't directly access the smoothing plan, but we can verify that
      * fields that should have smoothing are created successfully.
      * Smoothing registration is tested indirectly by verifying the fields exist.
      */
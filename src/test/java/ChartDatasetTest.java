@@ -0,0 +1,795 @@
+package test.java;
+
+import java.util.prefs.Preferences;
+
+import org.nyet.ecuxplot.ChartExport;
+import org.nyet.ecuxplot.ColumnXYDataset;
+import org.nyet.ecuxplot.ECUxChartFactory;
+import org.nyet.ecuxplot.ECUxDataset;
+import org.nyet.ecuxplot.Env;
+import org.nyet.ecuxplot.FATS;
+import org.nyet.ecuxplot.FATSMatrix;
+import org.nyet.ecuxplot.Filter;
+import org.nyet.ecuxplot.FilterSweep;
+import org.nyet.logfile.Dataset;
+import org.nyet.logfile.RangeIndex;
+import org.nyet.util.Timings;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import ch.qos.logback.classic.Level;
+
+/**
+ * Checks of the range, filter and FATS helpers, the chart datasets and export,
+ * and render timings, against the test logs.
+ */
+public class ChartDatasetTest {
+
+    private static final Logger logger = LoggerFactory.getLogger(ChartDatasetTest.class);
+    private static int testsFailed = 0;
+
+    public static void main(String[] args) {
+        // Configure logging level based on VERBOSITY environment variable or system property
+        String verbosity = System.getProperty("VERBOSITY", System.getenv("VERBOSITY"));
+        if (verbosity == null) verbosity = "INFO";
+        Level logLevel = Level.toLevel(verbosity, Level.INFO);
+
+        ch.qos.logback.classic.Logger rootLogger = (ch.qos.logback.classic.Logger) LoggerFactory.getLogger(ch.qos.logback.classic.Logger.ROOT_LOGGER_NAME);
+        ch.qos.logback.classic.Logger ecuxLogger = (ch.qos.logback.classic.Logger) LoggerFactory.getLogger("org.nyet.ecuxplot");
+        rootLogger.setLevel(logLevel);
+        ecuxLogger.setLevel(logLevel);
+
+        logger.info("=== Chart Dataset Test ===");
+        logger.info("");
+
+        try {
+            Preferences testPrefs = Preferences.userNodeForPackage(ChartDatasetTest.class).node("test");
+            Env env = new Env(testPrefs);
+            Filter filter = new Filter(testPrefs);
+            filter.resetToDefaults(); // Ensure default values
+
+            // Each log is loaded once and shared by every check below
+            ECUxDataset comprehensive = new ECUxDataset("test-data/comprehensive-test-dataset.csv", env, filter, 0);
+            ECUxDataset padding = new ECUxDataset("test-data/padding-test.csv", env, filter, 0);
+
+            // Check range index agrees with a linear scan of the ranges
+            logger.info("Checking range index:");
+            checkRangeIndex(comprehensive);
+            logger.info("");
+
+            // Check acceleration derivative is reused across threshold-only rebuilds
+            logger.info("Checking acceleration derivative cache:");
+            checkAccelerationCache(comprehensive, filter);
+            logger.info("");
+
+            // Check sweeps reproduce buildRanges() with the same settings
+            logger.info("Checking filter sweep:");
+            checkFilterSweep(comprehensive, filter);
+            checkFilterSweep(padding, filter);
+            checkFilterSweepGrid(env, filter);
+            logger.info("");
+
+            // Check fused WHP pipeline agrees with the WHP column smoothed by getData()
+            logger.info("Checking fused WHP:");
+            checkFusedWHP(padding);
+            logger.info("");
+
+            // Check every band of the FATS matrix agrees with a single calcFATS()
+            logger.info("Checking FATS matrix:");
+            checkFATSMatrix(padding);
+            logger.info("");
+
+            // Check chart series views read the same values as getData()
+            logger.info("Checking column XY dataset:");
+            checkColumnXYDataset(padding);
+            logger.info("");
+
+            // Check presets x files render to images without a window
+            logger.info("Checking chart export:");
+            checkChartExport(env, filter, padding);
+            logger.info("");
+
+            // Check stages are timed per column only while timing is on
+            logger.info("Checking render timings:");
+            checkTimings(padding);
+            logger.info("");
+
+            logger.info("=== Test Summary ===");
+            if (testsFailed == 0) {
+                logger.info("✅ All chart dataset checks passed");
+                System.exit(0);
+            } else {
+                logger.info("❌ {} check(s) failed!", testsFailed);
+                System.exit(1);
+            }
+
+        } catch (Exception e) {
+            logger.error("❌ Chart dataset test failed: {}", e.getMessage(), e);
+            System.exit(1);
+        }
+    }
+
+    private static void checkChartExport(Env env, Filter filter, ECUxDataset data) throws Exception {
+        final java.util.List<ChartExport.Spec> specs = java.util.Arrays.asList(
+            new ChartExport.Spec("Lines", "RPM", new String[] {"WHP", "RPM"}, new String[] {"TIME"}, false),
+            new ChartExport.Spec("Scatter", "RPM", new String[] {"TIME"}, null, true));
+        final java.util.List<String> files = java.util.Arrays.asList(
+            "test-data/padding-test.csv", "test-data/comprehensive-test-dataset.csv");
+        final java.io.File dir = java.nio.file.Files.createTempDirectory("ecuxplot-export").toFile();
+        try {
+            final ChartExport export = new ChartExport(env, filter, 320, 240,
+                java.util.EnumSet.of(ChartExport.Format.PNG, ChartExport.Format.SVG), 3);
+            final java.util.List<ChartExport.Result> results = export.run(specs, files, dir);
+            int images = 0, svgs = 0;
+            for (final ChartExport.Result r : results) {
+                for (final java.io.File f : r.files) {
+                    if (ChartExport.Format.of(f) == ChartExport.Format.SVG) {
+                        if (isSVG(f, 320, 240)) svgs++;
+                        continue;
+                    }
+                    final java.awt.image.BufferedImage img = javax.imageio.ImageIO.read(f);
+                    if (img != null && img.getWidth() == 320 && img.getHeight() == 240) images++;
+                }
+            }
+
+            // The chart of one file has every range of every Y-key, on the right axis
+            final org.jfree.chart.JFreeChart chart = ChartExport.createChart(specs.get(0), data);
+            final org.jfree.chart.plot.XYPlot plot = chart.getXYPlot();
+            final int ranges = Math.max(1, data.getRanges().size());
+
+            // A level of detail left by a narrow panel is dropped for the export
+            ECUxChartFactory.setLevelOfDetail(chart, 4);
+            int decimated = 0;
+            for (int s = 0; s < plot.getDataset(0).getSeriesCount(); s++)
+                if (((ColumnXYDataset) plot.getDataset(0)).getLevel(s) > 0) decimated++;
+            ChartExport.write(chart, ChartExport.Format.PNG, new java.io.File(dir, "lod.png"), 320, 240);
+            int exportedDecimated = 0;
+            for (int s = 0; s < plot.getDataset(0).getSeriesCount(); s++)
+                if (((ColumnXYDataset) plot.getDataset(0)).getLevel(s) > 0) exportedDecimated++;
+            if (decimated == 0 || exportedDecimated != 0) {
+                testsFailed++;
+                logger.info("  ❌ Export level of detail: {} series decimated before, {} while exported",
+                    decimated, exportedDecimated);
+            }
+
+            // Both files on one chart, as -o with --no-gui draws them
+            final ECUxDataset other = new ECUxDataset(files.get(1), env, filter, 0);
+            final org.jfree.chart.plot.XYPlot both = ChartExport.createChart(specs.get(0),
+                java.util.Arrays.asList(data, other)).getXYPlot();
+            final int otherSeries = ChartExport.createChart(specs.get(0), other).getXYPlot().getDataset(1).getSeriesCount();
+
+            if (results.size() == specs.size() * files.size() && ChartExport.failures(results) == 0 &&
+                    images == results.size() && svgs == results.size() &&
+                    plot.getDataset(0).getSeriesCount() == 2 * ranges &&
+                    plot.getDataset(1).getSeriesCount() == ranges &&
+                    both.getDataset(1).getSeriesCount() == ranges + otherSeries) {
+                logger.info("  ✅ {} charts exported as {}x{} PNG and SVG, {} series per chart",
+                    images, 320, 240, 3 * ranges);
+            } else {
+                testsFailed++;
+                logger.info("  ❌ Chart export: {} results, {} failed, {} images, {} svgs, series {}+{} (ranges {}), both files {}",
+                    results.size(), ChartExport.failures(results), images, svgs,
+                    plot.getDataset(0).getSeriesCount(), plot.getDataset(1).getSeriesCount(), ranges,
+                    both.getDataset(1).getSeriesCount());
+            }
+        } finally {
+            final java.io.File[] written = dir.listFiles();
+            if (written != null) for (final java.io.File f : written) f.delete();
+            dir.delete();
+        }
+    }
+
+    /* a well-formed SVG document of the given size, with something drawn in it */
+    private static boolean isSVG(java.io.File f, int width, int height) {
+        try {
+            final javax.xml.parsers.DocumentBuilderFactory factory = javax.xml.parsers.DocumentBuilderFactory.newInstance();
+            // Don't fetch the SVG DTD the document refers to
+            factory.setFeature("http://apache.org/xml/features/nonvalidating/load-external-dtd", false);
+            final org.w3c.dom.Element svg = factory.newDocumentBuilder().parse(f).getDocumentElement();
+            return svg.getTagName().equals("svg") &&
+                Double.parseDouble(svg.getAttribute("width")) == width &&
+                Double.parseDouble(svg.getAttribute("height")) == height &&
+                svg.getElementsByTagName("path").getLength() > 0;
+        } catch (final Exception e) {
+            logger.info("  Not an SVG document: {}: {}", f, e.getMessage());
+            return false;
+        }
+    }
+
+    private static void checkTimings(ECUxDataset dataset) {
+        Timings.reset();
+        Timings.setEnabled(false);
+        dataset.getData("WHP", null);
+        final boolean offClean = Timings.snapshot().isEmpty();
+
+        Timings.setEnabled(true);
+        try {
+            for (int i = 0; i < 3; i++) dataset.getData(dataset.new Key("WHP", dataset), null);
+            ECUxChartFactory.addDataset(new ColumnXYDataset(), dataset, "RPM", dataset.new Key("RPM", dataset));
+            final org.jfree.chart.JFreeChart chart = ChartExport.createChart(
+                new ChartExport.Spec("Timings", "RPM", new String[] {"WHP"}, null, false), dataset);
+            // The panel times JFreeChart's draw through the chart's progress events
+            new org.nyet.ecuxplot.ECUxChartPanel(chart);
+            chart.createBufferedImage(320, 240);
+        } finally {
+            Timings.setEnabled(false);
+        }
+
+        Timings.Stat getData = null, addDataset = null, draw = null;
+        int histogramMismatches = 0;
+        for (final Timings.Stat st : Timings.snapshot()) {
+            if (st.stage.equals("dataset.getData") && "WHP".equals(st.column)) getData = st;
+            if (st.stage.equals("chart.addDataset") && "RPM".equals(st.column)) addDataset = st;
+            if (st.stage.equals("chart.draw")) draw = st;
+            long n = 0;
+            for (final long b : st.buckets) n += b;
+            if (n != st.count || st.maxNanos < st.percentileNanos(0.95)) histogramMismatches++;
+        }
+        final String json = Timings.toJSON();
+        Timings.reset();
+
+        if (offClean && getData != null && getData.count == 3 && addDataset != null && draw != null &&
+                draw.count == 1 && histogramMismatches == 0 && json.contains("\"stage\": \"chart.draw\"")) {
+            logger.info("  ✅ getData, addDataset and chart draw timed per column, nothing while off");
+        } else {
+            testsFailed++;
+            logger.info("  ❌ Timings: off clean {}, getData {}, addDataset {}, draw {}, histogram mismatches {}",
+                offClean, getData, addDataset, draw, histogramMismatches);
+        }
+    }
+
+    private static void checkRangeIndex(ECUxDataset dataset) {
+        java.util.ArrayList<Dataset.Range> ranges = dataset.getRanges();
+        RangeIndex index = dataset.getRangeIndex();
+        int mismatches = countRangeIndexMismatches(index, ranges, dataset.length());
+        if (index.size() == ranges.size() && mismatches == 0) {
+            logger.info("  ✅ Range index matches {} ranges over {} rows", ranges.size(), dataset.length());
+        } else {
+            testsFailed++;
+            logger.info("  ❌ Range index mismatch: {} rows, index size {} vs {} ranges",
+                mismatches, index.size(), ranges.size());
+        }
+
+        // Ranges on the first and last rows, touching each other, and with gaps between
+        final int rows = 30;
+        final java.util.List<Dataset.Range> synthetic = java.util.Arrays.asList(
+            dataset.new Range(0, 3), dataset.new Range(4), dataset.new Range(8, 12),
+            dataset.new Range(13, 20), dataset.new Range(25, rows - 1));
+        final int[] expected = new int[rows];
+        java.util.Arrays.fill(expected, -1);
+        for (int i = 0; i < synthetic.size(); i++)
+            for (int row = synthetic.get(i).start; row <= synthetic.get(i).end; row++) expected[row] = i;
+
+        // Full row map, a row map shorter than the ranges, and binary search only
+        int syntheticMismatches = 0;
+        for (final RangeIndex ri : new RangeIndex[] {
+                new RangeIndex(synthetic, rows), new RangeIndex(synthetic, 10), new RangeIndex(synthetic) }) {
+            syntheticMismatches += countRangeIndexMismatches(ri, synthetic, rows);
+            for (int row = 0; row < rows; row++) {
+                if (ri.contains(row) != (expected[row] >= 0) ||
+                        ri.rangeFor(row) != (expected[row] < 0 ? null : synthetic.get(expected[row])))
+                    syntheticMismatches++;
+            }
+            for (final int outside : new int[] {-1, rows, rows + 100})
+                if (ri.indexOf(outside) != -1 || ri.search(outside) != -1) syntheticMismatches++;
+        }
+
+        boolean rejected = false;
+        try {
+            new RangeIndex(java.util.Arrays.asList(dataset.new Range(0, 5), dataset.new Range(5, 8)));
+        } catch (IllegalArgumentException e) {
+            rejected = true;
+        }
+
+        if (syntheticMismatches == 0 && rejected && new RangeIndex(synthetic).size() == synthetic.size()) {
+            logger.info("  ✅ Range index matches {} ranges with gaps and shared boundaries over {} rows",
+                synthetic.size(), rows);
+        } else {
+            testsFailed++;
+            logger.info("  ❌ Range index: {} mismatches over {} ranges, overlap rejected: {}",
+                syntheticMismatches, synthetic.size(), rejected);
+        }
+    }
+
+    // Compare indexOf() and search() against a linear scan of the ranges
+    private static int countRangeIndexMismatches(RangeIndex index, java.util.List<Dataset.Range> ranges, int rows) {
+        int mismatches = 0;
+        for (int row = 0; row < rows; row++) {
+            int expected = -1;
+            for (int i = 0; i < ranges.size(); i++) {
+                if (row >= ranges.get(i).start && row <= ranges.get(i).end) {
+                    expected = i;
+                    break;
+                }
+            }
+            if (index.indexOf(row) != expected || index.search(row) != expected) mismatches++;
+        }
+        return mismatches;
+    }
+
+    private static void checkAccelerationCache(ECUxDataset dataset, Filter filter) {
+        dataset.buildRanges();
+        int hits = dataset.getAccelerationCacheHits();
+        int misses = dataset.getAccelerationCacheMisses();
+        filter.gear(filter.gear() + 1);
+        dataset.buildRanges();
+        filter.gear(filter.gear() - 1);
+        dataset.buildRanges();
+        if (dataset.getAccelerationCacheMisses() == misses && dataset.getAccelerationCacheHits() == hits + 2) {
+            logger.info("  ✅ Gear-only rebuilds reuse cached derivative (hits={}, misses={})",
+                dataset.getAccelerationCacheHits(), dataset.getAccelerationCacheMisses());
+        } else {
+            testsFailed++;
+            logger.info("  ❌ Derivative cache not reused: hits {} -> {}, misses {} -> {}",
+                hits, dataset.getAccelerationCacheHits(), misses, dataset.getAccelerationCacheMisses());
+        }
+
+        filter.accelMAW(filter.accelMAW() * 2);
+        dataset.buildRanges();
+        filter.resetToDefaults();
+        if (dataset.getAccelerationCacheMisses() == misses + 1) {
+            logger.info("  ✅ accelMAW change recalculates derivative");
+        } else {
+            testsFailed++;
+            logger.info("  ❌ accelMAW change did not recalculate derivative (misses {} -> {})",
+                misses, dataset.getAccelerationCacheMisses());
+        }
+        dataset.buildRanges();
+    }
+
+    private static void checkFilterSweep(ECUxDataset dataset, Filter filter) {
+        java.util.ArrayList<Dataset.Range> ranges = dataset.getRanges();
+        int points = 0;
+        for (Dataset.Range r : ranges) points += r.size();
+
+        FilterSweep sweep = new FilterSweep(java.util.Collections.singletonList(dataset), 4200, 6500);
+        FilterSweep.Result r = sweep.run(FilterSweep.Grid.parse("", filter)).get(0);
+        if (r.ranges == ranges.size() && r.points == points) {
+            logger.info("  ✅ {}: sweep matches buildRanges() ({} ranges, {} points)",
+                dataset.getFileId(), r.ranges, r.points);
+        } else {
+            testsFailed++;
+            logger.info("  ❌ {}: sweep found {} ranges/{} points, buildRanges() {} ranges/{} points",
+                dataset.getFileId(), r.ranges, r.points, ranges.size(), points);
+        }
+
+        FilterSweep.Grid grid = FilterSweep.Grid.parse("minRPM=2000:3000:500;minPedal=80,95;fuzz=500", filter);
+        if (grid.size() != 6 || sweep.run(grid).size() != 6) {
+            testsFailed++;
+            logger.info("  ❌ Expected 6 grid points for '{}'", grid);
+        }
+    }
+
+    /*
+     * Sweep minRPM, minPoints and fuzz over a log with several pulls, and compare every
+     * grid point with buildRanges() under the same settings. Acceleration is not
+     * checked and the RPM span is short so small RPM dips end ranges on fuzz alone.
+     */
+    private static void checkFilterSweepGrid(Env env, Filter filter) throws Exception {
+        filter.minAcceleration(0);
+        filter.minRPMRange(500);
+        try {
+            final ECUxDataset dataset = new ECUxDataset("test-data/sweep-test.csv", env, filter, 0);
+            final FilterSweep sweep = new FilterSweep(java.util.Collections.singletonList(dataset), 4200, 6500);
+            final FilterSweep.Grid grid = FilterSweep.Grid.parse("minRPM=2000,3000;minPoints=5,30;fuzz=5000,50000,500000", filter);
+            final java.util.List<FilterSweep.Result> results = sweep.run(grid);
+
+            int mismatches = 0;
+            final java.util.Set<String> outcomes = new java.util.HashSet<String>();
+            for (final FilterSweep.Result r : results) {
+                filter.minRPM(r.minRPM);
+                filter.minPoints(r.minPoints);
+                filter.monotonicRPMfuzz(r.monotonicRPMfuzz);
+                dataset.buildRanges();
+                int points = 0;
+                for (final Dataset.Range range : dataset.getRanges()) points += range.size();
+                if (r.ranges != dataset.getRanges().size() || r.points != points || r.fats.length != r.ranges) {
+                    mismatches++;
+                    logger.info("  ❌ minRPM={} minPoints={} fuzz={}: sweep {} ranges/{} points, buildRanges() {} ranges/{} points",
+                        r.minRPM, r.minPoints, r.monotonicRPMfuzz, r.ranges, r.points, dataset.getRanges().size(), points);
+                }
+                outcomes.add(r.ranges + "/" + r.points);
+            }
+
+            // Each swept parameter changes the outcome somewhere on this log
+            if (results.size() == grid.size() && mismatches == 0 && outcomes.size() >= 6) {
+                logger.info("  ✅ sweep-test.csv: {} grid points match buildRanges() ({} distinct outcomes)",
+                    results.size(), outcomes.size());
+            } else {
+                testsFailed++;
+                logger.info("  ❌ sweep-test.csv: {} of {} grid points differ from buildRanges(), {} distinct outcomes",
+                    mismatches, results.size(), outcomes.size());
+            }
+        } finally {
+            filter.resetToDefaults();
+        }
+    }
+
+    private static void checkFATSMatrix(ECUxDataset dataset) {
+        final FATSMatrix matrix = FATSMatrix.parse("2500:6500:500,4200", FATS.SpeedUnit.RPM);
+        final double[] bp = matrix.getBreakpoints();
+        final java.util.List<FATSMatrix.Entry> entries = matrix.run(java.util.Collections.singletonList(dataset));
+        int bands = 0, mismatches = 0;
+        for (FATSMatrix.Entry e : entries) {
+            for (int i = 0; i < bp.length; i++) {
+                for (int j = 0; j < bp.length; j++) {
+                    double expected = Double.NaN;
+                    if (j > i) {
+                        try {
+                            expected = dataset.calcFATS(e.run, bp[i], bp[j], FATS.SpeedUnit.RPM);
+                        } catch (Exception ex) {
+                            // band not spanned by this run
+                        }
+                    }
+                    final double actual = e.seconds[i][j];
+                    if (Double.isNaN(expected) != Double.isNaN(actual) ||
+                            (!Double.isNaN(expected) && Math.abs(expected - actual) > 1e-9)) {
+                        mismatches++;
+                    } else if (!Double.isNaN(actual)) {
+                        bands++;
+                    }
+                }
+            }
+        }
+        if (!entries.isEmpty() && entries.size() == dataset.getRanges().size() && bands > 0 && mismatches == 0) {
+            logger.info("  ✅ {}: {} bands over {} runs match calcFATS()", dataset.getFileId(), bands, entries.size());
+        } else {
+            testsFailed++;
+            logger.info("  ❌ {}: FATS matrix has {} runs, {} matching bands, {} mismatches",
+                dataset.getFileId(), entries.size(), bands, mismatches);
+        }
+
+        try {
+            FATSMatrix.parse("4200", FATS.SpeedUnit.RPM);
+            testsFailed++;
+            logger.info("  ❌ Single breakpoint accepted");
+        } catch (IllegalArgumentException e) {
+            // expected
+        }
+    }
+
+    private static void checkColumnXYDataset(ECUxDataset dataset) {
+        final ColumnXYDataset d = new ColumnXYDataset();
+        final Dataset.Key whp = dataset.new Key("WHP", dataset);
+        final Integer[] series = ECUxChartFactory.addDataset(d, dataset, "RPM", whp);
+        int mismatches = 0;
+        for (int k = 0; k < series.length; k++) {
+            final Dataset.Range r = dataset.getRanges().get(k);
+            final double[] x = dataset.getData("RPM", r);
+            final double[] y = dataset.getData(whp, r);
+            if (d.getItemCount(series[k]) != x.length) mismatches++;
+            for (int i = 0; i < x.length && i < d.getItemCount(series[k]); i++) {
+                if (Double.compare(x[i], d.getXValue(series[k], i)) != 0 ||
+                        Double.compare(y[i], d.getYValue(series[k], i)) != 0 ||
+                        d.getY(series[k], i).doubleValue() != d.getYValue(series[k], i)) mismatches++;
+            }
+        }
+        final ColumnXYDataset.View view = dataset.getView("TIME", dataset.getRanges().get(0));
+        if (series.length == dataset.getRanges().size() && series.length > 0 && mismatches == 0 &&
+                view != null && view.isShared()) {
+            logger.info("  ✅ {}: {} series match getData(), unsmoothed columns are shared",
+                dataset.getFileId(), series.length);
+        } else {
+            testsFailed++;
+            logger.info("  ❌ {}: {} series, {} mismatches, TIME view shared: {}",
+                dataset.getFileId(), series.length, mismatches, view != null && view.isShared());
+        }
+
+        checkLevelOfDetail(dataset);
+        checkIncrementalUpdate(dataset);
+        checkSeriesReuse(dataset);
+        checkBatchedEvents(dataset);
+        checkSeriesStats(dataset);
+        checkFindNearest(dataset);
+
+        // Re-adding replaces series with equal keys; removal by column name drops them all
+        ECUxChartFactory.addDataset(d, dataset, "RPM", whp);
+        final int count = d.getSeriesCount();
+        ECUxChartFactory.removeDataset(d, whp);
+        if (count != series.length || d.getSeriesCount() != 0) {
+            testsFailed++;
+            logger.info("  ❌ Series replace/remove: {} series after re-add, {} after remove",
+                count, d.getSeriesCount());
+        }
+    }
+
+    private static void checkIncrementalUpdate(ECUxDataset dataset) {
+        final ColumnXYDataset d = new ColumnXYDataset();
+        final Dataset.Key whp = dataset.new Key("WHP", dataset);
+        final Dataset.Key rpm = dataset.new Key("RPM", dataset);
+        final java.util.List<ColumnXYDataset.Entry> whpSeries = ECUxChartFactory.getSeries(dataset, "TIME", whp);
+        final int n = whpSeries.size();
+
+        final ColumnXYDataset.Patch first = d.update(whpSeries);
+        final double y0 = n > 0 ? d.getYValue(0, 0) : Double.NaN;
+        // Same wanted series rebuilt from scratch: nothing to do
+        final ColumnXYDataset.Patch same = d.update(ECUxChartFactory.getSeries(dataset, "TIME", whp));
+        final boolean kept = n > 0 && Double.compare(y0, d.getYValue(0, 0)) == 0;
+
+        // Another Y key: existing series stay, new ones are appended
+        final java.util.List<ColumnXYDataset.Entry> both = new java.util.ArrayList<ColumnXYDataset.Entry>(whpSeries);
+        both.addAll(ECUxChartFactory.getSeries(dataset, "TIME", rpm));
+        final ColumnXYDataset.Patch add = d.update(both);
+
+        // Same keys on another X axis: series data changes, order does not
+        final java.util.List<ColumnXYDataset.Entry> rpmX = new java.util.ArrayList<ColumnXYDataset.Entry>();
+        rpmX.addAll(ECUxChartFactory.getSeries(dataset, "RPM", whp));
+        rpmX.addAll(ECUxChartFactory.getSeries(dataset, "RPM", rpm));
+        final ColumnXYDataset.Patch change = d.update(rpmX);
+
+        // Dropping a Y key removes only its series
+        final ColumnXYDataset.Patch remove = d.update(ECUxChartFactory.getSeries(dataset, "RPM", rpm));
+
+        if (n > 0 && first.added == n && same.isEmpty() && kept &&
+                add.added == n && add.kept == n && !add.moved &&
+                change.changed == 2 * n && !change.isStructural() &&
+                remove.removed == n && remove.kept == n && d.getSeriesCount() == n) {
+            logger.info("  ✅ {}: incremental update keeps {} unchanged series, patches adds/changes/removes",
+                dataset.getFileId(), n);
+        } else {
+            testsFailed++;
+            logger.info("  ❌ {}: incremental update: first {}, same {}, add {}, change {}, remove {}",
+                dataset.getFileId(), first, same, add, change, remove);
+        }
+    }
+
+    private static void checkSeriesReuse(ECUxDataset dataset) {
+        final ColumnXYDataset d = new ColumnXYDataset();
+        final Dataset.Key whp = dataset.new Key("WHP", dataset);
+        d.update(ECUxChartFactory.getSeries(dataset, "TIME", whp));
+        final java.util.List<ColumnXYDataset.Entry> current = d.getEntries();
+
+        // Rebuilt off the event thread: unchanged series come back as the shown ones
+        final java.util.List<ColumnXYDataset.Entry> wanted = new java.util.ArrayList<ColumnXYDataset.Entry>(
+            ECUxChartFactory.getSeries(dataset, "TIME", whp));
+        wanted.addAll(ECUxChartFactory.getSeries(dataset, "TIME", dataset.new Key("RPM", dataset)));
+        final java.util.List<ColumnXYDataset.Entry> entries = ColumnXYDataset.reuse(wanted, current);
+        boolean reused = entries.size() == wanted.size();
+        for (int i = 0; i < entries.size() && reused; i++) {
+            reused = entries.get(i) == (i < current.size() ? current.get(i) : wanted.get(i));
+        }
+
+        // Bounds of loaded views match the data
+        int badBounds = 0;
+        for (final ColumnXYDataset.Entry e : entries) {
+            final ColumnXYDataset.Stats b = e.y.load().stats();
+            final Dataset.Key k = (Dataset.Key)e.key;
+            final double[] y = dataset.getData(k, dataset.getRanges().get(k.getRange()));
+            double min = Double.POSITIVE_INFINITY, max = Double.NEGATIVE_INFINITY;
+            for (double v : y) { if (v < min) min = v; if (v > max) max = v; }
+            if (!b.hasValues() || b.min != min || b.max != max || b.count != y.length) badBounds++;
+        }
+        final ColumnXYDataset.Patch patch = d.update(entries);
+
+        if (reused && badBounds == 0 && patch.kept == current.size() && patch.added == current.size()) {
+            logger.info("  ✅ {}: {} shown series reused, bounds of {} loaded series match",
+                dataset.getFileId(), current.size(), entries.size());
+        } else {
+            testsFailed++;
+            logger.info("  ❌ {}: series reuse: reused={} bad bounds={} patch {}",
+                dataset.getFileId(), reused, badBounds, patch);
+        }
+    }
+
+    private static void checkBatchedEvents(ECUxDataset dataset) {
+        final ColumnXYDataset d = new ColumnXYDataset();
+        final int[] datasetEvents = {0};
+        d.addChangeListener(e -> datasetEvents[0]++);
+        final String[] ykeys = {"WHP", "RPM", "TIME"};
+        for (final String k : ykeys) ECUxChartFactory.addDataset(d, dataset, "RPM", dataset.new Key(k, dataset));
+        final int added = datasetEvents[0];
+        final int series = d.getSeriesCount();
+
+        // Removing by column name, then everything: one event each
+        datasetEvents[0] = 0;
+        ECUxChartFactory.removeDataset(d, "WHP");
+        final int removeKey = datasetEvents[0];
+        ECUxChartFactory.removeDataset(d);
+        final int removeAll = datasetEvents[0] - removeKey;
+
+        // A batch of adds, paints and axis changes on a chart: one chart change
+        final org.jfree.chart.renderer.xy.XYLineAndShapeRenderer renderer =
+            new org.jfree.chart.renderer.xy.XYLineAndShapeRenderer(true, false);
+        final org.jfree.chart.JFreeChart chart = new org.jfree.chart.JFreeChart(new org.jfree.chart.plot.XYPlot(d,
+            new org.jfree.chart.axis.NumberAxis(), new org.jfree.chart.axis.NumberAxis(), renderer));
+        final int[] chartEvents = {0};
+        chart.addChangeListener(e -> chartEvents[0]++);
+        ECUxChartFactory.batch(chart, () -> {
+            for (final String k : ykeys) {
+                // nested batches wait for the outermost
+                ECUxChartFactory.batch(chart, () ->
+                    ECUxChartFactory.addDataset(d, dataset, "RPM", dataset.new Key(k, dataset)));
+            }
+            for (int i = 0; i < d.getSeriesCount(); i++) renderer.setSeriesPaint(i, java.awt.Color.RED);
+            ECUxChartFactory.setAxisRange(chart, 0, 0, 100);
+        });
+        final boolean restored = chart.getXYPlot().isNotify() && d.getNotify();
+
+        if (added == ykeys.length && series > 0 && removeKey == 1 && removeAll == 1 &&
+                chartEvents[0] == 1 && restored && d.getSeriesCount() == series) {
+            logger.info("  ✅ {}: one event per bulk add/remove, one chart change per batch",
+                dataset.getFileId());
+        } else {
+            testsFailed++;
+            logger.info("  ❌ {}: batched events: add {} remove key {} remove all {} chart {} restored {}",
+                dataset.getFileId(), added, removeKey, removeAll, chartEvents[0], restored);
+        }
+    }
+
+    private static void checkSeriesStats(ECUxDataset dataset) {
+        final ColumnXYDataset d = new ColumnXYDataset();
+        ECUxChartFactory.addDataset(d, dataset, "TIME", dataset.new Key("WHP", dataset));
+        ECUxChartFactory.addDataset(d, dataset, "TIME", dataset.new Key("RPM", dataset));
+        final java.util.List<Comparable<?>> keys = new java.util.ArrayList<Comparable<?>>();
+        double min = Double.POSITIVE_INFINITY, max = Double.NEGATIVE_INFINITY;
+        double xmin = Double.POSITIVE_INFINITY, xmax = Double.NEGATIVE_INFINITY;
+        int nans = 0;
+        for (int s = 0; s < d.getSeriesCount(); s++) {
+            keys.add(d.getSeriesKey(s));
+            for (int i = 0; i < d.getItemCount(s); i++) {
+                final double x = d.getXValue(s, i), y = d.getYValue(s, i);
+                if (Double.isNaN(y)) { nans++; continue; }
+                min = Math.min(min, y); max = Math.max(max, y);
+                xmin = Math.min(xmin, x); xmax = Math.max(xmax, x);
+            }
+        }
+        int statNans = 0;
+        for (int s = 0; s < d.getSeriesCount(); s++) statNans += d.getYStats(s).nans;
+
+        // Whole domain from stats; half the domain scans only the samples inside it
+        final org.jfree.data.Range all = d.getRangeBounds(keys, null, false);
+        final org.jfree.data.Range domain = d.getDomainBounds(keys, false);
+        final double mid = (xmin + xmax) / 2;
+        final org.jfree.data.Range half = d.getRangeBounds(keys, new org.jfree.data.Range(xmin, mid), false);
+        double hmin = Double.POSITIVE_INFINITY, hmax = Double.NEGATIVE_INFINITY;
+        for (int s = 0; s < d.getSeriesCount(); s++) {
+            for (int i = 0; i < d.getItemCount(s); i++) {
+                if (d.getXValue(s, i) > mid) continue;
+                hmin = Math.min(hmin, d.getYValue(s, i)); hmax = Math.max(hmax, d.getYValue(s, i));
+            }
+        }
+        // No visible series: no bounds
+        final org.jfree.data.Range none = d.getRangeBounds(new java.util.ArrayList<Comparable<?>>(), null, false);
+
+        if (all != null && all.getLowerBound() == min && all.getUpperBound() == max && statNans == nans &&
+                domain != null && domain.getLowerBound() == xmin && domain.getUpperBound() == xmax &&
+                half != null && half.getLowerBound() == hmin && half.getUpperBound() == hmax && none == null) {
+            logger.info("  ✅ {}: cached series stats give range {} and domain {}", dataset.getFileId(), all, domain);
+        } else {
+            testsFailed++;
+            logger.info("  ❌ {}: series stats: range {} vs [{}, {}], domain {} vs [{}, {}], half {} vs [{}, {}], NaN {} vs {}",
+                dataset.getFileId(), all, min, max, domain, xmin, xmax, half, hmin, hmax, statNans, nans);
+        }
+    }
+
+    private static void checkFindNearest(ECUxDataset dataset) {
+        final ColumnXYDataset d = new ColumnXYDataset();
+        // X ascending (TIME), and X that is not (WHP against RPM)
+        ECUxChartFactory.addDataset(d, dataset, "TIME", dataset.new Key("RPM", dataset));
+        ECUxChartFactory.addDataset(d, dataset, "WHP", dataset.new Key("RPM", dataset));
+        final java.util.Random random = new java.util.Random(42);
+        int queries = 0, mismatches = 0, hits = 0;
+        for (int s = 0; s < d.getSeriesCount(); s++) {
+            final int n = d.getSampleCount(s);
+            if (n == 0) continue;
+            final ColumnXYDataset.Stats ys = d.getYStats(s);
+            double xmin = Double.POSITIVE_INFINITY, xmax = Double.NEGATIVE_INFINITY;
+            for (int i = 0; i < n; i++) { xmin = Math.min(xmin, d.getSampleX(s, i)); xmax = Math.max(xmax, d.getSampleX(s, i)); }
+            // Radii of a few pixels on an 800x600 chart
+            final double rx = (xmax - xmin) / 100, ry = (ys.max - ys.min) / 75;
+            for (int q = 0; q < 200; q++) {
+                // Near a random sample, so most lookups find something
+                final int near = random.nextInt(n);
+                final double x = d.getSampleX(s, near) + (random.nextDouble() - 0.5) * 2 * rx;
+                final double y = d.getSampleY(s, near) + (random.nextDouble() - 0.5) * 2 * ry;
+                double best = 1;
+                boolean found = false;
+                for (int i = 0; i < n; i++) {
+                    final double dx = (d.getSampleX(s, i) - x) / rx, dy = (d.getSampleY(s, i) - y) / ry;
+                    if (dx * dx + dy * dy <= best) { best = dx * dx + dy * dy; found = true; }
+                }
+                for (final boolean scatter : new boolean[] {false, true}) {
+                    queries++;
+                    if (found) hits++;
+                    final int i = d.findNearest(s, x, y, rx, ry, scatter);
+                    if (i < 0) {
+                        if (found) mismatches++;
+                        continue;
+                    }
+                    final double dx = (d.getSampleX(s, i) - x) / rx, dy = (d.getSampleY(s, i) - y) / ry;
+                    if (!found || dx * dx + dy * dy != best) mismatches++;
+                }
+            }
+        }
+        if (hits > 0 && mismatches == 0) {
+            logger.info("  ✅ {}: {} nearest-point lookups ({} hits, X order and grid) match a full scan",
+                dataset.getFileId(), queries, hits);
+        } else {
+            testsFailed++;
+            logger.info("  ❌ {}: nearest point: {} of {} lookups differ from a full scan",
+                dataset.getFileId(), mismatches, queries);
+        }
+    }
+
+    private static void checkLevelOfDetail(ECUxDataset dataset) {
+        final ColumnXYDataset d = new ColumnXYDataset();
+        final Dataset.Key rpm = dataset.new Key("RPM", dataset);
+        rpm.hideRange();
+        d.addSeries(rpm, dataset.getView("TIME", null), dataset.getView(rpm, null));
+        final double[] time = dataset.getData("TIME", null);
+        final double[] y = dataset.getData(rpm, null);
+        double min = Double.POSITIVE_INFINITY, max = Double.NEGATIVE_INFINITY;
+        for (double v : y) { min = Math.min(min, v); max = Math.max(max, v); }
+
+        // Few pixels for the whole log: coarse buckets, extremes and ends kept, X in order
+        d.setLevelOfDetail(time[0], time[time.length - 1], 4);
+        final int items = d.getItemCount(0);
+        double lodMin = Double.POSITIVE_INFINITY, lodMax = Double.NEGATIVE_INFINITY;
+        boolean ordered = true;
+        for (int i = 0; i < items; i++) {
+            lodMin = Math.min(lodMin, d.getYValue(0, i));
+            lodMax = Math.max(lodMax, d.getYValue(0, i));
+            if (i > 0 && d.getXValue(0, i) < d.getXValue(0, i - 1)) ordered = false;
+        }
+        final int level = d.getLevel(0);
+        final boolean decimated = level >= 3 && items < time.length &&
+            d.getXValue(0, 0) == time[0] && d.getXValue(0, items - 1) == time[time.length - 1];
+
+        // No width: every sample
+        d.setLevelOfDetail(time[0], time[time.length - 1], 0);
+        final boolean raw = d.getLevel(0) == 0 && d.getItemCount(0) == time.length;
+
+        if (decimated && ordered && lodMin == min && lodMax == max && raw &&
+                d.getDomainOrder() == org.jfree.data.DomainOrder.ASCENDING) {
+            logger.info("  ✅ {}: {} samples decimated to {} items at level {}, extremes kept",
+                dataset.getFileId(), time.length, items, level);
+        } else {
+            testsFailed++;
+            logger.info("  ❌ {}: level of detail: decimated={} ordered={} min {} vs {} max {} vs {} raw={}",
+                dataset.getFileId(), decimated, ordered, lodMin, min, lodMax, max, raw);
+        }
+
+        // A snapshot keeps its series and level of detail while the dataset changes
+        final ColumnXYDataset snapshot = d.snapshot();
+        snapshot.setLevelOfDetail(time[0], time[time.length - 1], 4);
+        final boolean own = snapshot.getLevel(0) == level && d.getLevel(0) == 0 &&
+            snapshot.getItemCount(0) == items;
+        d.removeAllSeries();
+        if (!own || snapshot.getSeriesCount() != 1 || snapshot.getSampleCount(0) != time.length) {
+            testsFailed++;
+            logger.info("  ❌ {}: snapshot: own level of detail {}, {} series after the dataset was cleared",
+                dataset.getFileId(), own, snapshot.getSeriesCount());
+        }
+    }
+
+    private static void checkFusedWHP(ECUxDataset dataset) {
+        java.util.ArrayList<Dataset.Range> ranges = new java.util.ArrayList<Dataset.Range>(dataset.getRanges());
+        ranges.add(dataset.new Range(0, dataset.length() - 1));
+        dataset.get("WHP");  // registers the HPMAW window
+        int[] window = dataset.getSmoothingWindowInfo("WHP", dataset.length());
+        // Rows this close to the ends of the log are clamped by the pipeline, but left raw by getData()
+        int edge = window != null ? window[0] / 2 + 2 : 2;
+        for (Dataset.Range r : ranges) {
+            double[] fused = dataset.getFusedWHP(r);
+            double[] expected = dataset.getData("WHP", r);
+            if (fused == null || expected == null || fused.length != expected.length) {
+                testsFailed++;
+                logger.info("  ❌ {}: fused WHP unavailable or wrong length for {}", dataset.getFileId(), r);
+                continue;
+            }
+            double maxErr = 0;
+            for (int i = 0; i < fused.length; i++) {
+                int row = r.start + i;
+                if (row < edge || row >= dataset.length() - edge) continue;
+                maxErr = Math.max(maxErr, Math.abs(fused[i] - expected[i]) / Math.max(1.0, Math.abs(expected[i])));
+            }
+            if (maxErr <= 1e-9) {
+                logger.info("  ✅ {}: fused WHP matches getData() over {}", dataset.getFileId(), r);
+            } else {
+                testsFailed++;
+                logger.info("  ❌ {}: fused WHP differs from getData() over {} (max rel error {})",
+                    dataset.getFileId(), r, maxErr);
+            }
+        }
+    }
+}
@@ -6,7 +6,15 @@ import org.nyet.ecuxplot.ECUxDataset;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.nyet.logfile.Dataset;
+import org.nyet.util.CubicSpline;
+import org.nyet.util.DoubleArray;
+import org.nyet.util.MonotonicDataAnalyzer;
+import org.nyet.util.Pipeline;
 import org.nyet.util.Smoothing;
+import org.nyet.util.SmoothingFilter;
+import org.nyet.util.SmoothingFilters;
+import org.nyet.util.TimeGapIndex;
+import vec_math.ButterworthSmoothing;
 
 import ch.qos.logback.classic.Level;
 
@@ -571,6 +579,479 @@ public class SmoothingTest {
             resultNone[1], resultData[1], 0.001);
     }
 
+    public static void testKernelReuse() {
+        logger.info("Testing prepared kernel reuse...");
+        ECUxDataset realDataset;
+        try {
+            realDataset = new ECUxDataset("test-data/padding-test.csv", null, null, 0);
+        } catch (Exception e) {
+            logger.info("  ⚠️  Skipping - Could not load test data: {}", e.getMessage());
+            return;
+        }
+        Dataset.Column col = realDataset.get("RPM");
+        double[] fullData = col.data.toArray();
+        Dataset.Range[] testRanges = {
+            realDataset.new Range(10, 60), realDataset.new Range(30, 100), realDataset.new Range(5, 12)
+        };
+
+        for (Smoothing.Strategy strategy : Smoothing.Strategy.values()) {
+            Smoothing.PaddingConfig pad = Smoothing.PaddingConfig.forStrategy(strategy);
+            Smoothing.Kernel kernel = new Smoothing.Kernel(9, strategy, pad.left, pad.right);
+            for (int pass = 0; pass < 2; pass++) {
+                for (Dataset.Range r : testRanges) {
+                    Smoothing.SmoothingContext ctx = Smoothing.createSmoothingContext(
+                        kernel.metadata, r.size(), strategy, pad.left, pad.right);
+                    double[] expected = Smoothing.applyStrategyToPaddedRange(
+                        Smoothing.preparePaddedRange(fullData, r, ctx.leftPad, ctx.rightPad, ctx.paddingNeeded),
+                        ctx, "RPM").extractRange();
+                    double[] actual = kernel.apply(col, "RPM", r, logger);
+                    assertTrue(strategy + " kernel matches per-call smoothing for " + r + " (pass " + pass + ")",
+                        java.util.Arrays.equals(expected, actual));
+                }
+            }
+        }
+    }
+
+    public static void testMAWRunningSum() {
+        logger.info("Testing running-sum MAW against direct window sums...");
+        ECUxDataset realDataset;
+        try {
+            realDataset = new ECUxDataset("test-data/padding-test.csv", null, null, 0);
+        } catch (Exception e) {
+            logger.info("  ⚠️  Skipping - Could not load test data: {}", e.getMessage());
+            return;
+        }
+        Dataset.Range range = realDataset.new Range(200, 4799);
+        // Large offset plus noise to expose drift, and one NaN that must stay local
+        java.util.Random rnd = new java.util.Random(42);
+        double[] data = new double[5000];
+        for (int i = 0; i < data.length; i++) data[i] = 6000.0 + 500.0 * Math.sin(i / 50.0) + rnd.nextGaussian();
+        data[2500] = Double.NaN;
+        Smoothing.Padding[] paddings = Smoothing.Padding.values();
+
+        for (int window : new int[] {3, 7, 21, 101}) {
+            Smoothing smoother = new Smoothing(window);
+            for (Smoothing.Padding left : paddings) {
+                for (Smoothing.Padding right : paddings) {
+                    Smoothing.SmoothingContext ctx = Smoothing.createSmoothingContext(
+                        new Smoothing.Metadata(window), range.size(), Smoothing.Strategy.MAW, left, right);
+                    Smoothing.PaddedRange padded = Smoothing.preparePaddedRange(
+                        data, range, left, right, ctx.paddingNeeded);
+                    double[] result = smoother.applyToPaddedRange(padded, ctx).extractRange();
+                    int mismatches = 0, smoothed = 0;
+                    for (int i = 0; i < result.length; i++) {
+                        int p = padded.range.start + i;
+                        double raw = padded.paddedData[p];
+                        boolean inBounds = p - window / 2 >= 0 && p + window / 2 < padded.paddedData.length;
+                        double direct = inBounds ? smoother.smoothAt(padded.paddedData, null, p, p) : raw;
+                        boolean nearNaN = Math.abs(range.start + i - 2500) <= window / 2;
+                        if (nearNaN) {
+                            if (!Double.isNaN(result[i]) && !Double.isNaN(raw)) mismatches++;
+                        } else if (Math.abs(result[i] - direct) <= 1e-9) {
+                            smoothed++;
+                        } else if (result[i] != raw) {
+                            mismatches++;
+                        }
+                    }
+                    assertEquals(String.format("MAW window=%d left=%s right=%s matches direct sums",
+                        window, left, right), 0, mismatches);
+                    assertTrue(String.format("MAW window=%d left=%s right=%s smooths interior",
+                        window, left, right), smoothed >= result.length - 2 * window);
+                }
+            }
+        }
+    }
+
+    public static void testSGConvolution() {
+        logger.info("Testing batch SG convolution against per-point smoothing...");
+        java.util.Random rnd = new java.util.Random(7);
+        double[] data = new double[500];
+        for (int i = 0; i < data.length; i++) data[i] = 3000.0 + 20.0 * i + 50.0 * rnd.nextGaussian();
+        vec_math.SavitzkyGolaySmoothing sg = new vec_math.SavitzkyGolaySmoothing(5, 5);
+
+        double[] expected = sg.smoothAll(data);
+        double[] actual = new double[data.length];
+        sg.convolve(data, 0, data.length - 1, actual, 0);
+        assertTrue("SG convolve matches smoothAll bit for bit", java.util.Arrays.equals(expected, actual));
+
+        double[] block = new double[40];
+        sg.convolve(data, 100, 139, block, 0);
+        assertTrue("SG convolve of a block matches smoothAll",
+            java.util.Arrays.equals(sg.smoothAll(data, 100, 139), block));
+
+        assertTrue("DoubleArray.smooth matches smoothAll",
+            java.util.Arrays.equals(expected, new DoubleArray(data).smooth().toArray()));
+    }
+
+    public static void testSGCoefficientSolver() {
+        logger.info("Testing SG coefficient solver...");
+        // Solved coefficients reproduce the rounded Numerical Recipes tables
+        double[] m2l2r2 = {-0.086, 0.343, 0.486, 0.343, -0.086};
+        double[] m4l5r5 = {0.042, -0.105, -0.023, 0.140, 0.280, 0.333, 0.280, 0.140, -0.023, -0.105, 0.042};
+        double[] m4l6r0d1 = {0.26876, -0.85585, 0.49695, 0.8628, -0.54272, -1.82409, 1.5942};
+        double[] c = vec_math.SavitzkyGolaySmoothing.coefficients(2, 2, 2, 0);
+        for (int i = 0; i < c.length; i++) assertEquals("M2L2R2[" + i + "]", m2l2r2[i], c[i], 0.0006);
+        c = vec_math.SavitzkyGolaySmoothing.coefficients(4, 5, 5, 0);
+        for (int i = 0; i < c.length; i++) assertEquals("M4L5R5[" + i + "]", m4l5r5[i], c[i], 0.0006);
+        // The tabulated derivative filter is only good to about 1e-3 (e.g. 0.8628 vs 19/22)
+        c = vec_math.SavitzkyGolaySmoothing.coefficients(4, 6, 0, 1);
+        for (int i = 0; i < c.length; i++) assertEquals("M4L6R0D1[" + i + "]", m4l6r0d1[i], c[i], 0.001);
+
+        // Non-tabulated filters are solved instead of rejected
+        vec_math.SavitzkyGolaySmoothing sg = new vec_math.SavitzkyGolaySmoothing(3, 7, 4, 2);
+        assertEquals("Solved filter length", 12, sg.getM());
+        try {
+            vec_math.SavitzkyGolaySmoothing.coefficients(4, 1, 1, 0);
+            assertTrue("Window smaller than degree is rejected", false);
+        } catch (IllegalArgumentException e) {
+            assertTrue("Window smaller than degree is rejected", true);
+        }
+
+        // A smoothed derivative of a quadratic is exact away from the edges
+        double[] t = new double[100];
+        double[] y = new double[100];
+        for (int i = 0; i < t.length; i++) {
+            t[i] = 0.05 * i;
+            y[i] = 3.0 * t[i] * t[i] + 2.0 * t[i];
+        }
+        double[] dy = new Pipeline().sg(2, 5, 5, 1).run(t, y, 5, 94);
+        double maxErr = 0;
+        for (int i = 5; i < 95; i++) maxErr = Math.max(maxErr, Math.abs(dy[i - 5] - (6.0 * t[i] + 2.0)));
+        assertEquals("SG derivative of quadratic", 0.0, maxErr, 1e-9);
+    }
+
+    public static void testPipeline() {
+        logger.info("Testing fused pipeline against column operations...");
+        java.util.Random rnd = new java.util.Random(3);
+        double[] t = new double[400];
+        double[] y = new double[400];
+        for (int i = 0; i < t.length; i++) {
+            t[i] = 0.05 * i + 0.002 * rnd.nextGaussian();
+            y[i] = 2000.0 + 1500.0 * Math.sin(i / 80.0) + 5.0 * rnd.nextGaussian();
+        }
+
+        // derivative -> max(0) -> scale -> MAW, as the Acceleration/WHP columns do it
+        double[] d = new DoubleArray(y).derivative(new DoubleArray(t)).max(0).mult(0.5).toArray();
+        double[] expected = new Smoothing(9).applyToRange(d, 0, d.length - 1);
+        Pipeline p = new Pipeline().derivative().map((src, v) -> Math.max(v, 0)).scale(0.5).maw(9);
+        double[] actual = p.run(t, y, 50, 349);
+        double maxErr = 0;
+        for (int i = 0; i < actual.length; i++) maxErr = Math.max(maxErr, Math.abs(actual[i] - expected[50 + i]));
+        assertEquals("Fused derivative/scale/MAW matches column operations", 0.0, maxErr, 1e-9);
+
+        // Clamped reads at the ends reproduce the one-sided edge difference
+        double[] edge = new Pipeline().derivative().run(t, y, 0, 399);
+        double[] raw = new DoubleArray(y)._derivative(t, 0);
+        assertEquals("Pipeline first point", raw[0], edge[0], 1e-12);
+        assertEquals("Pipeline last point", raw[399], edge[399], 1e-12);
+
+        // Source value survives the derivative for later stages
+        double[] src = new Pipeline().derivative().map((s, v) -> s).run(t, y, 10, 20);
+        assertEquals("Pipeline carries source value", y[15], src[5], 0.0);
+
+        // SG derivative stage matches (dy/di) / (dt/di) convolved directly
+        double[] c = vec_math.SavitzkyGolaySmoothing.coefficients(2, 5, 5, 1);
+        double[] sgActual = new Pipeline().sg(2, 5, 5, 1).run(t, y, 20, 379);
+        maxErr = 0;
+        for (int i = 0; i < sgActual.length; i++) {
+            double cy = 0, ct = 0;
+            for (int k = 0; k < c.length; k++) {
+                cy += c[k] * y[20 + i - 5 + k];
+                ct += c[k] * t[20 + i - 5 + k];
+            }
+            maxErr = Math.max(maxErr, Math.abs(sgActual[i] - cy / ct));
+        }
+        assertEquals("Fused SG derivative matches direct convolution", 0.0, maxErr, 1e-9);
+    }
+
+    public static void testAdaptiveCache() {
+        logger.info("Testing adaptive smoothing per-range cache...");
+        ECUxDataset realDataset;
+        try {
+            realDataset = new ECUxDataset("test-data/padding-test.csv", null, null, 0);
+        } catch (Exception e) {
+            logger.info("  ⚠️  Skipping - Could not load test data: {}", e.getMessage());
+            return;
+        }
+        // Integer RPM that holds each value for 4 samples, like a slow ECU RPM channel
+        double[] rpm = new double[1000];
+        for (int i = 0; i < rpm.length; i++) rpm[i] = 2000 + 10 * (i / 4);
+        DoubleArray data = new DoubleArray(rpm);
+        ArrayList<Dataset.Range> ranges = new ArrayList<>();
+        ranges.add(realDataset.new Range(100, 300));
+        ranges.add(realDataset.new Range(400, 700));
+
+        Smoothing.AdaptiveCache cache = new Smoothing.AdaptiveCache();
+        double[] fresh = Smoothing.smoothAdaptive(data, ranges, "RPM").toArray();
+        double[] cached = Smoothing.smoothAdaptive(data, ranges, "RPM", cache).toArray();
+        assertTrue("Cached adaptive smoothing matches uncached", java.util.Arrays.equals(fresh, cached));
+        assertEquals("Both ranges scanned", 2, cache.scans());
+
+        ranges.set(1, realDataset.new Range(450, 800));
+        cached = Smoothing.smoothAdaptive(data, ranges, "RPM", cache).toArray();
+        fresh = Smoothing.smoothAdaptive(data, ranges, "RPM").toArray();
+        assertTrue("Cached result after range change matches uncached", java.util.Arrays.equals(fresh, cached));
+        assertEquals("Only the changed range is rescanned", 3, cache.scans());
+        assertNotEquals("Quantized range is smoothed", rpm[200], cached[201], 0.001);
+    }
+
+    public static void testSmoothingFilters() {
+        logger.info("Testing pluggable smoothing filters and auto selection...");
+        ECUxDataset realDataset;
+        try {
+            realDataset = new ECUxDataset("test-data/padding-test.csv", null, null, 0);
+        } catch (Exception e) {
+            logger.info("  ⚠️  Skipping - Could not load test data: {}", e.getMessage());
+            return;
+        }
+        java.util.Random rnd = new java.util.Random(7);
+        double[] flat = new double[600];
+        double[] noise = new double[600];
+        for (int i = 0; i < flat.length; i++) {
+            flat[i] = 42.0;
+            noise[i] = rnd.nextGaussian();
+        }
+        Dataset.Range range = realDataset.new Range(50, 549);
+
+        for (Smoothing.Strategy strategy : Smoothing.Strategy.values()) {
+            Smoothing.PaddingConfig pad = Smoothing.PaddingConfig.forStrategy(strategy);
+            Smoothing.SmoothingContext ctx = Smoothing.createSmoothingContext(
+                new Smoothing.Metadata(9), range.size(), strategy, pad.left, pad.right);
+            double[] constant = Smoothing.applyStrategyToPaddedRange(
+                Smoothing.preparePaddedRange(flat, range, pad.left, pad.right, ctx.paddingNeeded),
+                ctx, "flat").extractRange();
+            double maxErr = 0;
+            for (double v : constant) maxErr = Math.max(maxErr, Math.abs(v - 42.0));
+            // The tabulated SG(5,5) coefficients sum to 1.001
+            assertEquals(strategy + " preserves a constant", 0.0, maxErr,
+                strategy == Smoothing.Strategy.SG ? 0.05 : 1e-9);
+
+            double[] smoothed = Smoothing.applyStrategyToPaddedRange(
+                Smoothing.preparePaddedRange(noise, range, pad.left, pad.right, ctx.paddingNeeded),
+                ctx, "noise").extractRange();
+            double ss = 0;
+            for (double v : smoothed) ss += v * v;
+            assertTrue(strategy + " reduces noise", Math.sqrt(ss / smoothed.length) < 0.6);
+        }
+
+        // Zero-phase Butterworth: unity DC gain, passes slow signals in place, stops fast ones
+        ButterworthSmoothing bw = new ButterworthSmoothing(0.05);
+        double[] slow = new double[1000], fast = new double[1000];
+        for (int i = 0; i < slow.length; i++) {
+            slow[i] = 3.0 + Math.sin(2 * Math.PI * 0.002 * i);
+            fast[i] = Math.sin(2 * Math.PI * 0.3 * i);
+        }
+        double[] out = new double[1000], scratch = new double[1000];
+        bw.filtfilt(slow, out, scratch, 0, 999);
+        assertEquals("Butterworth passes a slow signal without lag", slow[500], out[500], 1e-3);
+        bw.filtfilt(fast, out, scratch, 0, 999);
+        assertTrue("Butterworth stops a fast signal", Math.abs(out[500]) < 0.01);
+        boolean rejected = false;
+        try {
+            new ButterworthSmoothing(0.5);
+        } catch (IllegalArgumentException e) {
+            rejected = true;
+        }
+        assertTrue("Butterworth rejects cutoff at Nyquist", rejected);
+
+        // Auto: the reference where it is cheap enough, a cheaper close match on long data
+        double[] signal = new double[21000];
+        for (int i = 0; i < signal.length; i++) signal[i] = 500.0 * Math.sin(i / 500.0) + rnd.nextGaussian();
+        Smoothing.PaddingConfig pad = Smoothing.PaddingConfig.forStrategy(Smoothing.Strategy.AUTO);
+        Dataset.Range shortRange = realDataset.new Range(500, 999);
+        Dataset.Range longRange = realDataset.new Range(500, 20499);
+        for (Dataset.Range r : new Dataset.Range[] {shortRange, longRange}) {
+            Smoothing.SmoothingContext ctx = Smoothing.createSmoothingContext(
+                new Smoothing.Metadata(101), r.size(), Smoothing.Strategy.AUTO, pad.left, pad.right);
+            SmoothingFilter chosen = SmoothingFilters.select(
+                Smoothing.preparePaddedRange(signal, r, pad.left, pad.right, ctx.paddingNeeded), ctx);
+            if (r == shortRange) {
+                assertEquals("Auto uses the reference on short ranges", 0, chosen.name().compareTo(SmoothingFilters.REFERENCE));
+            } else {
+                assertEquals("Auto picks MAW on long smooth data", 0, chosen.name().compareTo("MAW"));
+            }
+        }
+
+        Smoothing.Kernel kernel = new Smoothing.Kernel(9, Smoothing.Strategy.AUTO, pad.left, pad.right);
+        assertEquals("Auto unresolved before use", 0, kernel.resolvedStrategy().compareTo("Auto"));
+        kernel.apply(realDataset.get("RPM"), "RPM", realDataset.new Range(10, 60), logger);
+        assertTrue("Auto resolved after use", SmoothingFilters.get(kernel.resolvedStrategy()) != null);
+
+        // The pick is made for the column, not the first range, and both paths agree on it
+        DoubleArray signalData = new DoubleArray();
+        for (double v : signal) signalData.append(v);
+        Dataset.Column signalCol = realDataset.new Column("S", "u", signalData);
+        Smoothing.Kernel columnKernel = new Smoothing.Kernel(101, Smoothing.Strategy.AUTO, pad.left, pad.right);
+        double[] actual = columnKernel.apply(signalCol, "S", shortRange, logger);
+        assertEquals("Auto picks for the column even if a short range comes first",
+            0, columnKernel.resolvedStrategy().compareTo("MAW"));
+        Smoothing.SmoothingContext shortCtx = Smoothing.createSmoothingContext(
+            columnKernel.metadata, shortRange.size(), Smoothing.Strategy.AUTO, pad.left, pad.right);
+        double[] expected = Smoothing.applyStrategyToPaddedRange(
+            Smoothing.preparePaddedRange(signal, shortRange, pad.left, pad.right, shortCtx.paddingNeeded),
+            shortCtx, "S").extractRange();
+        assertTrue("Auto without a kernel uses the same filter", java.util.Arrays.equals(expected, actual));
+    }
+
+    public static void testPaddedScratchReuse() {
+        logger.info("Testing in-place padded reads and scratch reuse...");
+        ECUxDataset realDataset;
+        try {
+            realDataset = new ECUxDataset("test-data/padding-test.csv", null, null, 0);
+        } catch (Exception e) {
+            logger.info("  ⚠️  Skipping - Could not load test data: {}", e.getMessage());
+            return;
+        }
+        // Appended columns keep spare capacity past size(), which must never be read
+        java.util.Random rnd = new java.util.Random(3);
+        DoubleArray a = new DoubleArray(), b = new DoubleArray();
+        for (int i = 0; i < 700; i++) {
+            a.append(1000.0 + 100.0 * Math.sin(i / 20.0) + rnd.nextGaussian());
+            b.append(-5.0 + 0.01 * i + rnd.nextGaussian());
+        }
+        Dataset.Column[] columns = {
+            realDataset.new Column("A", "u", a), realDataset.new Column("B", "u", b)
+        };
+        Dataset.Range[] ranges = {
+            realDataset.new Range(0, 99), realDataset.new Range(300, 450), realDataset.new Range(600, 699)
+        };
+        Smoothing.Padding[][] paddings = {
+            {Smoothing.Padding.DATA, Smoothing.Padding.DATA},
+            {Smoothing.Padding.NONE, Smoothing.Padding.MIRROR},
+            {Smoothing.Padding.MIRROR, Smoothing.Padding.DATA},
+        };
+
+        for (Smoothing.Strategy strategy : Smoothing.Strategy.values()) {
+            for (Smoothing.Padding[] pad : paddings) {
+                Smoothing.Kernel kernel = new Smoothing.Kernel(15, strategy, pad[0], pad[1]);
+                for (Dataset.Range r : ranges) {
+                    for (Dataset.Column col : columns) {
+                        Smoothing.SmoothingContext ctx = Smoothing.createSmoothingContext(
+                            kernel.metadata, r.size(), strategy, pad[0], pad[1]);
+                        double[] expected = Smoothing.applyStrategyToPaddedRange(
+                            Smoothing.preparePaddedRange(col.data.toArray(), r, pad[0], pad[1], ctx.paddingNeeded),
+                            ctx, "X").extractRange();
+                        double[] actual = kernel.apply(col, "X", r, logger);
+                        assertTrue(String.format("%s %s/%s column %s range %s matches copied input",
+                            strategy, pad[0], pad[1], col.getId(), r), java.util.Arrays.equals(expected, actual));
+                    }
+                }
+            }
+        }
+    }
+
+    public static void testCubicSpline() {
+        logger.info("Testing natural cubic spline and inverse...");
+        // A pull: RPM rising with time, sampled at an uneven rate
+        double[] t = new double[60], rpm = new double[60];
+        for (int i = 0; i < t.length; i++) {
+            t[i] = i * 0.1 + (i % 3 == 0 ? 0.02 : 0.0);
+            rpm[i] = 2500 + 900 * t[i] + 60 * t[i] * t[i];
+        }
+        CubicSpline spline = new CubicSpline(t, rpm);
+        assertEquals("Knots kept", 60, spline.size());
+        assertEquals("Passes through knots", rpm[17], spline.interpolate(t[17]), 1e-9);
+        assertEquals("Smooth between knots", 2500 + 900 * 2.35 + 60 * 2.35 * 2.35, spline.interpolate(2.35), 0.05);
+        double tAt4000 = spline.inverse(4000);
+        assertEquals("Inverse round trip", 4000, spline.interpolate(tAt4000), 1e-6);
+        assertEquals("Inverse matches analytic time", (-900 + Math.sqrt(900 * 900 + 4 * 60 * 1500)) / 120, tAt4000, 1e-3);
+
+        boolean rejected = false;
+        try {
+            spline.inverse(12000);
+        } catch (IllegalArgumentException e) {
+            rejected = true;
+        }
+        assertTrue("Inverse rejects RPM never reached", rejected);
+        rejected = false;
+        try {
+            spline.interpolate(-1);
+        } catch (IllegalArgumentException e) {
+            rejected = true;
+        }
+        assertTrue("Interpolate rejects x out of range", rejected);
+
+        // A dip: the first crossing wins, and unsorted or duplicate x are handled
+        CubicSpline dip = new CubicSpline(new double[] {3, 0, 1, 2, 2, 4}, new double[] {12, 10, 14, 11, 13, 16});
+        assertEquals("Duplicate x merged", 5, dip.size());
+        assertEquals("Duplicate x averaged", 12, dip.interpolate(2), 1e-12);
+        assertTrue("First crossing of a non-monotone spline", dip.inverse(13) < 1);
+        assertEquals("Peak value found at its knot", 1.0, dip.inverse(14), 0.0);
+        double inDip = dip.inverse(12);
+        assertTrue("Value reached before the dip is not found again inside it", inDip > 0 && inDip < 1);
+        assertTrue("Value only reached after the dip", dip.inverse(15) > 3);
+
+        // Batch lookups in one pass match single lookups; unreached values are NaN
+        double[] bands = {2600, 3000, 4200, 6500, 9800, 12000};
+        double[] times = new double[bands.length];
+        spline.inverse(bands, times);
+        for (int k = 0; k < bands.length - 1; k++) {
+            assertEquals("Batch inverse at " + bands[k], spline.inverse(bands[k]), times[k], 0.0);
+        }
+        assertTrue("Batch inverse of unreached value", Double.isNaN(times[bands.length - 1]));
+
+        // Three points on a line stay on the line
+        CubicSpline line = new CubicSpline(new double[] {0, 1, 3}, new double[] {1, 3, 7});
+        assertEquals("Natural spline reproduces a line", 6, line.interpolate(2.5), 1e-12);
+        assertEquals("Inverse on a line", 2.5, line.inverse(6), 1e-9);
+    }
+
+    public static void testTimeGapIndex() {
+        logger.info("Testing time gap index...");
+        // Two 10 Hz sessions of 40 samples with a 30 second pause between them
+        double[] time = new double[80];
+        for (int i = 0; i < 80; i++) {
+            time[i] = i * 0.1 + (i >= 40 ? 30.0 : 0.0) + (i % 2 == 0 ? 0.0 : 0.01);
+        }
+        TimeGapIndex gaps = new TimeGapIndex(time);
+        assertEquals("Segments", 2, gaps.segments());
+        assertEquals("Second segment start", 40, gaps.start(1));
+        assertEquals("First segment end", 39, gaps.end(0));
+        assertEquals("Segment of row 39", 0, gaps.segmentOf(39));
+        assertEquals("Segment of row 40", 1, gaps.segmentOf(40));
+        assertEquals("Sample rate ignores pause", 10.0, gaps.samplesPerSec(), 0.05);
+        assertTrue("First/last sample rate underestimates",
+            MonotonicDataAnalyzer.calculateSampleRate(time) < 3.0);
+
+        double[] smoothed = MonotonicDataAnalyzer.smoothTimeByDeltas(gaps, gaps.samplesPerSec());
+        assertTrue("Pause not spread into first segment", smoothed[39] - smoothed[38] < 0.2);
+        assertTrue("Pause not spread into second segment", smoothed[41] - smoothed[40] < 0.2);
+        assertEquals("Second segment start kept", time[40], smoothed[40], 1e-9);
+
+        TimeGapIndex single = new TimeGapIndex(new double[] {0.0, 0.1, 0.2, 0.3});
+        assertEquals("No gaps", 1, single.segments());
+        assertEquals("Matches first/last sample rate",
+            MonotonicDataAnalyzer.calculateSampleRate(single.time()), single.samplesPerSec(), 1e-9);
+
+        // 10 Hz with nine half second dropouts: shorter than a gap, so one segment
+        // whose rate without the dropouts is still 10 Hz, where the mean is about 7.3 Hz
+        double[] dropouts = new double[100];
+        for (int i = 1; i < dropouts.length; i++) {
+            dropouts[i] = dropouts[i-1] + (i % 10 == 0 ? 0.5 : 0.1);
+        }
+        TimeGapIndex dropped = new TimeGapIndex(dropouts);
+        assertEquals("Dropouts are not gaps", 1, dropped.segments());
+        assertEquals("Segment median interval", 0.1, dropped.medianInterval(0), 1e-9);
+        assertEquals("Segment sample rate ignores dropouts", 10.0, dropped.samplesPerSec(0), 1e-6);
+        assertEquals("Sample rate ignores dropouts", 10.0, dropped.samplesPerSec(), 1e-6);
+        assertTrue("Mean sample rate underestimates",
+            MonotonicDataAnalyzer.calculateSampleRate(dropouts) < 8.0);
+
+        // A timestamp slightly out of order is jitter; a large step back is a new session
+        TimeGapIndex jitter = new TimeGapIndex(new double[] {0.0, 0.1, 0.2, 0.19, 0.3, 0.4, 0.5});
+        assertEquals("Small backwards step is not a gap", 1, jitter.segments());
+        TimeGapIndex sessions = new TimeGapIndex(new double[] {10.0, 10.1, 10.2, 10.3, 0.0, 0.1, 0.2, 0.3});
+        assertEquals("Large backwards step is a gap", 2, sessions.segments());
+        assertEquals("New session start", 4, sessions.start(1));
+        assertEquals("New session sample rate", 10.0, sessions.samplesPerSec(1), 1e-6);
+
+        // No positive interval: no median, still split where time goes backwards
+        TimeGapIndex stuck = new TimeGapIndex(new double[] {5.0, 5.0, 5.0, 2.0, 2.0});
+        assertEquals("Constant time split on backwards step", 2, stuck.segments());
+        assertEquals("Constant time second segment start", 3, stuck.start(1));
+        assertEquals("Constant time has no sample rate", 0.0, stuck.samplesPerSec(), 0.0);
+    }
+
     public static void main(String[] args) {
         logger.info("=== Smoothing Tests ===");
         logger.info("");
@@ -586,6 +1067,16 @@ public class SmoothingTest {
         testMAWPaddingIndependence();
         testSGPaddingIndependence();
         testMAWRightPaddingEffectiveness();
+        testKernelReuse();
+        testMAWRunningSum();
+        testSGConvolution();
+        testSGCoefficientSolver();
+        testPipeline();
+        testAdaptiveCache();
+        testSmoothingFilters();
+        testPaddedScratchReuse();
+        testCubicSpline();
+        testTimeGapIndex();
 
         logger.info("");
         logger.info("=== Test Results ===");
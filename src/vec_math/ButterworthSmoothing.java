@@ -0,0 +1,102 @@
+package vec_math;
+
+/**
+   Second order Butterworth low-pass filter. It is a recursive (IIR)
+   filter with
+   <pre>
+             y<sub>n</sub>=b<sub>0</sub>x<sub>n</sub>+b<sub>1</sub>x<sub>n-1</sub>+b<sub>2</sub>x<sub>n-2</sub>-a<sub>1</sub>y<sub>n-1</sub>-a<sub>2</sub>y<sub>n-2</sub>
+   </pre>
+   The coefficients follow from the bilinear transform of the analog
+   prototype, so the response is maximally flat in the pass band.
+   A single pass delays the signal; {@link #filtfilt} runs the filter
+   forward and backward, which cancels the phase shift and squares the
+   magnitude response.<p>
+   <b>Literature:</b><br>
+   <i>Numerical Recipies for C</i>, p 558ff.
+*/
+
+public class ButterworthSmoothing extends LinearSmoothing
+{
+    protected double cutoff;
+
+    /**
+       @param cutoff The -3dB frequency as a fraction of the sample rate,
+       between zero and the Nyquist frequency (0.5).
+    */
+    public ButterworthSmoothing(double cutoff)
+    {
+	if (!(cutoff > 0. && cutoff < 0.5))
+	    throw new IllegalArgumentException("Cutoff must be between 0 and 0.5: " + cutoff);
+	this.cutoff = cutoff;
+
+	final double k = Math.tan(Math.PI*cutoff);
+	final double norm = 1./(1. + Math.sqrt(2.)*k + k*k);
+	final double b0 = k*k*norm;
+	final double a1 = 2.*(k*k - 1.)*norm;
+	final double a2 = (1. - Math.sqrt(2.)*k + k*k)*norm;
+
+	// cn runs over x[n-2..n], dn over y[n-2..n-1]
+	this.cn = new double[] {b0, 2.*b0, b0};
+	this.dn = new double[] {-a2, -a1};
+	this.nk = -2;
+	this.nj = -2;
+
+	setType();
+    }
+
+    @Override
+    protected void setType()
+    {
+	this.type = IIR;
+    }
+
+    /**
+       Returns the cutoff frequency as a fraction of the sample rate.
+    */
+    public double getCutoff()
+    {
+	return this.cutoff;
+    }
+
+    /**
+       Runs the filter once, forward, over <tt>input[from..to]</tt> and
+       writes the result to the same indices of <tt>output</tt>. Unlike
+       {@link #smoothAll}, the recursion is evaluated in order, so one pass
+       is exact. The first two outputs are primed with the input.
+    */
+    public void filter(double[] input, double[] output, int from, int to)
+    {
+	if (from < 0 || to >= input.length || to >= output.length)
+	    throw new IllegalArgumentException("Cannot filter " + from + ":" + to +
+		" of " + input.length);
+
+	int i1;
+	for (i1 = from; i1 <= to && i1 < from+2; i1 ++)
+	    output[i1] = input[i1];
+	for (i1 = from+2; i1 <= to; i1 ++)
+	    output[i1] = smoothAt(input, output, i1, i1);
+    }
+
+    /**
+       Zero-phase filtering of <tt>input[from..to]</tt>: forward, then
+       backward over the result. Writes to the same indices of
+       <tt>output</tt>, and uses <tt>scratch</tt> (at least as long as
+       <tt>output</tt>) for the intermediate passes.
+    */
+    public void filtfilt(double[] input, double[] output, double[] scratch, int from, int to)
+    {
+	filter(input, scratch, from, to);
+	reverse(scratch, from, to);
+	filter(scratch, output, from, to);
+	reverse(output, from, to);
+    }
+
+    private static void reverse(double[] a, int from, int to)
+    {
+	for (int i = from, j = to; i < j; i ++, j --) {
+	    final double t = a[i];
+	    a[i] = a[j];
+	    a[j] = t;
+	}
+    }
+}
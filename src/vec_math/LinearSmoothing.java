@@ -240,6 +240,54 @@ public abstract class LinearSmoothing extends Object
 
 	return ret;
     }
+    /**
+       Convolves a block of input points with the data coefficients in a
+       single pass, writing the results to <tt>output</tt> starting at
+       <tt>offset</tt>. Nothing is allocated, and the sum for each point is
+       formed in the same order as in {@link #smoothAt}, so the results are
+       identical.<br>
+       Edges are handled explicitly: points in <tt>start..end</tt> whose
+       window does not fit into <tt>input</tt> are copied unchanged. Only
+       FIR filters can be convolved this way, otherwise an
+       <tt>IllegalArgumentException</tt> is thrown.
+       @param input The input points
+       @param start The index of the first point to smooth.
+       @param end The index of the last point to smooth.
+       @param output Receives <tt>end-start+1</tt> smoothed points.
+       @param offset The index in output for the point at start.
+    */
+    public void convolve(double[] input, int start, int end, double[] output, int offset)
+    {
+	if (this.cn == null || this.dn != null)
+	    throw new IllegalArgumentException("Only FIR filters can be convolved");
+	if (start > end)
+	    return;
+	if (start < 0 || end >= input.length || offset < 0 || offset+end-start >= output.length)
+	    throw new IllegalArgumentException("Cannot convolve " + start + ":" + end +
+		" from " + input.length + " into " + offset + ":" + output.length);
+
+	final double[] c = this.cn;
+	final int m = c.length;
+	// interior: points whose whole window lies in input
+	final int first = Math.max(start, -this.nk);
+	final int last = Math.min(end, input.length-this.nk-m);
+
+	int i1;
+	for (i1 = start; i1 <= end && i1 < first; i1 ++)
+	    output[offset+i1-start] = input[i1];
+
+	for (i1 = first; i1 <= last; i1 ++) {
+	    final int base = i1+this.nk;
+	    double ret = 0.;
+	    for (int k = 0; k != m; k ++)
+		ret += c[k]*input[base+k];
+	    output[offset+i1-start] = ret;
+	}
+
+	for (i1 = Math.max(first, last+1); i1 <= end; i1 ++)
+	    output[offset+i1-start] = input[i1];
+    }
+
     public double[] smoothAll(double[] input)
     {
 	// System.out.println("input="+input.length+", nk="+nk);
@@ -2,6 +2,7 @@ package vec_math;
 
 import java.io.*;
 import java.util.StringTokenizer;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
    This class provides a Savitky-Golay Digital Smoothing filter. It is a
@@ -13,6 +14,11 @@ import java.util.StringTokenizer;
    the smoothing polynom are two or four. The smoothing window must not
    be symmetric around <i>i</i>, in fact it can even extend to only one
    side of <i>i</i>.<p>
+   Besides the tabulated standard filters, coefficients for any degree,
+   window and derivative order are solved on first use and cached, see
+   {@link #coefficients}. Derivative filters return the derivative with
+   respect to the sample index; divide by the sample interval to the power
+   of the derivative order to get a time derivative.<p>
    <b>Literature:</b><br>
    Numerical Recipies in C, p. 650ff
 */
@@ -33,6 +39,10 @@ public class SavitzkyGolaySmoothing extends LinearSmoothing
 					  0.333,
 					  0.280,  0.140, -0.023,-0.105, 0.042};
 
+    /** Solved coefficient tables, keyed by degree, nl, nr and derivative */
+    private static final ConcurrentHashMap<String, double[]> solved =
+	new ConcurrentHashMap<String, double[]>();
+
     protected int degree;
     protected int derivative;
 
@@ -59,49 +69,46 @@ public class SavitzkyGolaySmoothing extends LinearSmoothing
 	this.nk         = -nl;
 	this.nj         = 0;
 
-	// in the default implementation, only the 'standard' coef are allowed
+	// the 'standard' coef are tabulated, everything else is solved
 
 	boolean allowed = false;
 
-	if (der != 0) {
-	    if (der == 1 && nl == 6 && nr == 0 && deg == 4) {
-		allowed = true;
-		this.cn = M4L6R0D1;
-	    }
-	    else throw new IllegalArgumentException("Not implemented!");
+	if (der == 1 && nl == 6 && nr == 0 && deg == 4) {
+	    allowed = true;
+	    this.cn = M4L6R0D1;
 	}
 
-	if (deg == 2 && nl == 2 && nr == 2) {
+	if (der == 0 && deg == 2 && nl == 2 && nr == 2) {
 	    allowed = true;
 	    this.cn    = M2L2R2;
 	}
 
-	if (deg == 2 && nl == 3 && nr == 1) {
+	if (der == 0 && deg == 2 && nl == 3 && nr == 1) {
 	    allowed = true;
 	    this.cn    = M2L3R1;
 	}
 
-	if (deg == 2 && nl == 4 && nr == 0) {
+	if (der == 0 && deg == 2 && nl == 4 && nr == 0) {
 	    allowed = true;
 	    this.cn    = M2L4R0;
 	}
 
-	if (deg == 2 && nl == 5 && nr == 5) {
+	if (der == 0 && deg == 2 && nl == 5 && nr == 5) {
 	    allowed = true;
 	    this.cn    = M2L5R5;
 	}
 
-	if (deg == 4 && nl == 4 && nr == 4) {
+	if (der == 0 && deg == 4 && nl == 4 && nr == 4) {
 	    allowed = true;
 	    this.cn    = M4L4R4;
 	}
 
-	if (deg == 4 && nl == 5 && nr == 5) {
+	if (der == 0 && deg == 4 && nl == 5 && nr == 5) {
 	    allowed = true;
 	    this.cn    = M4L5R5;
 	}
 
-	if (!allowed) throw new IllegalArgumentException("Not implemented!");
+	if (!allowed) this.cn = solve(deg, nl, nr, der);
 
 	setType();
     }
@@ -128,6 +135,94 @@ public class SavitzkyGolaySmoothing extends LinearSmoothing
 	}
     }
 
+    /**
+       Returns the Savitzky-Golay coefficients for a window of <tt>nl</tt>
+       points to the left and <tt>nr</tt> points to the right, a smoothing
+       polynom of degree <tt>deg</tt> and the <tt>der</tt>th derivative.
+       The coefficients are ordered from <i>n=-nl</i> to <i>n=nr</i>, like
+       {@link #cn}. They are solved once and cached; the returned array is
+       a copy.
+       If the window cannot support the polynom, or the derivative is
+       larger than the degree, an <tt>IllegalArgumentException</tt> is
+       thrown.
+    */
+    public static double[] coefficients(int deg, int nl, int nr, int der)
+    {
+	return solve(deg, nl, nr, der).clone();
+    }
+
+    private static double[] solve(int deg, int nl, int nr, int der)
+    {
+	if (nl < 0 || nr < 0 || deg < 0 || der < 0 || der > deg || nl+nr < deg)
+	    throw new IllegalArgumentException("Invalid Savitzky-Golay filter: degree " + deg +
+		", nl " + nl + ", nr " + nr + ", derivative " + der);
+
+	final String key = deg + ":" + nl + ":" + nr + ":" + der;
+	double[] c = solved.get(key);
+	if (c == null) {
+	    c = leastSquares(deg, nl, nr, der);
+	    final double[] prev = solved.putIfAbsent(key, c);
+	    if (prev != null) c = prev;
+	}
+	return c;
+    }
+
+    /**
+       Solves the normal equations of the least-square polynomial fit
+       (Numerical Recipies in C, savgol). The fit is linear in the data, so
+       the coefficient for each point is the <tt>der</tt>th derivative of
+       the fitted polynom at zero for a unit impulse at that point.
+    */
+    private static double[] leastSquares(int deg, int nl, int nr, int der)
+    {
+	final int m = deg+1;
+	final double[][] a = new double[m][m+1];
+	int i1, j1;
+
+	// a[i][j] = sum of n^(i+j) over the window, augmented with the unit vector for der
+	for (i1 = 0; i1 != m; i1 ++) {
+	    for (j1 = 0; j1 != m; j1 ++) {
+		double sum = 0.;
+		for (int n = -nl; n <= nr; n ++)
+		    sum += Math.pow(n, i1+j1);
+		a[i1][j1] = sum;
+	    }
+	    a[i1][m] = (i1 == der) ? 1. : 0.;
+	}
+
+	// Gauss-Jordan elimination with partial pivoting
+	for (i1 = 0; i1 != m; i1 ++) {
+	    int pivot = i1;
+	    for (j1 = i1+1; j1 != m; j1 ++)
+		if (Math.abs(a[j1][i1]) > Math.abs(a[pivot][i1]))
+		    pivot = j1;
+	    if (a[pivot][i1] == 0.)
+		throw new IllegalArgumentException("Singular Savitzky-Golay system");
+	    final double[] t = a[i1]; a[i1] = a[pivot]; a[pivot] = t;
+	    for (j1 = 0; j1 != m; j1 ++) {
+		if (j1 == i1) continue;
+		final double f = a[j1][i1]/a[i1][i1];
+		for (int k = i1; k <= m; k ++)
+		    a[j1][k] -= f*a[i1][k];
+	    }
+	}
+
+	double fact = 1.;
+	for (i1 = 2; i1 <= der; i1 ++)
+	    fact *= i1;
+
+	final double[] c = new double[nl+nr+1];
+	for (int n = -nl; n <= nr; n ++) {
+	    double sum = 0., pow = 1.;
+	    for (j1 = 0; j1 != m; j1 ++) {
+		sum += a[j1][m]/a[j1][j1]*pow;
+		pow *= n;
+	    }
+	    c[n+nl] = fact*sum;
+	}
+	return c;
+    }
+
     @Override
     protected void setType()
     {